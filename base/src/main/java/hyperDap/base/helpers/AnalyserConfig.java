@@ -0,0 +1,317 @@
+package hyperDap.base.helpers;
+
+import java.util.concurrent.ForkJoinPool;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * The immutable configuration of a {@link DerivDepthAnalyser}.
+ * <p>
+ * A configuration is created with the default values by {@link #AnalyserConfig()} and adjusted
+ * with the {@code with...} methods, each of which returns a new configuration and leaves the
+ * original unchanged. Instances can therefore be shared freely between threads.
+ * 
+ * @author soenk
+ *
+ */
+public final class AnalyserConfig {
+
+  /**
+   * How the tangent between two values is calculated during analysis.
+   */
+  public enum TangentMode {
+    /**
+     * Use {@link Tangenter#tangentApprox(double, double, double, double)}.
+     */
+    FAST,
+    /**
+     * Use {@link Tangenter#tangentExact(double, double, double)} for values that are not equal
+     * within the precision.
+     */
+    EXACT,
+    /**
+     * Quantise each value to a {@code long} multiple of the precision and calculate the
+     * differences of these exactly, with {@code long} arithmetic. A difference is only zero if the
+     * quantised values are equal, which does not depend on the depth or on floating point errors.
+     * The precision therefore applies to the values rather than to their derivatives and must be
+     * positive. See {@link DerivDepthAnalyser#quantise(double, double)}.
+     */
+    INTEGER
+  }
+
+  /**
+   * The arithmetic of the differences of logarithmic values, with which segments of infinite
+   * {@code derivDepth} are checked for exponential functions.
+   */
+  public enum ExpArithmetic {
+    /**
+     * Use plain {@code doubles}, as {@link TangentMode#FAST}.
+     */
+    DOUBLE,
+    /**
+     * Use {@link DoubleDouble} arithmetic for the logarithms and their differences, which gives
+     * about 106 bits of precision, i.e. a relative error below {@code 1e-31} of the logarithm of
+     * any positive value, at a small constant factor over plain {@code doubles}.
+     */
+    DOUBLE_DOUBLE
+  }
+
+  /**
+   * The precision used by the static helpers of {@link Tangenter} if none has been configured.
+   */
+  public static final double DEFAULT_PRECISION = 0.001;
+
+  private final double precision;
+  private final int maxDepth;
+  private final boolean doInfiniteDepths;
+  private final TangentMode tangentMode;
+  private final ExpArithmetic expArithmetic;
+  private final int parallelThreshold;
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructor for the default configuration: the precision of each analysed
+   * {@link ValueDataSet}, a {@code maxDepth} of {@code 10}, further analysis of infinite
+   * {@code derivDepths}, {@link TangentMode#FAST} tangents, {@link ExpArithmetic#DOUBLE} checks
+   * for exponential functions and parallel analysis on the {@link ForkJoinPool#commonPool()} from
+   * {@code 65536} values onwards.
+   */
+  public AnalyserConfig() {
+    this(Double.NaN, 10, true, TangentMode.FAST, 1 << 16, null);
+  }
+
+  /**
+   * Constructor for a configuration with {@link ExpArithmetic#DOUBLE} checks for exponential
+   * functions.
+   * 
+   * @param precision The precision within which two values are considered equal, or
+   *        {@link Double#NaN} to use {@link ValueDataSet#getPrecision()} of each analysed set.
+   * @param maxDepth The maximum depth to which the derivative is calculated.
+   * @param doInfiniteDepths Whether infinite {@code derivDepths} are further analysed.
+   * @param tangentMode How tangents are calculated.
+   * @param parallelThreshold The smallest number of values that is analysed in parallel.
+   * @param pool The {@link ForkJoinPool} for parallel analysis, or {@code null} to use the
+   *        {@link ForkJoinPool#commonPool()}.
+   * @throws IllegalArgumentException If {@code precision} is negative, {@code maxDepth} is smaller
+   *         than {@code 2} or too large for a {@link DerivDepthList}, {@code tangentMode} is
+   *         {@code null} or {@code parallelThreshold} is negative.
+   */
+  public AnalyserConfig(double precision, int maxDepth, boolean doInfiniteDepths,
+      TangentMode tangentMode, int parallelThreshold, ForkJoinPool pool)
+      throws IllegalArgumentException {
+    this(precision, maxDepth, doInfiniteDepths, tangentMode, ExpArithmetic.DOUBLE,
+        parallelThreshold, pool);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param precision The precision within which two values are considered equal, or
+   *        {@link Double#NaN} to use {@link ValueDataSet#getPrecision()} of each analysed set.
+   * @param maxDepth The maximum depth to which the derivative is calculated.
+   * @param doInfiniteDepths Whether infinite {@code derivDepths} are further analysed.
+   * @param tangentMode How tangents are calculated.
+   * @param expArithmetic The arithmetic of the checks for exponential functions.
+   * @param parallelThreshold The smallest number of values that is analysed in parallel.
+   * @param pool The {@link ForkJoinPool} for parallel analysis, or {@code null} to use the
+   *        {@link ForkJoinPool#commonPool()}.
+   * @throws IllegalArgumentException If {@code precision} is negative, {@code maxDepth} is smaller
+   *         than {@code 2} or too large for a {@link DerivDepthList}, {@code tangentMode} or
+   *         {@code expArithmetic} is {@code null} or {@code parallelThreshold} is negative.
+   */
+  public AnalyserConfig(double precision, int maxDepth, boolean doInfiniteDepths,
+      TangentMode tangentMode, ExpArithmetic expArithmetic, int parallelThreshold,
+      ForkJoinPool pool) throws IllegalArgumentException {
+    if (precision < 0) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot use a negative precision of %s", AnalyserConfig.class,
+              precision));
+    }
+    if (maxDepth < 2 || maxDepth - 2 > DerivDepthList.MAX_DEPTH) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot analyse to a maxDepth of %s", AnalyserConfig.class, maxDepth));
+    }
+    if (tangentMode == null) {
+      throw new IllegalArgumentException(
+          String.format("%s requires a %s", AnalyserConfig.class, TangentMode.class));
+    }
+    if (expArithmetic == null) {
+      throw new IllegalArgumentException(
+          String.format("%s requires an %s", AnalyserConfig.class, ExpArithmetic.class));
+    }
+    if (parallelThreshold < 0) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot use a negative parallelThreshold of %s", AnalyserConfig.class,
+              parallelThreshold));
+    }
+    this.precision = precision;
+    this.maxDepth = maxDepth;
+    this.doInfiniteDepths = doInfiniteDepths;
+    this.tangentMode = tangentMode;
+    this.expArithmetic = expArithmetic;
+    this.parallelThreshold = parallelThreshold;
+    this.pool = pool;
+  }
+
+  // copies
+  // ****************************************************************************************
+
+  /**
+   * @param precision The new precision, or {@link Double#NaN} to use that of each analysed set.
+   * @return A copy of this configuration with the given precision.
+   */
+  public AnalyserConfig withPrecision(double precision) {
+    return new AnalyserConfig(precision, this.maxDepth, this.doInfiniteDepths, this.tangentMode,
+        this.expArithmetic, this.parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param maxDepth The new {@code maxDepth}.
+   * @return A copy of this configuration with the given {@code maxDepth}.
+   */
+  public AnalyserConfig withMaxDepth(int maxDepth) {
+    return new AnalyserConfig(this.precision, maxDepth, this.doInfiniteDepths, this.tangentMode,
+        this.expArithmetic, this.parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param doInfiniteDepths Whether infinite {@code derivDepths} are further analysed.
+   * @return A copy of this configuration with the given setting.
+   */
+  public AnalyserConfig withInfiniteDepths(boolean doInfiniteDepths) {
+    return new AnalyserConfig(this.precision, this.maxDepth, doInfiniteDepths, this.tangentMode,
+        this.expArithmetic, this.parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param tangentMode The new {@link TangentMode}.
+   * @return A copy of this configuration with the given {@link TangentMode}.
+   */
+  public AnalyserConfig withTangentMode(TangentMode tangentMode) {
+    return new AnalyserConfig(this.precision, this.maxDepth, this.doInfiniteDepths, tangentMode,
+        this.expArithmetic, this.parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param expArithmetic The new {@link ExpArithmetic}.
+   * @return A copy of this configuration with the given {@link ExpArithmetic}.
+   */
+  public AnalyserConfig withExpArithmetic(ExpArithmetic expArithmetic) {
+    return new AnalyserConfig(this.precision, this.maxDepth, this.doInfiniteDepths,
+        this.tangentMode, expArithmetic, this.parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param parallelThreshold The smallest number of values that is analysed in parallel, use
+   *        {@link Integer#MAX_VALUE} to always analyse sequentially.
+   * @return A copy of this configuration with the given threshold.
+   */
+  public AnalyserConfig withParallelThreshold(int parallelThreshold) {
+    return new AnalyserConfig(this.precision, this.maxDepth, this.doInfiniteDepths,
+        this.tangentMode, this.expArithmetic, parallelThreshold, this.pool);
+  }
+
+  /**
+   * @param pool The {@link ForkJoinPool} for parallel analysis, or {@code null} to use the
+   *        {@link ForkJoinPool#commonPool()}.
+   * @return A copy of this configuration with the given pool.
+   */
+  public AnalyserConfig withPool(ForkJoinPool pool) {
+    return new AnalyserConfig(this.precision, this.maxDepth, this.doInfiniteDepths,
+        this.tangentMode, this.expArithmetic, this.parallelThreshold, pool);
+  }
+
+  // getters
+  // ****************************************************************************************
+
+  /**
+   * @return The configured precision, which is {@link Double#NaN} if that of each analysed set is
+   *         used.
+   */
+  public double getPrecision() {
+    return this.precision;
+  }
+
+  /**
+   * Gives the precision used to analyse {@code set}.
+   * 
+   * @param set The {@link ValueDataSet} that is analysed.
+   * @return The configured precision, or that of {@code set} if none is configured.
+   */
+  public double getPrecision(ValueDataSet<? extends Number> set) {
+    if (Double.isNaN(this.precision)) {
+      return set.getPrecision();
+    }
+    return this.precision;
+  }
+
+  /**
+   * @return The maximum depth to which the derivative is calculated.
+   */
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  /**
+   * @return Whether infinite {@code derivDepths} are further analysed.
+   */
+  public boolean doInfiniteDepths() {
+    return this.doInfiniteDepths;
+  }
+
+  /**
+   * @return How tangents are calculated.
+   */
+  public TangentMode getTangentMode() {
+    return this.tangentMode;
+  }
+
+  /**
+   * @return The arithmetic of the checks for exponential functions.
+   */
+  public ExpArithmetic getExpArithmetic() {
+    return this.expArithmetic;
+  }
+
+  /**
+   * @return The smallest number of values that is analysed in parallel.
+   */
+  public int getParallelThreshold() {
+    return this.parallelThreshold;
+  }
+
+  /**
+   * @return The {@link ForkJoinPool} for parallel analysis.
+   */
+  public ForkJoinPool getPool() {
+    if (this.pool == null) {
+      return ForkJoinPool.commonPool();
+    }
+    return this.pool;
+  }
+
+  /**
+   * Whether analyses with this and {@code other} configuration produce the same
+   * {@code derivDepths}, i.e. whether they only differ in how the analysis is executed.
+   * 
+   * @param other The configuration to compare to.
+   * @return {@code true} if both configurations produce the same results.
+   */
+  public boolean sameResults(AnalyserConfig other) {
+    return other != null && Double.compare(this.precision, other.precision) == 0
+        && this.maxDepth == other.maxDepth && this.doInfiniteDepths == other.doInfiniteDepths
+        && this.tangentMode == other.tangentMode && this.expArithmetic == other.expArithmetic;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return String.format(
+        "%s[precision=%s, maxDepth=%s, doInfiniteDepths=%s, tangentMode=%s, expArithmetic=%s]",
+        AnalyserConfig.class.getSimpleName(), this.precision, this.maxDepth,
+        this.doInfiniteDepths, this.tangentMode, this.expArithmetic);
+  }
+
+}
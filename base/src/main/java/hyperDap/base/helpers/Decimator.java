@@ -0,0 +1,201 @@
+package hyperDap.base.helpers;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * A helper class that reduces a {@link ValueDataSet} to a number of representative indices
+ * proportional to a display width rather than to its size, such that charts of large traces can be
+ * drawn in bounded time.
+ * <p>
+ * The indices of a DataSet are split into {@code buckets} of equal length, usually one per pixel.
+ * {@link #minMax(ValueDataSet, int)} keeps the smallest and largest valid value of each bucket,
+ * which preserves the envelope of the trace including any spikes.
+ * {@link #derivDepths(ValueDataSet, int)} keeps the first and last index of each
+ * {@code derivDepth} within each bucket, as well as every point of interest
+ * ({@link DerivDepthList#CHANGE}).
+ *
+ * @author soenk
+ *
+ */
+public final class Decimator {
+
+  /**
+   * Private constructor to prevent implementing this class.
+   */
+  private Decimator() {
+    throw new AssertionError("No helper class instances for anyone!");
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Throws an {@link IllegalArgumentException} if {@code buckets} is not positive.
+   *
+   * @category helper
+   * @param buckets The number of buckets to be checked.
+   */
+  private static void checkBuckets(int buckets) throws IllegalArgumentException {
+    if (buckets <= 0) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot decimate into %s buckets", Decimator.class, buckets));
+    }
+  }
+
+  /**
+   * The first index of bucket {@code bucket} of a DataSet of {@code size} values.
+   *
+   * @category helper
+   * @param bucket The bucket, where {@code buckets} is the end of the last one.
+   * @param buckets The number of buckets.
+   * @param size The size of the DataSet.
+   * @return The first index of {@code bucket}.
+   */
+  private static int bucketStart(int bucket, int buckets, int size) {
+    return (int) ((long) bucket * size / buckets);
+  }
+
+  /**
+   * Read a value as a {@code double}, without boxing it if possible.
+   *
+   * @category helper
+   * @param set The DataSet to read from.
+   * @param doubles {@code set} if it is a {@link DoubleValueDataSet}, {@code null} otherwise.
+   * @param index The index of the value.
+   * @return The value at {@code index}.
+   */
+  private static double value(ValueDataSet<? extends Number> set, DoubleValueDataSet doubles,
+      int index) {
+    if (doubles != null) {
+      return doubles.getDouble(index);
+    }
+    return set.getByIndex(index).doubleValue();
+  }
+
+  // decimation
+  // ****************************************************************************************
+
+  /**
+   * Find the indices of the smallest and largest valid value within each of {@code buckets}
+   * consecutive ranges of {@code set}.
+   * <p>
+   * At most {@code 2 * buckets} indices are returned, so drawing them takes time proportional to
+   * {@code buckets} regardless of the size of {@code set}. If {@code set} has no more than that
+   * many values, the indices of all valid values are returned.
+   *
+   * @param set The DataSet to be decimated.
+   * @param buckets The number of ranges, usually the width of the chart in pixels.
+   * @return The selected indices in ascending order.
+   * @throws IllegalArgumentException If {@code buckets} is not positive.
+   */
+  public static int[] minMax(ValueDataSet<? extends Number> set, int buckets)
+      throws IllegalArgumentException {
+    checkBuckets(buckets);
+    int size = set.size();
+    if (size <= 2 * buckets) {
+      int[] indices = new int[size];
+      int count = 0;
+      for (int i = set.nextValidIndex(0); i >= 0 && i < size; i = set.nextValidIndex(i + 1)) {
+        indices[count++] = i;
+      }
+      return Arrays.copyOf(indices, count);
+    }
+    DoubleValueDataSet doubles = null;
+    if (set instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) set;
+    }
+    int[] indices = new int[2 * buckets];
+    int count = 0;
+    for (int b = 0; b < buckets; b++) {
+      int end = bucketStart(b + 1, buckets, size);
+      int min = -1;
+      int max = -1;
+      double minValue = Double.POSITIVE_INFINITY;
+      double maxValue = Double.NEGATIVE_INFINITY;
+      for (int i = bucketStart(b, buckets, size); i < end; i++) {
+        if (set.getValidByIndex(i) == false) {
+          continue;
+        }
+        double value = value(set, doubles, i);
+        if (min < 0 || value < minValue) {
+          minValue = value;
+          min = i;
+        }
+        if (max < 0 || value > maxValue) {
+          maxValue = value;
+          max = i;
+        }
+      }
+      if (min < 0) {
+        continue; // no valid values in this bucket
+      }
+      indices[count++] = Math.min(min, max);
+      if (min != max) {
+        indices[count++] = Math.max(min, max);
+      }
+    }
+    return Arrays.copyOf(indices, count);
+  }
+
+  /**
+   * Find the indices needed to draw the {@code derivDepths} of {@code set} within each of
+   * {@code buckets} consecutive ranges: the first and last index of each {@code derivDepth} found
+   * in a range, as well as every index whose {@code derivDepth} is {@link DerivDepthList#CHANGE},
+   * i.e. every point of interest.
+   * <p>
+   * Apart from points of interest, the number of indices returned is proportional to
+   * {@code buckets} and the number of distinct {@code derivDepths}, regardless of the size of
+   * {@code set}. The {@code derivDepths} are calculated first if necessary.
+   *
+   * @param set The DataSet whose {@code derivDepths} are to be decimated.
+   * @param buckets The number of ranges, usually the width of the chart in pixels.
+   * @return The selected indices in ascending order.
+   * @throws IllegalArgumentException If {@code buckets} is not positive.
+   */
+  public static int[] derivDepths(ValueDataSet<? extends Number> set, int buckets)
+      throws IllegalArgumentException {
+    checkBuckets(buckets);
+    int size = set.size();
+    BitSet keep = new BitSet(size);
+    int[] depths = new int[8];
+    int[] firsts = new int[8];
+    int[] lasts = new int[8];
+    for (int b = 0; b < buckets && size > 0; b++) {
+      int start = bucketStart(b, buckets, size);
+      int end = bucketStart(b + 1, buckets, size);
+      int classes = 0;
+      for (int i = start; i < end; i++) {
+        int depth = set.getDerivDepthsByIndex(i);
+        if (depth == DerivDepthList.CHANGE) {
+          keep.set(i); // points of interest are always kept
+          continue;
+        }
+        int c = 0;
+        while (c < classes && depths[c] != depth) {
+          c++;
+        }
+        if (c == classes) {
+          if (classes == depths.length) {
+            depths = Arrays.copyOf(depths, 2 * classes);
+            firsts = Arrays.copyOf(firsts, 2 * classes);
+            lasts = Arrays.copyOf(lasts, 2 * classes);
+          }
+          depths[c] = depth;
+          firsts[c] = i;
+          classes++;
+        }
+        lasts[c] = i;
+      }
+      for (int c = 0; c < classes; c++) {
+        keep.set(firsts[c]);
+        keep.set(lasts[c]);
+      }
+    }
+    return keep.stream().toArray();
+  }
+
+}
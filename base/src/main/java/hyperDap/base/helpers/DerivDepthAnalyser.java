@@ -0,0 +1,1432 @@
+package hyperDap.base.helpers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * Calculates the depth of derivative ({@code derivDepth}) of {@link ValueDataSet ValueDataSets}
+ * as configured by an {@link AnalyserConfig}.
+ * <p>
+ * An analyser holds no state besides its immutable configuration, so a single instance can be
+ * shared between any number of threads and analyse different sets concurrently. Analyses with
+ * different configurations simply use different instances. The static methods of
+ * {@link Tangenter} delegate to a default instance.
+ * 
+ * @author soenk
+ *
+ */
+public final class DerivDepthAnalyser {
+
+  /**
+   * The smallest number of values analysed by one task in
+   * {@link #calcDerivDepthParallel(ValueDataSet)}.
+   */
+  private static final int MIN_CHUNK_SIZE = 1 << 12;
+  /**
+   * The rows of Pascal's triangle used by {@link #countDerivDepth(ValueDataSet, int)}, up to the
+   * largest order whose binomial coefficients are exact as {@code doubles}.
+   */
+  private static final long[][] BINOMIALS = binomials(57);
+  /**
+   * The deviation from {@code step}, relative to it, within which independent values are
+   * considered evenly spaced, see {@link #spacing(double, double, int, double)}.
+   */
+  private static final double EVEN_SPACING = 1e-9;
+
+  /**
+   * The quantised value of a value or difference that cannot be represented by a {@code long},
+   * see {@link #quantise(double, double)}. It is never zero.
+   */
+  public static final long OVERFLOW = Long.MIN_VALUE;
+
+  /**
+   * The cancellation check of analyses that cannot be cancelled.
+   */
+  private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+  /**
+   * Detects changes between segments one counted {@code derivDepth} at a time, in order of the
+   * values. A change starts at a value whose deepest derivative is not zero although its
+   * {@code derivDepth} is finite, and is marked {@code maxDepth - 2} values later, where the
+   * derivatives no longer include the previous segment. The values in between keep the
+   * {@code derivDepth} of the previous segment.
+   */
+  static final class ChangeDetector {
+
+    private final int maxDepth;
+    private boolean tracking = false;
+    private boolean started = false;
+    private int depthTemp = 0;
+    private long change = -1;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxDepth The maximum depth to which the derivatives were calculated.
+     */
+    ChangeDetector(int maxDepth) {
+      this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Passes the next value through the detection of changes.
+     * 
+     * @param index The index of the value, which follows that of the previous call.
+     * @param depth The counted {@code derivDepth} of the value.
+     * @param deepest Whether the derivative of the value at {@code maxDepth - 1} is not zero.
+     * @return The {@code derivDepth} of the value after the detection of changes.
+     */
+    int next(long index, int depth, boolean deepest) {
+      int code = index == this.change ? DerivDepthList.CHANGE : depth;
+      int result = code;
+      this.started = false;
+      if (this.tracking == true) {
+        if (code != DerivDepthList.CHANGE) {
+          result = this.depthTemp;
+        }
+      } else if (deepest && code < this.maxDepth - 1) {
+        this.depthTemp = code;
+        this.change = index + this.maxDepth - 2;
+        this.tracking = true;
+        this.started = true;
+        if (this.change == index) {
+          result = DerivDepthList.CHANGE;
+        }
+      }
+      if (code == DerivDepthList.CHANGE) {
+        this.tracking = false;
+      }
+      return result;
+    }
+
+    /**
+     * @return Whether the last value passed to {@link #next(long, int, boolean)} started the
+     *         detection of a change.
+     */
+    boolean started() {
+      return this.started;
+    }
+
+    /**
+     * @return Whether a change is being tracked, i.e. has been started but not yet marked.
+     */
+    boolean isTracking() {
+      return this.tracking;
+    }
+
+    /**
+     * @return The index at which the last detected change is marked, or {@code -1} if there was
+     *         none.
+     */
+    long getChange() {
+      return this.change;
+    }
+
+    /**
+     * @return The {@code derivDepth} of the segment before the last detected change.
+     */
+    int getPreviousDepth() {
+      return this.depthTemp;
+    }
+  }
+
+  private final AnalyserConfig config;
+  private final boolean exact;
+  private final boolean integer;
+
+  /**
+   * Constructor for an analyser with the default {@link AnalyserConfig}.
+   */
+  public DerivDepthAnalyser() {
+    this(new AnalyserConfig());
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param config The configuration of this analyser.
+   * @throws IllegalArgumentException If {@code config} is {@code null}.
+   */
+  public DerivDepthAnalyser(AnalyserConfig config) throws IllegalArgumentException {
+    if (config == null) {
+      throw new IllegalArgumentException(
+          String.format("%s requires an %s", DerivDepthAnalyser.class, AnalyserConfig.class));
+    }
+    this.config = config;
+    this.exact = config.getTangentMode() == AnalyserConfig.TangentMode.EXACT;
+    this.integer = config.getTangentMode() == AnalyserConfig.TangentMode.INTEGER;
+  }
+
+  /**
+   * @return The configuration of this analyser.
+   */
+  public AnalyserConfig getConfig() {
+    return this.config;
+  }
+
+  // analysis
+  // ****************************************************************************************
+
+  /**
+   * Calculates and returns the depth of derivative ({@code derivDepth}) for {@code dataset}.
+   * <p>
+   * The {@code derivDepth} is the number of times a trace derivative (the tangent between two
+   * points, see {@link Tangenter#tangentSimple(double, double, double)}) is NOT zero. For each
+   * point this indicates the degree of the polynomial the data is representing, if it is
+   * polynomial. If not the {@code derivDepth} will be assigned {@link Integer#MAX_VALUE} until
+   * further analysis, to represent infinity. This will also be assigned if the derivDepth would be
+   * larger than {@code maxDepth - 1}.
+   * <p>
+   * If infinite {@code derivDepths} are analysed, see {@link AnalyserConfig#doInfiniteDepths()},
+   * any {@link Integer#MAX_VALUE} {@code derivDepth} values will be further analysed and assigned
+   * {@code -2} if exponential, {@code -3} for trigonometric and {@code -5} otherwise, with the
+   * correct change values of {@code -1} also assigned.
+   * <p>
+   * The values of a {@link PairDataSet} need not be equidistant, its derivatives are calculated as
+   * divided differences over the recorded independent values instead, see
+   * {@link #countDerivDepths(ValueDataSet, int, int, int, DerivDepthList, BitSet, double[], BooleanSupplier)}.
+   * <p>
+   * A {@link DoubleValueDataSet} is read through its primitive accessors without unboxing. From
+   * {@link AnalyserConfig#getParallelThreshold()} values onwards the analysis is executed in
+   * parallel, see {@link #calcDerivDepthParallel(ValueDataSet)}.
+   * 
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   *         Note that the last {@code maxDepth} values may be inaccurate.
+   */
+  public DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset) {
+    return this.analyse(dataset, this.config.doInfiniteDepths(), null, NOT_CANCELLED);
+  }
+
+  /**
+   * As {@link #calcDerivDepth(ValueDataSet)}, but retains the intermediate results in
+   * {@code state} so they can later be updated by
+   * {@link #updateDerivDepth(ValueDataSet, DerivDepthList, DerivDepthState, BitSet)}.
+   * 
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param state Receives the intermediate results, replacing any previous ones.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   */
+  public DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset,
+      DerivDepthState state) {
+    return this.calcDerivDepth(dataset, state, NOT_CANCELLED);
+  }
+
+  /**
+   * As {@link #calcDerivDepth(ValueDataSet, DerivDepthState)}, but checks {@code cancelled} between
+   * chunks of values and between the segments of infinite {@code derivDepth}, both in sequence and
+   * on {@link AnalyserConfig#getPool()}, and aborts once it returns {@code true}. A background
+   * task can therefore stop an analysis it no longer needs instead of completing it.
+   * 
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param state Receives the intermediate results, replacing any previous ones. It holds no
+   *        results if the analysis was cancelled.
+   * @param cancelled Returns {@code true} once the analysis should be aborted. It may be called
+   *        from any thread.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  public DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset,
+      DerivDepthState state, BooleanSupplier cancelled) throws CancellationException {
+    state.invalidate();
+    DerivDepthList depths =
+        this.analyse(dataset, this.config.doInfiniteDepths(), state, cancelled);
+    state.config = this.config;
+    state.size = depths.size();
+    return depths;
+  }
+
+  /**
+   * Updates the {@code derivDepths} of {@code dataset} after the values at the indices set in
+   * {@code changed} were altered or added, such that the result equals that of
+   * {@link #calcDerivDepth(ValueDataSet)}.
+   * <p>
+   * The {@code derivDepth} of a value only depends on the {@code maxDepth} values following it, so
+   * only these windows are counted again. Points of change are then detected again from the last
+   * value before each window at which no change was being tracked, until the detection agrees with
+   * the previous one after the window. Finally any segments of infinite {@code derivDepth} that
+   * overlap the recalculated values are analysed again as a whole. The time required is therefore
+   * proportional to the number of changed values rather than the size of {@code dataset}.
+   * <p>
+   * If {@code state} does not hold results of this analyser's configuration, values were removed
+   * or a large part of {@code dataset} changed, all {@code derivDepths} are calculated again.
+   * 
+   * @param dataset The {@link ValueDataSet} that was analysed.
+   * @param depths The {@code derivDepths} of the previous analysis, which are updated in place.
+   * @param state The intermediate results of the previous analysis, which are updated in place.
+   * @param changed The indices of all values that changed since the previous analysis, including
+   *        those added since.
+   * @return The updated {@link DerivDepthList}, which is {@code depths} unless all
+   *         {@code derivDepths} were calculated again.
+   */
+  public DerivDepthList updateDerivDepth(ValueDataSet<? extends Number> dataset,
+      DerivDepthList depths, DerivDepthState state, BitSet changed) {
+    int maxDepth = this.config.getMaxDepth();
+    int size = dataset.size();
+    int oldSize = state.size;
+    // with a negative step values are analysed in reverse, so adding values moves all of them
+    boolean reverse = dataset.getStep() <= 0;
+    if (state.isValidFor(this.config) == false || depths == null || depths.size() != oldSize
+        || size < oldSize || oldSize <= 2 * maxDepth || maxDepth < 3
+        || (reverse == true && size != oldSize)) {
+      return this.calcDerivDepth(dataset, state);
+    }
+    // collect the values whose counted derivDepth depends on the changes
+    List<int[]> windows = new ArrayList<int[]>();
+    int count = 0;
+    for (int i = changed.nextSetBit(0); i >= 0 && i < size; i = changed.nextSetBit(i)) {
+      int end = Math.min(size, changed.nextClearBit(i));
+      count += end - i;
+      if (count > size / 4) {
+        // not worth updating
+        return this.calcDerivDepth(dataset, state);
+      }
+      if (reverse == true) {
+        windows.add(new int[] {Math.max(0, size - end - maxDepth + 1), size - i});
+        // the further analysis of infinite segments reads values by the same index
+        windows.add(new int[] {i, end});
+      } else {
+        windows.add(new int[] {Math.max(0, i - maxDepth + 1), end});
+      }
+      i = end;
+    }
+    if (size != oldSize) {
+      // the values near the end depend on the number of values
+      windows.add(new int[] {Math.max(0, oldSize - maxDepth - 1), size});
+      depths.ensureCapacity(size);
+      state.raw.ensureCapacity(size);
+      for (int i = oldSize; i < size; i++) {
+        depths.add(0);
+        state.raw.add(0);
+      }
+      state.size = size;
+    }
+    // update each window in order, joining those that are close together
+    windows.sort((w1, w2) -> Integer.compare(w1[0], w2[0]));
+    int w = 0;
+    while (w < windows.size()) {
+      int from = windows.get(w)[0];
+      int to = windows.get(w)[1];
+      w++;
+      while (w < windows.size() && windows.get(w)[0] - to < maxDepth) {
+        to = Math.max(to, windows.get(w)[1]);
+        w++;
+      }
+      this.updateWindow(dataset, depths, state, from, to);
+    }
+    smoothEndOfDepths(depths, maxDepth);
+    return depths;
+  }
+
+  /**
+   * Creates a {@link DerivDepthState} without results, which records the intermediate results of
+   * {@link #calcDerivDepth(ValueDataSet, DerivDepthState)} for later updates.
+   * 
+   * @return A new, empty {@link DerivDepthState}.
+   */
+  public static DerivDepthState createState() {
+    return new DerivDepthState();
+  }
+
+  /**
+   * A parallel implementation of {@link #calcDerivDepth(ValueDataSet)} that returns exactly the
+   * same {@code derivDepths}, regardless of {@link AnalyserConfig#getParallelThreshold()}.
+   * <p>
+   * The indices of {@code dataset} are split into chunks, whose derivatives and {@code derivDepth}
+   * are calculated independently on {@link AnalyserConfig#getPool()}. As the derivatives of a
+   * value only depend on the values after it, each chunk also reads the {@code maxDepth - 1}
+   * values following it. The chunks are then joined in order, before points of change are
+   * detected in a single sequential pass, as this depends on the results of all previous values.
+   * Finally segments of infinite {@code derivDepth} are further analysed in parallel, as they are
+   * independent of each other.
+   * 
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   */
+  public DerivDepthList calcDerivDepthParallel(ValueDataSet<? extends Number> dataset) {
+    return this.analyseParallel(dataset, this.config.doInfiniteDepths(), null, NOT_CANCELLED);
+  }
+
+  /**
+   * Counts the {@code derivDepth} of the value at {@code index} alone, without analysing the rest
+   * of {@code dataset}, e.g. for a few cursor positions in a large trace.
+   * <p>
+   * The derivative of order {@code j} at {@code index} only depends on the {@code j + 1} values
+   * from it, by the binomial formula {@code d^j y(i) = sum((-1)^(j - m) * C(j, m) * y(i + m))}
+   * over {@code m = 0..j}, with the coefficients taken from a precomputed table. It is zero where
+   * {@code |d^j y(i)| / |step|^(j - 1)} is within the precision, as
+   * {@link #tangent(double, double, double, double)} compares the derivatives of order
+   * {@code j - 1}. With {@link AnalyserConfig.TangentMode#INTEGER} the quantised values are summed
+   * exactly instead, see {@link #quantise(double, double)}. The divided differences of a
+   * {@link PairDataSet} that is not evenly spaced there, and orders whose coefficients are not
+   * exact, are calculated from the values as in {@link #calcDerivDepth(ValueDataSet)}. Either way
+   * a query costs {@code O(maxDepth^2)}, regardless of the size of {@code dataset}.
+   * <p>
+   * The result is the {@code derivDepth} as counted before points of change are marked and
+   * infinite {@code derivDepths} are further analysed, so it differs from the result of
+   * {@link #calcDerivDepth(ValueDataSet)} around changes. As the derivatives of lower orders are
+   * not rounded to zero first, it may also differ where they are just within the precision.
+   * 
+   * @param dataset The {@link ValueDataSet} whose value is analysed.
+   * @param index The index of the value, in the order of {@link #calcDerivDepth(ValueDataSet)}.
+   * @return The counted {@code derivDepth}, which is {@link DerivDepthList#INFINITE} if no
+   *         derivative up to {@code maxDepth - 1} is zero.
+   * @throws IndexOutOfBoundsException If there is no value at {@code index}.
+   * @throws IllegalArgumentException If the values are quantised to a precision that is not
+   *         positive.
+   */
+  public int countDerivDepth(ValueDataSet<? extends Number> dataset, int index)
+      throws IndexOutOfBoundsException, IllegalArgumentException {
+    int size = dataset.size();
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(String.format("Index: %s, Size: %s", index, size));
+    }
+    int maxDepth = this.config.getMaxDepth();
+    int last = size - 2; // the last value used by the derivative matrix
+    int orders = Math.min(maxDepth - 1, last - index);
+    if (orders < 1) {
+      // as the incomplete values at the end in countDerivDepths
+      return Math.max(0, last - index);
+    }
+    double step = dataset.getStep();
+    double precision = this.config.getPrecision(dataset);
+    // with a negative step values are analysed in reverse
+    int X = step > 0 || dataset instanceof PairDataSet ? 0 : size - 1;
+    DoubleValueDataSet doubles = null;
+    if (dataset instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) dataset;
+    }
+    double[] values = new double[orders + 1];
+    for (int m = 0; m <= orders; m++) {
+      if (doubles != null) {
+        values[m] = doubles.getDouble(Math.abs(X - index - m));
+      } else {
+        values[m] = dataset.getByIndex(Math.abs(X - index - m)).doubleValue();
+      }
+    }
+    // evenly spaced pairs are equidistant values, see spacing(double, double, int, double)
+    boolean divided = false;
+    if (dataset instanceof PairDataSet) {
+      for (int m = 0; m < orders && divided == false; m++) {
+        double x = dataset.getIndependentValue(index + m);
+        double next = dataset.getIndependentValue(index + m + 1);
+        divided = spacing(next, x, 1, step) != step
+            || spacing(next, dataset.getIndependentValue(index), m + 1, step) != step;
+      }
+    }
+    int zero;
+    if (divided == true || orders >= BINOMIALS.length
+        || (this.integer == true && dataset instanceof PairDataSet)) {
+      zero = this.firstZeroOfPyramid(dataset, index, values, precision);
+    } else if (this.integer == true) {
+      zero = firstZeroOfQuanta(values, precision);
+    } else {
+      zero = firstZeroOfBinomials(values, Math.abs(step), precision);
+    }
+    if (zero != 0) {
+      return zero - 1;
+    }
+    if (orders == maxDepth - 1) {
+      return DerivDepthList.INFINITE;
+    }
+    return last - index;
+  }
+
+  /**
+   * Calculates the tangent between two values as configured by
+   * {@link AnalyserConfig#getTangentMode()}.
+   * 
+   * @param step The difference in {@code xValue} between the values.
+   * @param y1 The first of the values with a lower {@code xValue}.
+   * @param y2 The second of the values with the higher {@code xValue}
+   * @param precision The precision within which the values are considered equal.
+   * @return Zero if {@code y1} and {@code y2} are equal within {@code precision}, the slope of the
+   *         tangent between them otherwise.
+   */
+  public double tangent(double step, double y1, double y2, double precision) {
+    if (this.integer == true) {
+      long difference = difference(quantise(y2, precision), quantise(y1, precision));
+      if (difference == 0) {
+        return 0.0;
+      }
+      if (difference == OVERFLOW) {
+        return Tangenter.tangentSimple(step, y1, y2);
+      }
+      return difference * precision / step;
+    }
+    if (this.exact == true) {
+      if (Comparator.equalApprox(y1, y2, precision)) {
+        return 0.0;
+      }
+      return Tangenter.tangentExact(step, y1, y2);
+    }
+    return Tangenter.tangentApprox(step, y1, y2, precision);
+  }
+
+  /**
+   * Quantises {@code value} to a multiple of {@code precision}, as used by
+   * {@link AnalyserConfig.TangentMode#INTEGER}. Data that is integral anyway, e.g. ADC counts, is
+   * represented exactly with a precision of {@code 1}.
+   * 
+   * @param value The value to be quantised.
+   * @param precision The quantum, which must be positive.
+   * @return The nearest multiple of {@code precision} as a {@code long}, or {@link #OVERFLOW} if
+   *         that cannot be represented or {@code value} is {@code NaN}.
+   */
+  public static long quantise(double value, double precision) {
+    double quanta = Math.rint(value / precision);
+    if (Math.abs(quanta) < 0x1p63) {
+      return (long) quanta;
+    }
+    return OVERFLOW; // also NaN
+  }
+
+  /**
+   * Subtracts two quantised values exactly, see {@link #quantise(double, double)}.
+   * 
+   * @param q2 The quantised value with the higher {@code xValue}.
+   * @param q1 The quantised value with the lower {@code xValue}.
+   * @return {@code q2 - q1}, or {@link #OVERFLOW} if either is {@link #OVERFLOW} or the difference
+   *         does not fit into a {@code long}.
+   */
+  public static long difference(long q2, long q1) {
+    if (q2 == OVERFLOW || q1 == OVERFLOW) {
+      return OVERFLOW;
+    }
+    long difference = q2 - q1;
+    if (((q2 ^ q1) & (q2 ^ difference)) < 0) {
+      return OVERFLOW;
+    }
+    return difference;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Helper for {@link #calcDerivDepth(ValueDataSet)}, which allows the further analysis of
+   * infinite {@code derivDepths} to be disabled for recursive calls.
+   * 
+   * @category helper
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param doInfiniteDepths Whether infinite derivDepths should be further analysed.
+   * @param state Receives the intermediate results if not {@code null}.
+   * @param cancelled Returns {@code true} once the analysis should be aborted.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  private DerivDepthList analyse(ValueDataSet<? extends Number> dataset, boolean doInfiniteDepths,
+      DerivDepthState state, BooleanSupplier cancelled) throws CancellationException {
+    if (dataset.size() >= this.config.getParallelThreshold()) {
+      return this.analyseParallel(dataset, doInfiniteDepths, state, cancelled);
+    }
+    int maxDepth = this.config.getMaxDepth();
+    int size = dataset.size();
+    DerivDepthList depths = new DerivDepthList(size);
+    BitSet deepest = new BitSet(size);
+    // calculate trace by trace derivatives and count derivDepth
+    this.countDerivDepths(dataset, 0, size, maxDepth, depths, deepest, null, cancelled);
+    // detect and mark points of change
+    detectDepthChanges(deepest, depths, maxDepth, state);
+    // further analysis
+    if (doInfiniteDepths == true) {
+      for (int[] segment : checkInfs(depths, maxDepth)) {
+        this.checkForExp(dataset, depths, segment[0], segment[1], maxDepth, cancelled);
+      }
+    }
+    smoothEndOfDepths(depths, maxDepth);
+    // finished
+    return depths;
+  }
+
+  /**
+   * Helper for {@link #calcDerivDepthParallel(ValueDataSet)}, which allows the further analysis of
+   * infinite {@code derivDepths} to be disabled for recursive calls.
+   * 
+   * @category helper
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param doInfiniteDepths Whether infinite derivDepths should be further analysed.
+   * @param state Receives the intermediate results if not {@code null}.
+   * @param cancelled Returns {@code true} once the analysis should be aborted.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  private DerivDepthList analyseParallel(ValueDataSet<? extends Number> dataset,
+      boolean doInfiniteDepths, DerivDepthState state, BooleanSupplier cancelled)
+      throws CancellationException {
+    int maxDepth = this.config.getMaxDepth();
+    ForkJoinPool pool = this.config.getPool();
+    int size = dataset.size();
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (4 * pool.getParallelism()) + 1);
+    int chunks = (size + chunkSize - 1) / chunkSize;
+    DerivDepthList[] chunkDepths = new DerivDepthList[chunks];
+    BitSet[] chunkDeepest = new BitSet[chunks];
+    List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int chunk = c;
+      final int from = c * chunkSize;
+      final int to = Math.min(size, from + chunkSize);
+      tasks.add(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          chunkDepths[chunk] = new DerivDepthList(to - from);
+          chunkDeepest[chunk] = new BitSet(to - from);
+          DerivDepthAnalyser.this.countDerivDepths(dataset, from, to, maxDepth, chunkDepths[chunk],
+              chunkDeepest[chunk], null, cancelled);
+        }
+      });
+    }
+    invokeAll(pool, tasks);
+    // stitch the chunks together in order
+    DerivDepthList depths = new DerivDepthList(size);
+    BitSet deepest = new BitSet(size);
+    for (int c = 0; c < chunks; c++) {
+      depths.addAll(chunkDepths[c]);
+      for (int i = chunkDeepest[c].nextSetBit(0); i >= 0; i = chunkDeepest[c].nextSetBit(i + 1)) {
+        deepest.set(c * chunkSize + i);
+      }
+      chunkDepths[c] = null;
+      chunkDeepest[c] = null;
+    }
+    // detect and mark points of change
+    detectDepthChanges(deepest, depths, maxDepth, state);
+    // further analysis, each segment only alters its own derivDepths
+    if (doInfiniteDepths == true) {
+      tasks.clear();
+      for (int[] segment : checkInfs(depths, maxDepth)) {
+        tasks.add(new RecursiveAction() {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute() {
+            DerivDepthAnalyser.this.checkForExp(dataset, depths, segment[0], segment[1], maxDepth,
+                cancelled);
+          }
+        });
+      }
+      invokeAll(pool, tasks);
+    }
+    smoothEndOfDepths(depths, maxDepth);
+    // finished
+    return depths;
+  }
+
+  /**
+   * Helper for {@link #updateDerivDepth(ValueDataSet, DerivDepthList, DerivDepthState, BitSet)}
+   * that updates the {@code derivDepths} for a window of values whose counted {@code derivDepth}
+   * may have changed.
+   * 
+   * @category helper
+   * @param dataset The {@link ValueDataSet} that was analysed.
+   * @param depths The {@code derivDepths} that are updated.
+   * @param state The intermediate results that are updated.
+   * @param from The first value whose {@code derivDepth} may have changed, inclusively.
+   * @param to The last value whose {@code derivDepth} may have changed, exclusively.
+   */
+  private void updateWindow(ValueDataSet<? extends Number> dataset, DerivDepthList depths,
+      DerivDepthState state, int from, int to) {
+    int maxDepth = this.config.getMaxDepth();
+    int size = depths.size();
+    // count derivDepth again
+    DerivDepthList counted = new DerivDepthList(to - from);
+    BitSet deepest = new BitSet(to - from);
+    this.countDerivDepths(dataset, from, to, maxDepth, counted, deepest, null, NOT_CANCELLED);
+    for (int i = from; i < to; i++) {
+      state.raw.set(i, counted.get(i - from));
+      state.deepest.set(i, deepest.get(i - from));
+    }
+    // restart the detection of changes where none was being tracked
+    int start = from;
+    for (int j = from - 1; j >= 0 && j + maxDepth - 2 >= from; j--) {
+      if (state.starts.get(j)) {
+        start = j;
+        break;
+      }
+    }
+    ChangeDetector detector = new ChangeDetector(maxDepth);
+    int previousChange = -1;
+    int i;
+    for (i = start; i < size; i++) {
+      if (i >= to && detector.isTracking() == false && previousChange < i) {
+        // both detections agree from here on
+        break;
+      }
+      if (state.starts.get(i)) {
+        previousChange = i + maxDepth - 2;
+      }
+      int result = detector.next(i, state.raw.get(i), state.deepest.get(i));
+      state.starts.set(i, detector.started());
+      depths.set(i, result);
+      state.infinite.set(i, result == DerivDepthList.INFINITE);
+    }
+    // include all of any infinite segments that overlap the updated values
+    int end = i;
+    while (start > 0 && state.infinite.get(start - 1)) {
+      start--;
+      depths.set(start, DerivDepthList.INFINITE);
+    }
+    while (end < size && state.infinite.get(end)) {
+      depths.set(end, DerivDepthList.INFINITE);
+      end++;
+    }
+    if (this.config.doInfiniteDepths() == true) {
+      for (int[] segment : checkInfs(depths, start, end, maxDepth)) {
+        this.checkForExp(dataset, depths, segment[0], segment[1], maxDepth, NOT_CANCELLED);
+      }
+    }
+  }
+
+  /**
+   * Helper to execute all {@code tasks} on {@code pool} and wait for their completion.
+   * 
+   * @category helper
+   * @param pool The {@link ForkJoinPool} to execute on.
+   * @param tasks The tasks to be executed.
+   */
+  private static void invokeAll(ForkJoinPool pool, List<RecursiveAction> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    pool.invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute() {
+        ForkJoinTask.invokeAll(tasks);
+      }
+    });
+  }
+
+  /**
+   * Helper to abort an analysis once {@code cancelled} returns {@code true}.
+   * 
+   * @category helper
+   * @param cancelled The cancellation check of the analysis.
+   * @throws CancellationException If {@code cancelled} returns {@code true}.
+   */
+  private static void checkCancelled(BooleanSupplier cancelled) throws CancellationException {
+    if (cancelled.getAsBoolean() == true) {
+      throw new CancellationException(
+          String.format("%s analysis was cancelled", DerivDepthAnalyser.class));
+    }
+  }
+
+  /**
+   * Calculates the trace by trace derivatives of {@code set} and counts the {@code derivDepth} of
+   * the values from index {@code from} to {@code to}, as used in
+   * {@link #calcDerivDepth(ValueDataSet)}.
+   * <p>
+   * Rather than the whole matrix of derivatives, only its most recent diagonal is retained, which
+   * holds one derivative of each depth. Each value read completes the derivatives of the value
+   * {@code maxDepth - 1} indices before it. As in the full matrix, the last value of {@code set} is
+   * not read and derivatives that would require it are zero, which leaves the last
+   * {@code maxDepth} values incomplete.
+   * <p>
+   * For a {@link PairDataSet} the derivatives are Newton divided differences over the recorded
+   * independent values, of which the diagonal's are retained as well. The divided difference of
+   * depth {@code j} is multiplied by {@code j!}, i.e. the spacing of its two independent values is
+   * divided by {@code j}, which makes it equal to the derivative of equidistant values and keeps
+   * the comparisons with the precision consistent.
+   * <p>
+   * With {@link AnalyserConfig.TangentMode#INTEGER} the values are quantised and their diagonal is
+   * differenced in {@code long} arithmetic instead, see {@link #quantise(double, double)}. As only
+   * whether a derivative is zero is counted, the differences are never divided by
+   * {@code step^j}. The divided differences of a {@link PairDataSet} are not integral, so they are
+   * calculated as {@code doubles} with {@link #tangent(double, double, double, double)}.
+   * <p>
+   * If {@code lows} are given each value of {@code set} is the upper part of a
+   * {@link DoubleDouble}, and the diagonal is calculated in that arithmetic instead, regardless of
+   * {@link AnalyserConfig#getTangentMode()}.
+   * 
+   * @category helper
+   * 
+   * @param set The {@link ValueDataSet} that is to be analysed.
+   * @param from The first index to be counted, inclusively.
+   * @param to The last index to be counted, exclusively.
+   * @param maxDepth The maximum depth to which the derivative should be calculated.
+   * @param depths The {@link DerivDepthList} the counted values are added to.
+   * @param deepest Records for which values the derivative at {@code maxDepth - 1} is not zero,
+   *        relative to {@code from}.
+   * @param lows The lower parts of the values of {@code set}, whose derivatives are then calculated
+   *        in {@link DoubleDouble} arithmetic, or {@code null}.
+   * @param cancelled Checked every {@link #MIN_CHUNK_SIZE} values, aborts the count once it returns
+   *        {@code true}.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   * 
+   * @see ValueDataSet#calcDerivDepths()
+   */
+  private void countDerivDepths(ValueDataSet<? extends Number> set, int from, int to,
+      int maxDepth, DerivDepthList depths, BitSet deepest, double[] lows,
+      BooleanSupplier cancelled) throws CancellationException {
+    DoubleValueDataSet doubles = null;
+    if (set instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) set;
+    }
+    PairDataSet pairs = null;
+    double[] xValues = null; // the independent values of the diagonal, if not equidistant
+    if (set instanceof PairDataSet) {
+      pairs = (PairDataSet) set;
+      xValues = new double[maxDepth];
+    }
+    int size = set.size();
+    int last = size - 2; // the last value used by the derivative matrix
+    double step = set.getStep();
+    double evenStep = step;
+    double precision = this.config.getPrecision(set);
+    int X; // this variable helps ensure that tangents are calculated left to right on the x-axis
+    if (step > 0 || pairs != null) {
+      X = 0;
+    } else {
+      X = size - 1;
+    }
+    long[] quanta = null; // the diagonal in multiples of the precision, if differenced exactly
+    if (this.integer == true && pairs == null && lows == null) {
+      if ((precision > 0) == false) {
+        throw new IllegalArgumentException(String.format(
+            "%s cannot quantise values to a precision of %s", DerivDepthAnalyser.class, precision));
+      }
+      quanta = new long[maxDepth];
+    }
+    double[] diagonal = new double[maxDepth];
+    int[] firstZero = new int[maxDepth];
+    double previous;
+    double temp;
+    double[] lowDiagonal = null; // the lower parts of the diagonal, if compensated
+    double[] sum = null;
+    if (lows != null) {
+      lowDiagonal = new double[maxDepth];
+      sum = new double[2];
+    }
+    double previousLow;
+    double tempLow;
+    int end = Math.min(to + maxDepth - 2, last);
+    for (int k = from; k <= end; k++) {
+      if (((k - from) & (MIN_CHUNK_SIZE - 1)) == 0) {
+        checkCancelled(cancelled);
+      }
+      int slot = k % maxDepth;
+      int orders = Math.min(k - from, maxDepth - 1);
+      double value;
+      if (doubles != null) {
+        value = doubles.getDouble(Math.abs(X - k));
+      } else {
+        value = set.getByIndex(Math.abs(X - k)).doubleValue();
+      }
+      if (pairs != null) {
+        xValues[slot] = pairs.getIndependentValue(k);
+      }
+      if (lows == null) {
+        this.nextDiagonal(value, slot, orders, diagonal, quanta, xValues, step, precision,
+            firstZero);
+      } else {
+        firstZero[slot] = 0;
+        previous = diagonal[0];
+        diagonal[0] = value;
+        previousLow = lowDiagonal[0];
+        lowDiagonal[0] = lows[Math.abs(X - k)];
+        for (int j = 1; j <= orders; j++) {
+          temp = diagonal[j];
+          tempLow = lowDiagonal[j];
+          if (pairs != null) {
+            step = spacing(xValues[slot], xValues[(k - j) % maxDepth], j, evenStep);
+          }
+          DoubleDouble.subtract(diagonal[j - 1], lowDiagonal[j - 1], previous, previousLow, sum);
+          if (sum[0] > precision || sum[0] < -precision) {
+            DoubleDouble.divide(sum[0], sum[1], step, sum);
+            diagonal[j] = sum[0];
+            lowDiagonal[j] = sum[1];
+          } else {
+            // equal within the precision, as in Tangenter#tangentApprox
+            diagonal[j] = 0.0;
+            lowDiagonal[j] = 0.0;
+          }
+          previous = temp;
+          previousLow = tempLow;
+          if (diagonal[j] == 0 && firstZero[(k - j) % maxDepth] == 0) {
+            firstZero[(k - j) % maxDepth] = j;
+          }
+        }
+      }
+      // the derivatives of index k - maxDepth + 1 are complete
+      int i = k - maxDepth + 1;
+      if (i >= from) {
+        if (firstZero[i % maxDepth] == 0) {
+          depths.add(DerivDepthList.INFINITE);
+        } else {
+          depths.add(firstZero[i % maxDepth] - 1);
+        }
+        if (deepestNonZero(diagonal, quanta)) {
+          deepest.set(i - from);
+        }
+      }
+    }
+    // incomplete values at the end, whose missing derivatives are zero
+    for (int i = Math.max(from, end - maxDepth + 2); i < to; i++) {
+      int zero = Math.max(1, last - i + 1);
+      if (i <= last && firstZero[i % maxDepth] != 0) {
+        zero = firstZero[i % maxDepth];
+      }
+      depths.add(zero - 1);
+    }
+  }
+
+  /**
+   * Calculates the next diagonal of the derivative matrix in place, from the previous one and the
+   * next value. Entry {@code j} of the diagonal is then the {@code j}-th derivative of the value
+   * {@code j} before the next one. The first zero derivative of each of these values is recorded
+   * in {@code firstZero}, which like {@code xValues} is indexed by the index of the value modulo
+   * the length of the diagonal.
+   * 
+   * @category helper
+   * @param value The next value.
+   * @param slot The index of the next value modulo the length of the diagonal.
+   * @param orders The number of derivatives that follow from the next value, which is less than
+   *        the length of the diagonal and at most the number of previous values.
+   * @param diagonal The diagonal, which is updated.
+   * @param quanta The diagonal in multiples of {@code precision}, which is differenced exactly
+   *        instead of {@code diagonal} as by {@link AnalyserConfig.TangentMode#INTEGER}, or
+   *        {@code null}.
+   * @param xValues The independent values of the diagonal if the values are not equidistant, with
+   *        that of the next value already at {@code slot}, or {@code null}.
+   * @param step The difference in {@code xValue} between two values, or their typical spacing if
+   *        {@code xValues} are given.
+   * @param precision The precision within which two values are considered equal.
+   * @param firstZero The order of the first zero derivative of each value of the diagonal, or
+   *        {@code 0} if there is none yet.
+   */
+  void nextDiagonal(double value, int slot, int orders, double[] diagonal, long[] quanta,
+      double[] xValues, double step, double precision, int[] firstZero) {
+    int length = diagonal.length;
+    double previous = diagonal[0];
+    double temp;
+    firstZero[slot] = 0;
+    diagonal[0] = value;
+    if (quanta != null) {
+      // exact differences, which are only divided by step^j where they are reported
+      long previousQuanta = quanta[0];
+      long tempQuanta;
+      quanta[0] = quantise(value, precision);
+      for (int j = 1; j <= orders; j++) {
+        tempQuanta = quanta[j];
+        quanta[j] = difference(quanta[j - 1], previousQuanta);
+        previousQuanta = tempQuanta;
+        if (quanta[j] == 0 && firstZero[(slot - j + length) % length] == 0) {
+          firstZero[(slot - j + length) % length] = j;
+        }
+      }
+      return;
+    }
+    double spacing = step;
+    for (int j = 1; j <= orders; j++) {
+      temp = diagonal[j];
+      if (xValues != null) {
+        // the divided difference over the values j before the next one to it, times j!
+        spacing = spacing(xValues[slot], xValues[(slot - j + length) % length], j, step);
+      }
+      diagonal[j] = this.tangent(spacing, previous, diagonal[j - 1], precision);
+      previous = temp;
+      if (diagonal[j] == 0 && firstZero[(slot - j + length) % length] == 0) {
+        firstZero[(slot - j + length) % length] = j;
+      }
+    }
+  }
+
+  /**
+   * Whether the deepest derivative of a diagonal calculated by
+   * {@link #nextDiagonal(double, int, int, double[], long[], double[], double, double, int[])} is
+   * not zero.
+   * 
+   * @category helper
+   * @param diagonal The diagonal.
+   * @param quanta The diagonal in multiples of the precision, or {@code null}.
+   * @return Whether its last entry is not zero.
+   */
+  static boolean deepestNonZero(double[] diagonal, long[] quanta) {
+    if (quanta != null) {
+      return quanta[quanta.length - 1] != 0;
+    }
+    return diagonal[diagonal.length - 1] != 0;
+  }
+
+  /**
+   * The spacing by which a derivative of order {@code j} over the independent values {@code x1}
+   * to {@code x2} is divided, such that it is the divided difference times {@code j!}. If the
+   * values are evenly spaced by {@code step}, within {@value #EVEN_SPACING} of it, {@code step}
+   * itself is returned rather than the rounded quotient, so an equidistant {@link PairDataSet}
+   * gives exactly the same tangents as a {@link DoubleValueDataSet}.
+   * 
+   * @category helper
+   * @param x2 The higher independent value.
+   * @param x1 The lower independent value.
+   * @param j The order of the derivative, i.e. the number of steps between the values.
+   * @param step The typical spacing of the independent values.
+   * @return The spacing of the derivative.
+   */
+  static double spacing(double x2, double x1, int j, double step) {
+    double spacing = (x2 - x1) / j;
+    if (Math.abs(spacing - step) <= EVEN_SPACING * Math.abs(step)) {
+      return step;
+    }
+    return spacing;
+  }
+
+  /**
+   * Calculates the rows of Pascal's triangle.
+   * 
+   * @category helper
+   * @param rows The number of rows.
+   * @return The binomial coefficients {@code C(j, m)} at {@code [j][m]}.
+   */
+  private static long[][] binomials(int rows) {
+    long[][] binomials = new long[rows][];
+    for (int j = 0; j < rows; j++) {
+      binomials[j] = new long[j + 1];
+      binomials[j][0] = 1;
+      binomials[j][j] = 1;
+      for (int m = 1; m < j; m++) {
+        binomials[j][m] = binomials[j - 1][m - 1] + binomials[j - 1][m];
+      }
+    }
+    return binomials;
+  }
+
+  /**
+   * Helper for {@link #countDerivDepth(ValueDataSet, int)}, which finds the first zero derivative
+   * of the first value by the binomial formula.
+   * 
+   * @category helper
+   * @param values The values from the analysed one, one more than the orders to be checked.
+   * @param step The absolute difference in {@code xValue} between the values.
+   * @param precision The precision within which derivatives are zero.
+   * @return The order of the first zero derivative, or {@code 0} if there is none.
+   */
+  private static int firstZeroOfBinomials(double[] values, double step, double precision) {
+    double scale = 1.0; // step^(j - 1)
+    for (int j = 1; j < values.length; j++) {
+      long[] coefficients = BINOMIALS[j];
+      double sum = 0.0;
+      for (int m = 0; m <= j; m++) {
+        if (((j - m) & 1) == 0) {
+          sum += coefficients[m] * values[m];
+        } else {
+          sum -= coefficients[m] * values[m];
+        }
+      }
+      if (Comparator.equalApprox(sum / scale, 0.0, precision)) {
+        return j;
+      }
+      scale *= step;
+    }
+    return 0;
+  }
+
+  /**
+   * As {@link #firstZeroOfBinomials(double[], double, double)}, but sums the quantised values in
+   * {@code long} arithmetic, as {@link AnalyserConfig.TangentMode#INTEGER} does.
+   * 
+   * @category helper
+   * @param values The values from the analysed one, one more than the orders to be checked.
+   * @param precision The quantum of the values.
+   * @return The order of the first zero derivative, or {@code 0} if there is none.
+   * @throws IllegalArgumentException If {@code precision} is not positive.
+   */
+  private static int firstZeroOfQuanta(double[] values, double precision)
+      throws IllegalArgumentException {
+    if ((precision > 0) == false) {
+      throw new IllegalArgumentException(String.format(
+          "%s cannot quantise values to a precision of %s", DerivDepthAnalyser.class, precision));
+    }
+    long[] quanta = new long[values.length];
+    for (int m = 0; m < values.length; m++) {
+      quanta[m] = quantise(values[m], precision);
+    }
+    for (int j = 1; j < quanta.length; j++) {
+      long[] coefficients = BINOMIALS[j];
+      long sum = 0;
+      for (int m = 0; m <= j && sum != OVERFLOW; m++) {
+        long term = OVERFLOW;
+        if (quanta[m] != OVERFLOW
+            && Math.abs(quanta[m]) <= Long.MAX_VALUE / coefficients[m]) {
+          term = coefficients[m] * quanta[m];
+        }
+        if (((j - m) & 1) == 0) {
+          sum = difference(sum, term == OVERFLOW ? OVERFLOW : -term);
+        } else {
+          sum = difference(sum, term);
+        }
+      }
+      // an overflowing sum is never zero
+      if (sum == 0) {
+        return j;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Helper for {@link #countDerivDepth(ValueDataSet, int)}, which finds the first zero derivative
+   * of the first value by calculating the derivative matrix of the values from it, with
+   * {@link #tangent(double, double, double, double)} as in
+   * {@link #countDerivDepths(ValueDataSet, int, int, int, DerivDepthList, BitSet, double[], BooleanSupplier)}.
+   * 
+   * @category helper
+   * @param set The analysed {@link ValueDataSet}.
+   * @param index The index of the analysed value.
+   * @param values The values from the analysed one, which are replaced by derivatives.
+   * @param precision The precision within which derivatives are zero.
+   * @return The order of the first zero derivative, or {@code 0} if there is none.
+   */
+  private int firstZeroOfPyramid(ValueDataSet<? extends Number> set, int index, double[] values,
+      double precision) {
+    boolean divided = set instanceof PairDataSet;
+    double evenStep = set.getStep();
+    double step = evenStep;
+    for (int j = 1; j < values.length; j++) {
+      for (int m = 0; m < values.length - j; m++) {
+        if (divided == true) {
+          // the divided difference over x(m) to x(m + j), times j!
+          step = spacing(set.getIndependentValue(index + m + j),
+              set.getIndependentValue(index + m), j, evenStep);
+        }
+        values[m] = this.tangent(step, values[m], values[m + 1], precision);
+      }
+      if (values[0] == 0) {
+        return j;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * This method uses the derivative depths over the derivative matrix, used in
+   * {@link #calcDerivDepth(ValueDataSet)}, to detect changes iin the {@link ValueDataSet} that
+   * is being analysed.
+   * 
+   * @category helper
+   * 
+   * @param deepest Records for which values the derivative at {@code maxDepth - 1} is not zero.
+   * @param depths The recordedd {@link DerivDepthList} of {@code derivDepth} values.
+   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @param state Receives the counted {@code derivDepths}, {@code deepest}, the values at which
+   *        the detection of a change started and the infinite values, if not {@code null}.
+   * 
+   * @see ValueDataSet#calcDerivDepths()
+   */
+  private static void detectDepthChanges(BitSet deepest, DerivDepthList depths, int maxDepth,
+      DerivDepthState state) {
+    int size = depths.size();
+    if (state != null) {
+      state.raw.addAll(depths);
+      state.deepest.or(deepest);
+    }
+    ChangeDetector detector = new ChangeDetector(maxDepth);
+    int depth;
+    int result;
+    for (int i = 0; i < size; i++) {
+      depth = depths.get(i);
+      result = detector.next(i, depth, deepest.get(i));
+      if (result != depth) {
+        depths.set(i, result);
+      }
+      if (state != null && detector.started() == true) {
+        state.starts.set(i);
+      }
+    }
+    if (state != null) {
+      for (int i = 0; i < size; i++) {
+        if (depths.get(i) == DerivDepthList.INFINITE) {
+          state.infinite.set(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Used within {@link #calcDerivDepth(ValueDataSet)} to ensure the last few values
+   * of {@code derivDepth} are consistent with the remaining ones. This does not mean that these are
+   * the true derivDepth values, but the true one cannot be calculated close to the end.
+   * 
+   * @param depths The recordedd {@link DerivDepthList} of {@code derivDepth} values.
+   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   */
+  private static void smoothEndOfDepths(DerivDepthList depths, int maxDepth) {
+    if (depths.size() <= maxDepth) {
+      // no value is far enough from the end to be smoothed towards
+      return;
+    }
+    int depth = depths.get(depths.size() - maxDepth - 1);
+    int firstIndex = depths.size() - maxDepth;
+    if (firstIndex < 0) {
+      firstIndex = 0;
+    }
+    depths.fill(firstIndex, depths.size(), depth);
+  }
+
+  /**
+   * Used within {@link #calcDerivDepth(ValueDataSet)} to check for {@code dericDepth}
+   * values of {@link Integer#MAX_VALUE}, which are marked as undefined, and find the segments on
+   * which further analysis should be initiated.
+   * <p>
+   * The further analysis of a segment only alters the {@code derivDepth} values within it, so the
+   * segments can be analysed in any order.
+   * 
+   * @param depths The recordedd {@link DerivDepthList} of {@code derivDepth} values.
+   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @return A {@link List} of the segments as {@code {startI, endI}}, with {@code startI}
+   *         inclusive and {@code endI} exclusive.
+   */
+  private static List<int[]> checkInfs(DerivDepthList depths, int maxDepth) {
+    return checkInfs(depths, 0, depths.size(), maxDepth);
+  }
+
+  /**
+   * As {@link #checkInfs(DerivDepthList, int)}, but only checks the values from index
+   * {@code from} to {@code to}. The value before {@code from} and the one at {@code to} must not be
+   * infinite.
+   * 
+   * @param depths The recordedd {@link DerivDepthList} of {@code derivDepth} values.
+   * @param from The first index to be checked, inclusively.
+   * @param to The last index to be checked, exclusively.
+   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @return A {@link List} of the segments as {@code {startI, endI}}, with {@code startI}
+   *         inclusive and {@code endI} exclusive.
+   */
+  private static List<int[]> checkInfs(DerivDepthList depths, int from, int to, int maxDepth) {
+    List<int[]> segments = new ArrayList<int[]>();
+    // a segment that reaches the end of all values is not analysed
+    int size = to < depths.size() ? to + 1 : to;
+    boolean checking = false;
+    int startI = 0;
+    int endI = 0;
+    // check all derivDepths for yet undefined values
+    for (int i = from; i < size; i++) {
+      if (depths.get(i) == DerivDepthList.INFINITE) {
+        depths.set(i, DerivDepthList.UNDEFINED); // depth is undefined until we know otherwise
+        if (checking == false) {
+          // begin tracking a this segment for further analysis.
+          startI = i;
+          checking = true;
+        }
+      } else if (checking == true) {
+        // end of segment, stop tracking
+        endI = i;
+        checking = false;
+        if (endI - startI < maxDepth) {
+          // if segment too small no point
+          continue;
+        }
+        // record for further analysis
+        segments.add(new int[] {startI, endI});
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Used on the segments found by {@link #checkInfs(DerivDepthList, int)} to check for exponential
+   * functions, as the first step in further analysis. Segments that are sinusoidal as a whole, and
+   * values that are not exponential either, are marked as
+   * {@link DerivDepthList#TRIGONOMETRIC} if {@link TrigDetector#detect(ValueDataSet, int, int)}
+   * finds a sinusoid in them.
+   * <p>
+   * The values are classified by a {@link TransformClassifier} in a single sweep over
+   * {@code set}, see {@link #classifyInfs(ValueDataSet, DerivDepthList, int, int)}. Its logarithms
+   * are analysed with the precision carried over into their space, but their differences lose
+   * precision to cancellation at every depth, so exponential functions may remain undefined. With
+   * {@link AnalyserConfig.ExpArithmetic#DOUBLE_DOUBLE} the logarithms and their differences are
+   * calculated in {@link DoubleDouble} arithmetic instead, see
+   * {@link #checkForExpCompensated(ValueDataSet, DerivDepthList, int, int, int, BooleanSupplier)}.
+   * 
+   * @param set The original {@link ValueDataSet}.
+   * @param depths The recordedd {@link DerivDepthList} of {@code derivDepth} values.
+   * @param startI The {@code index} within {@code set} at which the analysis should begin,
+   *        inclusively.
+   * @param endI The {@code index} within {@code set} at which analysis ends, exclusively.
+   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @param cancelled Returns {@code true} once the analysis should be aborted.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  private void checkForExp(ValueDataSet<? extends Number> set, DerivDepthList depths,
+      int startI, int endI, int maxDepth, BooleanSupplier cancelled) throws CancellationException {
+    checkCancelled(cancelled);
+    // a sinusoid over the whole segment needs no further analysis
+    if (TrigDetector.detect(set, startI, endI - 1) != null) {
+      depths.fill(startI, endI - 1, DerivDepthList.TRIGONOMETRIC);
+      depths.set(endI - 1, DerivDepthList.CHANGE);
+      return;
+    }
+    if (this.config.getExpArithmetic() == AnalyserConfig.ExpArithmetic.DOUBLE_DOUBLE) {
+      this.checkForExpCompensated(set, depths, startI, endI, maxDepth, cancelled);
+    } else {
+      this.classifyInfs(set, depths, startI, endI);
+    }
+    // check the values that are still undefined for sinusoids
+    int from = -1;
+    for (int i = startI; i <= endI - 1; i++) {
+      boolean undefined = i < endI - 1 && depths.get(i) == DerivDepthList.UNDEFINED;
+      if (undefined == true && from < 0) {
+        from = i;
+      } else if (undefined == false && from >= 0) {
+        if (TrigDetector.detect(set, from, i) != null) {
+          depths.fill(from, i, DerivDepthList.TRIGONOMETRIC);
+        }
+        from = -1;
+      }
+    }
+    // mark the change
+    depths.set(endI - 1, DerivDepthList.CHANGE);
+  }
+
+  /**
+   * Helper for
+   * {@link #checkForExp(ValueDataSet, DerivDepthList, int, int, int, BooleanSupplier)} that
+   * classifies the values from {@code startI} to {@code endI} with a {@link TransformClassifier},
+   * which builds the difference pyramids of their logarithms and other transforms in a single
+   * sweep over {@code set} instead of analysing a copy of them.
+   * <p>
+   * Values that are linear under {@link TransformClassifier.Transform#LOG} are marked as
+   * {@link DerivDepthList#EXPONENTIAL}, values that are polynomial themselves are given their
+   * {@code derivDepth} and all others remain undefined. Points of change are marked before each
+   * classified segment and at its end.
+   * 
+   * @category helper
+   * @param set The original {@link ValueDataSet}.
+   * @param depths The recorded {@link DerivDepthList} of {@code derivDepth} values.
+   * @param startI The {@code index} within {@code set} at which the analysis should begin,
+   *        inclusively.
+   * @param endI The {@code index} within {@code set} at which analysis ends, exclusively.
+   */
+  private void classifyInfs(ValueDataSet<? extends Number> set, DerivDepthList depths,
+      int startI, int endI) {
+    boolean previous = false; // whether the previous segment was classified
+    for (TransformClassifier.Segment segment : new TransformClassifier(this).classify(set, startI,
+        endI)) {
+      boolean classified = true;
+      if (segment.getTransform() == TransformClassifier.Transform.LOG
+          && segment.getDepth() == 1) {
+        depths.fill(segment.getFrom(), segment.getTo(), DerivDepthList.EXPONENTIAL);
+      } else if (segment.getTransform() == TransformClassifier.Transform.IDENTITY) {
+        depths.fill(segment.getFrom(), segment.getTo(), segment.getDepth());
+      } else {
+        classified = false;
+      }
+      if (segment.getFrom() > startI && (classified == true || previous == true)) {
+        depths.set(segment.getFrom() - 1, DerivDepthList.CHANGE);
+      }
+      previous = classified;
+    }
+  }
+
+  /**
+   * Helper for
+   * {@link #checkForExp(ValueDataSet, DerivDepthList, int, int, int, BooleanSupplier)} with
+   * {@link AnalyserConfig.ExpArithmetic#DOUBLE_DOUBLE}, which copies the logarithms of the values
+   * from {@code startI} to {@code endI} into a new DataSet and analyses them in
+   * {@link DoubleDouble} arithmetic. Values whose logarithms are linear are marked as
+   * {@link DerivDepthList#EXPONENTIAL}, the {@code derivDepths} of others are transferred.
+   * 
+   * @category helper
+   * @param set The original {@link ValueDataSet}.
+   * @param depths The recorded {@link DerivDepthList} of {@code derivDepth} values.
+   * @param startI The {@code index} within {@code set} at which the analysis should begin,
+   *        inclusively.
+   * @param endI The {@code index} within {@code set} at which analysis ends, exclusively.
+   * @param maxDepth The {@code derivDepth} to which the analysis extends.
+   * @param cancelled Returns {@code true} once the analysis should be aborted.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  private void checkForExpCompensated(ValueDataSet<? extends Number> set, DerivDepthList depths,
+      int startI, int endI, int maxDepth, BooleanSupplier cancelled) throws CancellationException {
+    double val;
+    double smallest = Double.MIN_VALUE;
+    double[] values = new double[endI - startI];
+    for (int i = startI; i < endI; i++) {
+      val = set.getByIndex(i).doubleValue();
+      if (val < smallest) {
+        smallest = val;
+      }
+      values[i - startI] = val;
+    }
+    // if there are negative values, move all values up such that they are all positive
+    // this is required to prevent NaN or infinity values when taking the logarithm
+    // it does not affect the derivative values beyond possible floating point errors
+    if (smallest <= 0) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = values[i] + smallest + Double.MIN_VALUE;
+      }
+    }
+    // the logarithmic values with their lower parts
+    double[] lows = new double[values.length];
+    double[] log = new double[2];
+    for (int i = 0; i < values.length; i++) {
+      DoubleDouble.log(values[i], log);
+      values[i] = log[0];
+      lows[i] = log[1];
+    }
+    // prepare a DataSet to recalculate derivDepth of the logarithmic values
+    double step = set.getStep();
+    DoubleValueDataSet otherSet;
+    if (set instanceof PairDataSet) {
+      // keep the independent values for the divided differences
+      PairDataSet pairs = new PairDataSet(set.getIndependentValue(startI), step,
+          this.config.getPrecision(set));
+      pairs.ensureCapacity(values.length);
+      for (int i = 0; i < values.length; i++) {
+        pairs.add(set.getIndependentValue(startI + i), values[i]);
+      }
+      otherSet = pairs;
+    } else {
+      otherSet = new DoubleValueDataSet(set.getBase() + startI * step, step,
+          this.config.getPrecision(set));
+      otherSet.addAll(values, 0, values.length);
+    }
+    // as analyse without further analysis, but in double-double arithmetic
+    DerivDepthList list = new DerivDepthList(values.length);
+    BitSet deepest = new BitSet(values.length);
+    this.countDerivDepths(otherSet, 0, values.length, maxDepth, list, deepest, lows, cancelled);
+    detectDepthChanges(deepest, list, maxDepth, null);
+    smoothEndOfDepths(list, maxDepth);
+    // recheck if there are Integer.Max_Value derivDepths
+    int depth;
+    Integer otherStartI = null;
+    for (int i = 0; i < list.size(); i++) {
+      depth = list.get(i);
+      if (depth == DerivDepthList.INFINITE) {
+        // track if not exponential for further analysis
+        if (otherStartI == null) {
+          otherStartI = i;
+        }
+      } else if (depth == 1) {
+        // mark as exponential
+        depths.set(i + startI, DerivDepthList.EXPONENTIAL);
+        if (otherStartI != null) {
+          // if was tracking then mark change and stop
+          depths.set(i + startI - 1, DerivDepthList.CHANGE);
+          otherStartI = null;
+        }
+      } else {
+        // else transfer value over (e.g. change within exponential or bias)
+        depths.set(i + startI, depth);
+        if (otherStartI != null) {
+          // if was tracking then mark change
+          depths.set(i + startI - 1, DerivDepthList.CHANGE);
+          otherStartI = null;
+        }
+
+      }
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+package hyperDap.base.helpers;
+
+import java.util.BitSet;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * The intermediate results of a {@link DerivDepthAnalyser}, retained such that the
+ * {@code derivDepths} of a {@link ValueDataSet} can be updated after some of its values changed,
+ * see {@link DerivDepthAnalyser#updateDerivDepth(ValueDataSet, DerivDepthList, DerivDepthState,
+ * BitSet)}.
+ * <p>
+ * For every value this records its counted {@code derivDepth} before changes were detected,
+ * whether its deepest derivative was zero, whether the detection of a change started at it and
+ * whether it was infinite before further analysis. This requires about one byte and three bits per
+ * value.
+ * <p>
+ * A state belongs to exactly one {@link ValueDataSet} and is not thread safe.
+ * 
+ * @author soenk
+ *
+ */
+public final class DerivDepthState {
+
+  AnalyserConfig config = null;
+  int size = 0;
+  DerivDepthList raw = new DerivDepthList();
+  BitSet deepest = new BitSet();
+  BitSet starts = new BitSet();
+  BitSet infinite = new BitSet();
+
+  /**
+   * Constructor for a state without results, usually called through
+   * {@link DerivDepthAnalyser#createState()}.
+   */
+  DerivDepthState() {}
+
+  /**
+   * Discards the recorded results, such that the next update recalculates all {@code derivDepths}.
+   */
+  public void invalidate() {
+    this.config = null;
+    this.size = 0;
+    this.raw.clear();
+    this.deepest.clear();
+    this.starts.clear();
+    this.infinite.clear();
+  }
+
+  /**
+   * Whether this state holds the results of an analysis with {@code config}.
+   * 
+   * @param config The {@link AnalyserConfig} of the analysis.
+   * @return {@code true} if the recorded results can be updated by an analyser with
+   *         {@code config}.
+   */
+  public boolean isValidFor(AnalyserConfig config) {
+    return this.config != null && this.config.sameResults(config);
+  }
+
+  /**
+   * The number of values whose results are recorded.
+   * 
+   * @return The size of the analysed {@link ValueDataSet}, or {@code 0} if there are no results.
+   */
+  public int size() {
+    return this.size;
+  }
+
+}
@@ -0,0 +1,261 @@
+package hyperDap.base.helpers;
+
+/**
+ * A helper class for double-double arithmetic, which represents a value as the unevaluated sum
+ * {@code hi + lo} of two {@code doubles}, with {@code lo} smaller than half an ulp of {@code hi}.
+ * This gives about 106 bits of precision, which {@link #log(double, double[])} reaches for all
+ * positive arguments and {@link #exp(double, double[])} for all results with a normal lower part.
+ * <p>
+ * The operations are built from error-free transformations, i.e. the rounding error of a sum or
+ * product is itself calculated exactly as a {@code double}, using {@link Math#fma} for products.
+ * Each operation therefore costs a small constant number of {@code double} operations, rather
+ * than the allocations of {@link java.math.BigDecimal BigDecimal}. To avoid allocations entirely
+ * the results are written into an array {@code {hi, lo}} given by the caller, which may also hold
+ * the arguments.
+ *
+ * @author soenk
+ *
+ */
+public final class DoubleDouble {
+
+  /**
+   * The upper part of {@code ln(2)}, which is {@code Math.log(2)}.
+   */
+  private static final double LN2_HI = 0.6931471805599453;
+  /**
+   * The middle part of {@code ln(2)}.
+   */
+  private static final double LN2_MID = 2.3190468138462996e-17;
+  /**
+   * The lower part of {@code ln(2)}, whose multiples are small enough to need no error term.
+   */
+  private static final double LN2_LO = 5.707708438416212e-34;
+  /**
+   * The smallest argument of {@link #exp(double, double[])} whose result keeps a normal lower part,
+   * {@code ln(2^-969)}. Below it the lower part is subnormal and loses precision.
+   */
+  private static final double EXP_MIN_PRECISE = -671.6;
+  /**
+   * The number of times the argument of {@link #exp(double, double[])} is halved, and the result
+   * squared.
+   */
+  private static final int EXP_HALVINGS = 10;
+  /**
+   * The number of terms of the Taylor series in {@link #exp(double, double[])}, which suffice for
+   * the reduced argument.
+   */
+  private static final int EXP_TERMS = 12;
+
+  /**
+   * Private constructor to prevent implementing this class.
+   */
+  private DoubleDouble() {
+    throw new AssertionError("No helper class instances for anyone!");
+  }
+
+  // arithmetic
+  // ****************************************************************************************
+
+  /**
+   * Calculates {@code a + b}.
+   *
+   * @param aHi The upper part of {@code a}.
+   * @param aLo The lower part of {@code a}.
+   * @param bHi The upper part of {@code b}.
+   * @param bLo The lower part of {@code b}.
+   * @param result Receives the sum as {@code {hi, lo}}.
+   */
+  public static void add(double aHi, double aLo, double bHi, double bLo, double[] result) {
+    double sum = aHi + bHi;
+    double bVirtual = sum - aHi;
+    double error = (aHi - (sum - bVirtual)) + (bHi - bVirtual);
+    normalise(sum, error + aLo + bLo, result);
+  }
+
+  /**
+   * Calculates {@code a - b}.
+   *
+   * @param aHi The upper part of {@code a}.
+   * @param aLo The lower part of {@code a}.
+   * @param bHi The upper part of {@code b}.
+   * @param bLo The lower part of {@code b}.
+   * @param result Receives the difference as {@code {hi, lo}}.
+   */
+  public static void subtract(double aHi, double aLo, double bHi, double bLo, double[] result) {
+    add(aHi, aLo, -bHi, -bLo, result);
+  }
+
+  /**
+   * Calculates {@code a * b}.
+   *
+   * @param aHi The upper part of {@code a}.
+   * @param aLo The lower part of {@code a}.
+   * @param bHi The upper part of {@code b}.
+   * @param bLo The lower part of {@code b}.
+   * @param result Receives the product as {@code {hi, lo}}.
+   */
+  public static void multiply(double aHi, double aLo, double bHi, double bLo, double[] result) {
+    double product = aHi * bHi;
+    double error = Math.fma(aHi, bHi, -product);
+    normalise(product, error + (aHi * bLo + aLo * bHi), result);
+  }
+
+  /**
+   * Calculates {@code a / b} for a {@code double} divisor, as used for tangents.
+   *
+   * @param aHi The upper part of {@code a}.
+   * @param aLo The lower part of {@code a}.
+   * @param b The divisor.
+   * @param result Receives the quotient as {@code {hi, lo}}.
+   */
+  public static void divide(double aHi, double aLo, double b, double[] result) {
+    double quotient = aHi / b;
+    double product = quotient * b;
+    double error = Math.fma(quotient, b, -product);
+    double remainder = (aHi - product) - error + aLo;
+    normalise(quotient, remainder / b, result);
+  }
+
+  // functions
+  // ****************************************************************************************
+
+  /**
+   * Calculates {@code e^x} to double-double precision.
+   * <p>
+   * The argument is reduced to {@code x = k * ln(2) + r}, with {@code ln(2)} in three parts such
+   * that {@code r} is exact, and {@code r} halved a further {@value #EXP_HALVINGS} times, such that
+   * a short Taylor series converges. The series gives {@code e^r - 1}, which is squared as often
+   * as {@code (s + 1)^2 - 1 = 2 * s + s^2}, such that its relative precision is retained, before it
+   * is scaled by {@code 2^k}.
+   * <p>
+   * The relative error is below {@code 1e-31} for all results that are normal with a normal lower
+   * part, i.e. from {@value #EXP_MIN_PRECISE} up to the overflow at {@code ln(Double.MAX_VALUE)}.
+   * Below that the lower part is subnormal, so the relative error grows towards that of a
+   * {@code double} at the underflow.
+   *
+   * @param x The exponent.
+   * @param result Receives {@code e^x} as {@code {hi, lo}}. Where that is not a finite, positive
+   *        {@code double} the lower part is zero.
+   */
+  public static void exp(double x, double[] result) {
+    if ((Math.abs(x) < 746) == false) {
+      result[0] = Math.exp(x);
+      result[1] = 0.0;
+      return;
+    }
+    double k = Math.rint(x / LN2_HI);
+    reduce(x, -k, result);
+    double rHi = Math.scalb(result[0], -EXP_HALVINGS);
+    double rLo = Math.scalb(result[1], -EXP_HALVINGS);
+    // the Taylor series r + r^2 / 2! + ... of e^r - 1
+    double sumHi = rHi;
+    double sumLo = rLo;
+    double termHi = rHi;
+    double termLo = rLo;
+    for (int n = 2; n <= EXP_TERMS; n++) {
+      multiply(termHi, termLo, rHi, rLo, result);
+      divide(result[0], result[1], n, result);
+      termHi = result[0];
+      termLo = result[1];
+      add(sumHi, sumLo, termHi, termLo, result);
+      sumHi = result[0];
+      sumLo = result[1];
+    }
+    for (int i = 0; i < EXP_HALVINGS; i++) {
+      multiply(sumHi, sumLo, sumHi, sumLo, result);
+      add(2 * sumHi, 2 * sumLo, result[0], result[1], result);
+      sumHi = result[0];
+      sumLo = result[1];
+    }
+    add(1.0, 0.0, sumHi, sumLo, result);
+    double hi = Math.scalb(result[0], (int) k);
+    double lo = Math.scalb(result[1], (int) k);
+    if (Double.isFinite(hi) == false || hi == 0) {
+      lo = 0.0;
+    }
+    result[0] = hi;
+    result[1] = lo;
+  }
+
+  /**
+   * Calculates {@code ln(x)} to double-double precision.
+   * <p>
+   * {@code x} is split into {@code m * 2^e} with {@code m} between {@code sqrt(1/2)} and
+   * {@code sqrt(2)}. {@link Math#log(double)} of {@code m} is corrected by one Newton step,
+   * {@code ln(m) = y + d + d^2 / 2} for {@code y = Math.log(m)} and {@code d = (m - e^y) / m},
+   * which doubles the number of correct bits, and {@code e * ln(2)} is added exactly. As neither
+   * step can overflow or underflow the relative error is below {@code 1e-31} for all positive,
+   * finite {@code x}.
+   *
+   * @param x The argument.
+   * @param result Receives {@code ln(x)} as {@code {hi, lo}}. Where that is not finite the lower
+   *        part is zero.
+   */
+  public static void log(double x, double[] result) {
+    if ((x > 0 && x < Double.POSITIVE_INFINITY) == false) {
+      result[0] = Math.log(x);
+      result[1] = 0.0;
+      return;
+    }
+    int e = 0;
+    if (x < Double.MIN_NORMAL) {
+      x = Math.scalb(x, 64);
+      e = -64;
+    }
+    double m = Math.scalb(x, -Math.getExponent(x));
+    e += Math.getExponent(x);
+    if (m > Math.sqrt(2)) {
+      m /= 2;
+      e++;
+    }
+    double y = Math.log(m);
+    exp(y, result);
+    subtract(m, 0.0, result[0], result[1], result);
+    divide(result[0], result[1], m, result);
+    double d = result[0];
+    add(result[0], result[1], d * d / 2, 0.0, result);
+    add(y, 0.0, result[0], result[1], result);
+    double logHi = result[0];
+    double logLo = result[1];
+    reduce(0.0, e, result);
+    add(result[0], result[1], logHi, logLo, result);
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Calculates {@code x + k * ln(2)} for an integral {@code k}, with the products of the three
+   * parts of {@code ln(2)} split exactly by {@link Math#fma}.
+   *
+   * @category helper
+   * @param x The summand.
+   * @param k The multiple of {@code ln(2)}, of at most {@code 2^11} in magnitude.
+   * @param result Receives the sum as {@code {hi, lo}}.
+   */
+  private static void reduce(double x, double k, double[] result) {
+    double product = k * LN2_HI;
+    double error = Math.fma(k, LN2_HI, -product);
+    double middle = k * LN2_MID;
+    double middleError = Math.fma(k, LN2_MID, -middle);
+    // x + product is exact for the reduced argument, and x is zero otherwise
+    add(x + product, 0.0, error, 0.0, result);
+    add(result[0], result[1], middle, middleError + k * LN2_LO, result);
+  }
+
+  /**
+   * Normalises {@code hi + lo} such that {@code lo} is smaller than half an ulp of {@code hi},
+   * assuming {@code |hi| >= |lo|}.
+   *
+   * @category helper
+   * @param hi The larger part.
+   * @param lo The smaller part.
+   * @param result Receives the normalised value as {@code {hi, lo}}.
+   */
+  private static void normalise(double hi, double lo, double[] result) {
+    double sum = hi + lo;
+    result[1] = lo - (sum - hi);
+    result[0] = sum;
+  }
+
+}
@@ -0,0 +1,282 @@
+package hyperDap.base.helpers;
+
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * An online version of {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet)}, without further
+ * analysis of infinite {@code derivDepths}, that analyses samples one at a time, as they are
+ * {@link #push(double) pushed}, rather than a complete {@link ValueDataSet}.
+ * <p>
+ * Where {@link DerivDepthAnalyser} builds the entire matrix of trace by trace derivatives, this
+ * class only retains the most recent diagonal of it, i.e. one derivative of each depth. When a new
+ * sample is pushed the next diagonal is calculated from the previous one by the same
+ * {@link DerivDepthAnalyser}, configured by an {@link AnalyserConfig}, which completes the
+ * derivatives of the value {@code maxDepth - 1} samples earlier. Its {@code derivDepth} is then
+ * counted and passed through the same change detection, before being reported to the
+ * {@link Listener}. Memory use is therefore constant and independent of the number of samples.
+ * <p>
+ * The resulting codes are those of {@link DerivDepthAnalyser} before infinite {@code derivDepths}
+ * are further analysed, i.e. depths of {@code 0} to {@code maxDepth - 2},
+ * {@link DerivDepthList#CHANGE} and {@link DerivDepthList#INFINITE}, for every
+ * {@link AnalyserConfig.TangentMode}.
+ * <p>
+ * Samples that are not equidistant are {@link #push(double, double) pushed} with their
+ * {@code xValue}, their derivatives are then divided differences as for a
+ * {@link hyperDap.base.types.dataSet.PairDataSet PairDataSet}. The {@code xValues} of the most
+ * recent diagonal are retained as well, so memory use remains constant.
+ * <p>
+ * Instances are not thread safe, each stream requires its own instance.
+ *
+ * @author soenk
+ *
+ */
+public final class OnlineTangenter {
+
+  /**
+   * Receives the results of an {@link OnlineTangenter}.
+   */
+  public interface Listener {
+
+    /**
+     * Called once for every sample, in order of {@code index}, as soon as its {@code derivDepth}
+     * is known.
+     *
+     * @param index The index of the sample within the stream, starting at {@code 0}.
+     * @param derivDepth The {@code derivDepth} of the sample.
+     */
+    void derivDepth(long index, int derivDepth);
+
+    /**
+     * Called as soon as a change between two segments is detected, before the
+     * {@link #derivDepth(long, int)} of {@code index} is reported as
+     * {@link DerivDepthList#CHANGE}.
+     *
+     * @param index The index of the sample at which the change occurs.
+     * @param previousDepth The {@code derivDepth} of the segment before the change.
+     */
+    default void change(long index, int previousDepth) {}
+  }
+
+  private final DerivDepthAnalyser analyser;
+  private final int maxDepth;
+  private final double step;
+  private final double precision;
+  private final Listener listener;
+
+  /**
+   * The most recent diagonal of the derivative matrix. Entry {@code j} holds the {@code j}-th
+   * derivative of the sample {@code j} before the most recent one.
+   */
+  private final double[] diagonal;
+  /**
+   * The most recent diagonal in multiples of {@link #precision}, if differenced exactly as by
+   * {@link AnalyserConfig.TangentMode#INTEGER}, or {@code null}.
+   */
+  private final long[] quanta;
+  /**
+   * For each sample whose derivatives are still being completed, the first depth at which a
+   * derivative was zero, or {@code 0} if there was none yet. Indexed by sample modulo
+   * {@code maxDepth}.
+   */
+  private final int[] firstZero;
+  /**
+   * The {@code xValues} of the samples of {@link #diagonal}, indexed by sample modulo
+   * {@code maxDepth}.
+   */
+  private final double[] xValues;
+
+  private long count = 0;
+  private long emitted = 0;
+  private int lastDepth = DerivDepthList.INFINITE;
+  private DerivDepthAnalyser.ChangeDetector detector;
+
+  /**
+   * Constructor for an analyser with {@link AnalyserConfig.TangentMode#FAST} tangents.
+   *
+   * @param maxDepth The maximum depth to which the derivative should be calculated, as in
+   *        {@link Tangenter#calcDerivDepth(ValueDataSet, int)}.
+   * @param step The distance between two samples.
+   * @param precision The precision used to decide whether two values are equal, see
+   *        {@link Tangenter#tangentApprox(double, double, double, double)}.
+   * @param listener Receives the resulting {@code derivDepths} and changes.
+   * @throws IllegalArgumentException If {@code maxDepth} is smaller than {@code 2} or too large to
+   *         be represented by a {@link DerivDepthList}, or {@code precision} is negative.
+   */
+  public OnlineTangenter(int maxDepth, double step, double precision, Listener listener)
+      throws IllegalArgumentException {
+    this(new AnalyserConfig(precision, maxDepth, false, AnalyserConfig.TangentMode.FAST,
+        Integer.MAX_VALUE, null), step, precision, listener);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param config The configuration of the analysis, of which the precision,
+   *        {@link AnalyserConfig#getMaxDepth()} and {@link AnalyserConfig#getTangentMode()} apply.
+   * @param step The distance between two samples.
+   * @param yPrecision The precision of the samples, used if {@code config} does not configure
+   *        one, as {@link ValueDataSet#getPrecision()}.
+   * @param listener Receives the resulting {@code derivDepths} and changes.
+   * @throws IllegalArgumentException If {@code config} is {@code null}, or its
+   *         {@link AnalyserConfig.TangentMode#INTEGER} mode cannot quantise to the precision.
+   */
+  public OnlineTangenter(AnalyserConfig config, double step, double yPrecision,
+      Listener listener) throws IllegalArgumentException {
+    this.analyser = new DerivDepthAnalyser(config);
+    this.maxDepth = config.getMaxDepth();
+    this.step = step;
+    this.precision = Double.isNaN(config.getPrecision()) ? yPrecision : config.getPrecision();
+    this.listener = listener;
+    this.diagonal = new double[this.maxDepth];
+    this.firstZero = new int[this.maxDepth];
+    this.xValues = new double[this.maxDepth];
+    if (config.getTangentMode() == AnalyserConfig.TangentMode.INTEGER) {
+      if ((this.precision > 0) == false) {
+        throw new IllegalArgumentException(String.format(
+            "%s cannot quantise values to a precision of %s", OnlineTangenter.class,
+            this.precision));
+      }
+      this.quanta = new long[this.maxDepth];
+    } else {
+      this.quanta = null;
+    }
+    this.detector = new DerivDepthAnalyser.ChangeDetector(this.maxDepth);
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Add the next sample of the stream. If this completes the derivatives of an earlier sample its
+   * {@code derivDepth} is reported to the {@link Listener} before this method returns.
+   *
+   * @param value The {@code yValue} of the next sample.
+   */
+  public void push(double value) {
+    double xValue = this.step * this.count;
+    if (this.count > 0) {
+      xValue = this.xValues[(int) ((this.count - 1) % this.maxDepth)] + this.step;
+    }
+    this.push(xValue, value, false);
+  }
+
+  /**
+   * Add the next sample of the stream together with its {@code xValue}, for samples that are not
+   * equidistant. The derivatives are calculated as divided differences over the {@code xValues},
+   * as for a {@link hyperDap.base.types.dataSet.PairDataSet PairDataSet}, which even
+   * {@link AnalyserConfig.TangentMode#INTEGER} does not difference exactly. A stream should
+   * therefore be pushed either with or without {@code xValues} throughout. If this
+   * completes the derivatives of an earlier sample its {@code derivDepth} is reported to the
+   * {@link Listener} before this method returns.
+   *
+   * @param xValue The {@code xValue} of the next sample, which must be larger than that of the
+   *        previous one.
+   * @param value The {@code yValue} of the next sample.
+   * @throws IllegalArgumentException If {@code xValue} is {@code NaN} or not larger than that of
+   *         the previous sample.
+   */
+  public void push(double xValue, double value) throws IllegalArgumentException {
+    if (Double.isNaN(xValue)) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot analyse an xValue of NaN", OnlineTangenter.class));
+    }
+    if (this.count > 0
+        && (xValue > this.xValues[(int) ((this.count - 1) % this.maxDepth)]) == false) {
+      throw new IllegalArgumentException(
+          String.format("%s requires strictly increasing xValues, %s is not", OnlineTangenter.class,
+              xValue));
+    }
+    this.push(xValue, value, true);
+  }
+
+  /**
+   * Report the {@code derivDepth} of all samples that can no longer be completed, as at the end
+   * of a stream. Like the end of {@link Tangenter#calcDerivDepth(ValueDataSet)} these are
+   * assigned the last reported {@code derivDepth}. Afterwards the analyser is {@link #reset()}.
+   */
+  public void finish() {
+    while (this.emitted < this.count) {
+      this.listener.derivDepth(this.emitted++, this.lastDepth);
+    }
+    this.reset();
+  }
+
+  /**
+   * Discard all state, such that the next sample pushed is treated as the first of a new stream.
+   */
+  public void reset() {
+    this.count = 0;
+    this.emitted = 0;
+    this.lastDepth = DerivDepthList.INFINITE;
+    this.detector = new DerivDepthAnalyser.ChangeDetector(this.maxDepth);
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Adds the next sample of the stream, see {@link #push(double)}.
+   *
+   * @category helper
+   * @param xValue The {@code xValue} of the next sample.
+   * @param value The {@code yValue} of the next sample.
+   * @param divided Whether the derivatives are divided differences over the {@code xValues}
+   *        rather than tangents over {@code step}.
+   */
+  private void push(double xValue, double value, boolean divided) {
+    long n = this.count++;
+    int m = this.maxDepth;
+    int slot = (int) (n % m);
+    this.xValues[slot] = xValue;
+    this.analyser.nextDiagonal(value, slot, (int) Math.min(n, m - 1), this.diagonal,
+        divided == true ? null : this.quanta, divided == true ? this.xValues : null, this.step,
+        this.precision, this.firstZero);
+    // the sample maxDepth - 1 before this one is now complete
+    if (n >= m - 1) {
+      long index = n - (m - 1);
+      int zero = this.firstZero[(int) (index % m)];
+      int depth = zero == 0 ? DerivDepthList.INFINITE : zero - 1;
+      boolean deepest =
+          DerivDepthAnalyser.deepestNonZero(this.diagonal, divided == true ? null : this.quanta);
+      int result = this.detector.next(index, depth, deepest);
+      if (this.detector.started() == true) {
+        this.listener.change(this.detector.getChange(), this.detector.getPreviousDepth());
+      }
+      this.lastDepth = result;
+      this.emitted++;
+      this.listener.derivDepth(index, result);
+    }
+  }
+
+  // getters
+  // ****************************************************************************************
+
+  /**
+   * The {@code maxDepth} this analyser was created with.
+   *
+   * @return The {@code maxDepth}.
+   */
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  /**
+   * The number of samples pushed since construction or the last {@link #reset()}.
+   *
+   * @return The number of samples.
+   */
+  public long getSampleCount() {
+    return this.count;
+  }
+
+  /**
+   * The number of samples whose {@code derivDepth} has already been reported.
+   *
+   * @return The number of reported samples.
+   */
+  public long getReportedCount() {
+    return this.emitted;
+  }
+
+}
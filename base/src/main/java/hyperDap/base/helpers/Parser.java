@@ -2,6 +2,7 @@ package hyperDap.base.helpers;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -65,6 +66,13 @@ public final class Parser {
     parseMap.put(ZoneOffset.class, ZoneOffset::of);
   }
 
+  /**
+   * The powers of ten that are exactly representable as {@code double}, used by
+   * {@link #parseDouble(byte[], int, int)}.
+   */
+  private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+      1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
   /**
    * Take a String representation of the desired Object and parse it to the desired {@link Class}
    * representation.
@@ -91,4 +99,172 @@ public final class Parser {
             classReference.getName()));
   }
 
+  /**
+   * Parse the ASCII representation of a {@code double} from {@code bytes}, between {@code from}
+   * (inclusive) and {@code to} (exclusive), without creating a {@link String}.
+   * <p>
+   * Surrounding whitespace, carriage returns and double quotes are ignored. Plain decimal and
+   * scientific notation with up to 15 significant digits and a decimal exponent of at most 22 is
+   * converted directly, as both the digits and the power of ten are exact {@code doubles} and a
+   * single multiplication or division is correctly rounded. With up to 18 significant digits, as
+   * printed by {@link Double#toString(double)}, the digits are scaled in double-double arithmetic
+   * instead, whose error is far below that of a {@code double}, and the result is rounded directly
+   * unless it lies too close to the midpoint between two {@code doubles}. All other input, like
+   * longer numbers, {@code NaN} or {@code Infinity}, falls back to
+   * {@link Double#parseDouble(String)}, so the result is always the same as that of
+   * {@link Double#parseDouble(String)}.
+   * 
+   * @param bytes The bytes holding the number.
+   * @param from The index of the first byte of the number.
+   * @param to The index after the last byte of the number.
+   * @return The parsed value, or {@link Double#NaN} if the bytes do not represent a number.
+   */
+  public static double parseDouble(byte[] bytes, int from, int to) {
+    while (from < to && (bytes[from] == ' ' || bytes[from] == '\t' || bytes[from] == '"')) {
+      from++;
+    }
+    while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t' || bytes[to - 1] == '"'
+        || bytes[to - 1] == '\r')) {
+      to--;
+    }
+    if (from >= to) {
+      return Double.NaN;
+    }
+    int i = from;
+    boolean negative = bytes[i] == '-';
+    if (negative == true || bytes[i] == '+') {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0; // significant digits in mantissa
+    int exponent = 0;
+    boolean exact = true; // false if significant digits had to be dropped
+    boolean anyDigit = false;
+    int d;
+    // integer part
+    for (; i < to && (d = bytes[i] - '0') >= 0 && d <= 9; i++) {
+      anyDigit = true;
+      if (digits < 18) {
+        mantissa = mantissa * 10 + d;
+        if (mantissa != 0) {
+          digits++;
+        }
+      } else {
+        exponent++;
+        exact &= d == 0;
+      }
+    }
+    // fraction
+    if (i < to && bytes[i] == '.') {
+      for (i++; i < to && (d = bytes[i] - '0') >= 0 && d <= 9; i++) {
+        anyDigit = true;
+        if (digits < 18) {
+          mantissa = mantissa * 10 + d;
+          if (mantissa != 0) {
+            digits++;
+          }
+          exponent--;
+        } else {
+          exact &= d == 0;
+        }
+      }
+    }
+    // exponent
+    if (anyDigit == true && i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = i < to && bytes[i] == '-';
+      if (negativeExponent == true || (i < to && bytes[i] == '+')) {
+        i++;
+      }
+      int explicit = 0;
+      boolean anyExponentDigit = false;
+      for (; i < to && (d = bytes[i] - '0') >= 0 && d <= 9; i++) {
+        anyExponentDigit = true;
+        if (explicit < 100000) {
+          explicit = explicit * 10 + d;
+        }
+      }
+      if (anyExponentDigit == false) {
+        return Double.NaN;
+      }
+      exponent += negativeExponent ? -explicit : explicit;
+    }
+    if (i != to || anyDigit == false) {
+      return parseDoubleFallback(bytes, from, to);
+    }
+    if (mantissa == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (exact == false || exponent < -22 || exponent > 22) {
+      return parseDoubleFallback(bytes, from, to);
+    }
+    double value = mantissa;
+    if (digits > 15) {
+      value = scaleDigits(mantissa, exponent);
+      if (Double.isNaN(value)) {
+        return parseDoubleFallback(bytes, from, to);
+      }
+    } else if (exponent >= 0) {
+      value *= POWERS_OF_TEN[exponent];
+    } else {
+      value /= POWERS_OF_TEN[-exponent];
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Used by {@link #parseDouble(byte[], int, int)} for digits that are not an exact
+   * {@code double}. They are split into {@code hi + lo}, scaled by the power of ten in
+   * double-double arithmetic with {@link Math#fma}, which is accurate to about {@code 2^-104}, and
+   * rounded to the upper part. That is correct unless the lower part is within this error of half
+   * the distance to the neighbouring {@code doubles}.
+   * 
+   * @category helper
+   * @param mantissa The digits, of which there are at most 18.
+   * @param exponent The decimal exponent, of at most 22 in magnitude.
+   * @return The correctly rounded value, or {@link Double#NaN} if that cannot be decided.
+   */
+  private static double scaleDigits(long mantissa, int exponent) {
+    double hi = mantissa;
+    double lo = mantissa - (long) hi; // exact, as the digits fit into 60 bits
+    double power = POWERS_OF_TEN[Math.abs(exponent)];
+    double product;
+    double error;
+    if (exponent >= 0) {
+      product = hi * power;
+      error = Math.fma(hi, power, -product) + lo * power;
+    } else {
+      product = hi / power;
+      error = (Math.fma(-product, power, hi) + lo) / power;
+    }
+    hi = product + error;
+    lo = error - (hi - product);
+    // the distance to the neighbouring doubles is halved below powers of two
+    double half = Math.ulp(hi) / 2;
+    double tolerance = Math.abs(hi) * 0x1p-96;
+    if (Math.abs(Math.abs(lo) - half) <= tolerance
+        || Math.abs(Math.abs(lo) - half / 2) <= tolerance) {
+      return Double.NaN;
+    }
+    return hi;
+  }
+
+  /**
+   * Used by {@link #parseDouble(byte[], int, int)} for all input that cannot be converted exactly
+   * without creating a {@link String}.
+   * 
+   * @category helper
+   * @param bytes The bytes holding the number.
+   * @param from The index of the first byte of the number.
+   * @param to The index after the last byte of the number.
+   * @return The parsed value, or {@link Double#NaN} if the bytes do not represent a number.
+   */
+  private static double parseDoubleFallback(byte[] bytes, int from, int to) {
+    try {
+      return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
 }
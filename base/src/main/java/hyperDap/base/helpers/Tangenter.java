@@ -3,7 +3,8 @@ package hyperDap.base.helpers;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
-import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import hyperDap.base.types.dataSet.DerivDepthList;
 import hyperDap.base.types.dataSet.ValueDataSet;
 import hyperDap.base.types.value.ValuePair;
 
@@ -16,10 +17,11 @@ import hyperDap.base.types.value.ValuePair;
 
 public final class Tangenter {
 
-  private static double precision = 0.001;
-  private static int bigDecimalPrecision = 10;
-  private static MathContext standardContext =
+  private static final int bigDecimalPrecision = 10;
+  private static final MathContext standardContext =
       new MathContext(bigDecimalPrecision, RoundingMode.HALF_UP);
+  private static volatile double precision = AnalyserConfig.DEFAULT_PRECISION;
+  private static volatile DerivDepthAnalyser defaultAnalyser = new DerivDepthAnalyser();
 
   /**
    * Private constructor to prevent implementing this class.
@@ -29,12 +31,20 @@ public final class Tangenter {
   }
 
   /**
-   * Used to adjust the precision of {@link #tangentApprox(double, double, double)}, which by
-   * default is set to 0.001.
+   * Used to adjust the precision of {@link #tangentApprox(double, double, double)} and
+   * {@link #tangentProp(double, double, double)}, which by default is
+   * {@link AnalyserConfig#DEFAULT_PRECISION}.
+   * <p>
+   * This does not affect the default {@link DerivDepthAnalyser}, which always uses the precision of
+   * each analysed {@link ValueDataSet}. Analyses that require their own precision should use their
+   * own {@link DerivDepthAnalyser}.
    * 
-   * @param precision The new precision used.
+   * @param precision The new precision used, or {@link Double#NaN} to restore the default.
    */
   public static void setPrecision(double precision) {
+    if (Double.isNaN(precision)) {
+      precision = AnalyserConfig.DEFAULT_PRECISION;
+    }
     Tangenter.precision = precision;
   }
 
@@ -49,7 +59,7 @@ public final class Tangenter {
   }
 
   public static double tangentProp(double step, double y1, double y2) {
-    if (Comparator.equalProportionate(y1, y2, precision)) {
+    if (Comparator.equalProportionate(y1, y2, getPrecision())) {
       return 0.0;
     }
     return tangentSimple(step, y1, y2);
@@ -66,7 +76,7 @@ public final class Tangenter {
    *         tangent between them otherwise.
    */
   public static double tangentApprox(double step, double y1, double y2) {
-    return tangentApprox(step, y1, y2, precision);
+    return tangentApprox(step, y1, y2, getPrecision());
   }
 
   /**
@@ -172,7 +182,7 @@ public final class Tangenter {
    * @param dataset
    * @return
    */
-  public static ArrayList<Integer> calcDerivDepth(ValueDataSet<? extends Number> dataset) {
+  public static DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset) {
     return Tangenter.calcDerivDepth(dataset, 10);
   }
 
@@ -184,280 +194,158 @@ public final class Tangenter {
    * @param maxDepth
    * @return
    */
-  public static ArrayList<Integer> calcDerivDepth(ValueDataSet<? extends Number> dataset,
+  public static DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset,
       int maxDepth) {
     return calcDerivDepth(dataset, maxDepth, true);
   }
 
   /**
-   * Calculates and returns the depth of derivative ({@code derivDepth}) for {@code dataset}.
-   * <p>
-   * The {@code derivDepth} is the number of times a trace derivative (the tangent between two
-   * points, see {@link #tangentSimple(double, double, double)}) is NOT zero. For each point this
-   * indicates the degree of the polynomial the data is representing, if it is polynomial. If not
-   * the {@code derivDepth} will be assigned {@link Integer#MAX_VALUE} until further analysis, to
-   * represent infinity. This will also be assigned if the derivDepth would be larger than
-   * {@code maxDepth - 1}.
-   * <p>
-   * If {@code doInfiniteDepths} is {@code true} any {@link Integer#MAX_VALUE} {@code derivDepth}
-   * values will be further analysed and assigned {@code -2} if exponential, {@code -3} for
-   * trigonometric and {@code -5} otherwise, with the correct change values of {@code -1} also
-   * assigned.
+   * Calculates and returns the depth of derivative ({@code derivDepth}) for {@code dataset}, using
+   * the default {@link DerivDepthAnalyser} with the given {@code maxDepth} and
+   * {@code doInfiniteDepths}. See {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet)} for
+   * details.
    * 
-   * @param dataset The {@link ValueDataSSet} that is to be analysed.
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
    * @param maxDepth The maximum depth to which the derivative should be calculated.
    *        {@code derivDepth} larger than this will be assigned {@link Integer#MAX_VALUE},
    *        representing infinity.
    * @param doInfiniteDepths Whether infinite derivDepths should be further analysed to exponential,
    *        trigonometric etc. (={@code true}) or not (={@code false}).
-   * @return An {@link ArrayList ArrayList<Integer>} of the {@code derivDepth} for each value of
-   *         {@code dataset}. Note that the last {@code maxDepth} values may be inaccurate.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   *         Note that the last {@code maxDepth} values may be inaccurate.
+   * @throws IllegalArgumentException If {@code maxDepth} is smaller than {@code 2} or exceeds what
+   *         {@link DerivDepthList} can represent.
    */
-  public static ArrayList<Integer> calcDerivDepth(ValueDataSet<? extends Number> dataset,
-      int maxDepth, boolean doInfiniteDepths) {
-    int size = dataset.size();
-    ArrayList<Integer> depths = new ArrayList<Integer>(size);
-    double[][] derivs = new double[size][maxDepth];
-    // calculate trace by trace derivatives
-    calcDerivs(derivs, dataset);
-    // count derivDepth
-    countDerivDepths(derivs, depths);
-    // detect and mark points of change
-    detectDepthChanges(derivs, depths);
-    // further analysis
-    if (doInfiniteDepths == true) {
-      Tangenter.checkInfs(dataset, depths, maxDepth);
-    }
-    smoothEndOfDepths(depths, maxDepth);
-    // finished
-    return depths;
+  public static DerivDepthList calcDerivDepth(ValueDataSet<? extends Number> dataset,
+      int maxDepth, boolean doInfiniteDepths) throws IllegalArgumentException {
+    return analyser(maxDepth, doInfiniteDepths).calcDerivDepth(dataset);
   }
 
   /**
-   * This method populates the derivative matrix used in {@link #calcDerivDepth(ValueDataSet, int)}.
+   * A parallel implementation of {@link #calcDerivDepth(ValueDataSet, int, boolean)} that returns
+   * exactly the same {@code derivDepths}, see
+   * {@link DerivDepthAnalyser#calcDerivDepthParallel(ValueDataSet)}.
    * 
-   * @category helper
-   * 
-   * @param derivs A reference to the initialised derivative matrix.
-   * @param set The {@link ValueDataSet} that is to be analysed.
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param maxDepth The maximum depth to which the derivative should be calculated.
+   * @param doInfiniteDepths Whether infinite derivDepths should be further analysed to exponential,
+   *        trigonometric etc. (={@code true}) or not (={@code false}).
+   * @param pool The {@link ForkJoinPool} the analysis is executed on.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
+   * @throws IllegalArgumentException If {@code maxDepth} is smaller than {@code 2} or exceeds what
+   *         {@link DerivDepthList} can represent.
    * 
-   * @see ValueDataSet#calcDerivDepths()
+   * @see #setParallelThreshold(int)
    */
-  private static void calcDerivs(double[][] derivs, ValueDataSet<? extends Number> set) {
-    int size = derivs.length;
-    int maxDepth = derivs[0].length;
-    double step = set.getStep();
-    double precision = set.getPrecision();
-    int X; // this variable helps ensure that tangents are calculated left to right on the x-axis
-    if (step > 0) {
-      X = 0;
-    } else {
-      X = size - 1;
-    }
-    derivs[0][0] = set.getByIndex(X).doubleValue();
-    for (int k = 1; k < size - 1; k++) {
-      derivs[k][0] = set.getByIndex(Math.abs(X - k)).doubleValue();
-      for (int i = k - 1, j = 1; i >= 0 && j < maxDepth; i--, j++) {
-        derivs[i][j] = tangentApprox(step, derivs[i][j - 1], derivs[i + 1][j - 1], precision);
-      }
-    }
+  public static DerivDepthList calcDerivDepthParallel(ValueDataSet<? extends Number> dataset,
+      int maxDepth, boolean doInfiniteDepths, ForkJoinPool pool) throws IllegalArgumentException {
+    AnalyserConfig config = defaultAnalyser.getConfig().withMaxDepth(maxDepth)
+        .withInfiniteDepths(doInfiniteDepths).withPool(pool);
+    return new DerivDepthAnalyser(config).calcDerivDepthParallel(dataset);
   }
 
   /**
-   * This method counts the depth of the derivatives in the derivative matrix, used in
-   * {@link #calcDerivDepth(ValueDataSet, int)}.
-   * 
-   * @category helper
+   * Calls {@link #calcDerivDepthParallel(ValueDataSet, int, boolean, ForkJoinPool)} with the pool
+   * set by {@link #setForkJoinPool(ForkJoinPool)}.
    * 
-   * @param derivs A matrix of derivatives.
-   * @param depths The recorded {@link ArrayList} of {@code derivDepth} values.
-   * 
-   * @see ValueDataSet#calcDerivDepths()
+   * @param dataset The {@link ValueDataSet} that is to be analysed.
+   * @param maxDepth The maximum depth to which the derivative should be calculated.
+   * @param doInfiniteDepths Whether infinite derivDepths should be further analysed.
+   * @return A {@link DerivDepthList} of the {@code derivDepth} for each value of {@code dataset}.
    */
-  private static void countDerivDepths(double[][] derivs, ArrayList<Integer> depths) {
-    int maxDepth = derivs[0].length;
-    int size = derivs.length;
-    int depth;
-    for (int i = 0; i < size; i++) {
-      depth = Integer.MAX_VALUE;
-      for (int j = 1; j < maxDepth; j++) {
-        if (derivs[i][j] == 0) {
-          depth = j - 1;
-          break;
-        }
-      }
-      depths.add(depth);
-    }
+  public static DerivDepthList calcDerivDepthParallel(ValueDataSet<? extends Number> dataset,
+      int maxDepth, boolean doInfiniteDepths) {
+    return analyser(maxDepth, doInfiniteDepths).calcDerivDepthParallel(dataset);
   }
 
+  // default analyser
+  // ****************************************************************************************
+
   /**
-   * This method uses the derivative depths over the derivative matrix, used in
-   * {@link #calcDerivDepth(ValueDataSet, int)}, to detect changes iin the {@link ValueDataSet} that
-   * is being analysed.
+   * Gives the {@link DerivDepthAnalyser} the static methods of this class delegate to.
    * 
-   * @category helper
-   * 
-   * @param derivs A matrix of derivatives.
-   * @param depths The recordedd {@link ArrayList} of {@code derivDepth} values.
-   * 
-   * @see ValueDataSet#calcDerivDepths()
+   * @return The current default analyser.
    */
-  private static void detectDepthChanges(double[][] derivs, ArrayList<Integer> depths) {
-    int maxDepth = derivs[0].length;
-    int size = derivs.length;
-    boolean tracking = false;
-    int depth;
-    int depthTemp = 0;
-    for (int i = 0; i < size; i++) {
-      depth = depths.get(i);
-      if (tracking == true) {
-        if (depth != -1) {
-          depths.set(i, depthTemp);
-        }
-      } else {
-        if (derivs[i][maxDepth - 1] != 0 && depth < maxDepth - 1) {
-          depthTemp = depth;
-          depths.set(i + maxDepth - 2, -1);
-          tracking = true;
-        } else {
-          // tracking = false;
-        }
-      }
-      if (depth == -1) {
-        tracking = false;
-      }
-    }
+  public static DerivDepthAnalyser getDefaultAnalyser() {
+    return defaultAnalyser;
   }
 
   /**
-   * Used within {@link #calcDerivDepth(ValueDataSet, int, boolean)} to ensure the last few values
-   * of {@code derivDepth} are consistent with the remaining ones. This does not mean that these are
-   * the true derivDepth values, but the true one cannot be calculated close to the end.
+   * Replaces the {@link DerivDepthAnalyser} the static methods of this class delegate to. Analyses
+   * that are already running continue with the previous one.
+   * <p>
+   * The default analyser uses the precision of each analysed {@link ValueDataSet}, so one with a
+   * fixed precision cannot become the default, as it would override the precision of every
+   * {@link ValueDataSet#calcDerivDepths()}.
    * 
-   * @param depths The recordedd {@link ArrayList} of {@code derivDepth} values.
-   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @param analyser The new default analyser.
+   * @throws IllegalArgumentException If {@code analyser} is {@code null} or its
+   *         {@link AnalyserConfig#getPrecision()} is not {@link Double#NaN}.
    */
-  private static void smoothEndOfDepths(ArrayList<Integer> depths, int maxDepth) {
-    int depth = depths.get(depths.size() - maxDepth - 1);
-    int firstIndex = depths.size() - maxDepth;
-    if (firstIndex < 0) {
-      firstIndex = 0;
+  public static void setDefaultAnalyser(DerivDepthAnalyser analyser)
+      throws IllegalArgumentException {
+    if (analyser == null) {
+      throw new IllegalArgumentException(
+          String.format("%s requires a default %s", Tangenter.class, DerivDepthAnalyser.class));
     }
-    for (int i = firstIndex; i < depths.size(); i++) {
-      depths.set(i, depth);
+    if (Double.isNaN(analyser.getConfig().getPrecision()) == false) {
+      throw new IllegalArgumentException(String.format(
+          "The default %s must use the precision of each %s, not %s", DerivDepthAnalyser.class,
+          ValueDataSet.class, analyser.getConfig().getPrecision()));
     }
+    Tangenter.defaultAnalyser = analyser;
   }
 
   /**
-   * Used within {@link #calcDerivDepth(ValueDataSet, int, boolean)} to check for {@code dericDepth}
-   * values of {@link Integer#MAX_VALUE} and initiate further analysis on these elements.
+   * Sets the number of values from which {@link #calcDerivDepth(ValueDataSet, int, boolean)} uses
+   * the parallel implementation, which by default is 65536. Use {@link Integer#MAX_VALUE} to
+   * always analyse sequentially.
    * 
-   * @param set The original {@link ValueDataSet}.
-   * @param depths The recordedd {@link ArrayList} of {@code derivDepth} values.
-   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @param threshold The smallest size of {@link ValueDataSet} that is analysed in parallel.
    */
-  private static void checkInfs(ValueDataSet<? extends Number> set, ArrayList<Integer> depths,
-      int maxDepth) {
-    int size = depths.size();
-    boolean checking = false;
-    int startI = 0;
-    int endI = 0;
-    // check all derivDepths for yet undefined values
-    for (int i = 0; i < size; i++) {
-      if (depths.get(i) == Integer.MAX_VALUE) {
-        depths.set(i, -5); // depth is undefined until we know otherwise
-        if (checking == false) {
-          // begin tracking a this segment for further analysis.
-          startI = i;
-          checking = true;
-        }
-      } else if (checking == true) {
-        // end of segment, stop tracking
-        endI = i;
-        checking = false;
-        if (endI - startI < maxDepth) {
-          // if segment too small no point
-          continue;
-        }
-        // initate further analysis
-        checkForExp(set, depths, startI, endI, maxDepth);
-      }
-    }
+  public static synchronized void setParallelThreshold(int threshold) {
+    Tangenter.defaultAnalyser =
+        new DerivDepthAnalyser(defaultAnalyser.getConfig().withParallelThreshold(threshold));
   }
 
   /**
-   * Used by {@link #checkInfs(ValueDataSet, ArrayList, int)} to check for exponential functions, as
-   * the first step in further analysis.
+   * Gives the number of values from which the parallel implementation is used.
    * 
-   * @param set The original {@link ValueDataSet}.
-   * @param depths The recordedd {@link ArrayList} of {@code derivDepth} values.
-   * @param startI The {@code index} within {@code set} at which the analysis should begin,
-   *        inclusively.
-   * @param endI The {@code index} within {@code set} at which analysis ends, exclusively.
-   * @param maxDepth The {@code defrivDepth} to which the analysis extends.
+   * @return The current threshold.
    */
-  private static void checkForExp(ValueDataSet<? extends Number> set, ArrayList<Integer> depths,
-      int startI, int endI, int maxDepth) {
-    double val;
-    double smallest = Double.MIN_VALUE;
-    ArrayList<Double> values = new ArrayList<>();
-    for (int i = startI; i < endI; i++) {
-      val = set.getByIndex(i).doubleValue();
-      if (val < smallest) {
-        smallest = val;
-      }
-      values.add(val);
-    }
-    // if there are negative values, move all values up such that they are all positive
-    // this is required to prevent NaN or infinity values when taking the logarithm
-    // it does not affect the derivative values beyond possible floating point errors
-    if (smallest <= 0) {
-      for (int i = 0; i < values.size(); i++) {
-        values.set(i, values.get(i) + smallest + Double.MIN_VALUE);
-      }
-    }
-    // prepare a DataSet to recalculate derivDepth of the logarithmic values
-    double step = set.getStep();
-    ValueDataSet<Double> otherSet = new ValueDataSet<>(set.getBase() + startI * step, step,
-        set.getPrecision(), d -> Double.valueOf(d));
-    for (Double element : values) {
-      otherSet.add(Math.log(element));
-    }
-    ArrayList<Integer> list = calcDerivDepth(otherSet, maxDepth, false); // prevent infinite
-                                                                         // recursion
-    // recheck if there are Integer.Max_Value derivDepths
-    int depth;
-    Integer otherStartI = null;
-    for (int i = 0; i < list.size(); i++) {
-      depth = list.get(i);
-      if (depth == Integer.MAX_VALUE) {
-        // track if not exponential for further analysis
-        if (otherStartI == null) {
-          otherStartI = i;
-        }
-      } else if (depth == 1) {
-        // mark as exponential
-        depths.set(i + startI, -2);
-        if (otherStartI != null) {
-          // if was tracking then mark change and stop
-          depths.set(i + startI - 1, -1);
-          // TODO trig
-          otherStartI = null;
-        }
-      } else {
-        // else transfer value over (e.g. change within exponential or bias)
-        depths.set(i + startI, depth);
-        if (otherStartI != null) {
-          // if was tracking then mark change
-          depths.set(i + startI - 1, -1);
-          // TODO trig
-          otherStartI = null;
-        }
+  public static int getParallelThreshold() {
+    return defaultAnalyser.getConfig().getParallelThreshold();
+  }
+
+  /**
+   * Sets the {@link ForkJoinPool} used for parallel analysis, which by default is
+   * {@link ForkJoinPool#commonPool()}.
+   * 
+   * @param pool The new pool.
+   */
+  public static synchronized void setForkJoinPool(ForkJoinPool pool) {
+    Tangenter.defaultAnalyser = new DerivDepthAnalyser(defaultAnalyser.getConfig().withPool(pool));
+  }
 
-      }
+  /**
+   * Helper to derive an analyser from the default one with a different {@code maxDepth} and
+   * {@code doInfiniteDepths}, reusing the default one where possible.
+   * 
+   * @category helper
+   * @param maxDepth The {@code maxDepth} of the analysis.
+   * @param doInfiniteDepths Whether infinite derivDepths should be further analysed.
+   * @return A suitable {@link DerivDepthAnalyser}.
+   * @throws IllegalArgumentException If {@code maxDepth} cannot be analysed.
+   */
+  private static DerivDepthAnalyser analyser(int maxDepth, boolean doInfiniteDepths)
+      throws IllegalArgumentException {
+    DerivDepthAnalyser analyser = defaultAnalyser;
+    AnalyserConfig config = analyser.getConfig();
+    if (config.getMaxDepth() == maxDepth && config.doInfiniteDepths() == doInfiniteDepths) {
+      return analyser;
     }
-    // mark the change
-    depths.set(endI - 1, -1);
+    return new DerivDepthAnalyser(
+        config.withMaxDepth(maxDepth).withInfiniteDepths(doInfiniteDepths));
   }
 
 }
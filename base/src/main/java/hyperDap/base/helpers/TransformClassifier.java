@@ -0,0 +1,374 @@
+package hyperDap.base.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * Classifies the segments of a {@link ValueDataSet} by the {@link Transform} under which they are
+ * polynomial, and the {@code derivDepth} they have under it.
+ * <p>
+ * Rather than copying values into new DataSets of their logarithms to analyse them again, this
+ * class builds the difference pyramids of all transforms together, in a single sweep over the
+ * values. {@link DerivDepthAnalyser} classifies its segments of infinite {@code derivDepth} this
+ * way. As in {@link DerivDepthAnalyser} only the most recent diagonal of each pyramid is
+ * retained, so memory use is independent of the number of values and nothing but the segments is
+ * allocated. The independent values of a {@link PairDataSet} are used for divided differences,
+ * see {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet)}.
+ * <p>
+ * Each transform is analysed with the precision of the values carried over into its space, e.g.
+ * {@code precision / y} for {@code log(y)}, so values that are equal within the precision remain
+ * so after a transform and vice versa.
+ * <p>
+ * The {@code derivDepth} of each value is counted for every transform, and the transform with the
+ * smallest one is chosen, preferring earlier {@link Transform Transforms} if they are equal. Points
+ * of change are then detected as in {@link DerivDepthAnalyser}, which ends a {@link Segment}. The
+ * last {@code maxDepth - 1} values cannot be analysed completely and are added to the last segment.
+ * <p>
+ * A classifier holds no state besides its immutable configuration, so a single instance can be
+ * shared between any number of threads.
+ *
+ * @author soenk
+ *
+ */
+public final class TransformClassifier {
+
+  /**
+   * The transforms under which the values are analysed.
+   */
+  public enum Transform {
+    /**
+     * The values themselves, which are polynomial for polynomial functions.
+     */
+    IDENTITY,
+    /**
+     * {@code log(y)}, which is polynomial for exponential functions such as {@code a * e^(b * x)}.
+     * Only defined for positive values.
+     */
+    LOG,
+    /**
+     * {@code 1 / y}, which is polynomial for reciprocals of polynomials such as
+     * {@code 1 / (a * x + b)}. Only defined for values other than zero.
+     */
+    RECIPROCAL,
+    /**
+     * {@code log(y)} over {@code log(x)}, which is polynomial for power laws such as
+     * {@code a * x^b}. Only defined for positive values and independent values.
+     */
+    LOG_LOG,
+    /**
+     * No transform is polynomial within {@code maxDepth}.
+     */
+    NONE
+  }
+
+  /**
+   * A range of values that is polynomial under one {@link Transform}.
+   */
+  public static final class Segment {
+
+    private final int from;
+    private final int to;
+    private final Transform transform;
+    private final int depth;
+
+    /**
+     * Constructor.
+     *
+     * @param from The index of the first value, inclusively.
+     * @param to The index of the last value, exclusively.
+     * @param transform The {@link Transform} under which the values are polynomial.
+     * @param depth The {@code derivDepth} under {@code transform}.
+     */
+    Segment(int from, int to, Transform transform, int depth) {
+      this.from = from;
+      this.to = to;
+      this.transform = transform;
+      this.depth = depth;
+    }
+
+    /**
+     * @return The index of the first value of this segment, inclusively.
+     */
+    public int getFrom() {
+      return this.from;
+    }
+
+    /**
+     * @return The index of the last value of this segment, exclusively.
+     */
+    public int getTo() {
+      return this.to;
+    }
+
+    /**
+     * @return The {@link Transform} under which the values of this segment are polynomial.
+     */
+    public Transform getTransform() {
+      return this.transform;
+    }
+
+    /**
+     * @return The {@code derivDepth} of the values under {@link #getTransform()}, or
+     *         {@link DerivDepthList#UNDEFINED} for {@link Transform#NONE}.
+     */
+    public int getDepth() {
+      return this.depth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return String.format("[%s, %s): %s %s", this.from, this.to, this.transform, this.depth);
+    }
+  }
+
+  /**
+   * The number of transforms that are analysed, i.e. all but {@link Transform#NONE}.
+   */
+  private static final int TRANSFORMS = Transform.NONE.ordinal();
+
+  private final DerivDepthAnalyser analyser;
+
+  /**
+   * Constructor for a classifier with the default {@link AnalyserConfig}.
+   */
+  public TransformClassifier() {
+    this(new AnalyserConfig());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param config The configuration of this classifier, of which the precision, {@code maxDepth}
+   *        and {@link AnalyserConfig.TangentMode} are used.
+   * @throws IllegalArgumentException If {@code config} is {@code null}.
+   */
+  public TransformClassifier(AnalyserConfig config) throws IllegalArgumentException {
+    if (config == null) {
+      throw new IllegalArgumentException(
+          String.format("%s requires an %s", TransformClassifier.class, AnalyserConfig.class));
+    }
+    this.analyser = new DerivDepthAnalyser(config);
+  }
+
+  /**
+   * Constructor for the further analysis of {@code analyser}, see
+   * {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet)}.
+   *
+   * @param analyser The {@link DerivDepthAnalyser} whose configuration and tangents are used.
+   */
+  TransformClassifier(DerivDepthAnalyser analyser) {
+    this.analyser = analyser;
+  }
+
+  /**
+   * @return The configuration of this classifier.
+   */
+  public AnalyserConfig getConfig() {
+    return this.analyser.getConfig();
+  }
+
+  // analysis
+  // ****************************************************************************************
+
+  /**
+   * Classifies the values of {@code set} into {@link Segment Segments} in a single sweep.
+   *
+   * @param set The {@link ValueDataSet} that is to be classified.
+   * @return The segments in order, which together cover all values of {@code set}.
+   */
+  public List<Segment> classify(ValueDataSet<? extends Number> set) {
+    return this.classify(set, 0, set.size());
+  }
+
+  /**
+   * Classifies the values of {@code set} from index {@code from} to {@code to} as if they were all
+   * of its values, without copying them.
+   *
+   * @param set The {@link ValueDataSet} whose values are to be classified.
+   * @param from The index of the first value, inclusively.
+   * @param to The index of the last value, exclusively.
+   * @return The segments in order, which together cover the range.
+   */
+  List<Segment> classify(ValueDataSet<? extends Number> set, int from, int to) {
+    int maxDepth = this.getConfig().getMaxDepth();
+    DoubleValueDataSet doubles = null;
+    if (set instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) set;
+    }
+    boolean divided = set instanceof PairDataSet;
+    double step = set.getStep();
+    double precision = this.getConfig().getPrecision(set);
+    // the most recent diagonal of each pyramid, see DerivDepthAnalyser#countDerivDepths
+    double[][] diagonals = new double[TRANSFORMS][maxDepth];
+    int[][] firstZero = new int[TRANSFORMS][maxDepth];
+    // the last value at which each transform is not defined
+    int[] lastInvalid = new int[TRANSFORMS];
+    double[] xValues = new double[maxDepth];
+    double[] logXValues = new double[maxDepth];
+    double[] values = new double[TRANSFORMS];
+    double[] precisions = new double[TRANSFORMS];
+    Segments segments = new Segments(maxDepth, from);
+    Arrays.fill(lastInvalid, -1);
+    for (int k = 0; k < to - from; k++) {
+      int slot = k % maxDepth;
+      double y;
+      if (doubles != null) {
+        y = doubles.getDouble(from + k);
+      } else {
+        y = set.getByIndex(from + k).doubleValue();
+      }
+      xValues[slot] = set.getIndependentValue(from + k);
+      logXValues[slot] = Math.log(xValues[slot]);
+      values[Transform.IDENTITY.ordinal()] = y;
+      values[Transform.LOG.ordinal()] = Math.log(y);
+      values[Transform.RECIPROCAL.ordinal()] = 1.0 / y;
+      values[Transform.LOG_LOG.ordinal()] = Math.log(y);
+      if (Double.isFinite(logXValues[slot]) == false) {
+        values[Transform.LOG_LOG.ordinal()] = Double.NaN;
+      }
+      // the precision of y in the space of each transform, i.e. times the derivative of it
+      precisions[Transform.IDENTITY.ordinal()] = precision;
+      precisions[Transform.LOG.ordinal()] = precision / Math.abs(y);
+      precisions[Transform.RECIPROCAL.ordinal()] = precision / (y * y);
+      precisions[Transform.LOG_LOG.ordinal()] = precision / Math.abs(y);
+      for (int t = 0; t < TRANSFORMS; t++) {
+        if (Double.isFinite(values[t]) == false) {
+          // keep the pyramid finite, the transform is not used while this value is in it
+          lastInvalid[t] = k;
+          values[t] = 0.0;
+        }
+        double[] diagonal = diagonals[t];
+        firstZero[t][slot] = 0;
+        double previous = diagonal[0];
+        double temp;
+        double spacing = step;
+        diagonal[0] = values[t];
+        for (int j = 1, jMax = Math.min(k, maxDepth - 1); j <= jMax; j++) {
+          temp = diagonal[j];
+          if (t == Transform.LOG_LOG.ordinal()) {
+            spacing = (logXValues[slot] - logXValues[(k - j) % maxDepth]) / j;
+          } else if (divided == true) {
+            spacing =
+                DerivDepthAnalyser.spacing(xValues[slot], xValues[(k - j) % maxDepth], j, step);
+          }
+          diagonal[j] =
+              this.analyser.tangent(spacing, previous, diagonal[j - 1], precisions[t]);
+          previous = temp;
+          if (diagonal[j] == 0 && firstZero[t][(k - j) % maxDepth] == 0) {
+            firstZero[t][(k - j) % maxDepth] = j;
+          }
+        }
+      }
+      // the derivatives of index k - maxDepth + 1 are complete
+      int i = k - maxDepth + 1;
+      if (i >= 0) {
+        int best = TRANSFORMS;
+        int bestDepth = DerivDepthList.INFINITE;
+        for (int t = 0; t < TRANSFORMS; t++) {
+          int zero = firstZero[t][i % maxDepth];
+          if (lastInvalid[t] < i && zero != 0 && zero - 1 < bestDepth) {
+            best = t;
+            bestDepth = zero - 1;
+          }
+        }
+        boolean deepest = best < TRANSFORMS && diagonals[best][maxDepth - 1] != 0;
+        segments.complete(from + i, best, bestDepth, deepest);
+      }
+    }
+    return segments.finish(to);
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Collects the {@link Segment Segments} of {@link TransformClassifier#classify(ValueDataSet)},
+   * detecting points of change as {@link DerivDepthAnalyser} does.
+   *
+   * @category helper
+   */
+  private static final class Segments {
+
+    private final int maxDepth;
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private int from;
+    private int transform = -1;
+    private int depth = 0;
+    private boolean split = false;
+    private boolean tracking = false;
+    private int change = -1;
+
+    Segments(int maxDepth, int from) {
+      this.maxDepth = maxDepth;
+      this.from = from;
+    }
+
+    /**
+     * Adds the completely analysed value at {@code index}, as classified by its smallest
+     * {@code derivDepth}.
+     *
+     * @param index The index of the value, which follows the previous one.
+     * @param transform The ordinal of the chosen {@link Transform}.
+     * @param depth The {@code derivDepth} under that transform.
+     * @param deepest Whether its derivative at {@code maxDepth - 1} is not zero.
+     */
+    void complete(int index, int transform, int depth, boolean deepest) {
+      if (this.tracking == true) {
+        // the value belongs to the segment before the change
+        if (index == this.change) {
+          this.tracking = false;
+          this.split = true;
+        }
+        return;
+      }
+      if (transform != this.transform || depth != this.depth || this.split == true) {
+        this.close(index);
+        this.transform = transform;
+        this.depth = depth;
+        this.split = false;
+      }
+      if (deepest && depth < this.maxDepth - 1) {
+        this.change = index + this.maxDepth - 2;
+        this.tracking = this.change > index;
+        this.split = this.change == index;
+      }
+    }
+
+    /**
+     * Adds the values that cannot be analysed completely to the last segment and returns all.
+     *
+     * @param to The index after the last value.
+     * @return The segments.
+     */
+    List<Segment> finish(int to) {
+      if (to > this.from) {
+        this.close(to);
+      }
+      return this.segments;
+    }
+
+    /**
+     * Ends the current segment before {@code index}, if there is one.
+     *
+     * @param index The index after the last value of the segment.
+     */
+    private void close(int index) {
+      if (index == this.from) {
+        return;
+      }
+      Transform type = this.transform < 0 ? Transform.NONE : Transform.values()[this.transform];
+      int code = type == Transform.NONE ? DerivDepthList.UNDEFINED : this.depth;
+      this.segments.add(new Segment(this.from, index, type, code));
+      this.from = index;
+    }
+  }
+
+}
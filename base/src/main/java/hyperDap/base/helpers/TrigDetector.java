@@ -0,0 +1,579 @@
+package hyperDap.base.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * A helper class that detects trigonometric segments, i.e. sinusoids
+ * {@code y = offset + amplitude * sin(2 * PI * frequency * x + phase)}, by their spectrum.
+ * <p>
+ * The derivatives of a sinusoid never become zero, so the derivative matrix of
+ * {@link DerivDepthAnalyser} can only report them as undefined. Instead the values of a segment are
+ * transformed by {@link #realFft(double[], int)}, an in-place radix-2 FFT on a primitive array,
+ * which costs {@code O(n log(n))}. The frequency of the largest peak is estimated from its
+ * neighbouring bins, refined by Gauss-Newton steps, and a sinusoid of that frequency is fitted to
+ * all values of the segment by least squares. The segment is only accepted as trigonometric if the
+ * peak holds {@value #MIN_PEAK_POWER} of the power of the spectrum and the sinusoid explains
+ * {@value #MIN_EXPLAINED} of the variance of the values.
+ * <p>
+ * Other periodic waves are dominated by their fundamental as well, that of a triangle wave
+ * explains about 98.6% of its variance. What remains of them are their harmonics, while the
+ * residual of a noisy sinusoid is spread over all frequencies. Sinusoids of 2 to
+ * {@value #HARMONICS} times the frequency are therefore fitted to the residual, which may explain
+ * no more than {@value #MAX_HARMONIC_POWER} of the variance of the values beyond what they would
+ * explain of noise.
+ *
+ * @author soenk
+ *
+ */
+public final class TrigDetector {
+
+  /**
+   * The fewest values in which a sinusoid is detected.
+   */
+  public static final int MIN_VALUES = 16;
+  /**
+   * The smallest fraction of the variance of the values that the fitted sinusoid must explain.
+   */
+  public static final double MIN_EXPLAINED = 0.98;
+  /**
+   * The fewest periods of the fitted sinusoid that must be within the values.
+   */
+  public static final double MIN_PERIODS = 1.5;
+  /**
+   * The smallest fraction of the power of the spectrum that must be within the peak and its
+   * neighbouring bins. Values dominated by a few large ones, such as exponential functions, may be
+   * fitted well by a sinusoid but have a flat spectrum.
+   */
+  public static final double MIN_PEAK_POWER = 0.5;
+  /**
+   * The largest fraction of the variance of the values that the harmonics of the fitted sinusoid
+   * may explain. The third harmonic of a triangle wave explains about 1.2% of it.
+   */
+  public static final double MAX_HARMONIC_POWER = 0.005;
+  /**
+   * The highest multiple of the frequency of the fitted sinusoid that is fitted to the residual.
+   */
+  private static final int HARMONICS = 3;
+  /**
+   * The number of Gauss-Newton steps that refine the frequency estimated from the spectrum.
+   */
+  private static final int REFINEMENTS = 3;
+
+  /**
+   * A sinusoid {@code y = offset + amplitude * sin(2 * PI * frequency * x + phase)} that was
+   * detected in a range of values.
+   */
+  public static final class Oscillation {
+
+    private final int from;
+    private final int to;
+    private final double frequency;
+    private final double phase;
+    private final double amplitude;
+    private final double offset;
+    private final double explained;
+
+    Oscillation(int from, int to, double frequency, double phase, double amplitude,
+        double offset, double explained) {
+      this.from = from;
+      this.to = to;
+      this.frequency = frequency;
+      this.phase = phase;
+      this.amplitude = amplitude;
+      this.offset = offset;
+      this.explained = explained;
+    }
+
+    /**
+     * @return The index of the first value, inclusively.
+     */
+    public int getFrom() {
+      return this.from;
+    }
+
+    /**
+     * @return The index of the last value, exclusively.
+     */
+    public int getTo() {
+      return this.to;
+    }
+
+    /**
+     * @return The frequency in periods per unit of the independent value.
+     */
+    public double getFrequency() {
+      return this.frequency;
+    }
+
+    /**
+     * @return The phase in radians, within {@code (-PI, PI]}, relative to an independent value of
+     *         zero.
+     */
+    public double getPhase() {
+      return this.phase;
+    }
+
+    /**
+     * @return The amplitude, which is not negative.
+     */
+    public double getAmplitude() {
+      return this.amplitude;
+    }
+
+    /**
+     * @return The offset, i.e. the value the sinusoid oscillates around.
+     */
+    public double getOffset() {
+      return this.offset;
+    }
+
+    /**
+     * @return The fraction of the variance of the values explained by this sinusoid.
+     */
+    public double getExplained() {
+      return this.explained;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return String.format("[%s, %s): %s + %s * sin(2 * PI * %s * x + %s)", this.from, this.to,
+          this.offset, this.amplitude, this.frequency, this.phase);
+    }
+  }
+
+  /**
+   * Private constructor to prevent implementing this class.
+   */
+  private TrigDetector() {
+    throw new AssertionError("No helper class instances for anyone!");
+  }
+
+  // detection
+  // ****************************************************************************************
+
+  /**
+   * Detects a sinusoid in the values of {@code set} from index {@code from} to {@code to}.
+   * <p>
+   * The spectrum is calculated over the largest power of two of values from {@code from}, assuming
+   * the average spacing of their independent values, while the sinusoid is fitted to all values at
+   * their independent values.
+   *
+   * @param set The {@link ValueDataSet} whose values are checked.
+   * @param from The index of the first value, inclusively.
+   * @param to The index of the last value, exclusively.
+   * @return The detected {@link Oscillation}, or {@code null} if the values are too few or not
+   *         sinusoidal.
+   * @throws IndexOutOfBoundsException If {@code from} and {@code to} are not a range of indices of
+   *         {@code set}.
+   */
+  public static Oscillation detect(ValueDataSet<? extends Number> set, int from, int to)
+      throws IndexOutOfBoundsException {
+    if (from < 0 || to > set.size() || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, set.size()));
+    }
+    int length = to - from;
+    if (length < MIN_VALUES) {
+      return null;
+    }
+    double[] values = new double[length];
+    double[] xValues = new double[length];
+    DoubleValueDataSet doubles = null;
+    if (set instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) set;
+    }
+    double mean = 0.0;
+    for (int i = 0; i < length; i++) {
+      if (doubles != null) {
+        values[i] = doubles.getDouble(from + i);
+      } else {
+        values[i] = set.getByIndex(from + i).doubleValue();
+      }
+      xValues[i] = set.getIndependentValue(from + i) - set.getIndependentValue(from);
+      mean += values[i];
+    }
+    mean /= length;
+    // the spectrum of the largest power of two of values, without their mean
+    int n = Integer.highestOneBit(length);
+    double[] spectrum = new double[n];
+    for (int i = 0; i < n; i++) {
+      spectrum[i] = values[i] - mean;
+    }
+    realFft(spectrum, n);
+    int peak = 0;
+    double peakPower = 0.0;
+    double totalPower = spectrum[1] * spectrum[1];
+    double[] powers = new double[n / 2 + 1];
+    for (int k = 1; k < n / 2; k++) {
+      double re = spectrum[2 * k];
+      double im = spectrum[2 * k + 1];
+      powers[k] = re * re + im * im;
+      totalPower += powers[k];
+      if (powers[k] > peakPower) {
+        peak = k;
+        peakPower = powers[k];
+      }
+    }
+    if (peak < 1 || peak + 1 >= n / 2) {
+      return null;
+    }
+    if ((powers[peak - 1] + peakPower + powers[peak + 1] >= MIN_PEAK_POWER * totalPower) == false) {
+      return null;
+    }
+    double spacing = xValues[n - 1] / (n - 1);
+    double frequency = Math.abs((peak + offsetOfPeak(spectrum, peak, n)) / (n * spacing));
+    if ((frequency * Math.abs(xValues[length - 1]) >= MIN_PERIODS) == false) {
+      return null;
+    }
+    return fit(values, xValues, from, to, frequency, set.getIndependentValue(from));
+  }
+
+  /**
+   * Detects the sinusoid of each range of {@link DerivDepthList#TRIGONOMETRIC} values of
+   * {@code depths}, e.g. as calculated by {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet)}.
+   *
+   * @param set The {@link ValueDataSet} that was analysed.
+   * @param depths The {@code derivDepths} of {@code set}.
+   * @return The {@link Oscillation Oscillations} in order.
+   */
+  public static List<Oscillation> findOscillations(ValueDataSet<? extends Number> set,
+      DerivDepthList depths) {
+    List<Oscillation> oscillations = new ArrayList<Oscillation>();
+    int size = Math.min(set.size(), depths.size());
+    int from = -1;
+    for (int i = 0; i <= size; i++) {
+      boolean trig = i < size && depths.get(i) == DerivDepthList.TRIGONOMETRIC;
+      if (trig == true && from < 0) {
+        from = i;
+      } else if (trig == false && from >= 0) {
+        Oscillation oscillation = detect(set, from, i);
+        if (oscillation != null) {
+          oscillations.add(oscillation);
+        }
+        from = -1;
+      }
+    }
+    return oscillations;
+  }
+
+  // transform
+  // ****************************************************************************************
+
+  /**
+   * Calculates the discrete Fourier transform of the {@code n} real values at the start of
+   * {@code data} in place.
+   * <p>
+   * The values are transformed as {@code n / 2} complex values by a radix-2 FFT, whose result is
+   * then split into the spectrum of the real values. As that spectrum is symmetric only its first
+   * half is stored: {@code data[0]} holds the real bin {@code 0}, {@code data[1]} the real bin
+   * {@code n / 2} and {@code data[2 * k]} and {@code data[2 * k + 1]} the real and imaginary parts
+   * of bin {@code k} for {@code 0 < k < n / 2}. The bins are not normalised.
+   *
+   * @param data The values, which are replaced by their spectrum.
+   * @param n The number of values, which must be a power of two of at least {@code 2}.
+   * @throws IllegalArgumentException If {@code n} is not a power of two of at least {@code 2} or
+   *         larger than {@code data}.
+   */
+  public static void realFft(double[] data, int n) throws IllegalArgumentException {
+    if (n < 2 || Integer.bitCount(n) != 1 || n > data.length) {
+      throw new IllegalArgumentException(String.format(
+          "%s cannot transform %s values of %s", TrigDetector.class, n, data.length));
+    }
+    int m = n / 2;
+    complexFft(data, m);
+    // X[k] = E[k] + W^k O[k] and X[m - k] = conj(E[k] - W^k O[k]), with W = e^(-2 PI i / n)
+    double angle = -2 * Math.PI / n;
+    for (int k = 1; k <= m / 2; k++) {
+      int a = 2 * k;
+      int b = 2 * (m - k);
+      double evenRe = (data[a] + data[b]) / 2;
+      double evenIm = (data[a + 1] - data[b + 1]) / 2;
+      double oddRe = (data[a + 1] + data[b + 1]) / 2;
+      double oddIm = (data[b] - data[a]) / 2;
+      double wRe = Math.cos(angle * k);
+      double wIm = Math.sin(angle * k);
+      double tRe = wRe * oddRe - wIm * oddIm;
+      double tIm = wRe * oddIm + wIm * oddRe;
+      data[a] = evenRe + tRe;
+      data[a + 1] = evenIm + tIm;
+      data[b] = evenRe - tRe;
+      data[b + 1] = tIm - evenIm;
+    }
+    double first = data[0];
+    data[0] = first + data[1];
+    data[1] = first - data[1];
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Calculates the discrete Fourier transform of {@code m} complex values in place, with an
+   * iterative radix-2 FFT.
+   *
+   * @category helper
+   * @param data The complex values as pairs of real and imaginary parts.
+   * @param m The number of complex values, which must be a power of two.
+   */
+  private static void complexFft(double[] data, int m) {
+    // bit reversed order
+    for (int i = 1, j = 0; i < m; i++) {
+      int bit = m >> 1;
+      for (; (j & bit) != 0; bit >>= 1) {
+        j ^= bit;
+      }
+      j ^= bit;
+      if (i < j) {
+        swap(data, 2 * i, 2 * j);
+        swap(data, 2 * i + 1, 2 * j + 1);
+      }
+    }
+    // butterflies
+    for (int length = 2; length <= m; length <<= 1) {
+      double angle = -2 * Math.PI / length;
+      int half = length / 2;
+      for (int j = 0; j < half; j++) {
+        double wRe = Math.cos(angle * j);
+        double wIm = Math.sin(angle * j);
+        for (int i = j; i < m; i += length) {
+          int u = 2 * i;
+          int v = 2 * (i + half);
+          double vRe = data[v] * wRe - data[v + 1] * wIm;
+          double vIm = data[v] * wIm + data[v + 1] * wRe;
+          data[v] = data[u] - vRe;
+          data[v + 1] = data[u + 1] - vIm;
+          data[u] += vRe;
+          data[u + 1] += vIm;
+        }
+      }
+    }
+  }
+
+  /**
+   * Swaps two elements of {@code data}.
+   *
+   * @category helper
+   */
+  private static void swap(double[] data, int i, int j) {
+    double temp = data[i];
+    data[i] = data[j];
+    data[j] = temp;
+  }
+
+  /**
+   * Estimates the offset of the true frequency from the bin {@code peak}, by the ratio of the
+   * neighbouring bins as Jacobsen, corrected for the bias of rectangular windows.
+   *
+   * @category helper
+   * @param spectrum The spectrum as calculated by {@link #realFft(double[], int)}.
+   * @param peak The bin with the largest power, which has neighbours on both sides.
+   * @param n The number of transformed values.
+   * @return The offset in bins, between {@code -1} and {@code 1}.
+   */
+  private static double offsetOfPeak(double[] spectrum, int peak, int n) {
+    double prevRe = spectrum[2 * peak - 2];
+    double prevIm = spectrum[2 * peak - 1];
+    double nextRe = spectrum[2 * peak + 2];
+    double nextIm = spectrum[2 * peak + 3];
+    if (peak == 1) {
+      prevIm = 0.0; // bin 0 holds no imaginary part
+    }
+    double numRe = prevRe - nextRe;
+    double numIm = prevIm - nextIm;
+    double denRe = 2 * spectrum[2 * peak] - prevRe - nextRe;
+    double denIm = 2 * spectrum[2 * peak + 1] - prevIm - nextIm;
+    double offset = (numRe * denRe + numIm * denIm) / (denRe * denRe + denIm * denIm);
+    offset *= Math.tan(Math.PI / n) / (Math.PI / n);
+    if (Double.isFinite(offset) == false) {
+      return 0.0;
+    }
+    return Math.max(-1.0, Math.min(1.0, offset));
+  }
+
+  /**
+   * Fits {@code offset + a * cos(w * x) + b * sin(w * x)} to the values by least squares and
+   * returns the {@link Oscillation} if it explains enough of their variance and its harmonics
+   * explain little of the rest, see {@link #harmonicPower(double[], double[], double)}. The
+   * estimated frequency is first refined by {@value #REFINEMENTS} Gauss-Newton steps.
+   *
+   * @category helper
+   * @param values The values.
+   * @param xValues Their independent values, relative to that of the first.
+   * @param from The index of the first value.
+   * @param to The index after the last value.
+   * @param frequency The estimated frequency of the sinusoid.
+   * @param base The independent value of the first value.
+   * @return The {@link Oscillation}, or {@code null} if it does not explain enough of the variance
+   *         or the values are periodic but not sinusoidal.
+   */
+  private static Oscillation fit(double[] values, double[] xValues, int from, int to,
+      double frequency, double base) {
+    double omega = 2 * Math.PI * frequency;
+    double[] solution = leastSquares(values, xValues, omega, null);
+    for (int i = 0; i < REFINEMENTS && solution != null; i++) {
+      double[] refined = leastSquares(values, xValues, omega, solution);
+      if (refined == null || (omega + refined[3] > 0) == false) {
+        break;
+      }
+      omega += refined[3];
+      solution = leastSquares(values, xValues, omega, null);
+    }
+    if (solution == null) {
+      return null;
+    }
+    double mean = 0.0;
+    for (double value : values) {
+      mean += value;
+    }
+    mean /= values.length;
+    double total = 0.0;
+    double residual = 0.0;
+    double[] residuals = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      double fitted = solution[0] + solution[1] * Math.cos(omega * xValues[i])
+          + solution[2] * Math.sin(omega * xValues[i]);
+      residuals[i] = values[i] - fitted;
+      total += (values[i] - mean) * (values[i] - mean);
+      residual += residuals[i] * residuals[i];
+    }
+    if ((total > 0) == false) {
+      return null;
+    }
+    double explained = 1 - residual / total;
+    if ((explained >= MIN_EXPLAINED) == false) {
+      return null;
+    }
+    // noise alone is explained in proportion to the parameters of the harmonics
+    double harmonics = harmonicPower(residuals, xValues, omega)
+        - residual * 3 * (HARMONICS - 1) / values.length;
+    if ((harmonics < MAX_HARMONIC_POWER * total) == false) {
+      return null;
+    }
+    // a * cos + b * sin = amplitude * sin(w * x + phase), relative to an xValue of zero
+    double amplitude = Math.hypot(solution[1], solution[2]);
+    double phase = Math.atan2(solution[1], solution[2]) - omega * base;
+    phase = Math.IEEEremainder(phase, 2 * Math.PI);
+    if (phase <= -Math.PI) {
+      phase += 2 * Math.PI;
+    }
+    return new Oscillation(from, to, omega / (2 * Math.PI), phase, amplitude, solution[0],
+        explained);
+  }
+
+  /**
+   * Fits a sinusoid of each multiple of {@code omega}, from {@code 2} to {@value #HARMONICS} times
+   * it, to {@code residuals} by least squares and sums the squares they explain. The harmonics of a
+   * periodic wave are orthogonal to each other, so they are fitted independently.
+   *
+   * @category helper
+   * @param residuals The residuals of the fitted sinusoid.
+   * @param xValues Their independent values, relative to that of the first.
+   * @param omega The angular frequency of the fitted sinusoid.
+   * @return The sum of squares of {@code residuals} explained by the harmonics.
+   */
+  private static double harmonicPower(double[] residuals, double[] xValues, double omega) {
+    double power = 0.0;
+    for (int h = 2; h <= HARMONICS; h++) {
+      double[] solution = leastSquares(residuals, xValues, h * omega, null);
+      if (solution == null) {
+        continue;
+      }
+      for (int i = 0; i < residuals.length; i++) {
+        double fitted = solution[0] + solution[1] * Math.cos(h * omega * xValues[i])
+            + solution[2] * Math.sin(h * omega * xValues[i]);
+        power += residuals[i] * residuals[i] - (residuals[i] - fitted) * (residuals[i] - fitted);
+      }
+    }
+    return power;
+  }
+
+  /**
+   * Solves the normal equations of {@code offset + a * cos(w * x) + b * sin(w * x)} for
+   * {@code (offset, a, b)}, or, given a previous solution, additionally for the correction of
+   * {@code w} linearised around it.
+   *
+   * @category helper
+   * @param values The values.
+   * @param xValues Their independent values, relative to that of the first.
+   * @param omega The angular frequency {@code w}.
+   * @param previous The previous solution {@code (offset, a, b)}, or {@code null} to keep
+   *        {@code omega}.
+   * @return The solution, with the correction of {@code omega} last if {@code previous} is given,
+   *         or {@code null} if the equations are singular.
+   */
+  private static double[] leastSquares(double[] values, double[] xValues, double omega,
+      double[] previous) {
+    int size = previous == null ? 3 : 4;
+    double[][] matrix = new double[size][size + 1];
+    double[] row = new double[size];
+    for (int i = 0; i < values.length; i++) {
+      double cos = Math.cos(omega * xValues[i]);
+      double sin = Math.sin(omega * xValues[i]);
+      row[0] = 1.0;
+      row[1] = cos;
+      row[2] = sin;
+      double target = values[i];
+      if (previous != null) {
+        // the derivative by omega, the residual of the previous solution is fitted
+        row[3] = xValues[i] * (previous[2] * cos - previous[1] * sin);
+        target -= previous[0] + previous[1] * cos + previous[2] * sin;
+      }
+      for (int r = 0; r < size; r++) {
+        for (int c = 0; c < size; c++) {
+          matrix[r][c] += row[r] * row[c];
+        }
+        matrix[r][size] += row[r] * target;
+      }
+    }
+    return solve(matrix);
+  }
+
+  /**
+   * Solves the linear equations of an augmented {@code n x (n + 1)} matrix by Gaussian elimination
+   * with partial pivoting.
+   *
+   * @category helper
+   * @param matrix The augmented matrix, which is altered.
+   * @return The solution, or {@code null} if the matrix is singular.
+   */
+  private static double[] solve(double[][] matrix) {
+    int size = matrix.length;
+    for (int c = 0; c < size; c++) {
+      int pivot = c;
+      for (int r = c + 1; r < size; r++) {
+        if (Math.abs(matrix[r][c]) > Math.abs(matrix[pivot][c])) {
+          pivot = r;
+        }
+      }
+      if (matrix[pivot][c] == 0) {
+        return null;
+      }
+      double[] temp = matrix[c];
+      matrix[c] = matrix[pivot];
+      matrix[pivot] = temp;
+      for (int r = c + 1; r < size; r++) {
+        double factor = matrix[r][c] / matrix[c][c];
+        for (int k = c; k <= size; k++) {
+          matrix[r][k] -= factor * matrix[c][k];
+        }
+      }
+    }
+    double[] solution = new double[size];
+    for (int r = size - 1; r >= 0; r--) {
+      double sum = matrix[r][size];
+      for (int c = r + 1; c < size; c++) {
+        sum -= matrix[r][c] * solution[c];
+      }
+      solution[r] = sum / matrix[r][r];
+    }
+    return solution;
+  }
+
+}
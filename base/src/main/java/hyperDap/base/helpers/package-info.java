@@ -2,7 +2,9 @@
  * This package may be used throughout the project. It contains classes that provide static methods
  * that might be useful, like Object parsing or common mathematical methods.
  * <p>
- * These classes cannot be instantiated or extended, they are solely made to provide static helper
- * methods.
+ * Most of these classes cannot be instantiated or extended, they are solely made to provide static
+ * helper methods. Exceptions are analysers that must retain state between calls, like the
+ * {@link hyperDap.base.helpers.OnlineTangenter OnlineTangenter}, or their configuration, like the
+ * {@link hyperDap.base.helpers.DerivDepthAnalyser DerivDepthAnalyser}.
  */
 package hyperDap.base.helpers;
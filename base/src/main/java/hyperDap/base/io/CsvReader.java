@@ -0,0 +1,663 @@
+package hyperDap.base.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import hyperDap.base.helpers.AnalyserConfig;
+import hyperDap.base.helpers.Parser;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+/**
+ * Reads traces from delimiter separated text files, such as CSV, into a
+ * {@link DoubleValueDataSet}.
+ * <p>
+ * The file is streamed through a fixed size buffer straight from a {@link FileChannel}, and numbers
+ * are parsed from the bytes in place with {@link Parser#parseDouble(byte[], int, int)}, so no
+ * {@link String} is created per line or field. Only the two columns holding the {@code xValue} and
+ * {@code yValue} are parsed, all others are skipped.
+ * <p>
+ * Each line is added at the index corresponding to its {@code xValue}, see
+ * {@link hyperDap.base.types.dataSet.DataSet#getIndex(double) getIndex(double)}. Lines are
+ * expected in order of their {@code xValue}, missing lines are filled with invalid {@code NaN}
+ * values and lines with a repeated {@code xValue} replace the earlier one. Lines whose
+ * {@code yValue} cannot be parsed are added as invalid, as are lines whose {@code xValue} cannot be
+ * parsed, which are then assumed to follow the previous line. Lines before the first one that
+ * holds any number are treated as headers and skipped, empty lines are always skipped.
+ * <p>
+ * Large files may be parsed on several threads with {@link #readParallel(Path, ForkJoinPool)}.
+ * Irregularly sampled files may be read with {@link #readPairs(Path)}, which keeps every
+ * {@code xValue} exactly.
+ * <p>
+ * Instances hold no state besides their configuration and may be shared between threads.
+ *
+ * @author soenk
+ *
+ */
+public final class CsvReader {
+
+  /**
+   * The size of the buffer files are read through. Lines longer than this grow the buffer.
+   */
+  static final int BUFFER_SIZE = 1 << 20;
+  /**
+   * The minimum number of bytes of a file parsed by each task of
+   * {@link #readParallel(Path, ForkJoinPool)}.
+   */
+  static final int MIN_CHUNK_SIZE = 1 << 24;
+
+  private final byte delimiter;
+  private final int xColumn;
+  private final int yColumn;
+  private final double yPrecision;
+
+  /**
+   * The default constructor, for comma separated files with the {@code xValue} in the first and the
+   * {@code yValue} in the second column, and the {@link AnalyserConfig#DEFAULT_PRECISION}.
+   */
+  public CsvReader() {
+    this(',', 0, 1, AnalyserConfig.DEFAULT_PRECISION);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param delimiter The character separating the columns, e.g. {@code ','} or {@code '\t'}.
+   * @param xColumn The index of the column holding the {@code xValues}, starting at {@code 0}, or
+   *        {@code -1} if there is none, in which case lines are consecutive values starting at
+   *        {@code x=0} with a {@code step} of {@code 1}.
+   * @param yColumn The index of the column holding the {@code yValues}, starting at {@code 0}.
+   * @param yPrecision The {@code yPrecision} of the DataSets created by {@link #read(Path)}.
+   * @throws IllegalArgumentException If {@code delimiter} is not a single byte character or the
+   *         columns are negative or the same.
+   */
+  public CsvReader(char delimiter, int xColumn, int yColumn, double yPrecision)
+      throws IllegalArgumentException {
+    if (delimiter > 0x7f || delimiter == '\n' || delimiter == '\r') {
+      throw new IllegalArgumentException(
+          String.format("%s cannot use the delimiter '%s'", CsvReader.class, delimiter));
+    }
+    if (xColumn < -1 || yColumn < 0 || xColumn == yColumn) {
+      throw new IllegalArgumentException(String.format(
+          "%s cannot read xColumn %s and yColumn %s", CsvReader.class, xColumn, yColumn));
+    }
+    this.delimiter = (byte) delimiter;
+    this.xColumn = xColumn;
+    this.yColumn = yColumn;
+    this.yPrecision = yPrecision;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * The values read from one range of lines of a file.
+   * <p>
+   * Lines are placed by the index of their {@code xValue} minus {@code offset}. Until the first
+   * line with a usable {@code xValue} is read, the column is not {@code positioned} and lines are
+   * appended, their number is then kept in {@code leading}. Lines that would be placed before that
+   * are added as invalid instead.
+   *
+   * @author soenk
+   *
+   */
+  private static final class Column {
+
+    private final DoubleValueDataSet values;
+    /**
+     * {@code values} if it is a {@link PairDataSet}, whose lines are added with their
+     * {@code xValue} rather than placed by it.
+     */
+    private final PairDataSet pairs;
+    private final double base;
+    private final double step;
+    private boolean header;
+    private boolean positioned = true;
+    private int offset = 0;
+    private int leading = 0;
+
+    /**
+     * Constructor for a column that is positioned at the start of {@code values}.
+     *
+     * @param values The DataSet the lines are added to.
+     * @param header Whether lines before the first one that holds any number are skipped.
+     */
+    private Column(DoubleValueDataSet values, boolean header) {
+      this.values = values;
+      this.pairs = values instanceof PairDataSet ? (PairDataSet) values : null;
+      this.base = values.getBase();
+      this.step = values.getStep();
+      this.header = header && values.isEmpty();
+    }
+
+    /**
+     * Appends the values of this column to {@code set} at the indices of their {@code xValues},
+     * where lines before the first usable {@code xValue} follow the last value of {@code set}.
+     *
+     * @param set The DataSet to be appended to, whose {@code base} and {@code step} match.
+     */
+    private void appendTo(DoubleValueDataSet set) {
+      int size = this.values.size();
+      if (this.positioned == false) {
+        set.addAll(this.values, 0, size);
+        return;
+      }
+      set.addAll(this.values, 0, this.leading);
+      int start = this.offset + this.leading;
+      while (set.size() < start) {
+        set.add(Double.NaN);
+        set.editValidityByIndex(set.size() - 1, false);
+      }
+      // lines repeating earlier xValues replace the values there
+      int from = this.leading;
+      for (int i = start; i < set.size() && from < size; i++, from++) {
+        set.setDouble(i, this.values.getDouble(from));
+        set.editValidityByIndex(i, this.values.getValidByIndex(from));
+      }
+      set.addAll(this.values, from, size);
+    }
+
+  }
+
+  /**
+   * Helper to execute all {@code tasks} on {@code pool} and wait for their completion.
+   *
+   * @category helper
+   * @param pool The {@link ForkJoinPool} to execute on.
+   * @param tasks The tasks to be executed.
+   */
+  private static void invokeAll(ForkJoinPool pool, List<RecursiveAction> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    pool.invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute() {
+        ForkJoinTask.invokeAll(tasks);
+      }
+    });
+  }
+
+  /**
+   * Finds the start and end of the {@code xColumn} and {@code yColumn} within one line.
+   *
+   * @category helper
+   * @param bytes The buffer holding the line.
+   * @param from The index of the first byte of the line.
+   * @param to The index after the last byte of the line, excluding the line break.
+   * @param fields Receives the start and end of the {@code xValue} at {@code 0} and {@code 1} and
+   *        those of the {@code yValue} at {@code 2} and {@code 3}. Missing columns are empty.
+   */
+  private void findFields(byte[] bytes, int from, int to, int[] fields) {
+    fields[0] = fields[1] = fields[2] = fields[3] = from;
+    int last = Math.max(this.xColumn, this.yColumn);
+    int column = 0;
+    int start = from;
+    for (int i = from; i <= to && column <= last; i++) {
+      if (i == to || bytes[i] == this.delimiter) {
+        if (column == this.xColumn) {
+          fields[0] = start;
+          fields[1] = i;
+        } else if (column == this.yColumn) {
+          fields[2] = start;
+          fields[3] = i;
+        }
+        column++;
+        start = i + 1;
+      }
+    }
+  }
+
+  /**
+   * Whether a line holds nothing but whitespace.
+   *
+   * @category helper
+   * @param bytes The buffer holding the line.
+   * @param from The index of the first byte of the line.
+   * @param to The index after the last byte of the line.
+   * @return {@code true} if the line is blank.
+   */
+  private static boolean isBlank(byte[] bytes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fills {@code buffer} after the first {@code filled} bytes with the bytes of {@code channel}
+   * starting at {@code position}, until it is full or {@code limit} is reached.
+   *
+   * @category helper
+   * @param channel The channel to be read from.
+   * @param buffer The buffer to be filled.
+   * @param filled The number of bytes already in {@code buffer}.
+   * @param position The position in {@code channel} of the first byte to be read.
+   * @param limit The position in {@code channel} after the last byte that may be read.
+   * @return The number of bytes in {@code buffer} afterwards.
+   * @throws IOException If reading fails.
+   */
+  private static int fill(FileChannel channel, byte[] buffer, int filled, long position,
+      long limit) throws IOException {
+    int length = (int) Math.max(0, Math.min(buffer.length - filled, limit - position));
+    ByteBuffer wrapper = ByteBuffer.wrap(buffer, filled, length);
+    while (wrapper.hasRemaining()
+        && channel.read(wrapper, position + wrapper.position() - filled) >= 0) {
+    }
+    return wrapper.position();
+  }
+
+  /**
+   * Finds the position of the first line that starts at or after {@code position}.
+   *
+   * @category helper
+   * @param channel The channel to be searched.
+   * @param position The position to start searching from.
+   * @param size The size of {@code channel}.
+   * @return The position after the first line break at or after {@code position - 1}, or
+   *         {@code size} if there is none.
+   * @throws IOException If reading fails.
+   */
+  private static long nextLineStart(FileChannel channel, long position, long size)
+      throws IOException {
+    if (position <= 0) {
+      return 0;
+    }
+    byte[] bytes = new byte[1 << 16];
+    long searched = position - 1;
+    while (searched < size) {
+      int read = fill(channel, bytes, 0, searched, size);
+      for (int i = 0; i < read; i++) {
+        if (bytes[i] == '\n') {
+          return searched + i + 1;
+        }
+      }
+      searched += read;
+    }
+    return size;
+  }
+
+  /**
+   * Estimates the number of lines in {@code length} bytes from those in the first bytes of a file.
+   *
+   * @category helper
+   * @param bytes The beginning of the file.
+   * @param filled The number of bytes in {@code bytes}.
+   * @param length The number of bytes whose lines are estimated.
+   * @return The estimated number of lines.
+   */
+  private static int estimateLines(byte[] bytes, int filled, long length) {
+    long lines = 0;
+    for (int i = 0; i < filled; i++) {
+      if (bytes[i] == '\n') {
+        lines++;
+      }
+    }
+    if (lines == 0) {
+      return 0;
+    }
+    return (int) Math.min(length * lines / filled, Integer.MAX_VALUE - 8);
+  }
+
+  /**
+   * Infers {@code base} and {@code step} from the first two lines with a parseable
+   * {@code xValue}. If there are fewer, the {@code step} is {@code 1}.
+   *
+   * @category helper
+   * @param bytes The beginning of the file.
+   * @param length The number of bytes in {@code bytes}.
+   * @return The {@code base} at {@code 0} and the {@code step} at {@code 1}.
+   */
+  private double[] inferAxis(byte[] bytes, int length) {
+    double[] axis = {0.0, 1.0};
+    if (this.xColumn < 0) {
+      return axis;
+    }
+    int[] fields = new int[4];
+    int found = 0;
+    int lineStart = 0;
+    for (int i = 0; i <= length && found < 2; i++) {
+      if (i < length && bytes[i] != '\n') {
+        continue;
+      }
+      this.findFields(bytes, lineStart, i, fields);
+      double x = Parser.parseDouble(bytes, fields[0], fields[1]);
+      if (Double.isNaN(x) == false) {
+        if (found == 0) {
+          axis[0] = x;
+          found++;
+        } else if (x != axis[0]) {
+          axis[1] = x - axis[0];
+          found++;
+        }
+      }
+      lineStart = i + 1;
+    }
+    return axis;
+  }
+
+  /**
+   * Adds the parsed values of one line to {@code column}.
+   *
+   * @category helper
+   * @param column The column to be added to.
+   * @param x The parsed {@code xValue}, {@code NaN} if it could not be parsed.
+   * @param y The parsed {@code yValue}, {@code NaN} if it could not be parsed.
+   */
+  private void addLine(Column column, double x, double y) {
+    if (column.pairs != null) {
+      this.addPair(column.pairs, x, y);
+      return;
+    }
+    DoubleValueDataSet set = column.values;
+    int size = set.size();
+    boolean valid = Double.isNaN(y) == false;
+    double position = size;
+    if (this.xColumn >= 0) {
+      double index = Math.rint((x - column.base) / column.step);
+      if (Double.isNaN(index) || index < 0 || index >= Integer.MAX_VALUE - 8) {
+        valid = false; // an unusable xValue is assumed to follow the previous line
+      } else if (column.positioned == false) {
+        column.positioned = true;
+        column.leading = size;
+        column.offset = (int) index - size;
+      } else if (index - column.offset >= column.leading) {
+        position = index - column.offset;
+      } else {
+        valid = false; // reaches back before the column
+      }
+    }
+    if (position == size) {
+      set.add(y);
+      if (valid == false) {
+        set.editValidityByIndex(size, false);
+      }
+    } else if (position > size) {
+      int index = (int) position;
+      while (set.size() < index) {
+        set.add(Double.NaN);
+        set.editValidityByIndex(set.size() - 1, false);
+      }
+      set.add(y);
+      if (valid == false) {
+        set.editValidityByIndex(index, false);
+      }
+    } else {
+      int index = (int) position;
+      set.setDouble(index, y);
+      set.editValidityByIndex(index, valid);
+    }
+  }
+
+  /**
+   * Adds the parsed values of one line to {@code set} with their {@code xValue}. Lines whose
+   * {@code xValue} cannot be parsed or is smaller than the previous one are skipped.
+   *
+   * @category helper
+   * @param set The DataSet to be added to.
+   * @param x The parsed {@code xValue}, {@code NaN} if it could not be parsed.
+   * @param y The parsed {@code yValue}, {@code NaN} if it could not be parsed.
+   */
+  private void addPair(PairDataSet set, double x, double y) {
+    int size = set.size();
+    if (this.xColumn < 0) {
+      x = set.getIndependentValue(size); // without xValues the lines are spaced by step
+    }
+    if (Double.isNaN(x) || (size > 0 && x < set.getIndependentValue(size - 1))) {
+      return;
+    }
+    set.add(x, y);
+    if (Double.isNaN(y)) {
+      set.editValidityByIndex(set.getExactIndex(x), false);
+    }
+  }
+
+  /**
+   * Reads all lines from position {@code from} to {@code to} of {@code channel} into
+   * {@code column}.
+   *
+   * @category helper
+   * @param channel The channel to be read.
+   * @param from The position of the first line.
+   * @param to The position after the last line.
+   * @param bytes The buffer to be read through, which may already hold the first {@code filled}
+   *        bytes.
+   * @param filled The number of bytes already in {@code bytes}.
+   * @param column The column to be added to.
+   * @throws IOException If reading fails.
+   */
+  private void readLines(FileChannel channel, long from, long to, byte[] bytes, int filled,
+      Column column) throws IOException {
+    long position = from + filled;
+    boolean end = false;
+    while (end == false) {
+      int previous = filled;
+      filled = fill(channel, bytes, filled, position, to);
+      position += filled - previous;
+      end = filled < bytes.length || position >= to;
+      if (end == true && filled > 0 && bytes[filled - 1] != '\n') {
+        if (filled == bytes.length) {
+          bytes = Arrays.copyOf(bytes, filled + 1);
+        }
+        bytes[filled++] = '\n'; // terminate the last line
+      }
+      // a single pass over the buffer, noting the bounds of both fields on the way
+      int lineStart = 0;
+      int fieldStart = 0;
+      int field = 0;
+      int xFrom = 0;
+      int xTo = 0;
+      int yFrom = 0;
+      int yTo = 0;
+      for (int i = 0; i < filled; i++) {
+        byte b = bytes[i];
+        if (b != this.delimiter && b != '\n') {
+          continue;
+        }
+        if (field == this.xColumn) {
+          xFrom = fieldStart;
+          xTo = i;
+        } else if (field == this.yColumn) {
+          yFrom = fieldStart;
+          yTo = i;
+        }
+        field++;
+        fieldStart = i + 1;
+        if (b != '\n') {
+          continue;
+        }
+        if (field > 1 || isBlank(bytes, lineStart, i) == false) {
+          double x = Parser.parseDouble(bytes, xFrom, xTo);
+          double y = Parser.parseDouble(bytes, yFrom, yTo);
+          if (column.header == false || Double.isNaN(x) == false || Double.isNaN(y) == false) {
+            column.header = false;
+            this.addLine(column, x, y);
+          }
+        }
+        lineStart = i + 1;
+        field = 0;
+        xFrom = xTo = yFrom = yTo = 0;
+      }
+      // keep the incomplete last line, growing the buffer if it is the only one
+      filled -= lineStart;
+      if (lineStart == 0 && end == false) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      } else {
+        System.arraycopy(bytes, lineStart, bytes, 0, filled);
+      }
+    }
+  }
+
+  // read
+  // ****************************************************************************************
+
+  /**
+   * Reads a file into a new {@link DoubleValueDataSet}, whose {@code base} and {@code step} are
+   * inferred from the {@code xValues} of the first two lines.
+   *
+   * @param path The file to be read.
+   * @return A new DataSet holding all lines of the file.
+   * @throws IOException If the file cannot be read.
+   */
+  public DoubleValueDataSet read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      byte[] bytes = new byte[BUFFER_SIZE];
+      int filled = fill(channel, bytes, 0, 0, size);
+      double[] axis = this.inferAxis(bytes, filled);
+      DoubleValueDataSet set = new DoubleValueDataSet(axis[0], axis[1], this.yPrecision);
+      set.ensureCapacity(estimateLines(bytes, filled, size));
+      this.readLines(channel, 0, size, bytes, filled, new Column(set, true));
+      return set;
+    }
+  }
+
+  /**
+   * Reads a file of irregularly sampled lines into a new {@link PairDataSet}, which records the
+   * {@code xValue} of every line exactly. Its {@code base} and {@code step} are inferred from the
+   * {@code xValues} of the first two lines.
+   * <p>
+   * Lines are expected in order of their {@code xValue}. Lines with a repeated {@code xValue}
+   * replace the earlier one, and lines whose {@code xValue} cannot be parsed or is smaller than
+   * that of the previous line are skipped. Lines whose {@code yValue} cannot be parsed are added as
+   * invalid.
+   *
+   * @param path The file to be read.
+   * @return A new PairDataSet holding all usable lines of the file.
+   * @throws IOException If the file cannot be read.
+   */
+  public PairDataSet readPairs(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      byte[] bytes = new byte[BUFFER_SIZE];
+      int filled = fill(channel, bytes, 0, 0, size);
+      double[] axis = this.inferAxis(bytes, filled);
+      PairDataSet set = new PairDataSet(axis[0], axis[1], this.yPrecision);
+      set.ensureCapacity(estimateLines(bytes, filled, size));
+      this.readLines(channel, 0, size, bytes, filled, new Column(set, true));
+      return set;
+    }
+  }
+
+  /**
+   * Reads a file into an existing {@link DoubleValueDataSet}, whose {@code base} and {@code step}
+   * are used to map {@code xValues} to indices. If {@code set} is a {@link PairDataSet} the lines
+   * are added with their {@code xValues} instead, as by {@link #readPairs(Path)}.
+   *
+   * @param path The file to be read.
+   * @param set The DataSet the lines are added to.
+   * @throws IOException If the file cannot be read.
+   */
+  public void readInto(Path path, DoubleValueDataSet set) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      this.readLines(channel, 0, channel.size(), new byte[BUFFER_SIZE], 0, new Column(set, true));
+    }
+  }
+
+  /**
+   * Reads a file into a new {@link DoubleValueDataSet} like {@link #read(Path)}, but parses it in
+   * parallel on the {@link ForkJoinPool#commonPool() common pool}.
+   *
+   * @param path The file to be read.
+   * @return A new DataSet holding all lines of the file.
+   * @throws IOException If the file cannot be read.
+   */
+  public DoubleValueDataSet readParallel(Path path) throws IOException {
+    return this.readParallel(path, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Reads a file into a new {@link DoubleValueDataSet} like {@link #read(Path)}, but parses it in
+   * parallel on {@code pool}.
+   * <p>
+   * The file is split into ranges of whole lines, about four per thread of {@code pool} but no
+   * smaller than {@link #MIN_CHUNK_SIZE} bytes. Each range is parsed into its own column, where
+   * {@code xValues} are mapped to indices with the {@code base} and {@code step} inferred from the
+   * beginning of the file, exactly as {@link #read(Path)} does. The columns are then copied into
+   * the resulting DataSet in order. For a file whose lines are in order of their
+   * {@code xValue} the result is the same as that of {@link #read(Path)}, a line that reaches back
+   * before the first line of its range however is added as invalid.
+   * <p>
+   * Copying the columns is not parallel and briefly requires twice the memory of the values, so
+   * on a single thread this is somewhat slower than {@link #read(Path)}. Files that form only one
+   * range are not copied.
+   *
+   * @param path The file to be read.
+   * @param pool The {@link ForkJoinPool} to parse on.
+   * @return A new DataSet holding all lines of the file.
+   * @throws IOException If the file cannot be read.
+   */
+  public DoubleValueDataSet readParallel(Path path, ForkJoinPool pool) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      byte[] first = new byte[BUFFER_SIZE];
+      int filled = fill(channel, first, 0, 0, size);
+      double[] axis = this.inferAxis(first, filled);
+      // split into ranges of whole lines
+      int chunks = (int) Math.max(1, Math.min(4L * pool.getParallelism(), size / MIN_CHUNK_SIZE));
+      long[] bounds = new long[chunks + 1];
+      for (int c = 1; c < chunks; c++) {
+        bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, c * (size / chunks), size));
+      }
+      bounds[chunks] = size;
+      // parse each range into its own column
+      Column[] columns = new Column[chunks];
+      List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(chunks);
+      for (int c = 0; c < chunks; c++) {
+        final int chunk = c;
+        tasks.add(new RecursiveAction() {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected void compute() {
+            DoubleValueDataSet values = new DoubleValueDataSet(axis[0], axis[1], yPrecision);
+            values.ensureCapacity(estimateLines(first, filled, bounds[chunk + 1] - bounds[chunk]));
+            columns[chunk] = new Column(values, chunk == 0);
+            columns[chunk].positioned = false;
+            try {
+              CsvReader.this.readLines(channel, bounds[chunk], bounds[chunk + 1],
+                  new byte[BUFFER_SIZE], 0, columns[chunk]);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        });
+      }
+      try {
+        invokeAll(pool, tasks);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      // a single column that is not shifted already is the result
+      if (chunks == 1 && (columns[0].positioned == false || columns[0].offset == 0)) {
+        return columns[0].values;
+      }
+      // concatenate the columns in order
+      long total = 0;
+      for (Column column : columns) {
+        total += column.values.size();
+      }
+      DoubleValueDataSet set = new DoubleValueDataSet(axis[0], axis[1], this.yPrecision);
+      set.ensureCapacity((int) Math.min(total, Integer.MAX_VALUE - 8));
+      for (int c = 0; c < chunks; c++) {
+        columns[c].appendTo(set);
+        columns[c] = null;
+      }
+      return set;
+    }
+  }
+
+}
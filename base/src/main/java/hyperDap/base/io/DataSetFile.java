@@ -0,0 +1,278 @@
+package hyperDap.base.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * Defines the binary file format in which {@link ValueDataSet ValueDataSets} are stored, and
+ * provides methods to {@link #write(ValueDataSet, Path, boolean) write} and {@link #open(Path)
+ * open} such files.
+ * <p>
+ * All numbers are stored little-endian. A file consists of a fixed size header followed by up to
+ * three columns, each starting directly after the previous one: <br>
+ * {@code header} : {@link #HEADER_SIZE} bytes, see below <br>
+ * {@code values} : {@code length} {@code doubles}, the {@code yValues} by index <br>
+ * {@code validity} : {@code ceil(length / 64)} {@code longs}, where bit {@code i % 64} of
+ * {@code long} {@code i / 64} is set if value {@code i} is valid <br>
+ * {@code derivDepths} : {@code length} bytes as encoded by {@link DerivDepthList#encode(int)}, only
+ * present if {@link #FLAG_DERIV_DEPTHS} is set <br>
+ * <p>
+ * The header holds, by byte offset: <br>
+ * {@code 0} : the {@code int} {@link #MAGIC} <br>
+ * {@code 4} : the {@code int} {@link #VERSION} of the format <br>
+ * {@code 8} : the {@code long} {@code length}, i.e. the number of values <br>
+ * {@code 16} : the {@code double} {@code base} <br>
+ * {@code 24} : the {@code double} {@code step} <br>
+ * {@code 32} : the {@code double} {@code yPrecision} <br>
+ * {@code 40} : the {@code int} flags <br>
+ * the remaining bytes are reserved and written as zero.
+ * <p>
+ * As the header size is a multiple of eight, the {@code values} and {@code validity} columns are
+ * aligned such that they can be mapped directly as {@link DoubleBuffer} and {@link LongBuffer}, see
+ * {@link MappedDataSet}.
+ *
+ * @author soenk
+ *
+ */
+public final class DataSetFile {
+
+  /**
+   * The first four bytes of every file, reading {@code HDDS} in ASCII.
+   */
+  public static final int MAGIC = 0x53444448;
+  /**
+   * The version of the format described here.
+   */
+  public static final int VERSION = 1;
+  /**
+   * The size of the header in bytes, after which the {@code values} column starts.
+   */
+  public static final int HEADER_SIZE = 64;
+  /**
+   * Set in the flags if the file contains the {@code derivDepths} column.
+   */
+  public static final int FLAG_DERIV_DEPTHS = 1;
+
+  /**
+   * The size of the buffer used when writing.
+   */
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+  private DataSetFile() {}
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * The number of {@code longs} in the {@code validity} column of a file with {@code length}
+   * values.
+   *
+   * @category helper
+   * @param length The number of values.
+   * @return The number of words in the validity bitmap.
+   */
+  static long validityWords(long length) {
+    return (length + 63) >>> 6;
+  }
+
+  /**
+   * The byte offset of the {@code validity} column of a file with {@code length} values.
+   *
+   * @category helper
+   * @param length The number of values.
+   * @return The offset from the start of the file.
+   */
+  static long validityOffset(long length) {
+    return HEADER_SIZE + 8 * length;
+  }
+
+  /**
+   * The byte offset of the {@code derivDepths} column of a file with {@code length} values.
+   *
+   * @category helper
+   * @param length The number of values.
+   * @return The offset from the start of the file.
+   */
+  static long derivDepthOffset(long length) {
+    return validityOffset(length) + 8 * validityWords(length);
+  }
+
+  /**
+   * Writes the content of {@code buffer} to {@code channel} and clears it for further use.
+   *
+   * @category helper
+   * @param channel The channel to be written to.
+   * @param buffer The buffer holding the bytes to be written.
+   * @throws IOException If writing fails.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Writes {@code set} to a new file at {@code path}, replacing any existing file.
+   * <p>
+   * Entries that are {@code null}, as may be left by
+   * {@link hyperDap.base.types.dataSet.DataSet#add(int, Object) add(int, T)}, are stored as
+   * {@link Double#NaN}.
+   *
+   * @param set The DataSet to be written.
+   * @param path The file to be written to.
+   * @param derivDepths Whether the {@code derivDepths} should be stored as well. They are read
+   *        through {@link ValueDataSet#getDerivDepthsByIndex(int)}, so they are calculated first if
+   *        necessary.
+   * @throws IOException If the file cannot be written.
+   * @throws IllegalArgumentException If {@code set} is a {@link PairDataSet}, whose independent
+   *         values cannot be stored in this format.
+   */
+  public static void write(ValueDataSet<? extends Number> set, Path path, boolean derivDepths)
+      throws IOException, IllegalArgumentException {
+    if (set instanceof PairDataSet) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot store the independent values of a %s", DataSetFile.class,
+              PairDataSet.class));
+    }
+    int length = set.size();
+    DoubleValueDataSet doubles = null;
+    if (set instanceof DoubleValueDataSet) {
+      doubles = (DoubleValueDataSet) set;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      // header
+      buffer.putInt(MAGIC);
+      buffer.putInt(VERSION);
+      buffer.putLong(length);
+      buffer.putDouble(set.getBase());
+      buffer.putDouble(set.getStep());
+      buffer.putDouble(set.getPrecision());
+      buffer.putInt(derivDepths ? FLAG_DERIV_DEPTHS : 0);
+      buffer.position(HEADER_SIZE);
+      // values
+      for (int i = 0; i < length; i++) {
+        if (buffer.remaining() < Double.BYTES) {
+          flush(channel, buffer);
+        }
+        if (doubles != null) {
+          buffer.putDouble(doubles.getDouble(i));
+        } else {
+          Number value = set.getByIndex(i);
+          buffer.putDouble(value == null ? Double.NaN : value.doubleValue());
+        }
+      }
+      // validity
+      long word = 0;
+      for (int i = 0; i < length; i++) {
+        if (set.getValidByIndex(i) == true) {
+          word |= 1L << i;
+        }
+        if ((i & 63) == 63 || i == length - 1) {
+          if (buffer.remaining() < Long.BYTES) {
+            flush(channel, buffer);
+          }
+          buffer.putLong(word);
+          word = 0;
+        }
+      }
+      // derivDepths
+      if (derivDepths == true) {
+        for (int i = 0; i < length; i++) {
+          if (buffer.hasRemaining() == false) {
+            flush(channel, buffer);
+          }
+          buffer.put(DerivDepthList.encode(set.getDerivDepthsByIndex(i)));
+        }
+      }
+      flush(channel, buffer);
+    }
+  }
+
+  // read
+  // ****************************************************************************************
+
+  /**
+   * Opens the file at {@code path} as a read only {@link MappedDataSet}.
+   * <p>
+   * Only the header is read. The columns are mapped into memory, such that values are loaded by the
+   * operating system as they are accessed and the page cache is shared between all processes that
+   * open the same file. The file is closed again before this method returns, the mapping remains
+   * valid until the returned DataSet is garbage-collected.
+   *
+   * @param path The file to be opened.
+   * @return A {@link MappedDataSet} of the file's content.
+   * @throws IOException If the file cannot be read.
+   * @throws IllegalArgumentException If the file is not a valid DataSet file of this
+   *         {@link #VERSION}.
+   */
+  public static MappedDataSet open(Path path) throws IOException, IllegalArgumentException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          throw new IllegalArgumentException(
+              String.format("%s: %s is too short for a header", DataSetFile.class, path));
+        }
+      }
+      header.flip();
+      if (header.getInt(0) != MAGIC) {
+        throw new IllegalArgumentException(
+            String.format("%s: %s is not a DataSet file", DataSetFile.class, path));
+      }
+      if (header.getInt(4) != VERSION) {
+        throw new IllegalArgumentException(String.format("%s: %s is of unsupported version %s",
+            DataSetFile.class, path, header.getInt(4)));
+      }
+      long length = header.getLong(8);
+      double base = header.getDouble(16);
+      double step = header.getDouble(24);
+      double yPrecision = header.getDouble(32);
+      boolean hasDerivDepths = (header.getInt(40) & FLAG_DERIV_DEPTHS) != 0;
+      if (length < 0 || length > Integer.MAX_VALUE || channel.size() < derivDepthOffset(length)
+          + (hasDerivDepths ? length : 0)) {
+        throw new IllegalArgumentException(String.format(
+            "%s: %s of size %s cannot hold %s values", DataSetFile.class, path, channel.size(),
+            length));
+      }
+      // values, split into mappings of at most 2^SEGMENT_SHIFT values
+      int segmentSize = 1 << MappedDataSet.SEGMENT_SHIFT;
+      int segments = (int) ((length + segmentSize - 1) >>> MappedDataSet.SEGMENT_SHIFT);
+      DoubleBuffer[] values = new DoubleBuffer[segments];
+      for (int s = 0; s < segments; s++) {
+        long first = (long) s << MappedDataSet.SEGMENT_SHIFT;
+        long count = Math.min(segmentSize, length - first);
+        values[s] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + 8 * first, 8 * count)
+            .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+      }
+      LongBuffer validity = channel
+          .map(MapMode.READ_ONLY, validityOffset(length), 8 * validityWords(length))
+          .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      ByteBuffer derivDepths = null;
+      if (hasDerivDepths == true) {
+        derivDepths = channel.map(MapMode.READ_ONLY, derivDepthOffset(length), length);
+      }
+      return new MappedDataSet(base, step, yPrecision, (int) length, values, validity,
+          derivDepths);
+    }
+  }
+
+}
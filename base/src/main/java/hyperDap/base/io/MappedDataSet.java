@@ -0,0 +1,425 @@
+package hyperDap.base.io;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+
+/**
+ * A read only {@link DoubleValueDataSet} whose values, validity and, optionally,
+ * {@code derivDepths} are read straight from a memory mapped {@link DataSetFile}, rather than
+ * being copied onto the heap.
+ * <p>
+ * Opening a file through {@link DataSetFile#open(java.nio.file.Path)} therefore takes constant
+ * time regardless of its size, the operating system loads pages as they are accessed and shares
+ * them between all processes that map the same file. Values are mapped in segments of {@code 2^}
+ * {@link #SEGMENT_SHIFT} values, as a single buffer cannot exceed 2 GB.
+ * <p>
+ * All methods that would alter values or their validity throw an
+ * {@link UnsupportedOperationException}. {@code derivDepths} may still be calculated, e.g. with
+ * {@link #calcDerivDepths()}, in which case they are held on the heap and replace those stored in
+ * the file.
+ *
+ * @author soenk
+ *
+ */
+public class MappedDataSet extends DoubleValueDataSet {
+
+  /**
+   * Each mapped segment holds {@code 2^SEGMENT_SHIFT} values, i.e. 1 GB.
+   */
+  static final int SEGMENT_SHIFT = 27;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+  private final DoubleBuffer[] segments;
+  private final LongBuffer validity;
+  private final ByteBuffer storedDerivDepths;
+
+  /**
+   * Constructor used by {@link DataSetFile#open(java.nio.file.Path)}.
+   *
+   * @param base The {@code base} of the DataSet.
+   * @param step The {@code step} of the DataSet.
+   * @param yPrecision The {@code yPrecision} of the DataSet.
+   * @param length The number of values.
+   * @param segments The mapped values, {@code 2^SEGMENT_SHIFT} per buffer.
+   * @param validity The mapped validity bitmap.
+   * @param derivDepths The mapped {@code derivDepths}, or {@code null} if there are none.
+   */
+  MappedDataSet(double base, double step, double yPrecision, int length, DoubleBuffer[] segments,
+      LongBuffer validity, ByteBuffer derivDepths) {
+    super(base, step, yPrecision);
+    this.count = length;
+    this.segments = segments;
+    this.validity = validity;
+    this.storedDerivDepths = derivDepths;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Throws an {@link IndexOutOfBoundsException} if there is no value at {@code index}.
+   *
+   * @category helper
+   * @param index The index to be checked.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.count) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index: %s, Size: %s", index, this.count));
+    }
+  }
+
+  /**
+   * Creates the exception thrown by all methods that would alter this DataSet.
+   *
+   * @category helper
+   * @return A new {@link UnsupportedOperationException}.
+   */
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException(
+        String.format("%s is read only", MappedDataSet.class));
+  }
+
+  /**
+   * Find the first index at or after {@code fromIndex} whose validity is {@code valid}, scanning
+   * the bitmap a word at a time.
+   *
+   * @category helper
+   * @param fromIndex The index to start checking from, inclusively.
+   * @param valid The validity searched for.
+   * @return The index found, or {@code -1} if there is none.
+   * @throws IndexOutOfBoundsException If {@code fromIndex} is negative.
+   */
+  private int nextIndex(int fromIndex, boolean valid) throws IndexOutOfBoundsException {
+    if (fromIndex < 0) {
+      throw new IndexOutOfBoundsException(String.format("fromIndex < 0: %s", fromIndex));
+    }
+    if (fromIndex >= this.count) {
+      return -1;
+    }
+    int words = (int) DataSetFile.validityWords(this.count);
+    int w = fromIndex >>> 6;
+    long word = valid ? this.validity.get(w) : ~this.validity.get(w);
+    word &= -1L << fromIndex;
+    while (word == 0) {
+      if (++w == words) {
+        return -1;
+      }
+      word = valid ? this.validity.get(w) : ~this.validity.get(w);
+    }
+    int index = (w << 6) + Long.numberOfTrailingZeros(word);
+    return index < this.count ? index : -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void copyDoubles(int from, double[] destination, int destinationFrom, int length) {
+    while (length > 0) {
+      DoubleBuffer segment = this.segments[from >>> SEGMENT_SHIFT].duplicate();
+      segment.position(from & SEGMENT_MASK);
+      int copied = Math.min(length, segment.remaining());
+      segment.get(destination, destinationFrom, copied);
+      from += copied;
+      destinationFrom += copied;
+      length -= copied;
+    }
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean add(double value) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void add(int index, Double value) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean addAll(Collection<? extends Double> c) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void addAll(double[] values, int from, int to) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void addAll(DoubleValueDataSet other, int from, int to)
+      throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setDouble(int index, double value) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean remove(Object o) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void clear() throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Does nothing, as no values can be added.
+   */
+  @Override
+  public void ensureCapacity(int capacity) {}
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean editValidityByIndex(int index, boolean validity)
+      throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  /**
+   * Not supported, this DataSet is read only.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void invalidateRange(int from, int to) throws UnsupportedOperationException {
+    throw readOnly();
+  }
+
+  // getters
+  // ***************************************************************************************
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDouble(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return this.segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double[] toDoubleArray() {
+    double[] array = new double[this.count];
+    for (int s = 0; s < this.segments.length; s++) {
+      DoubleBuffer segment = this.segments[s].duplicate();
+      segment.get(array, s << SEGMENT_SHIFT, segment.remaining());
+    }
+    return array;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean getValidByIndex(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return (this.validity.get(index >>> 6) & (1L << index)) != 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int countValid() {
+    int words = (int) DataSetFile.validityWords(this.count);
+    int valid = 0;
+    for (int w = 0; w < words; w++) {
+      long word = this.validity.get(w);
+      if (w == words - 1 && (this.count & 63) != 0) {
+        word &= (1L << this.count) - 1;
+      }
+      valid += Long.bitCount(word);
+    }
+    return valid;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int nextValidIndex(int fromIndex) throws IndexOutOfBoundsException {
+    return this.nextIndex(fromIndex, true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int nextInvalidIndex(int fromIndex) throws IndexOutOfBoundsException {
+    return this.nextIndex(fromIndex, false);
+  }
+
+  /**
+   * The validity of a mapped DataSet always matches its values.
+   *
+   * @return {@code false}.
+   */
+  @Override
+  public boolean cleanLength() {
+    return false;
+  }
+
+  /**
+   * Whether the file this DataSet was opened from contains {@code derivDepths}.
+   *
+   * @return {@code true} if {@code derivDepths} were stored.
+   */
+  public boolean hasStoredDerivDepths() {
+    return this.storedDerivDepths != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The {@code derivDepths} stored in the file are returned unless they have been calculated
+   * since opening it.
+   */
+  @Override
+  public int getDerivDepthsByIndex(int index) throws IndexOutOfBoundsException {
+    if (this.storedDerivDepths != null && this.derivDepths.isEmpty()) {
+      this.checkIndex(index);
+      return DerivDepthList.decode(this.storedDerivDepths.get(index));
+    }
+    return super.getDerivDepthsByIndex(index);
+  }
+
+  // from Collection
+  // ***************************************************************************************
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<Double> iterator() {
+    return new Iterator<Double>() {
+
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < count;
+      }
+
+      @Override
+      public Double next() {
+        if (this.next >= count) {
+          throw new NoSuchElementException();
+        }
+        return Double.valueOf(getDouble(this.next++));
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Values are compared as in {@link Double#equals(Object)}.
+   */
+  @Override
+  public boolean contains(Object o) {
+    if (o instanceof Double == false) {
+      return false;
+    }
+    long bits = Double.doubleToLongBits((Double) o);
+    for (int i = 0; i < this.count; i++) {
+      if (Double.doubleToLongBits(this.getDouble(i)) == bits) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] toArray() {
+    Object[] array = new Object[this.count];
+    for (int i = 0; i < this.count; i++) {
+      array[i] = Double.valueOf(this.getDouble(i));
+    }
+    return array;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object[] toArray(Object[] a) {
+    if (a.length < this.count) {
+      a = (Object[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(),
+          this.count);
+    }
+    for (int i = 0; i < this.count; i++) {
+      a[i] = Double.valueOf(this.getDouble(i));
+    }
+    if (a.length > this.count) {
+      a[this.count] = null;
+    }
+    return a;
+  }
+
+}
@@ -0,0 +1,9 @@
+/**
+ * This package contains the persistence of {@link hyperDap.base.types.dataSet.DataSet DataSets}.
+ * {@link hyperDap.base.io.DataSetFile DataSetFile} defines a binary file format for
+ * {@link hyperDap.base.types.dataSet.ValueDataSet ValueDataSets} and writes it, while
+ * {@link hyperDap.base.io.MappedDataSet MappedDataSet} reads such files directly from memory mapped
+ * buffers instead of loading them onto the heap. {@link hyperDap.base.io.CsvReader CsvReader}
+ * ingests traces from delimiter separated text files.
+ */
+package hyperDap.base.io;
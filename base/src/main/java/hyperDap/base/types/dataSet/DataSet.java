@@ -96,7 +96,7 @@ public abstract class DataSet<T> implements Collection<T> {
    * @return The independent value associated with the last index of {@link #values}.
    */
   public double getMaxIndependentValue() {
-    return this.getIndependentValue(this.values.size() - 1);
+    return this.getIndependentValue(this.size() - 1);
   }
 
   /**
@@ -130,6 +130,17 @@ public abstract class DataSet<T> implements Collection<T> {
     return null;
   }
 
+  /**
+   * Called by every method that alters or adds values, with the range of indices affected. Does
+   * nothing by default, but allows subclasses to keep track of changes, e.g. to update results
+   * derived from the values.
+   * 
+   * @category helper
+   * @param from The first index that changed, inclusively.
+   * @param to The last index that changed, exclusively.
+   */
+  protected void valuesChanged(int from, int to) {}
+
   /**
    * Helper method to cast from other objects to T without triggering warnings.
    * 
@@ -176,6 +187,7 @@ public abstract class DataSet<T> implements Collection<T> {
     if (index < 0) {
       throw new IndexOutOfBoundsException();
     }
+    int size = this.size();
     try {
       this.values.set(index, value);
     } catch (IndexOutOfBoundsException e1) {
@@ -192,6 +204,7 @@ public abstract class DataSet<T> implements Collection<T> {
       }
       this.values.add(value);
     }
+    this.valuesChanged(Math.min(index, size), index + 1);
   }
 
   /**
@@ -201,7 +214,11 @@ public abstract class DataSet<T> implements Collection<T> {
    */
   @Override
   public boolean add(T e) {
-    return this.values.add(e);
+    boolean added = this.values.add(e);
+    if (added == true) {
+      this.valuesChanged(this.values.size() - 1, this.values.size());
+    }
+    return added;
   }
 
   /**
@@ -214,6 +231,7 @@ public abstract class DataSet<T> implements Collection<T> {
    */
   public double addValue(T value) {
     this.values.add(value);
+    this.valuesChanged(this.values.size() - 1, this.values.size());
     return this.getIndependentValue(this.values.size() - 1);
   }
 
@@ -226,6 +244,7 @@ public abstract class DataSet<T> implements Collection<T> {
    */
   public void quickAdd(T value) {
     this.values.add(value);
+    this.valuesChanged(this.values.size() - 1, this.values.size());
   }
 
   // reading/getters
@@ -433,6 +452,7 @@ public abstract class DataSet<T> implements Collection<T> {
     }
     this.values.remove(index);
     this.values.add(index, this.initialisationValue());
+    this.valuesChanged(index, index + 1);
     return true;
   }
 
@@ -445,7 +465,10 @@ public abstract class DataSet<T> implements Collection<T> {
    */
   @Override
   public boolean addAll(Collection<? extends T> c) {
-    return this.values.addAll(c);
+    int size = this.values.size();
+    boolean changed = this.values.addAll(c);
+    this.valuesChanged(size, this.values.size());
+    return changed;
   }
 
   /**
@@ -0,0 +1,296 @@
+package hyperDap.base.types.dataSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import hyperDap.base.helpers.Tangenter;
+
+/**
+ * A compact, growable list of {@code derivDepth} codes as calculated by
+ * {@link Tangenter#calcDerivDepth(ValueDataSet)}.
+ * <p>
+ * Every code the analysis produces fits into a single byte: the depths {@code 0} to
+ * {@link #MAX_DEPTH}, the negative classification codes ({@link #CHANGE}, {@link #EXPONENTIAL},
+ * {@link #TRIGONOMETRIC} and {@link #UNDEFINED}) and {@link #INFINITE}, which is stored as the byte
+ * sentinel {@link Byte#MAX_VALUE} and read back as {@link Integer#MAX_VALUE}. Codes are therefore
+ * kept in a {@code byte[]} instead of an {@link java.util.ArrayList ArrayList} of {@link Integer}.
+ *
+ * @author soenk
+ *
+ */
+public final class DerivDepthList {
+
+  /**
+   * Represents an infinite {@code derivDepth}, i.e. one that was not resolved within
+   * {@code maxDepth}.
+   */
+  public static final int INFINITE = Integer.MAX_VALUE;
+  /**
+   * Marks a point of change between two differently classified segments.
+   */
+  public static final int CHANGE = -1;
+  /**
+   * Marks a value as part of an exponential segment.
+   */
+  public static final int EXPONENTIAL = -2;
+  /**
+   * Marks a value as part of a trigonometric segment.
+   */
+  public static final int TRIGONOMETRIC = -3;
+  /**
+   * Marks a value that could not be classified.
+   */
+  public static final int UNDEFINED = -5;
+  /**
+   * The largest finite {@code derivDepth} that can be stored.
+   */
+  public static final int MAX_DEPTH = Byte.MAX_VALUE - 1;
+
+  private static final byte INFINITE_BYTE = Byte.MAX_VALUE;
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private byte[] codes;
+  private int size;
+  /**
+   * The blocks of codes written to since tracking started, see {@link #trackChanges(BitSet, int)}.
+   */
+  private BitSet changes = null;
+  private int changeShift = 0;
+
+  public DerivDepthList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor with an initial capacity.
+   *
+   * @param capacity The number of codes that can be held before the list has to grow.
+   */
+  public DerivDepthList(int capacity) {
+    this.codes = new byte[Math.max(capacity, 1)];
+    this.size = 0;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Convert a {@code derivDepth} to its byte representation. This is also the representation used
+   * when {@code derivDepths} are stored outside of a list, e.g. in a file.
+   *
+   * @category helper
+   * @param depth The {@code derivDepth}.
+   * @return The encoded byte.
+   * @throws IllegalArgumentException If {@code depth} cannot be represented.
+   */
+  public static byte encode(int depth) throws IllegalArgumentException {
+    if (depth == INFINITE) {
+      return INFINITE_BYTE;
+    }
+    if (depth < Byte.MIN_VALUE || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot store a derivDepth of %s", DerivDepthList.class, depth));
+    }
+    return (byte) depth;
+  }
+
+  /**
+   * Convert a byte representation, as created by {@link #encode(int)}, back to its
+   * {@code derivDepth}.
+   *
+   * @category helper
+   * @param code The encoded byte.
+   * @return The {@code derivDepth}.
+   */
+  public static int decode(byte code) {
+    if (code == INFINITE_BYTE) {
+      return INFINITE;
+    }
+    return code;
+  }
+
+  /**
+   * Throws an {@link IndexOutOfBoundsException} if there is no code at {@code index}.
+   *
+   * @category helper
+   * @param index The index to be checked.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException(String.format("Index: %s, Size: %s", index, this.size));
+    }
+  }
+
+  /**
+   * Records the codes written to from now on, by setting the bit of their block in {@code changes},
+   * where a block holds {@code 2^shift} codes. Used by {@link SummaryIndex} to learn which of its
+   * blocks are out of date. Only one record can be kept at a time.
+   *
+   * @category helper
+   * @param changes The record to set bits in, or {@code null} to stop tracking.
+   * @param shift The binary logarithm of the block size.
+   */
+  void trackChanges(BitSet changes, int shift) {
+    this.changes = changes;
+    this.changeShift = shift;
+  }
+
+  /**
+   * Marks the codes from {@code from} (inclusive) to {@code to} (exclusive) as changed, if changes
+   * are tracked.
+   *
+   * @category helper
+   * @param from The first index written to.
+   * @param to The index after the last one written to.
+   */
+  private void changed(int from, int to) {
+    if (this.changes != null && from < to) {
+      this.changes.set(from >>> this.changeShift, ((to - 1) >>> this.changeShift) + 1);
+    }
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Append a {@code derivDepth} to the end of this list.
+   *
+   * @param depth The {@code derivDepth} to be added.
+   * @throws IllegalArgumentException If {@code depth} cannot be represented.
+   */
+  public void add(int depth) throws IllegalArgumentException {
+    byte code = encode(depth);
+    this.ensureCapacity(this.size + 1);
+    this.codes[this.size++] = code;
+    this.changed(this.size - 1, this.size);
+  }
+
+  /**
+   * Append all codes of {@code other} to the end of this list.
+   *
+   * @param other The list to be copied from.
+   */
+  public void addAll(DerivDepthList other) {
+    this.ensureCapacity(this.size + other.size);
+    System.arraycopy(other.codes, 0, this.codes, this.size, other.size);
+    this.changed(this.size, this.size + other.size);
+    this.size += other.size;
+  }
+
+  /**
+   * Append all {@code derivDepths} in {@code depths} to the end of this list.
+   *
+   * @param depths The {@code derivDepths} to be added.
+   * @throws IllegalArgumentException If any value cannot be represented.
+   */
+  public void addAll(List<Integer> depths) throws IllegalArgumentException {
+    this.ensureCapacity(this.size + depths.size());
+    for (int depth : depths) {
+      this.add(depth);
+    }
+  }
+
+  /**
+   * Replace the {@code derivDepth} at {@code index}.
+   *
+   * @param index The index of the value.
+   * @param depth The new {@code derivDepth}.
+   * @throws IndexOutOfBoundsException If there is no code at {@code index}.
+   * @throws IllegalArgumentException If {@code depth} cannot be represented.
+   */
+  public void set(int index, int depth)
+      throws IndexOutOfBoundsException, IllegalArgumentException {
+    this.checkIndex(index);
+    this.codes[index] = encode(depth);
+    this.changed(index, index + 1);
+  }
+
+  /**
+   * Set all codes from {@code from} (inclusive) to {@code to} (exclusive) to {@code depth}.
+   *
+   * @param from The first index to be set.
+   * @param to The index after the last one to be set.
+   * @param depth The new {@code derivDepth}.
+   * @throws IndexOutOfBoundsException If the range is not within this list.
+   * @throws IllegalArgumentException If {@code depth} cannot be represented.
+   */
+  public void fill(int from, int to, int depth)
+      throws IndexOutOfBoundsException, IllegalArgumentException {
+    if (from < 0 || to > this.size || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, this.size));
+    }
+    Arrays.fill(this.codes, from, to, encode(depth));
+    this.changed(from, to);
+  }
+
+  /**
+   * Removes all codes from this list.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Ensures that this list can hold at least as many codes as specified.
+   *
+   * @param capacity
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= this.codes.length) {
+      return;
+    }
+    int newLength = Math.max(capacity, this.codes.length + (this.codes.length >> 1));
+    if (newLength < 0) {
+      newLength = Integer.MAX_VALUE - 8; // overflow of the 1.5 growth factor
+    }
+    this.codes = Arrays.copyOf(this.codes, newLength);
+  }
+
+  // read
+  // ****************************************************************************************
+
+  /**
+   * Returns the {@code derivDepth} at {@code index}.
+   *
+   * @param index The index of the value.
+   * @return The {@code derivDepth}, which is {@link #INFINITE} if it is infinite.
+   * @throws IndexOutOfBoundsException If there is no code at {@code index}.
+   */
+  public int get(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return decode(this.codes[index]);
+  }
+
+  /**
+   * The number of codes in this list.
+   *
+   * @return The size of this list.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Whether this list holds no codes.
+   *
+   * @return {@code true} if empty.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Copies the {@code derivDepths} of this list into a new array.
+   *
+   * @return An {@code int[]} of length {@link #size()}.
+   */
+  public int[] toIntArray() {
+    int[] array = new int[this.size];
+    for (int i = 0; i < this.size; i++) {
+      array[i] = decode(this.codes[i]);
+    }
+    return array;
+  }
+
+}
@@ -0,0 +1,436 @@
+package hyperDap.base.types.dataSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import hyperDap.base.helpers.Tangenter;
+
+/**
+ * An implementation of {@link ValueDataSet} for {@link Double} values that stores its entries in a
+ * growable primitive {@code double[]} rather than an {@link java.util.ArrayList ArrayList} of boxed
+ * values.
+ * <p>
+ * All methods inherited from {@link DataSet} and {@link ValueDataSet} remain available and box on
+ * demand, but the primitive accessors {@link #add(double)}, {@link #getDouble(int)} and
+ * {@link #setDouble(int, double)} avoid any allocation. {@link Tangenter#calcDerivDepth(ValueDataSet)}
+ * recognises this class and reads the primitive values directly.
+ *
+ * @author soenk
+ *
+ */
+public class DoubleValueDataSet extends ValueDataSet<Double> {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  protected double[] doubles;
+  protected int count;
+
+  public DoubleValueDataSet(Number base, Number step, Number yPrecision) {
+    super(base, step, yPrecision, d -> Double.valueOf(d));
+    this.doubles = new double[DEFAULT_CAPACITY];
+    this.count = 0;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Grows the internal array such that it can hold at least {@code capacity} values.
+   *
+   * @category helper
+   * @param capacity The minimum number of values that must fit.
+   */
+  private void grow(int capacity) {
+    if (capacity <= this.doubles.length) {
+      return;
+    }
+    int newLength = Math.max(capacity, this.doubles.length + (this.doubles.length >> 1));
+    if (newLength < 0) {
+      newLength = Integer.MAX_VALUE - 8; // overflow of the 1.5 growth factor
+    }
+    this.doubles = Arrays.copyOf(this.doubles, newLength);
+  }
+
+  /**
+   * Throws an {@link IndexOutOfBoundsException} if there is no value at {@code index}.
+   *
+   * @category helper
+   * @param index The index to be checked.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.count) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index: %s, Size: %s", index, this.count));
+    }
+  }
+
+  /**
+   * Copies {@code length} values starting at index {@code from} into {@code destination}, without
+   * checking the range.
+   *
+   * @category helper
+   * @param from The index of the first value to be copied.
+   * @param destination The array to be copied into.
+   * @param destinationFrom The index in {@code destination} of the first value.
+   * @param length The number of values to be copied.
+   */
+  protected void copyDoubles(int from, double[] destination, int destinationFrom, int length) {
+    System.arraycopy(this.doubles, from, destination, destinationFrom, length);
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Add a primitive value at the end of this DataSet without boxing it. The new entry is marked as
+   * valid.
+   *
+   * @category writing
+   * @param value The value to be added.
+   * @return {@code true}, as this DataSet always changes.
+   */
+  @Override
+  public boolean add(double value) {
+    if (this.count == this.doubles.length) {
+      this.grow(this.count + 1);
+    }
+    this.valids.set(this.count);
+    this.doubles[this.count++] = value;
+    this.valuesChanged(this.count - 1, this.count);
+    return true;
+  }
+
+  /**
+   * Replace the value at an existing index without boxing it. Its validity is not changed.
+   *
+   * @category writing
+   * @param index The index of the value to be replaced.
+   * @param value The new value.
+   * @throws IndexOutOfBoundsException If there is no value at {@code index}.
+   */
+  public void setDouble(int index, double value) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    this.doubles[index] = value;
+    this.valuesChanged(index, index + 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The new entry is marked as valid.
+   */
+  @Override
+  public boolean add(Double value) {
+    return this.add(value.doubleValue());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * New entries are marked as valid. Intermediate entries are initialised to the new value.
+   */
+  @Override
+  public void add(int index, Double value) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    double val = value.doubleValue();
+    if (index < this.count) {
+      this.doubles[index] = val;
+      this.valids.set(index);
+      this.valuesChanged(index, index + 1);
+      return;
+    }
+    this.grow(index + 1);
+    this.valids.set(this.count, index + 1);
+    Arrays.fill(this.doubles, this.count, index + 1, val);
+    this.valuesChanged(this.count, index + 1);
+    this.count = index + 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The new entry is marked as valid.
+   */
+  @Override
+  public double addValue(Double value) {
+    this.add(value.doubleValue());
+    return this.getIndependentValue(this.count - 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The new entry is marked as valid.
+   */
+  @Override
+  public void quickAdd(Double value) {
+    this.add(value.doubleValue());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * All new entries are marked as valid.
+   */
+  @Override
+  public boolean addAll(Collection<? extends Double> c) {
+    this.grow(this.count + c.size());
+    for (Double value : c) {
+      this.add(value.doubleValue());
+    }
+    return c.isEmpty() == false;
+  }
+
+  /**
+   * Add the values of {@code values} from index {@code from} (inclusive) to {@code to} (exclusive)
+   * at the end of this DataSet without boxing them. All new entries are marked as valid.
+   *
+   * @category writing
+   * @param values The values to be added.
+   * @param from The index of the first value to be added.
+   * @param to The index after the last value to be added.
+   * @throws IndexOutOfBoundsException If {@code from} and {@code to} are not a range of indices of
+   *         {@code values}.
+   */
+  public void addAll(double[] values, int from, int to) throws IndexOutOfBoundsException {
+    if (from < 0 || to > values.length || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, values.length));
+    }
+    int start = this.count;
+    this.grow(start + to - from);
+    System.arraycopy(values, from, this.doubles, start, to - from);
+    this.valids.set(start, start + to - from);
+    this.count += to - from;
+    this.valuesChanged(start, this.count);
+  }
+
+  /**
+   * Add the values of {@code other} from index {@code from} (inclusive) to {@code to} (exclusive)
+   * at the end of this DataSet, along with their validity. The values are copied in bulk rather
+   * than one by one.
+   *
+   * @category writing
+   * @param other The DataSet to copy from.
+   * @param from The index of the first value to be copied.
+   * @param to The index after the last value to be copied.
+   * @throws IndexOutOfBoundsException If {@code from} and {@code to} are not a range of indices of
+   *         {@code other}.
+   */
+  public void addAll(DoubleValueDataSet other, int from, int to) throws IndexOutOfBoundsException {
+    if (from < 0 || to > other.size() || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, other.size()));
+    }
+    int start = this.count;
+    int length = to - from;
+    this.grow(start + length);
+    other.copyDoubles(from, this.doubles, start, length);
+    this.valids.clear(start, start + length);
+    int valid = other.nextValidIndex(from);
+    while (valid >= 0 && valid < to) {
+      int invalid = other.nextInvalidIndex(valid);
+      if (invalid < 0 || invalid > to) {
+        invalid = to;
+      }
+      this.valids.set(start + valid - from, start + invalid - from);
+      valid = invalid < to ? other.nextValidIndex(invalid) : -1;
+    }
+    this.count += length;
+    this.valuesChanged(start, this.count);
+  }
+
+  // getters
+  // ***************************************************************************************
+
+  /**
+   * Get an entry by its index without boxing it.
+   *
+   * @category reading
+   * @param index The index of the requested value.
+   * @return The primitive value stored at {@code index}.
+   * @throws IndexOutOfBoundsException If there is no value at {@code index}.
+   */
+  public double getDouble(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return this.doubles[index];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getByIndex(int index) {
+    return Double.valueOf(this.getDouble(index));
+  }
+
+  /**
+   * Copies the values of this DataSet into a new array.
+   *
+   * @category reading
+   * @return A {@code double[]} of length {@link #size()}.
+   */
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(this.doubles, this.count);
+  }
+
+  // from Collection
+  // ***************************************************************************************
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return this.count == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear() {
+    super.clear();
+    this.count = 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Only the primitive values and the {@code derivDepths} are grown, as the list of boxed values
+   * inherited from {@link DataSet} is never used.
+   */
+  @Override
+  public void ensureCapacity(int capacity) {
+    this.grow(capacity);
+    this.derivDepths.ensureCapacity(capacity);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<Double> iterator() {
+    return new Iterator<Double>() {
+
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < count;
+      }
+
+      @Override
+      public Double next() {
+        if (this.next >= count) {
+          throw new NoSuchElementException();
+        }
+        return Double.valueOf(doubles[this.next++]);
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Values are compared as in {@link Double#equals(Object)}.
+   */
+  @Override
+  public boolean contains(Object o) {
+    return this.indexOf(o) != -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean containsAll(Collection<?> c) {
+    for (Object o : c) {
+      if (this.contains(o) == false) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object[] toArray() {
+    Object[] array = new Object[this.count];
+    for (int i = 0; i < this.count; i++) {
+      array[i] = Double.valueOf(this.doubles[i]);
+    }
+    return array;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object[] toArray(Object[] a) {
+    if (a.length < this.count) {
+      a = (Object[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(),
+          this.count);
+    }
+    for (int i = 0; i < this.count; i++) {
+      a[i] = Double.valueOf(this.doubles[i]);
+    }
+    if (a.length > this.count) {
+      a[this.count] = null;
+    }
+    return a;
+  }
+
+  /**
+   * Replaces the specified value with {@code 0.0} and marks it as invalid, if it exists.
+   *
+   * @param o The value to be removed.
+   * @return {@code true} if this DataSet has changed as a result of this operation.
+   */
+  @Override
+  public boolean remove(Object o) {
+    int index = this.indexOf(o);
+    if (index == -1) {
+      return false;
+    }
+    this.doubles[index] = 0.0;
+    this.valids.clear(index);
+    this.valuesChanged(index, index + 1);
+    return true;
+  }
+
+  /**
+   * Helper to find the first index holding a value equal to {@code o}.
+   *
+   * @category helper
+   * @param o The value to be found.
+   * @return The first matching index or {@code -1}.
+   */
+  private int indexOf(Object o) {
+    if (o instanceof Double == false) {
+      return -1;
+    }
+    long bits = Double.doubleToLongBits((Double) o);
+    for (int i = 0; i < this.count; i++) {
+      if (Double.doubleToLongBits(this.doubles[i]) == bits) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -13,16 +13,15 @@ import hyperDap.base.types.value.ValuePair;
  * 
  * @author soenk
  *
- * @param <T> Defines {@link PairDataSet}{@code <T>} and must be a subclass of {@link Number}.
  */
 
-public class NestedPairDataSet<T extends Number> extends NestedDataSet<PairDataSet<T>> {
+public class NestedPairDataSet extends NestedDataSet<PairDataSet> {
 
-  protected ArrayList<PairDataSet<T>> values;
+  protected ArrayList<PairDataSet> values;
 
   public NestedPairDataSet(Number base, Number step, Number nestedBase, Number nestedStep) {
     super(base, step, nestedBase, nestedStep);
-    this.values = new ArrayList<PairDataSet<T>>();
+    this.values = new ArrayList<PairDataSet>();
   }
 
   // TODO
@@ -1,28 +1,395 @@
 package hyperDap.base.types.dataSet;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import hyperDap.base.helpers.Comparator;
 import hyperDap.base.types.value.ValuePair;
 
 /**
- * An implementation of {@link ValueDataSet} that holds a {@link ValuePair} as the dependentValue.
+ * An implementation of {@link DoubleValueDataSet} that records the independent value of every
+ * entry exactly, for traces that are sampled irregularly.
  * <p>
- * It should be used when independent values must be recorded exactly and are evenly distributed,
- * but are not consistently equidistant.
+ * The independent and dependent values are held in two primitive columns, a {@code double[]} each,
+ * rather than as one {@link ValuePair} Object per entry, so an entry takes up 16 bytes. The
+ * independent values must be strictly increasing, which allows
+ * {@link #getIndex(double) getIndex()}, and with it {@link #get(double)} and
+ * {@link #contains(double, double, double, double)}, to find them with a binary search instead of
+ * calculating the index from {@code base} and {@code step}. {@link #getIndex(double)} only finds
+ * a recorded independent value, allowing for rounding, {@link #getExactIndex(double)} only an
+ * equal one and {@link #getNearestIndex(double)} the nearest one.
  * <p>
- * If values are equidistant consider using {@link ValueDataSet}. If they are not evenly distributed
- * attempt to find a HashMap implementation of {@link DataSet}.
- * 
+ * Values can therefore only be added together with their independent value, e.g. with
+ * {@link #add(double, double)}, or by copying another PairDataSet with
+ * {@link #addAll(DoubleValueDataSet, int, int)}. All methods that would add a value without one
+ * throw an {@link UnsupportedOperationException}.
+ * <p>
+ * The {@code step} given at construction is the typical spacing of the independent values. It is
+ * the default precision of {@link #contains(double, double)} and is used to extrapolate independent
+ * values beyond the ends of this DataSet. The {@code derivDepths} are calculated from divided
+ * differences over the recorded independent values, see
+ * {@link hyperDap.base.helpers.DerivDepthAnalyser#calcDerivDepth(ValueDataSet)}. Where these are
+ * evenly spaced by {@code step} the {@code derivDepths} equal those of a
+ * {@link DoubleValueDataSet} of the same values.
+ * <p>
+ * If values are equidistant consider using {@link DoubleValueDataSet}.
+ *
  * @author soenk
  *
- * @param <T> The type of {@link ValuePair} which must extend {@link Number}
  */
-public class PairDataSet<T extends Number> extends ValueDataSet<T> {
+public class PairDataSet extends DoubleValueDataSet {
 
-  protected ArrayList<ValuePair<T>> values;
+  private static final int DEFAULT_CAPACITY = 16;
 
+  /**
+   * The deviation from a recorded independent value, relative to {@code step}, within which
+   * {@link #getIndex(double)} still finds it.
+   */
+  private static final double INDEX_PRECISION = 1e-9;
+
+  protected double[] xValues;
+
+  /**
+   * Default constructor.
+   *
+   * @param base The independent value assumed before the first entry is added.
+   * @param step The typical spacing of the independent values.
+   * @param yPrecision
+   */
   public PairDataSet(Number base, Number step, Number yPrecision) {
     super(base, step, yPrecision);
-    this.values = new ArrayList<ValuePair<T>>();
+    this.xValues = new double[DEFAULT_CAPACITY];
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Grows the column of independent values such that it can hold at least {@code capacity} values.
+   *
+   * @category helper
+   * @param capacity The minimum number of values that must fit.
+   */
+  private void growX(int capacity) {
+    if (capacity <= this.xValues.length) {
+      return;
+    }
+    int newLength = Math.max(capacity, this.xValues.length + (this.xValues.length >> 1));
+    if (newLength < 0) {
+      newLength = Integer.MAX_VALUE - 8; // overflow of the 1.5 growth factor
+    }
+    this.xValues = Arrays.copyOf(this.xValues, newLength);
+  }
+
+  /**
+   * The exception thrown when a value is added without its independent value.
+   *
+   * @category helper
+   * @return A new {@link UnsupportedOperationException}.
+   */
+  private static UnsupportedOperationException noIndependentValue() {
+    return new UnsupportedOperationException(String
+        .format("%s values can only be added with their independent value", PairDataSet.class));
+  }
+
+  /**
+   * The index of the first independent value that is not smaller than {@code xValue}.
+   *
+   * @category helper
+   * @param xValue The independent value to be searched for.
+   * @return The index, which is {@link #size()} if all independent values are smaller.
+   */
+  private int lowerBound(double xValue) {
+    int low = 0;
+    int high = this.count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (this.xValues[middle] < xValue) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Finds the index of the recorded independent value equal to {@code independentValue} with a
+   * binary search, allowing for a deviation of {@value #INDEX_PRECISION} times {@code step} to
+   * absorb rounding. Use {@link #getNearestIndex(double)} to find the nearest one instead.
+   *
+   * @return The index, or {@code -1}, which is out of bounds, if no such independent value is
+   *         recorded.
+   */
+  @Override
+  public int getIndex(double independentValue) {
+    int index = this.getNearestIndex(independentValue);
+    if (index >= 0 && Comparator.equalApprox(independentValue, this.xValues[index],
+        INDEX_PRECISION * Math.abs(this.step)) == true) {
+      return index;
+    }
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Returns the recorded independent value. Beyond the ends of this DataSet independent values are
+   * extrapolated by {@code step}.
+   */
+  @Override
+  public double getIndependentValue(int index) {
+    if (this.count == 0) {
+      return super.getIndependentValue(index);
+    }
+    if (index < 0) {
+      return this.xValues[0] + index * this.step;
+    }
+    if (index >= this.count) {
+      return this.xValues[this.count - 1] + (index - this.count + 1) * this.step;
+    }
+    return this.xValues[index];
+  }
+
+  // write
+  // ****************************************************************************************
+
+  /**
+   * Add a value with its independent value, without boxing either. If {@code xValue} is already
+   * recorded its value is replaced and marked as valid, otherwise the new entry is appended and
+   * marked as valid.
+   *
+   * @category writing
+   * @param xValue The independent value, which must be larger than all recorded ones unless it is
+   *        one of them.
+   * @param yValue The value to be added.
+   * @throws IllegalArgumentException If {@code xValue} is {@code NaN} or would have to be inserted
+   *         between recorded independent values.
+   */
+  public void add(double xValue, double yValue) throws IllegalArgumentException {
+    if (Double.isNaN(xValue)) {
+      throw new IllegalArgumentException(
+          String.format("%s cannot record an xValue of NaN", PairDataSet.class));
+    }
+    if (this.count == 0 || xValue > this.xValues[this.count - 1]) {
+      this.growX(this.count + 1);
+      this.xValues[this.count] = xValue;
+      super.add(yValue);
+      return;
+    }
+    int index = this.getExactIndex(xValue);
+    if (index < 0) {
+      throw new IllegalArgumentException(
+          String.format("%s requires strictly increasing xValues, %s is before %s",
+              PairDataSet.class, xValue, this.xValues[this.count - 1]));
+    }
+    this.setDouble(index, yValue);
+    this.editValidityByIndex(index, true);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * See {@link #add(double, double)}.
+   */
+  @Override
+  public void add(double independentValue, Double value) throws IllegalArgumentException {
+    this.add(independentValue, value.doubleValue());
+  }
+
+  /**
+   * Add the values of {@code yValues} with the independent values of {@code xValues}, from index
+   * {@code from} (inclusive) to {@code to} (exclusive), at the end of this DataSet. All new entries
+   * are marked as valid.
+   *
+   * @category writing
+   * @param xValues The independent values, which must be strictly increasing and larger than all
+   *        recorded ones.
+   * @param yValues The values to be added.
+   * @param from The index of the first value to be added.
+   * @param to The index after the last value to be added.
+   * @throws IndexOutOfBoundsException If {@code from} and {@code to} are not a range of indices of
+   *         both arrays.
+   * @throws IllegalArgumentException If the independent values are not strictly increasing.
+   */
+  public void addAll(double[] xValues, double[] yValues, int from, int to)
+      throws IndexOutOfBoundsException, IllegalArgumentException {
+    if (from < 0 || to > xValues.length || to > yValues.length || from > to) {
+      throw new IndexOutOfBoundsException(String.format("Range: [%s, %s), Sizes: %s, %s", from, to,
+          xValues.length, yValues.length));
+    }
+    double last = this.count == 0 ? Double.NEGATIVE_INFINITY : this.xValues[this.count - 1];
+    for (int i = from; i < to; i++) {
+      if ((xValues[i] > last) == false) {
+        throw new IllegalArgumentException(
+            String.format("%s requires strictly increasing xValues, %s is before %s",
+                PairDataSet.class, xValues[i], last));
+      }
+      last = xValues[i];
+    }
+    this.growX(this.count + to - from);
+    System.arraycopy(xValues, from, this.xValues, this.count, to - from);
+    super.addAll(yValues, from, to);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * {@code other} must be a PairDataSet whose independent values in the range are larger than all
+   * recorded ones, and they are copied as well.
+   *
+   * @throws UnsupportedOperationException If {@code other} is not a PairDataSet.
+   * @throws IllegalArgumentException If the independent values would not be strictly increasing.
+   */
+  @Override
+  public void addAll(DoubleValueDataSet other, int from, int to)
+      throws IndexOutOfBoundsException, UnsupportedOperationException, IllegalArgumentException {
+    if (other instanceof PairDataSet == false) {
+      throw noIndependentValue();
+    }
+    if (from < 0 || to > other.size() || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, other.size()));
+    }
+    PairDataSet pairs = (PairDataSet) other;
+    if (from < to && this.count > 0 && pairs.xValues[from] <= this.xValues[this.count - 1]) {
+      throw new IllegalArgumentException(
+          String.format("%s requires strictly increasing xValues, %s is before %s",
+              PairDataSet.class, pairs.xValues[from], this.xValues[this.count - 1]));
+    }
+    this.growX(this.count + to - from);
+    System.arraycopy(pairs.xValues, from, this.xValues, this.count, to - from);
+    super.addAll(other, from, to);
+  }
+
+  /**
+   * Not supported, as the value has no independent value.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean add(double value) throws UnsupportedOperationException {
+    throw noIndependentValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Only existing entries can be replaced this way, their validity is set to valid.
+   *
+   * @throws UnsupportedOperationException If there is no value at {@code index}.
+   */
+  @Override
+  public void add(int index, Double value)
+      throws IndexOutOfBoundsException, UnsupportedOperationException {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (index >= this.count) {
+      throw noIndependentValue();
+    }
+    super.add(index, value);
+  }
+
+  /**
+   * Not supported, as the values have no independent values.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean addAll(Collection<? extends Double> c) throws UnsupportedOperationException {
+    throw noIndependentValue();
+  }
+
+  /**
+   * Not supported, as the values have no independent values, use
+   * {@link #addAll(double[], double[], int, int)} instead.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void addAll(double[] values, int from, int to) throws UnsupportedOperationException {
+    throw noIndependentValue();
+  }
+
+  // getters
+  // ***************************************************************************************
+
+  /**
+   * Find the index of the independent value nearest to {@code xValue} with a binary search. Of two
+   * equally near independent values the smaller one is chosen.
+   *
+   * @category reading
+   * @param xValue The independent value to be searched for.
+   * @return The index of the nearest independent value, or {@code -1} if this DataSet is empty.
+   */
+  public int getNearestIndex(double xValue) {
+    if (this.count == 0) {
+      return -1;
+    }
+    int index = this.lowerBound(xValue);
+    if (index == this.count) {
+      return this.count - 1;
+    }
+    if (index > 0 && xValue - this.xValues[index - 1] <= this.xValues[index] - xValue) {
+      return index - 1;
+    }
+    return index;
+  }
+
+  /**
+   * Find the index of {@code xValue} with a binary search.
+   *
+   * @category reading
+   * @param xValue The independent value to be searched for.
+   * @return The index of {@code xValue}, or {@code -1} if it is not recorded.
+   */
+  public int getExactIndex(double xValue) {
+    int index = this.lowerBound(xValue);
+    if (index < this.count && this.xValues[index] == xValue) {
+      return index;
+    }
+    return -1;
+  }
+
+  /**
+   * Copies the independent values of this DataSet into a new array.
+   *
+   * @category reading
+   * @return A {@code double[]} of length {@link #size()}.
+   */
+  public double[] toIndependentArray() {
+    return Arrays.copyOf(this.xValues, this.count);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Only the entries whose independent values are within {@code xPrecision} of {@code xValue} are
+   * checked, which are found with a binary search.
+   */
+  @Override
+  public boolean contains(double xValue, double yValue, double xPrecision, double yPrecision) {
+    for (int i = this.lowerBound(xValue - xPrecision); i < this.count
+        && this.xValues[i] <= xValue + xPrecision; i++) {
+      if (Comparator.equalApprox(yValue, this.doubles[i], yPrecision) == true) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // other
+  // ****************************************************************************************
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void ensureCapacity(int capacity) {
+    super.ensureCapacity(capacity);
+    this.growX(capacity);
   }
 
 }
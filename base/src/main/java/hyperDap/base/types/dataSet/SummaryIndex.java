@@ -0,0 +1,546 @@
+package hyperDap.base.types.dataSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A hierarchical summary of a {@link ValueDataSet} that answers range queries, e.g. for the
+ * smallest and largest valid value between two indices, in {@code O(log n)} rather than by scanning
+ * the range.
+ * <p>
+ * The values are split into blocks of {@link #BLOCK_SIZE} indices. For each block the smallest and
+ * largest valid value, the number of valid values and the number of {@code derivDepths} of each
+ * class are recorded. Pairs of blocks are then summarised again at twice the block size, and so on
+ * until a single block covers all values. A range query combines the summaries of the
+ * {@code O(log n)} largest blocks that fit into the range, and only scans the values at either end
+ * that do not fill a whole block. The summaries take up a few percent of the memory of the values.
+ * <p>
+ * The summaries are brought up to date lazily, the next time a query is made: the DataSet reports
+ * every changed value or validity to this index, and the {@link DerivDepthList} reports every
+ * changed {@code derivDepth}, so only the affected blocks and their parents are summarised again.
+ * Appending values therefore only costs time proportional to the number of values appended. Only
+ * complete blocks are summarised, the values of an incomplete last block are always scanned.
+ * <p>
+ * The {@code derivDepths} are sorted into the classes {@code 0} to {@code 3}, larger finite depths,
+ * {@link DerivDepthList#INFINITE}, {@link DerivDepthList#CHANGE},
+ * {@link DerivDepthList#EXPONENTIAL}, {@link DerivDepthList#TRIGONOMETRIC} and anything else, which
+ * is reported as {@link DerivDepthList#UNDEFINED}. Only queries of {@code derivDepths} bring the
+ * {@code derivDepths} of the DataSet up to date, see
+ * {@link ValueDataSet#getDerivDepthsByIndex(int)}.
+ * <p>
+ * As the DataSet itself, this index is not thread safe, even queries may alter it.
+ *
+ * @author soenk
+ *
+ */
+public final class SummaryIndex {
+
+  /**
+   * The binary logarithm of {@link #BLOCK_SIZE}.
+   */
+  public static final int BLOCK_SHIFT = 9;
+  /**
+   * The number of indices summarised by each block of the lowest level.
+   */
+  public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  /**
+   * The {@code derivDepth} reported for each class, by its position in the summaries.
+   */
+  private static final int[] CLASSES = {0, 1, 2, 3, 4, DerivDepthList.INFINITE,
+      DerivDepthList.CHANGE, DerivDepthList.EXPONENTIAL, DerivDepthList.TRIGONOMETRIC,
+      DerivDepthList.UNDEFINED};
+
+  private final ValueDataSet<? extends Number> set;
+  private final DoubleValueDataSet doubles;
+  /**
+   * The number of values of {@link #set} at the last update.
+   */
+  private int size = 0;
+  /**
+   * The number of complete blocks at the last update, i.e. of blocks in level {@code 0}.
+   */
+  private int blocks = 0;
+  // indexed by level and then by block
+  private double[][] mins = new double[0][];
+  private double[][] maxs = new double[0][];
+  private int[][] valids = new int[0][];
+  /**
+   * Indexed by level and then by {@code block * CLASSES.length + class}.
+   */
+  private int[][] classes = new int[0][];
+  private final BitSet changedValues = new BitSet();
+  private final BitSet changedDepths = new BitSet();
+  private DerivDepthList trackedDepths = null;
+
+  /**
+   * Summary of a range of indices, as returned by {@link SummaryIndex#summarise(int, int)}.
+   *
+   * @author soenk
+   *
+   */
+  public static final class Summary {
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int valid = 0;
+    private final int[] counts = new int[CLASSES.length];
+
+    private Summary() {}
+
+    /**
+     * @return The smallest valid value, or {@link Double#POSITIVE_INFINITY} if there is none.
+     */
+    public double getMin() {
+      return this.min;
+    }
+
+    /**
+     * @return The largest valid value, or {@link Double#NEGATIVE_INFINITY} if there is none.
+     */
+    public double getMax() {
+      return this.max;
+    }
+
+    /**
+     * @return The number of valid values.
+     */
+    public int getValidCount() {
+      return this.valid;
+    }
+
+    /**
+     * Count the values whose {@code derivDepth} is of the same class as {@code derivDepth}, see
+     * {@link SummaryIndex}.
+     *
+     * @param derivDepth Any {@code derivDepth} of the class to be counted.
+     * @return The number of values of that class, valid or not.
+     */
+    public int countDerivDepth(int derivDepth) {
+      return this.counts[classOf(derivDepth)];
+    }
+
+    /**
+     * The most frequent class of {@code derivDepth}, where the smaller class wins a tie.
+     *
+     * @return The {@code derivDepth} reported for the class, see {@link SummaryIndex}, or
+     *         {@link DerivDepthList#UNDEFINED} if the range is empty.
+     */
+    public int getDominantDerivDepth() {
+      int dominant = -1;
+      for (int c = 0; c < CLASSES.length; c++) {
+        if (this.counts[c] > 0 && (dominant < 0 || this.counts[c] > this.counts[dominant])) {
+          dominant = c;
+        }
+      }
+      if (dominant < 0) {
+        return DerivDepthList.UNDEFINED;
+      }
+      return CLASSES[dominant];
+    }
+
+  }
+
+  /**
+   * Constructor, usually called through {@link ValueDataSet#getSummaryIndex()}, which also reports
+   * changes of values to the new index.
+   *
+   * @param set The DataSet to be summarised.
+   */
+  SummaryIndex(ValueDataSet<? extends Number> set) {
+    this.set = set;
+    this.doubles = set instanceof DoubleValueDataSet ? (DoubleValueDataSet) set : null;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * The position of the class of {@code derivDepth} in {@link #CLASSES}.
+   *
+   * @category helper
+   * @param derivDepth The {@code derivDepth} to be classified.
+   * @return The class.
+   */
+  private static int classOf(int derivDepth) {
+    if (derivDepth >= 0 && derivDepth <= 3) {
+      return derivDepth;
+    }
+    switch (derivDepth) {
+      case DerivDepthList.INFINITE:
+        return 5;
+      case DerivDepthList.CHANGE:
+        return 6;
+      case DerivDepthList.EXPONENTIAL:
+        return 7;
+      case DerivDepthList.TRIGONOMETRIC:
+        return 8;
+      default:
+        return derivDepth > 3 ? 4 : 9;
+    }
+  }
+
+  /**
+   * Read a value as a {@code double}, without boxing it if possible.
+   *
+   * @category helper
+   * @param index The index of the value.
+   * @return The value at {@code index}.
+   */
+  private double value(int index) {
+    if (this.doubles != null) {
+      return this.doubles.getDouble(index);
+    }
+    return this.set.getByIndex(index).doubleValue();
+  }
+
+  /**
+   * Throws an {@link IndexOutOfBoundsException} if the range is not within the DataSet.
+   *
+   * @category helper
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   */
+  private void checkRange(int from, int to) throws IndexOutOfBoundsException {
+    if (from < 0 || to > this.set.size() || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, this.set.size()));
+    }
+  }
+
+  /**
+   * Records that the values, or their validities, from {@code from} (inclusive) to {@code to}
+   * (exclusive) changed.
+   *
+   * @category helper
+   * @param from The first index that changed.
+   * @param to The index after the last one that changed.
+   */
+  void valuesChanged(int from, int to) {
+    if (from < to) {
+      this.changedValues.set(from >>> BLOCK_SHIFT, ((to - 1) >>> BLOCK_SHIFT) + 1);
+    }
+  }
+
+  /**
+   * Discards all summaries, such that they are calculated again by the next query.
+   *
+   * @category helper
+   */
+  void reset() {
+    this.size = 0;
+    this.blocks = 0;
+    this.changedValues.clear();
+    this.changedDepths.clear();
+  }
+
+  /**
+   * Adapts the levels to the current size of the DataSet, marking new blocks as changed.
+   *
+   * @category helper
+   */
+  private void resize() {
+    int size = this.set.size();
+    if (size < this.size) {
+      this.reset();
+    }
+    int blocks = size >>> BLOCK_SHIFT;
+    this.changedValues.set(this.blocks, blocks);
+    this.changedDepths.set(this.blocks, blocks);
+    this.size = size;
+    this.blocks = blocks;
+    int capacity = this.mins.length == 0 ? 0 : this.mins[0].length;
+    if (blocks <= capacity) {
+      return;
+    }
+    capacity = Math.max(blocks, capacity + (capacity >> 1));
+    int levels = 1;
+    while ((capacity - 1) >>> (levels - 1) > 0) {
+      levels++;
+    }
+    this.mins = Arrays.copyOf(this.mins, levels);
+    this.maxs = Arrays.copyOf(this.maxs, levels);
+    this.valids = Arrays.copyOf(this.valids, levels);
+    this.classes = Arrays.copyOf(this.classes, levels);
+    for (int level = 0; level < levels; level++) {
+      int length = ((capacity - 1) >>> level) + 1;
+      if (this.mins[level] == null) {
+        this.mins[level] = new double[length];
+        this.maxs[level] = new double[length];
+        this.valids[level] = new int[length];
+        this.classes[level] = new int[length * CLASSES.length];
+      } else {
+        this.mins[level] = Arrays.copyOf(this.mins[level], length);
+        this.maxs[level] = Arrays.copyOf(this.maxs[level], length);
+        this.valids[level] = Arrays.copyOf(this.valids[level], length);
+        this.classes[level] = Arrays.copyOf(this.classes[level], length * CLASSES.length);
+      }
+    }
+  }
+
+  /**
+   * The number of levels in use, i.e. up to and including the first level with only one block.
+   *
+   * @category helper
+   * @return The number of levels.
+   */
+  private int levels() {
+    int levels = 1;
+    while ((this.blocks - 1) >>> (levels - 1) > 0) {
+      levels++;
+    }
+    return levels;
+  }
+
+  /**
+   * Summarises the blocks marked in {@code changed} again, and then their parents, level by level.
+   *
+   * @category helper
+   * @param changed The changed blocks of level {@code 0}, which is cleared.
+   * @param depths Whether the {@code derivDepths} ({@code true}) or the values ({@code false}) are
+   *        summarised.
+   */
+  private void update(BitSet changed, boolean depths) {
+    BitSet dirty = changed.get(0, this.blocks);
+    changed.clear();
+    for (int b = dirty.nextSetBit(0); b >= 0; b = dirty.nextSetBit(b + 1)) {
+      int from = b << BLOCK_SHIFT;
+      if (depths == true) {
+        int[] counts = this.classes[0];
+        Arrays.fill(counts, b * CLASSES.length, (b + 1) * CLASSES.length, 0);
+        for (int i = from; i < from + BLOCK_SIZE; i++) {
+          counts[b * CLASSES.length + classOf(this.set.getDerivDepthsByIndex(i))]++;
+        }
+      } else {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        int valid = 0;
+        int to = from + BLOCK_SIZE;
+        for (int i = this.set.nextValidIndex(from); i >= 0 && i < to; i =
+            this.set.nextValidIndex(i + 1)) {
+          double value = this.value(i);
+          min = Math.min(min, value);
+          max = Math.max(max, value);
+          valid++;
+        }
+        this.mins[0][b] = min;
+        this.maxs[0][b] = max;
+        this.valids[0][b] = valid;
+      }
+    }
+    int levels = this.levels();
+    for (int level = 1; level < levels; level++) {
+      int children = ((this.blocks - 1) >>> (level - 1)) + 1;
+      BitSet parents = new BitSet();
+      for (int b = dirty.nextSetBit(0); b >= 0; b = dirty.nextSetBit(b + 1)) {
+        parents.set(b >>> 1);
+      }
+      for (int p = parents.nextSetBit(0); p >= 0; p = parents.nextSetBit(p + 1)) {
+        int left = 2 * p;
+        int right = left + 1 < children ? left + 1 : left;
+        if (depths == true) {
+          for (int c = 0; c < CLASSES.length; c++) {
+            int count = this.classes[level - 1][left * CLASSES.length + c];
+            if (right != left) {
+              count += this.classes[level - 1][right * CLASSES.length + c];
+            }
+            this.classes[level][p * CLASSES.length + c] = count;
+          }
+        } else {
+          this.mins[level][p] = Math.min(this.mins[level - 1][left], this.mins[level - 1][right]);
+          this.maxs[level][p] = Math.max(this.maxs[level - 1][left], this.maxs[level - 1][right]);
+          this.valids[level][p] = this.valids[level - 1][left]
+              + (right != left ? this.valids[level - 1][right] : 0);
+        }
+      }
+      dirty = parents;
+    }
+  }
+
+  /**
+   * Brings the summaries of the values and validities up to date.
+   *
+   * @category helper
+   */
+  private void updateValues() {
+    this.resize();
+    if (this.changedValues.isEmpty() == false) {
+      this.update(this.changedValues, false);
+    }
+  }
+
+  /**
+   * Brings the {@code derivDepths} of the DataSet and their summaries up to date.
+   *
+   * @category helper
+   */
+  private void updateDepths() {
+    if (this.set.size() > 0) {
+      // reading a derivDepth updates them as necessary
+      this.set.getDerivDepthsByIndex(this.set.size() - 1);
+    }
+    this.resize();
+    DerivDepthList depths = this.set.derivDepths;
+    if (depths != this.trackedDepths) {
+      // calculated again from scratch
+      if (this.trackedDepths != null) {
+        this.trackedDepths.trackChanges(null, 0);
+      }
+      depths.trackChanges(this.changedDepths, BLOCK_SHIFT);
+      this.trackedDepths = depths;
+      this.changedDepths.set(0, this.blocks);
+    }
+    if (this.changedDepths.isEmpty() == false) {
+      this.update(this.changedDepths, true);
+    }
+  }
+
+  /**
+   * Adds the values from {@code from} (inclusive) to {@code to} (exclusive) to {@code summary} by
+   * scanning them.
+   *
+   * @category helper
+   * @param summary The summary to be added to.
+   * @param from The first index to be scanned.
+   * @param to The index after the last one to be scanned.
+   * @param depths Whether the {@code derivDepths} are counted as well.
+   */
+  private void scan(Summary summary, int from, int to, boolean depths) {
+    for (int i = this.set.nextValidIndex(from); i >= 0 && i < to; i =
+        this.set.nextValidIndex(i + 1)) {
+      double value = this.value(i);
+      summary.min = Math.min(summary.min, value);
+      summary.max = Math.max(summary.max, value);
+      summary.valid++;
+    }
+    if (depths == true) {
+      for (int i = from; i < to; i++) {
+        summary.counts[classOf(this.set.getDerivDepthsByIndex(i))]++;
+      }
+    }
+  }
+
+  /**
+   * Adds the summary of the block {@code block} of level {@code level} to {@code summary}.
+   *
+   * @category helper
+   * @param summary The summary to be added to.
+   * @param level The level of the block.
+   * @param block The block within its level.
+   * @param depths Whether the {@code derivDepths} are added as well.
+   */
+  private void add(Summary summary, int level, int block, boolean depths) {
+    summary.min = Math.min(summary.min, this.mins[level][block]);
+    summary.max = Math.max(summary.max, this.maxs[level][block]);
+    summary.valid += this.valids[level][block];
+    if (depths == true) {
+      for (int c = 0; c < CLASSES.length; c++) {
+        summary.counts[c] += this.classes[level][block * CLASSES.length + c];
+      }
+    }
+  }
+
+  /**
+   * Summarises the indices from {@code from} (inclusive) to {@code to} (exclusive), using the
+   * largest blocks that fit into the range and scanning the rest.
+   *
+   * @category helper
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @param depths Whether the {@code derivDepths} are summarised as well.
+   * @return The {@link Summary} of the range.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  private Summary query(int from, int to, boolean depths) throws IndexOutOfBoundsException {
+    this.checkRange(from, to);
+    this.updateValues();
+    if (depths == true) {
+      this.updateDepths();
+    }
+    Summary summary = new Summary();
+    int low = (from + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+    int high = to >>> BLOCK_SHIFT;
+    if (low >= high) {
+      this.scan(summary, from, to, depths);
+      return summary;
+    }
+    this.scan(summary, from, low << BLOCK_SHIFT, depths);
+    this.scan(summary, high << BLOCK_SHIFT, to, depths);
+    for (int level = 0; low < high; level++) {
+      if ((low & 1) == 1) {
+        this.add(summary, level, low++, depths);
+      }
+      if ((high & 1) == 1) {
+        this.add(summary, level, --high, depths);
+      }
+      low >>>= 1;
+      high >>>= 1;
+    }
+    return summary;
+  }
+
+  // queries
+  // ****************************************************************************************
+
+  /**
+   * Summarises the indices from {@code from} (inclusive) to {@code to} (exclusive), including
+   * their {@code derivDepths}.
+   *
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The {@link Summary} of the range.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  public Summary summarise(int from, int to) throws IndexOutOfBoundsException {
+    return this.query(from, to, true);
+  }
+
+  /**
+   * The smallest valid value from {@code from} (inclusive) to {@code to} (exclusive).
+   *
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The smallest valid value, or {@link Double#POSITIVE_INFINITY} if there is none.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  public double min(int from, int to) throws IndexOutOfBoundsException {
+    return this.query(from, to, false).getMin();
+  }
+
+  /**
+   * The largest valid value from {@code from} (inclusive) to {@code to} (exclusive).
+   *
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The largest valid value, or {@link Double#NEGATIVE_INFINITY} if there is none.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  public double max(int from, int to) throws IndexOutOfBoundsException {
+    return this.query(from, to, false).getMax();
+  }
+
+  /**
+   * The number of valid values from {@code from} (inclusive) to {@code to} (exclusive).
+   *
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The number of valid values.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  public int countValid(int from, int to) throws IndexOutOfBoundsException {
+    return this.query(from, to, false).getValidCount();
+  }
+
+  /**
+   * The most frequent class of {@code derivDepth} from {@code from} (inclusive) to {@code to}
+   * (exclusive), see {@link Summary#getDominantDerivDepth()}.
+   *
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The {@code derivDepth} reported for the class.
+   * @throws IndexOutOfBoundsException If the range is not within the DataSet.
+   */
+  public int dominantDerivDepth(int from, int to) throws IndexOutOfBoundsException {
+    return this.query(from, to, true).getDominantDerivDepth();
+  }
+
+}
@@ -1,10 +1,15 @@
 package hyperDap.base.types.dataSet;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * An abstract subclass of {@link DataSet} that allows marking entries as valid ({@code true} or
  * invalid ({@code false}.
+ * <p>
+ * Validity is stored bit-packed in a {@link BitSet}, where a set bit marks a valid entry. Bits that
+ * were never set read as invalid, so the validity record is always as long as the values, and runs
+ * of valid or invalid entries can be skipped a word at a time with {@link #nextValidIndex(int)} and
+ * {@link #nextInvalidIndex(int)}.
  * 
  * @author soenk
  *
@@ -13,42 +18,44 @@ import java.util.ArrayList;
 
 public abstract class ValidityDataSet<T> extends DataSet<T> {
 
-  protected ArrayList<Boolean> valids;
+  protected BitSet valids;
 
   public ValidityDataSet(Number base, Number step) {
     super(base, step);
-    this.valids = new ArrayList<Boolean>();
+    this.valids = new BitSet();
   }
 
   // helpers
   // **********************************************************************************************************************
 
   /**
-   * Ensures that internally the validites and values align correctly. As the two properties are
-   * stored in separate {@link ArrayList ArrayLists} this method will ensure they are of the same
-   * length. If the validity list must be extended it is extended with {@code false}.
+   * Ensures that internally the validites and values align correctly. Values without a recorded
+   * validity are always read as invalid ({@code false}), so this method only has to clear validity
+   * bits that are left beyond the last value.
    * 
    * @category helper
    * @return {@code true} if changes had to be made, {@code false} otherwise.
    */
   public boolean cleanLength() {
-    int a = this.values.size();
-    int b = this.valids.size();
-    if (a == b) {
+    int a = this.size();
+    if (this.valids.length() <= a) {
       return false;
     }
-    if (a > b) {
-      for (int i = b; i < a; i++) {
-        this.valids.add(false);
-      }
-      return true;
-    }
-    for (int i = a; i < b; i++) {
-      this.valids.remove(a);
-    }
+    this.valids.clear(a, this.valids.length());
     return true;
   }
 
+  /**
+   * Called by every method that alters the validity of existing values, with the range of indices
+   * affected. Does nothing by default, but allows subclasses to keep track of changes, comparable
+   * to {@link #valuesChanged(int, int)}.
+   * 
+   * @category helper
+   * @param from The first index whose validity changed, inclusively.
+   * @param to The last index whose validity changed, exclusively.
+   */
+  protected void validityChanged(int from, int to) {}
+
   // add
   // ***************************************************************************************************************************
 
@@ -59,16 +66,9 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
    */
   @Override
   public void add(int index, T value) {
-    int i = this.values.size();
+    int i = this.size();
     super.add(index, value);
-    if (i <= index) {
-      while (i <= index) {
-        this.valids.add(true);
-        i++;
-      }
-    } else {
-      this.valids.set(index, true);
-    }
+    this.valids.set(Math.min(i, index), index + 1);
   }
 
   /**
@@ -79,10 +79,8 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
   @Override
   public boolean add(T value) {
     if (super.add(value) == true) {
-      if (this.valids.add(true) == true) {
-        return true;
-      }
-      this.values.remove(this.values.size() - 1);
+      this.valids.set(this.size() - 1);
+      return true;
     }
     return false;
   }
@@ -94,7 +92,7 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
    */
   @Override
   public double addValue(T value) {
-    this.valids.add(true);
+    this.valids.set(this.size());
     return super.addValue(value);
   }
 
@@ -112,11 +110,6 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
     if (index < 0 || index >= this.size()) {
       throw new IndexOutOfBoundsException();
     }
-    try {
-      return this.valids.get(index);
-    } catch (IndexOutOfBoundsException e) {
-      this.cleanLength();
-    }
     return this.valids.get(index);
   }
 
@@ -147,35 +140,33 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
 
   /**
    * Edit whether a value is considered valid or not.
-   * <p>
-   * If needed {@link #cleanLength()} is called.
    * 
    * @param index The index of the value
    * @param validity Whether the value should be valid ({@code true}) or invalid ({@code false})
    * @return If this Set was altered as a result of this operation ({@code true}) or not
    *         ({@code false})
-   * @throws IndexOutOfBoundsException if there is no corresponding value, after calling
-   *         {@link #cleanLength()} first.
+   * @throws IndexOutOfBoundsException if there is no corresponding value.
    */
   public boolean editValidityByIndex(int index, boolean validity) throws IndexOutOfBoundsException {
     if (index < 0 || index >= this.size()) {
       throw new IndexOutOfBoundsException();
     }
-    this.cleanLength();
-    return this.valids.set(index, validity);
+    if (this.valids.get(index) == validity) {
+      return false;
+    }
+    this.valids.set(index, validity);
+    this.validityChanged(index, index + 1);
+    return true;
   }
 
   /**
    * Edit whether a value is considered valid or not.
-   * <p>
-   * If needed {@link #cleanLength()} is called.
    * 
    * @param index The {@code xValue} this value is stored under
    * @param validity Whether the value should be valid ({@code true}) or invalid ({@code false})
    * @return If this Set was altered as a result of this operation ({@code true}) or not
    *         ({@code false})
-   * @throws IndexOutOfBoundsException if there is no corresponding value, after calling
-   *         {@link #cleanLength()} first.
+   * @throws IndexOutOfBoundsException if there is no corresponding value.
    */
   public boolean editValidity(double xValue, boolean validity) throws IndexOutOfBoundsException {
     return this.editValidityByIndex(this.getIndex(xValue), validity);
@@ -183,20 +174,82 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
 
   /**
    * A {@link Number} encapsulation of {@link #editValidity(double, boolean)}.
-   * <p>
-   * If needed {@link #cleanLength()} is called.
    * 
    * @param index The {@code xValue} this value is stored under
    * @param validity Whether the value should be valid ({@code true}) or invalid ({@code false})
    * @return If this Set was altered as a result of this operation ({@code true}) or not
    *         ({@code false})
-   * @throws IndexOutOfBoundsException if there is no corresponding value, after calling
-   *         {@link #cleanLength()} first.
+   * @throws IndexOutOfBoundsException if there is no corresponding value.
    */
   public boolean editValidity(Number xValue, boolean validity) throws IndexOutOfBoundsException {
     return this.editValidity(xValue.doubleValue(), validity);
   }
 
+  /**
+   * Mark all values from index {@code from} (inclusive) to {@code to} (exclusive) as invalid.
+   * 
+   * @param from The first index to be invalidated.
+   * @param to The index after the last one to be invalidated.
+   * @throws IndexOutOfBoundsException If {@code from} is negative, {@code to} is larger than
+   *         {@link #size()} or {@code from} is larger than {@code to}.
+   */
+  public void invalidateRange(int from, int to) throws IndexOutOfBoundsException {
+    if (from < 0 || to > this.size() || from > to) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range: [%s, %s), Size: %s", from, to, this.size()));
+    }
+    this.valids.clear(from, to);
+    this.validityChanged(from, to);
+  }
+
+  // scan validity
+  // ***************************************************************************************************************************
+
+  /**
+   * Count the number of values that are currently marked as valid.
+   * 
+   * @return The number of valid values.
+   */
+  public int countValid() {
+    int size = this.size();
+    if (this.valids.length() <= size) {
+      return this.valids.cardinality();
+    }
+    return this.valids.get(0, size).cardinality();
+  }
+
+  /**
+   * Find the first valid value at or after {@code fromIndex}, comparable to
+   * {@link BitSet#nextSetBit(int)}.
+   * 
+   * @param fromIndex The index to start checking from, inclusively.
+   * @return The index of the next valid value, or {@code -1} if there is none.
+   * @throws IndexOutOfBoundsException If {@code fromIndex} is negative.
+   */
+  public int nextValidIndex(int fromIndex) throws IndexOutOfBoundsException {
+    int index = this.valids.nextSetBit(fromIndex);
+    if (index >= this.size()) {
+      return -1;
+    }
+    return index;
+  }
+
+  /**
+   * Find the first invalid value at or after {@code fromIndex}, comparable to
+   * {@link BitSet#nextClearBit(int)}.
+   * 
+   * @param fromIndex The index to start checking from, inclusively.
+   * @return The index of the next invalid value, or {@code -1} if there is none.
+   * @throws IndexOutOfBoundsException If {@code fromIndex} is negative.
+   */
+  public int nextInvalidIndex(int fromIndex) throws IndexOutOfBoundsException {
+    int index = this.valids.nextClearBit(fromIndex);
+    if (index >= this.size()) {
+      return -1;
+    }
+    return index;
+  }
+
   // other
   // ****************************************************************************************************************************
 
@@ -209,13 +262,4 @@ public abstract class ValidityDataSet<T> extends DataSet<T> {
     this.valids.clear();
   }
 
-  /**
-   * {@inheritDoc}
-   */
-  @Override
-  public void ensureCapacity(int capacity) {
-    super.ensureCapacity(capacity);
-    this.valids.ensureCapacity(capacity);
-  }
-
 }
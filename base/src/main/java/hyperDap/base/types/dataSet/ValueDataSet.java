@@ -1,9 +1,14 @@
 package hyperDap.base.types.dataSet;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 import java.util.function.DoubleFunction;
 import hyperDap.base.helpers.Comparator;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.helpers.DerivDepthState;
 import hyperDap.base.helpers.Tangenter;
 import hyperDap.base.types.value.ValuePair;
 
@@ -26,7 +31,23 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
    */
   protected final double yPrecision;
 
-  protected ArrayList<Integer> derivDepths;
+  protected DerivDepthList derivDepths;
+  /**
+   * The intermediate results of the last analysis, used to update {@link #derivDepths}.
+   */
+  protected DerivDepthState derivDepthState = DerivDepthAnalyser.createState();
+  /**
+   * The indices of all values that changed since {@link #derivDepths} was last calculated.
+   */
+  protected BitSet changedValues = new BitSet();
+  /**
+   * The analyser used for {@link #derivDepths}, or {@code null} for that of {@link Tangenter}.
+   */
+  protected DerivDepthAnalyser derivDepthAnalyser = null;
+  /**
+   * The index answering range queries, created by {@link #getSummaryIndex()} when first needed.
+   */
+  protected SummaryIndex summaryIndex = null;
 
   protected DoubleFunction<T> fromDouble;
 
@@ -34,7 +55,7 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
     super(base, step);
     this.values = new ArrayList<T>();
     this.yPrecision = yPrecision.doubleValue();
-    this.derivDepths = new ArrayList<Integer>();
+    this.derivDepths = new DerivDepthList();
   }
 
   /**
@@ -53,7 +74,7 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
     super(base, step);
     this.values = new ArrayList<T>();
     this.yPrecision = yPrecision.doubleValue();
-    this.derivDepths = new ArrayList<Integer>();
+    this.derivDepths = new DerivDepthList();
     this.fromDouble = convertFromDouble;
   }
 
@@ -92,8 +113,83 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
   // helpers
   // ****************************************************************************************
 
+  /**
+   * Calculates the {@code derivDepths} of all values with the default analyser of
+   * {@link Tangenter}.
+   */
   public void calcDerivDepths() {
-    this.derivDepths = Tangenter.calcDerivDepth(this);
+    this.derivDepthAnalyser = null;
+    this.derivDepths = Tangenter.getDefaultAnalyser().calcDerivDepth(this, this.derivDepthState);
+    this.changedValues.clear();
+  }
+
+  /**
+   * As {@link #calcDerivDepths()}, but aborts once {@code cancelled} returns {@code true}, see
+   * {@link DerivDepthAnalyser#calcDerivDepth(ValueDataSet, DerivDepthState, BooleanSupplier)}. A
+   * cancelled calculation leaves the previous {@code derivDepths} in place.
+   * 
+   * @param cancelled Returns {@code true} once the calculation should be aborted.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  public void calcDerivDepths(BooleanSupplier cancelled) throws CancellationException {
+    DerivDepthList depths =
+        Tangenter.getDefaultAnalyser().calcDerivDepth(this, this.derivDepthState, cancelled);
+    this.derivDepthAnalyser = null;
+    this.derivDepths = depths;
+    this.changedValues.clear();
+  }
+
+  /**
+   * Calculates the {@code derivDepths} of this DataSet with a specific analyser rather than the
+   * default one used by {@link #calcDerivDepths()}. Later updates use the same analyser.
+   * 
+   * @param analyser The {@link DerivDepthAnalyser} to be used.
+   */
+  public void calcDerivDepths(DerivDepthAnalyser analyser) {
+    this.derivDepthAnalyser = analyser;
+    this.derivDepths = analyser.calcDerivDepth(this, this.derivDepthState);
+    this.changedValues.clear();
+  }
+
+  /**
+   * Updates the {@code derivDepths} after values were changed or added, only recalculating those
+   * that may be affected by the changes, see
+   * {@link DerivDepthAnalyser#updateDerivDepth(ValueDataSet, DerivDepthList, DerivDepthState, BitSet)}.
+   * Called automatically when a {@code derivDepth} is requested.
+   */
+  public void updateDerivDepths() {
+    DerivDepthAnalyser analyser = this.derivDepthAnalyser;
+    if (analyser == null) {
+      analyser = Tangenter.getDefaultAnalyser();
+    }
+    this.derivDepths = analyser.updateDerivDepth(this, this.derivDepths, this.derivDepthState,
+        this.changedValues);
+    this.changedValues.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Records the changed values, such that only their {@code derivDepths} are recalculated.
+   */
+  @Override
+  protected void valuesChanged(int from, int to) {
+    this.changedValues.set(from, to);
+    if (this.summaryIndex != null) {
+      this.summaryIndex.valuesChanged(from, to);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Reports the changes to the {@link SummaryIndex}, if there is one.
+   */
+  @Override
+  protected void validityChanged(int from, int to) {
+    if (this.summaryIndex != null) {
+      this.summaryIndex.valuesChanged(from, to);
+    }
   }
 
   // write
@@ -129,26 +225,40 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
   /**
    * Allows editing the {@code derivDepth} for specific values.
    * <p>
-   * Intended only for use within {@link Tangenter#calcDerivDepth(ValueDataSet)}.
+   * Any pending changes of values are applied first, such that the edit is not lost immediately.
+   * The edited {@code derivDepth} is replaced again when values within {@code maxDepth} of it
+   * change.
    * 
    * @param index The index of the value.
    * @param depth The {@code derivDepth} that is to be set.
-   * @throws IndexOutOfBoundsException If there is no such value in the internal {@link ArrayList}
-   *         of {@code derivDepths}.
+   * @throws IndexOutOfBoundsException If there is no such value in the internal
+   *         {@link DerivDepthList}.
    */
   public void setDerivDepth(int index, int depth) throws IndexOutOfBoundsException {
-    // TODO not complete?
+    if (this.changedValues.isEmpty() == false) {
+      this.updateDerivDepths();
+    }
     this.derivDepths.set(index, depth);
   }
 
   /**
-   * Concatenates {@code depths} to the end of the internal {@link ArrayList} of
-   * {@code derivDepths}.
+   * Concatenates {@code depths} to the end of the internal {@link DerivDepthList}.
    * 
    * @param depths
    */
   public void addToDerivDepth(List<Integer> depths) {
     this.derivDepths.addAll(depths);
+    this.derivDepthState.invalidate();
+  }
+
+  /**
+   * Concatenates {@code depths} to the end of the internal {@link DerivDepthList}.
+   * 
+   * @param depths
+   */
+  public void addToDerivDepth(DerivDepthList depths) {
+    this.derivDepths.addAll(depths);
+    this.derivDepthState.invalidate();
   }
 
   // getters
@@ -178,8 +288,8 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
     if (index < 0 || index >= this.size()) {
       throw new IndexOutOfBoundsException();
     }
-    if (index >= this.derivDepths.size()) {
-      this.calcDerivDepths();
+    if (index >= this.derivDepths.size() || this.changedValues.isEmpty() == false) {
+      this.updateDerivDepths();
     }
     return this.derivDepths.get(index);
   }
@@ -208,6 +318,93 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
     return this.getDerivDepth(xValue.doubleValue());
   }
 
+  /**
+   * Counts the {@code derivDepth} of a single value without calculating those of all values, with
+   * the analyser that is used for the {@code derivDepths} of this DataSet, see
+   * {@link DerivDepthAnalyser#countDerivDepth(ValueDataSet, int)}. Neither points of change nor
+   * the further analysis of infinite {@code derivDepths} are included.
+   *
+   * @param index The index of the value.
+   * @return The number of derivatives that are not zero, {@link Integer#MAX_VALUE} if none up to
+   *         {@code maxDepth - 1} is zero.
+   * @throws IndexOutOfBoundsException When there is no such value.
+   */
+  public int countDerivDepthByIndex(int index) throws IndexOutOfBoundsException {
+    DerivDepthAnalyser analyser = this.derivDepthAnalyser;
+    if (analyser == null) {
+      analyser = Tangenter.getDefaultAnalyser();
+    }
+    return analyser.countDerivDepth(this, index);
+  }
+
+  // range queries
+  // ****************************************************************************************
+
+  /**
+   * Returns the {@link SummaryIndex} of this DataSet, which answers range queries in
+   * {@code O(log n)}. It is created when first requested and then kept up to date on every change.
+   * 
+   * @return The {@link SummaryIndex} of this DataSet.
+   */
+  public SummaryIndex getSummaryIndex() {
+    if (this.summaryIndex == null) {
+      this.summaryIndex = new SummaryIndex(this);
+    }
+    return this.summaryIndex;
+  }
+
+  /**
+   * The smallest valid value from {@code from} (inclusive) to {@code to} (exclusive), see
+   * {@link SummaryIndex#min(int, int)}.
+   * 
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The smallest valid value, or {@link Double#POSITIVE_INFINITY} if there is none.
+   * @throws IndexOutOfBoundsException If the range is not within this DataSet.
+   */
+  public double getRangeMin(int from, int to) throws IndexOutOfBoundsException {
+    return this.getSummaryIndex().min(from, to);
+  }
+
+  /**
+   * The largest valid value from {@code from} (inclusive) to {@code to} (exclusive), see
+   * {@link SummaryIndex#max(int, int)}.
+   * 
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The largest valid value, or {@link Double#NEGATIVE_INFINITY} if there is none.
+   * @throws IndexOutOfBoundsException If the range is not within this DataSet.
+   */
+  public double getRangeMax(int from, int to) throws IndexOutOfBoundsException {
+    return this.getSummaryIndex().max(from, to);
+  }
+
+  /**
+   * Count the valid values from {@code from} (inclusive) to {@code to} (exclusive), see
+   * {@link SummaryIndex#countValid(int, int)}.
+   * 
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The number of valid values.
+   * @throws IndexOutOfBoundsException If the range is not within this DataSet.
+   */
+  public int countValid(int from, int to) throws IndexOutOfBoundsException {
+    return this.getSummaryIndex().countValid(from, to);
+  }
+
+  /**
+   * The most frequent class of {@code derivDepth} from {@code from} (inclusive) to {@code to}
+   * (exclusive), see {@link SummaryIndex#dominantDerivDepth(int, int)}.
+   * 
+   * @param from The first index of the range.
+   * @param to The index after the last one of the range.
+   * @return The {@code derivDepth} reported for the class.
+   * @throws IndexOutOfBoundsException If the range is not within this DataSet.
+   */
+  public int getDominantDerivDepth(int from, int to) throws IndexOutOfBoundsException {
+    return this.getSummaryIndex().dominantDerivDepth(from, to);
+  }
+
   // contains
   // ****************************************************************************************
 
@@ -310,6 +507,11 @@ public class ValueDataSet<T extends Number> extends ValidityDataSet<T> {
   public void clear() {
     super.clear();
     this.derivDepths.clear();
+    this.derivDepthState.invalidate();
+    this.changedValues.clear();
+    if (this.summaryIndex != null) {
+      this.summaryIndex.reset();
+    }
   }
 
   /**
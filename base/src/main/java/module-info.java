@@ -10,6 +10,7 @@
  */
 module base {
   exports hyperDap.base.helpers;
+  exports hyperDap.base.io;
   exports hyperDap.base.maths;
   exports hyperDap.base.types.value;
   exports hyperDap.base.types.dataSet;
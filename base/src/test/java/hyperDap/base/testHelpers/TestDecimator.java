@@ -0,0 +1,71 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.Decimator;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+
+public class TestDecimator {
+
+  @Test
+  void testMinMax() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 100000; i++) {
+      set.add(Math.sin(i * 0.001));
+    }
+    set.setDouble(51234, 50.0); // a spike
+    set.editValidityByIndex(70000, false);
+    set.setDouble(70000, 99.0); // invalid, so not shown
+    int[] indices = Decimator.minMax(set, 500);
+    assertTrue(indices.length <= 1000);
+    boolean spike = false;
+    for (int k = 0; k < indices.length; k++) {
+      assertTrue(set.getValidByIndex(indices[k]));
+      if (k > 0) {
+        assertTrue(indices[k] > indices[k - 1]);
+      }
+      spike |= indices[k] == 51234;
+    }
+    assertTrue(spike);
+    // small DataSets are not decimated
+    DoubleValueDataSet small = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 10; i++) {
+      small.add(i);
+    }
+    small.editValidityByIndex(3, false);
+    assertArrayEquals(new int[] {0, 1, 2, 4, 5, 6, 7, 8, 9}, Decimator.minMax(small, 5));
+    assertThrows(IllegalArgumentException.class, () -> {
+      Decimator.minMax(small, 0);
+    });
+  }
+
+  @Test
+  void testDerivDepths() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 20000; i++) {
+      set.add(i < 10000 ? 2.0 * i : 20000.0 + 0.5 * (i - 10000) * (i - 10000));
+    }
+    int changes = 0;
+    for (int i = 0; i < set.size(); i++) {
+      if (set.getDerivDepthsByIndex(i) == -1) {
+        changes++;
+      }
+    }
+    assertTrue(changes > 0);
+    int[] indices = Decimator.derivDepths(set, 100);
+    int kept = 0;
+    for (int i : indices) {
+      if (set.getDerivDepthsByIndex(i) == -1) {
+        kept++;
+      }
+    }
+    assertEquals(changes, kept); // all points of interest are kept
+    assertTrue(indices.length < 2 * 100 * 3 + changes);
+    assertEquals(0, indices[0]);
+    assertEquals(19999, indices[indices.length - 1]);
+  }
+
+}
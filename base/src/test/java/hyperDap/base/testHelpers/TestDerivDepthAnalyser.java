@@ -0,0 +1,350 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.AnalyserConfig;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.helpers.DerivDepthState;
+import hyperDap.base.helpers.Tangenter;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+public class TestDerivDepthAnalyser {
+
+  private DoubleValueDataSet makeSet(double precision) {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, precision);
+    for (int i = 0; i < 200; i++) {
+      set.add(5.0 + 0.5 * i * i + 0.0001 * Math.sin(i));
+    }
+    return set;
+  }
+
+  @Test
+  void matchesTangenter() {
+    DoubleValueDataSet set = makeSet(0.001);
+    assertArrayEquals(Tangenter.calcDerivDepth(set).toIntArray(),
+        new DerivDepthAnalyser().calcDerivDepth(set).toIntArray());
+  }
+
+  @Test
+  void precision() {
+    DoubleValueDataSet set = makeSet(0.001);
+    // the sine is within this precision, so the values are quadratic
+    DerivDepthAnalyser coarse = new DerivDepthAnalyser(new AnalyserConfig().withPrecision(0.01));
+    int[] depths = coarse.calcDerivDepth(set).toIntArray();
+    for (int i = 0; i < depths.length; i++) {
+      assertEquals(2, depths[i]);
+    }
+    // but it is not within this one
+    DerivDepthAnalyser fine = new DerivDepthAnalyser(new AnalyserConfig().withPrecision(0.00001));
+    assertTrue(fine.calcDerivDepth(set).get(5) != 2);
+  }
+
+  @Test
+  void concurrent() throws Exception {
+    DerivDepthAnalyser coarse = new DerivDepthAnalyser(new AnalyserConfig().withPrecision(0.01));
+    DerivDepthAnalyser fine = new DerivDepthAnalyser(new AnalyserConfig().withPrecision(0.00001));
+    DoubleValueDataSet set = makeSet(0.001);
+    int[] coarseDepths = coarse.calcDerivDepth(set).toIntArray();
+    int[] fineDepths = fine.calcDerivDepth(set).toIntArray();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        DerivDepthAnalyser analyser = i % 2 == 0 ? coarse : fine;
+        Callable<int[]> task = () -> analyser.calcDerivDepth(makeSet(0.001)).toIntArray();
+        results.add(executor.submit(task));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertArrayEquals(i % 2 == 0 ? coarseDepths : fineDepths, results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void exact() {
+    DoubleValueDataSet set = makeSet(0.01);
+    AnalyserConfig config = new AnalyserConfig();
+    assertArrayEquals(new DerivDepthAnalyser(config).calcDerivDepth(set).toIntArray(),
+        new DerivDepthAnalyser(config.withTangentMode(AnalyserConfig.TangentMode.EXACT))
+            .calcDerivDepth(set).toIntArray());
+  }
+
+  @Test
+  void dividedDifferences() {
+    // the same segments, once equidistant and once irregularly spaced
+    DoubleValueDataSet even = new DoubleValueDataSet(0, 1, 0.001);
+    PairDataSet uneven = new PairDataSet(0, 1, 0.001);
+    PairDataSet evenPairs = new PairDataSet(0, 1, 0.001);
+    DoubleValueDataSet unevenAsEven = new DoubleValueDataSet(0, 1, 0.001);
+    double x49 = 49 + 0.3 * Math.sin(49);
+    for (int i = 0; i < 150; i++) {
+      double x = i + 0.3 * Math.sin(i);
+      double y = i < 50 ? 5.0 : i < 100 ? 5.0 + 0.5 * Math.pow(x - x49, 2) : 2.0 * x;
+      even.add(i < 50 ? 5.0 : i < 100 ? 5.0 + 0.5 * Math.pow(i - 49, 2) : 2.0 * i);
+      evenPairs.add(i, even.getDouble(i));
+      uneven.add(x, y);
+      unevenAsEven.add(y);
+    }
+    DerivDepthAnalyser analyser = new DerivDepthAnalyser();
+    int[] expected = analyser.calcDerivDepth(even).toIntArray();
+    assertArrayEquals(expected, analyser.calcDerivDepth(evenPairs).toIntArray());
+    assertArrayEquals(expected, analyser.calcDerivDepth(uneven).toIntArray());
+    assertEquals(2, expected[75]);
+    // without the independent values the quadratic segment is not recognised
+    assertTrue(analyser.calcDerivDepth(unevenAsEven).get(75) != 2);
+    // as in parallel
+    DerivDepthAnalyser parallel =
+        new DerivDepthAnalyser(new AnalyserConfig().withParallelThreshold(0));
+    assertArrayEquals(expected, parallel.calcDerivDepth(uneven).toIntArray());
+  }
+
+  @Test
+  void evenlySpacedPairs() {
+    // a step that is not exact in binary, so the spacing of the xValues is rounded
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 0.1, 0.001);
+    PairDataSet pairs = new PairDataSet(0, 0.1, 0.001);
+    for (int i = 0; i < 1000; i++) {
+      double x = set.getIndependentValue(i);
+      double y = i < 250 ? 0.5 * x * x - x : i < 500 ? Math.exp(x / 10) : i < 750 ? Math.sin(x) : 3;
+      set.add(y);
+      pairs.add(x, y);
+    }
+    DerivDepthAnalyser analyser = new DerivDepthAnalyser();
+    assertArrayEquals(analyser.calcDerivDepth(set).toIntArray(),
+        analyser.calcDerivDepth(pairs).toIntArray());
+    for (int i = 0; i < 1000; i += 7) {
+      assertEquals(analyser.countDerivDepth(set, i), analyser.countDerivDepth(pairs, i));
+    }
+  }
+
+  @Test
+  void integer() {
+    DerivDepthAnalyser analyser = new DerivDepthAnalyser(
+        new AnalyserConfig().withTangentMode(AnalyserConfig.TangentMode.INTEGER));
+    // ADC counts of polynomials up to degree 7, sampled with a small step
+    for (int degree = 0; degree <= 7; degree++) {
+      DoubleValueDataSet set = new DoubleValueDataSet(0, 0.01, 1);
+      for (int i = 0; i < 100; i++) {
+        set.add(Math.pow(i + 3, degree) + 1000);
+      }
+      int[] depths = analyser.calcDerivDepth(set).toIntArray();
+      for (int i = 0; i < depths.length; i++) {
+        assertEquals(degree, depths[i]);
+      }
+    }
+    // the same as tangents for a step of 1
+    DoubleValueDataSet set = makeSet(0.001);
+    assertArrayEquals(new DerivDepthAnalyser().calcDerivDepth(set).toIntArray(),
+        analyser.calcDerivDepth(set).toIntArray());
+    // differences that overflow are not zero
+    assertEquals(0, DerivDepthAnalyser.difference(5, 5));
+    assertEquals(DerivDepthAnalyser.OVERFLOW,
+        DerivDepthAnalyser.difference(Long.MAX_VALUE, -Long.MAX_VALUE));
+    assertEquals(DerivDepthAnalyser.OVERFLOW, DerivDepthAnalyser.quantise(Double.NaN, 1));
+    assertEquals(-3, DerivDepthAnalyser.quantise(-0.0031, 0.001));
+    DoubleValueDataSet huge = new DoubleValueDataSet(0, 1, 1);
+    for (int i = 0; i < 50; i++) {
+      huge.add(i % 2 == 0 ? 0x1p62 : -0x1p62);
+    }
+    assertEquals(Integer.MAX_VALUE, new DerivDepthAnalyser(analyser.getConfig()
+        .withInfiniteDepths(false)).calcDerivDepth(huge).get(10));
+    assertThrows(IllegalArgumentException.class, () -> {
+      analyser.calcDerivDepth(new DoubleValueDataSet(0, 1, 0));
+    });
+  }
+
+  @Test
+  void exponential() {
+    // linear, then exponential from where it reaches the same value
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 0.1, 0.001);
+    DoubleValueDataSet negative = new DoubleValueDataSet(0, 0.1, 0.001);
+    for (int i = 0; i < 300; i++) {
+      double x = set.getIndependentValue(i);
+      set.add(x < 10 ? x : 10 * Math.exp(x - 10));
+      negative.add(-Math.exp(0.5 * x));
+    }
+    int[] depths = new DerivDepthAnalyser().calcDerivDepth(set).toIntArray();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(1, depths[i]);
+    }
+    assertEquals(DerivDepthList.CHANGE, depths[100]);
+    for (int i = 101; i < 289; i++) {
+      assertEquals(DerivDepthList.EXPONENTIAL, depths[i]);
+    }
+    // the logarithms of negative values are not defined
+    assertEquals(DerivDepthList.UNDEFINED, new DerivDepthAnalyser().calcDerivDepth(negative)
+        .get(100));
+  }
+
+  @Test
+  void doubleDouble() {
+    // exact powers of two, whose logarithms are large
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 1e-14);
+    for (int i = 900; i < 1000; i++) {
+      set.add(Math.scalb(1.0, i));
+    }
+    for (int i = 0; i < 50; i++) {
+      set.add(5.0);
+    }
+    AnalyserConfig config = new AnalyserConfig();
+    assertEquals(AnalyserConfig.ExpArithmetic.DOUBLE, config.getExpArithmetic());
+    // the rounding of the logarithms exceeds the precision
+    assertTrue(new DerivDepthAnalyser(config).calcDerivDepth(set).get(5) != -2);
+    int[] depths = new DerivDepthAnalyser(
+        config.withExpArithmetic(AnalyserConfig.ExpArithmetic.DOUBLE_DOUBLE)).calcDerivDepth(set)
+            .toIntArray();
+    for (int i = 0; i < 99; i++) {
+      assertEquals(-2, depths[i]);
+    }
+    assertEquals(-1, depths[99]);
+    assertEquals(0, depths[120]);
+    assertTrue(config.sameResults(config.withParallelThreshold(0)));
+    assertTrue(config.sameResults(
+        config.withExpArithmetic(AnalyserConfig.ExpArithmetic.DOUBLE_DOUBLE)) == false);
+  }
+
+  @Test
+  void pointQuery() {
+    DerivDepthAnalyser analyser = new DerivDepthAnalyser();
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 0.1, 0.001);
+    for (int i = 0; i < 300; i++) {
+      double x = set.getIndependentValue(i);
+      set.add(i < 100 ? 3 : i < 200 ? 0.5 * x * x - x : 0.1 * x * x * x);
+    }
+    int[] depths = analyser.calcDerivDepth(set).toIntArray();
+    // the counted derivDepths away from the changes and the end
+    for (int i = 0; i < 290; i++) {
+      if (i % 100 < 90) {
+        assertEquals(depths[i], analyser.countDerivDepth(set, i));
+      }
+    }
+    assertEquals(analyser.countDerivDepth(set, 150), set.countDerivDepthByIndex(150));
+    // incomplete values at the end
+    assertEquals(0, analyser.countDerivDepth(set, 299));
+    assertEquals(1, analyser.countDerivDepth(set, 297));
+    // exactly summed quanta, and the divided differences of pairs
+    DerivDepthAnalyser integer = new DerivDepthAnalyser(
+        new AnalyserConfig().withTangentMode(AnalyserConfig.TangentMode.INTEGER));
+    DoubleValueDataSet counts = new DoubleValueDataSet(0, 0.01, 1);
+    PairDataSet pairs = new PairDataSet(0, 0.1, 0.001);
+    double x = 0;
+    for (int i = 0; i < 100; i++) {
+      counts.add(Math.pow(i + 3, 5) + 1000);
+      x += 0.1 + 0.03 * Math.sin(i);
+      pairs.add(x, x * x);
+    }
+    for (int i = 0; i < 80; i++) {
+      assertEquals(5, integer.countDerivDepth(counts, i));
+      assertEquals(2, analyser.countDerivDepth(pairs, i));
+    }
+    // a sinusoid, which has no zero derivatives
+    DoubleValueDataSet sin = new DoubleValueDataSet(0, 1, 1e-9);
+    for (int i = 0; i < 100; i++) {
+      sin.add(Math.sin(i));
+    }
+    assertEquals(Integer.MAX_VALUE, analyser.countDerivDepth(sin, 50));
+    assertThrows(IndexOutOfBoundsException.class, () -> analyser.countDerivDepth(set, 300));
+    assertThrows(IndexOutOfBoundsException.class, () -> analyser.countDerivDepth(set, -1));
+  }
+
+  @Test
+  void tangenterPrecision() {
+    // a quadratic whose wiggles are only equal within a coarse precision
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 200; i++) {
+      set.add(0.5 * i * i + 0.01 * Math.sin(i));
+    }
+    int[] expected = new DerivDepthAnalyser().calcDerivDepth(set).toIntArray();
+    try {
+      Tangenter.setPrecision(0.05);
+      assertEquals(0.05, Tangenter.getPrecision(), 0);
+      assertEquals(0.0, Tangenter.tangentApprox(1, 1.0, 1.04), 0);
+      // the analysis still uses the precision of the set
+      assertTrue(Double.isNaN(Tangenter.getDefaultAnalyser().getConfig().getPrecision()));
+      assertArrayEquals(expected, Tangenter.calcDerivDepth(set).toIntArray());
+      set.calcDerivDepths();
+      assertEquals(expected[100], set.getDerivDepthsByIndex(100));
+      assertTrue(expected[100] != new DerivDepthAnalyser(new AnalyserConfig().withPrecision(0.05))
+          .calcDerivDepth(set).get(100));
+    } finally {
+      Tangenter.setPrecision(Double.NaN);
+    }
+    assertEquals(AnalyserConfig.DEFAULT_PRECISION, Tangenter.getPrecision(), 0);
+    assertThrows(IllegalArgumentException.class, () -> {
+      Tangenter.setDefaultAnalyser(new DerivDepthAnalyser(new AnalyserConfig().withPrecision(1)));
+    });
+  }
+
+  @Test
+  void config() {
+    AnalyserConfig config = new AnalyserConfig();
+    AnalyserConfig other = config.withMaxDepth(5).withInfiniteDepths(false);
+    assertEquals(10, config.getMaxDepth());
+    assertTrue(config.doInfiniteDepths());
+    assertEquals(5, other.getMaxDepth());
+    assertEquals(0.001, config.getPrecision(makeSet(0.001)), 0);
+    assertThrows(IllegalArgumentException.class, () -> {
+      config.withMaxDepth(1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      config.withPrecision(-1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Tangenter.calcDerivDepth(makeSet(0.001), 200, false);
+    });
+  }
+
+  @Test
+  void cancelled() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 100000; i++) {
+      set.add(0.5 * i + (i / 1000) % 2);
+    }
+    AnalyserConfig config = new AnalyserConfig().withParallelThreshold(Integer.MAX_VALUE);
+    DerivDepthAnalyser analyser = new DerivDepthAnalyser(config);
+    DerivDepthState state = DerivDepthAnalyser.createState();
+    // cancelled after the first chunk of values, so the remaining ones are never counted
+    AtomicInteger checks = new AtomicInteger();
+    assertThrows(CancellationException.class, () -> {
+      analyser.calcDerivDepth(set, state, () -> checks.incrementAndGet() > 1);
+    });
+    assertEquals(2, checks.get());
+    assertFalse(state.isValidFor(config));
+    // never cancelled
+    assertArrayEquals(analyser.calcDerivDepth(set).toIntArray(),
+        analyser.calcDerivDepth(set, state, () -> false).toIntArray());
+    assertTrue(state.isValidFor(config));
+    // in parallel
+    AnalyserConfig parallel = config.withParallelThreshold(1000).withPool(new ForkJoinPool(2));
+    DerivDepthAnalyser parallelAnalyser = new DerivDepthAnalyser(parallel);
+    assertThrows(CancellationException.class, () -> {
+      parallelAnalyser.calcDerivDepth(set, state, () -> true);
+    });
+    assertFalse(state.isValidFor(parallel));
+    // through the DataSet, which keeps its previous derivDepths
+    set.calcDerivDepths();
+    int depth = set.getDerivDepthsByIndex(50000);
+    assertThrows(CancellationException.class, () -> {
+      set.calcDerivDepths(() -> true);
+    });
+    assertEquals(depth, set.getDerivDepthsByIndex(50000));
+  }
+
+}
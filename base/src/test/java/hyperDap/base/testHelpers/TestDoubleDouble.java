@@ -0,0 +1,91 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.DoubleDouble;
+
+public class TestDoubleDouble {
+
+  private static final BigDecimal LN2 =
+      new BigDecimal("0.6931471805599453094172321214581765680755");
+  private static final BigDecimal E = new BigDecimal("2.7182818284590452353602874713526624977572");
+
+  private double[] result = new double[2];
+
+  /**
+   * The value of {@link #result} relative to {@code expected}, minus one.
+   */
+  private double relativeError(BigDecimal expected) {
+    BigDecimal actual = new BigDecimal(this.result[0]).add(new BigDecimal(this.result[1]));
+    return actual.subtract(expected).divide(expected, MathContext.DECIMAL128).abs().doubleValue();
+  }
+
+  @Test
+  void testArithmetic() {
+    DoubleDouble.add(1.0, 0.0, 1e-20, 0.0, this.result);
+    assertEquals(1.0, this.result[0], 0.0);
+    assertEquals(1e-20, this.result[1], 0.0);
+    DoubleDouble.subtract(this.result[0], this.result[1], 1.0, 0.0, this.result);
+    assertEquals(1e-20, this.result[0], 0.0);
+    DoubleDouble.divide(1.0, 0.0, 3.0, this.result);
+    assertTrue(this.relativeError(BigDecimal.ONE.divide(new BigDecimal(3), MathContext.DECIMAL128))
+        < 1e-31);
+    DoubleDouble.multiply(this.result[0], this.result[1], 3.0, 0.0, this.result);
+    assertTrue(this.relativeError(BigDecimal.ONE) < 1e-31);
+  }
+
+  @Test
+  void testFunctions() {
+    DoubleDouble.exp(1.0, this.result);
+    assertEquals(Math.E, this.result[0], 0.0);
+    assertTrue(this.relativeError(E) < 1e-29);
+    // logarithms of large values, whose upper part alone only has an ulp of about 1e-13
+    for (int i = 1; i < 1000; i += 37) {
+      DoubleDouble.log(Math.scalb(1.0, i), this.result);
+      assertTrue(this.relativeError(LN2.multiply(new BigDecimal(i))) < 1e-29);
+    }
+    DoubleDouble.log(0.0, this.result);
+    assertEquals(Double.NEGATIVE_INFINITY, this.result[0], 0.0);
+    assertEquals(0.0, this.result[1], 0.0);
+  }
+
+  @Test
+  void testRangeEnds() {
+    // exp(k * ln(2) + d) = 2^k * (1 + d + d^2 / 2) for the small rounding error d of k * ln(2)
+    for (int k : new int[] {-969, -900, -500, 500, 1000, 1023}) {
+      double x = k * LN2.doubleValue();
+      BigDecimal d = new BigDecimal(x).subtract(LN2.multiply(new BigDecimal(k)));
+      BigDecimal expected = BigDecimal.ONE.add(d).add(d.pow(2).divide(new BigDecimal(2)));
+      DoubleDouble.exp(x, this.result);
+      assertTrue(this.relativeError(expected.multiply(new BigDecimal(Math.scalb(1.0, k))))
+          < 1e-31);
+    }
+    // the round trip exp(log(y)) = y, with exp(hi + lo) = exp(hi) * (1 + lo + lo^2 / 2)
+    for (double y : new double[] {Math.scalb(1.0, -969), 1e-290, 1e-100, 1e100, 1e300,
+        Double.MAX_VALUE / 2}) {
+      DoubleDouble.log(y, this.result);
+      double lo = this.result[1];
+      DoubleDouble.exp(this.result[0], this.result);
+      double[] product = new double[2];
+      DoubleDouble.multiply(this.result[0], this.result[1], lo, lo * lo / 2, product);
+      DoubleDouble.add(this.result[0], this.result[1], product[0], product[1], this.result);
+      // the error of the logarithm is scaled by its magnitude of up to about 700
+      assertTrue(this.relativeError(new BigDecimal(y)) < 1e-29);
+    }
+    // logarithms down to the smallest subnormal value
+    for (int i = -1074; i < -1000; i += 7) {
+      DoubleDouble.log(Math.scalb(1.0, i), this.result);
+      assertTrue(this.relativeError(LN2.multiply(new BigDecimal(i))) < 1e-31);
+    }
+    // below ln(2^-969) the lower part of exp is subnormal, so only double precision is left
+    DoubleDouble.exp(-745.0, this.result);
+    assertEquals(Math.exp(-745.0), this.result[0], 0.0);
+    DoubleDouble.exp(710.0, this.result);
+    assertEquals(Double.POSITIVE_INFINITY, this.result[0], 0.0);
+    assertEquals(0.0, this.result[1], 0.0);
+  }
+
+}
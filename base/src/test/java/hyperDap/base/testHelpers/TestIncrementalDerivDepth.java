@@ -0,0 +1,101 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.AnalyserConfig;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestIncrementalDerivDepth {
+
+  private DerivDepthAnalyser analyser = new DerivDepthAnalyser(new AnalyserConfig().withMaxDepth(8));
+
+  /**
+   * A piecewise function of polynomial, exponential and trigonometric segments.
+   */
+  private double piecewise(int i) {
+    double x = i * 0.1;
+    switch ((i / 150) % 4) {
+      case 0:
+        return 0.5 * x * x - x;
+      case 1:
+        return Math.exp(x % 5);
+      case 2:
+        return Math.sin(x);
+      default:
+        return 3;
+    }
+  }
+
+  private ValueDataSet<Double> makeSet(ValueDataSet<Double> set, int length) {
+    for (int i = 0; i < length; i++) {
+      set.add(this.piecewise(i));
+    }
+    set.calcDerivDepths(this.analyser);
+    return set;
+  }
+
+  /**
+   * Compares the incrementally updated derivDepths of {@code set} with a full recalculation.
+   */
+  private void compare(ValueDataSet<Double> set) {
+    int[] updated = new int[set.size()];
+    for (int i = 0; i < set.size(); i++) {
+      updated[i] = set.getDerivDepthsByIndex(i);
+    }
+    assertArrayEquals(this.analyser.calcDerivDepth(set).toIntArray(), updated);
+  }
+
+  @Test
+  void append() {
+    ValueDataSet<Double> set = makeSet(new DoubleValueDataSet(0, 0.1, 0.001), 1000);
+    for (int i = 0; i < 400; i++) {
+      set.add(this.piecewise(set.size()));
+      if (i % 7 == 0) {
+        compare(set);
+      }
+    }
+    compare(set);
+  }
+
+  @Test
+  void edit() {
+    Random random = new Random(42);
+    ValueDataSet<Double> set = makeSet(new DoubleValueDataSet(0, 0.1, 0.001), 1200);
+    for (int i = 0; i < 50; i++) {
+      int index = random.nextInt(set.size());
+      set.add(index, set.getByIndex(index) + random.nextDouble());
+      compare(set);
+    }
+  }
+
+  @Test
+  void editSegment() {
+    ValueDataSet<Double> set =
+        makeSet(new ValueDataSet<Double>(0, 0.1, 0.001, d -> Double.valueOf(d)), 1200);
+    // replace part of the polynomial segment with an exponential one and back
+    for (int i = 620; i < 700; i++) {
+      set.add(i, Math.exp(i * 0.01));
+    }
+    compare(set);
+    for (int i = 620; i < 700; i++) {
+      set.add(i, this.piecewise(i));
+    }
+    compare(set);
+  }
+
+  @Test
+  void gapAndReversed() {
+    ValueDataSet<Double> set = makeSet(new DoubleValueDataSet(0, 0.1, 0.001), 1000);
+    set.add(1010, 5.0);
+    compare(set);
+    ValueDataSet<Double> reversed = makeSet(new DoubleValueDataSet(0, -0.1, 0.001), 1000);
+    reversed.add(300, 2.0);
+    compare(reversed);
+    reversed.add(5.0);
+    compare(reversed);
+  }
+
+}
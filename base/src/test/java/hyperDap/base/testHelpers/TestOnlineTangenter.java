@@ -0,0 +1,142 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.function.IntToDoubleFunction;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.AnalyserConfig;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.helpers.OnlineTangenter;
+import hyperDap.base.helpers.Tangenter;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+public class TestOnlineTangenter {
+
+  private int maxDepth = 10;
+
+  /**
+   * Compares the online analysis with {@link Tangenter} for all values that both analyse
+   * completely.
+   */
+  private void compare(int length, IntToDoubleFunction function) {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    ArrayList<Integer> online = new ArrayList<>();
+    ArrayList<Long> changes = new ArrayList<>();
+    OnlineTangenter tangenter =
+        new OnlineTangenter(this.maxDepth, 1, 0.001, new OnlineTangenter.Listener() {
+          @Override
+          public void derivDepth(long index, int derivDepth) {
+            assertEquals(online.size(), index);
+            online.add(derivDepth);
+          }
+
+          @Override
+          public void change(long index, int previousDepth) {
+            changes.add(index);
+          }
+        });
+    double value;
+    for (int i = 0; i < length; i++) {
+      value = function.applyAsDouble(i);
+      set.add(value);
+      tangenter.push(value);
+    }
+    assertEquals(length - this.maxDepth + 1, online.size());
+    DerivDepthList batch = Tangenter.calcDerivDepth(set, this.maxDepth, false);
+    for (int i = 0; i < length - this.maxDepth; i++) {
+      assertEquals(batch.get(i), online.get(i).intValue());
+    }
+    for (long change : changes) {
+      if (change < online.size()) {
+        assertEquals(DerivDepthList.CHANGE, online.get((int) change).intValue());
+      }
+    }
+    tangenter.finish();
+    assertEquals(length, online.size());
+  }
+
+  @Test
+  void constant() {
+    compare(50, i -> 5.0);
+  }
+
+  @Test
+  void square() {
+    compare(50, i -> 5.0 + Math.pow(i, 2));
+  }
+
+  @Test
+  void constantToLinear() {
+    compare(100, i -> i < 50 ? 5.0 : 5.0 + i - 49);
+  }
+
+  @Test
+  void sqareWithinConstant() {
+    compare(75, i -> i < 30 ? 5.0 : i < 45 ? 5.0 + Math.pow(i - 30, 2) : 201.0);
+  }
+
+  @Test
+  void exponential() {
+    compare(80, i -> Math.exp(i / 10.0));
+  }
+
+  @Test
+  void unevenSpacing() {
+    PairDataSet set = new PairDataSet(0, 1, 0.001);
+    ArrayList<Integer> online = new ArrayList<>();
+    OnlineTangenter tangenter =
+        new OnlineTangenter(this.maxDepth, 1, 0.001, (index, derivDepth) -> online.add(derivDepth));
+    for (int i = 0; i < 120; i++) {
+      double x = i + 0.4 * Math.cos(i);
+      double y = i < 60 ? 3.0 - 2.0 * x : Math.pow(x, 3) / 100.0;
+      set.add(x, y);
+      tangenter.push(x, y);
+    }
+    DerivDepthList batch = Tangenter.calcDerivDepth(set, this.maxDepth, false);
+    for (int i = 0; i < set.size() - this.maxDepth; i++) {
+      assertEquals(batch.get(i), online.get(i).intValue());
+    }
+    assertEquals(1, online.get(30).intValue());
+    assertEquals(3, online.get(90).intValue());
+    assertThrows(IllegalArgumentException.class, () -> {
+      tangenter.push(set.getIndependentValue(set.size() - 1), 0.0);
+    });
+  }
+
+  @Test
+  void noise() {
+    java.util.Random rand = new java.util.Random(42);
+    compare(500, i -> rand.nextGaussian());
+  }
+
+  @Test
+  void tangentModes() {
+    // flat, linear and cubic segments, which the modes classify differently
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 4, 0.25);
+    for (int i = 0; i < 300; i++) {
+      set.add(i < 100 ? 7 : i < 200 ? 7 + 0.3 * (i - 100) : 37 + Math.floor(Math.pow(i - 200, 3)
+          / 50));
+    }
+    for (AnalyserConfig.TangentMode mode : AnalyserConfig.TangentMode.values()) {
+      AnalyserConfig config = new AnalyserConfig().withInfiniteDepths(false).withTangentMode(mode);
+      ArrayList<Integer> online = new ArrayList<>();
+      OnlineTangenter tangenter = new OnlineTangenter(config, set.getStep(), set.getPrecision(),
+          (index, derivDepth) -> online.add(derivDepth));
+      for (int i = 0; i < set.size(); i++) {
+        tangenter.push(set.getDouble(i));
+      }
+      DerivDepthList batch = new DerivDepthAnalyser(config).calcDerivDepth(set);
+      for (int i = 0; i < set.size() - this.maxDepth; i++) {
+        assertEquals(batch.get(i), online.get(i).intValue());
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> {
+      new OnlineTangenter(new AnalyserConfig().withTangentMode(AnalyserConfig.TangentMode.INTEGER),
+          1, 0, (index, derivDepth) -> {});
+    });
+  }
+
+}
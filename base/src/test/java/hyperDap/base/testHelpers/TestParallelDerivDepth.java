@@ -0,0 +1,76 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertArrayEquals;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntToDoubleFunction;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.Tangenter;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestParallelDerivDepth {
+
+  private int maxDepth = 10;
+  private ForkJoinPool pool = new ForkJoinPool(4);
+
+  /**
+   * Compares the parallel analysis with the sequential one, which must be identical.
+   */
+  private void compare(ValueDataSet<Double> set, int length, IntToDoubleFunction function) {
+    for (int i = 0; i < length; i++) {
+      set.add(function.applyAsDouble(i));
+    }
+    int threshold = Tangenter.getParallelThreshold();
+    Tangenter.setParallelThreshold(Integer.MAX_VALUE);
+    try {
+      for (boolean doInfiniteDepths : new boolean[] {false, true}) {
+        int[] sequential =
+            Tangenter.calcDerivDepth(set, this.maxDepth, doInfiniteDepths).toIntArray();
+        int[] parallel = Tangenter
+            .calcDerivDepthParallel(set, this.maxDepth, doInfiniteDepths, this.pool).toIntArray();
+        assertArrayEquals(sequential, parallel);
+      }
+    } finally {
+      Tangenter.setParallelThreshold(threshold);
+    }
+  }
+
+  /**
+   * A piecewise function whose segments change across the boundaries of the parallel chunks.
+   */
+  private double piecewise(int i) {
+    double x = i * 0.01;
+    switch ((i / 3001) % 4) {
+      case 0:
+        return 0.5 * x * x - x;
+      case 1:
+        return Math.exp(x % 7);
+      case 2:
+        return Math.sin(x);
+      default:
+        return 3;
+    }
+  }
+
+  @Test
+  void small() {
+    compare(new DoubleValueDataSet(0, 0.01, 0.001), 100, this::piecewise);
+  }
+
+  @Test
+  void piecewise() {
+    compare(new DoubleValueDataSet(0, 0.01, 0.001), 40000, this::piecewise);
+  }
+
+  @Test
+  void reversed() {
+    compare(new DoubleValueDataSet(0, -0.01, 0.001), 40000, this::piecewise);
+  }
+
+  @Test
+  void boxed() {
+    compare(new ValueDataSet<Double>(0, 0.01, 0.001, d -> Double.valueOf(d)), 20000,
+        this::piecewise);
+  }
+
+}
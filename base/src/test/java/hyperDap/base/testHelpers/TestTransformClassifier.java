@@ -0,0 +1,110 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.TransformClassifier;
+import hyperDap.base.helpers.TransformClassifier.Segment;
+import hyperDap.base.helpers.TransformClassifier.Transform;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+public class TestTransformClassifier {
+
+  private TransformClassifier classifier = new TransformClassifier();
+
+  /**
+   * Checks that {@code segments} cover all {@code size} values in order.
+   */
+  private void checkCover(List<Segment> segments, int size) {
+    int to = 0;
+    for (Segment segment : segments) {
+      assertEquals(to, segment.getFrom());
+      to = segment.getTo();
+    }
+    assertEquals(size, to);
+  }
+
+  private void checkSegment(Segment segment, int from, int to, Transform transform, int depth) {
+    assertEquals(from, segment.getFrom());
+    assertEquals(to, segment.getTo());
+    assertEquals(transform, segment.getTransform());
+    assertEquals(depth, segment.getDepth());
+  }
+
+  @Test
+  void testTransforms() {
+    DoubleValueDataSet set = new DoubleValueDataSet(1, 1, 1e-6);
+    for (int i = 0; i < 240; i++) {
+      double x = set.getIndependentValue(i);
+      if (i < 60) {
+        set.add(3 + 2 * x);
+      } else if (i < 120) {
+        set.add(2 * Math.exp(0.1 * x));
+      } else if (i < 180) {
+        set.add(1000 / (x + 1));
+      } else {
+        set.add(Math.pow(x, 2.5));
+      }
+    }
+    List<Segment> segments = this.classifier.classify(set);
+    assertEquals(4, segments.size());
+    this.checkSegment(segments.get(0), 0, 60, Transform.IDENTITY, 1);
+    this.checkSegment(segments.get(1), 60, 120, Transform.LOG, 1);
+    this.checkSegment(segments.get(2), 120, 180, Transform.RECIPROCAL, 1);
+    this.checkSegment(segments.get(3), 180, 240, Transform.LOG_LOG, 1);
+  }
+
+  @Test
+  void testPolynomials() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    for (int i = 0; i < 50; i++) {
+      set.add(5.0);
+    }
+    for (int i = 1; i < 51; i++) {
+      set.add(5.0 + Math.pow(i, 3));
+    }
+    List<Segment> segments = this.classifier.classify(set);
+    this.checkCover(segments, set.size());
+    assertEquals(2, segments.size());
+    this.checkSegment(segments.get(0), 0, 50, Transform.IDENTITY, 0);
+    assertEquals(Transform.IDENTITY, segments.get(1).getTransform());
+    assertEquals(3, segments.get(1).getDepth());
+  }
+
+  @Test
+  void testUnevenAndUndefined() {
+    // exponential on irregularly spaced independent values
+    PairDataSet pairs = new PairDataSet(1, 1, 1e-6);
+    for (int i = 0; i < 100; i++) {
+      double x = 1 + i + 0.3 * Math.sin(i);
+      pairs.add(x, 2 * Math.exp(0.1 * x));
+    }
+    List<Segment> segments = this.classifier.classify(pairs);
+    assertEquals(1, segments.size());
+    this.checkSegment(segments.get(0), 0, 100, Transform.LOG, 1);
+    // noise is not polynomial under any transform
+    DoubleValueDataSet noise = new DoubleValueDataSet(0, 1, 1e-6);
+    java.util.Random rand = new java.util.Random(23);
+    for (int i = 0; i < 100; i++) {
+      noise.add(rand.nextGaussian());
+    }
+    segments = this.classifier.classify(noise);
+    this.checkCover(segments, noise.size());
+    assertEquals(Transform.NONE, segments.get(0).getTransform());
+    assertEquals(DerivDepthList.UNDEFINED, segments.get(0).getDepth());
+    // too few values to be analysed
+    DoubleValueDataSet small = new DoubleValueDataSet(0, 1, 1e-6);
+    small.add(1.0);
+    small.add(2.0);
+    segments = this.classifier.classify(small);
+    this.checkSegment(segments.get(0), 0, 2, Transform.NONE, DerivDepthList.UNDEFINED);
+    assertEquals(0, this.classifier.classify(new DoubleValueDataSet(0, 1, 1e-6)).size());
+    assertThrows(IllegalArgumentException.class, () -> {
+      new TransformClassifier(null);
+    });
+  }
+
+}
@@ -0,0 +1,145 @@
+package hyperDap.base.testHelpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.helpers.TrigDetector;
+import hyperDap.base.helpers.TrigDetector.Oscillation;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+public class TestTrigDetector {
+
+  @Test
+  void testRealFft() {
+    Random rand = new Random(1);
+    for (int n = 2; n <= 64; n *= 2) {
+      double[] values = new double[n];
+      for (int i = 0; i < n; i++) {
+        values[i] = rand.nextGaussian();
+      }
+      double[] spectrum = values.clone();
+      TrigDetector.realFft(spectrum, n);
+      // compare with the naive discrete Fourier transform
+      for (int k = 0; k <= n / 2; k++) {
+        double re = 0.0;
+        double im = 0.0;
+        for (int i = 0; i < n; i++) {
+          re += values[i] * Math.cos(-2 * Math.PI * k * i / n);
+          im += values[i] * Math.sin(-2 * Math.PI * k * i / n);
+        }
+        if (k == 0) {
+          assertEquals(re, spectrum[0], 1e-12);
+        } else if (k == n / 2) {
+          assertEquals(re, spectrum[1], 1e-12);
+        } else {
+          assertEquals(re, spectrum[2 * k], 1e-12);
+          assertEquals(im, spectrum[2 * k + 1], 1e-12);
+        }
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> TrigDetector.realFft(new double[8], 1));
+    assertThrows(IllegalArgumentException.class, () -> TrigDetector.realFft(new double[8], 6));
+    assertThrows(IllegalArgumentException.class, () -> TrigDetector.realFft(new double[8], 16));
+  }
+
+  @Test
+  void testDetect() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.3, 0.01, 0.001);
+    for (int i = 0; i < 3000; i++) {
+      set.add(2 + 1.5 * Math.sin(set.getIndependentValue(i) + 0.7));
+    }
+    Oscillation oscillation = TrigDetector.detect(set, 0, 3000);
+    assertNotNull(oscillation);
+    assertEquals(0, oscillation.getFrom());
+    assertEquals(3000, oscillation.getTo());
+    assertEquals(1 / (2 * Math.PI), oscillation.getFrequency(), 1e-9);
+    assertEquals(0.7, oscillation.getPhase(), 1e-6);
+    assertEquals(1.5, oscillation.getAmplitude(), 1e-6);
+    assertEquals(2, oscillation.getOffset(), 1e-6);
+    assertEquals(1, oscillation.getExplained(), 1e-6);
+    // a part of it, at irregular independent values
+    PairDataSet pairs = new PairDataSet(0, 0.05, 0.001);
+    double x = 0;
+    for (int i = 0; i < 400; i++) {
+      x += 0.05 + 0.02 * Math.sin(i);
+      pairs.add(x, -Math.sin(3 * x));
+    }
+    oscillation = TrigDetector.detect(pairs, 100, 400);
+    assertNotNull(oscillation);
+    assertEquals(3 / (2 * Math.PI), oscillation.getFrequency(), 1e-6);
+    assertEquals(-1, Math.cos(oscillation.getPhase()), 1e-9);
+    assertEquals(1, oscillation.getAmplitude(), 1e-6);
+  }
+
+  @Test
+  void testNotDetected() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 0.01, 0.001);
+    Random rand = new Random(2);
+    for (int i = 0; i < 1000; i++) {
+      set.add(rand.nextGaussian());
+    }
+    for (int i = 0; i < 1000; i++) {
+      set.add(0.5 * i * i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      set.add(Math.sin(i * 0.001)); // less than a period
+    }
+    assertNull(TrigDetector.detect(set, 0, 1000));
+    assertNull(TrigDetector.detect(set, 1000, 2000));
+    assertNull(TrigDetector.detect(set, 2000, 3000));
+    assertNull(TrigDetector.detect(set, 0, TrigDetector.MIN_VALUES - 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> TrigDetector.detect(set, -1, 10));
+    assertThrows(IndexOutOfBoundsException.class, () -> TrigDetector.detect(set, 10, 3001));
+    assertThrows(IndexOutOfBoundsException.class, () -> TrigDetector.detect(set, 10, 9));
+  }
+
+  @Test
+  void testNotSinusoidal() {
+    DoubleValueDataSet triangle = new DoubleValueDataSet(0, 0.01, 0.001);
+    DoubleValueDataSet square = new DoubleValueDataSet(0, 0.01, 0.001);
+    DoubleValueDataSet noisy = new DoubleValueDataSet(0, 0.01, 0.001);
+    Random rand = new Random(3);
+    for (int i = 0; i < 2000; i++) {
+      double phase = (i / 300.0 + 0.1) % 1.0;
+      triangle.add(phase < 0.5 ? 4 * phase - 1 : 3 - 4 * phase);
+      square.add(phase < 0.5 ? 1.0 : -1.0);
+      noisy.add(Math.sin(2 * Math.PI * (i / 300.0 + 0.1)) + 0.05 * rand.nextGaussian());
+    }
+    // the fundamental of a triangle wave explains more than MIN_EXPLAINED of its variance
+    assertNull(TrigDetector.detect(triangle, 0, 2000));
+    assertNull(TrigDetector.detect(triangle, 250, 1450));
+    assertNull(TrigDetector.detect(square, 0, 2000));
+    // the residual of noise is not mistaken for harmonics
+    assertNotNull(TrigDetector.detect(noisy, 0, 2000));
+    assertNotNull(TrigDetector.detect(noisy, 0, 600));
+  }
+
+  @Test
+  void testAnalyser() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 0.1, 1e-6);
+    for (int i = 0; i < 400; i++) {
+      double x = set.getIndependentValue(i);
+      set.add(i < 100 ? 0.5 * x : i < 300 ? Math.sin(x) : 3);
+    }
+    DerivDepthList depths = new DerivDepthAnalyser().calcDerivDepth(set);
+    assertEquals(DerivDepthList.CHANGE, depths.get(99));
+    for (int i = 100; i < 299; i++) {
+      assertEquals(DerivDepthList.TRIGONOMETRIC, depths.get(i));
+    }
+    assertEquals(DerivDepthList.CHANGE, depths.get(299));
+    List<Oscillation> oscillations = TrigDetector.findOscillations(set, depths);
+    assertEquals(1, oscillations.size());
+    assertEquals(100, oscillations.get(0).getFrom());
+    assertEquals(299, oscillations.get(0).getTo());
+    assertEquals(1 / (2 * Math.PI), oscillations.get(0).getFrequency(), 1e-9);
+    assertEquals(0, oscillations.get(0).getPhase(), 1e-6);
+  }
+
+}
@@ -0,0 +1,207 @@
+package hyperDap.base.testIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.Parser;
+import hyperDap.base.io.CsvReader;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+
+public class TestCsvReader {
+
+  private DoubleValueDataSet read(CsvReader reader, String content) throws IOException {
+    Path path = Files.createTempFile("trace", ".csv");
+    try {
+      Files.write(path, content.getBytes(StandardCharsets.US_ASCII));
+      return reader.read(path);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testRead() throws IOException {
+    DoubleValueDataSet set = read(new CsvReader(), "time,value\r\n1.5,10\r\n2.0,11.5\r\n2.5,-3e2");
+    assertEquals(1.5, set.getBase(), 0.0);
+    assertEquals(0.5, set.getStep(), 0.0);
+    assertEquals(3, set.size());
+    assertEquals(10.0, set.getDouble(0), 0.0);
+    assertEquals(11.5, set.getDouble(1), 0.0);
+    assertEquals(-300.0, set.getDouble(2), 0.0);
+    assertEquals(3, set.countValid());
+  }
+
+  @Test
+  void testReadPairs() throws IOException {
+    Path path = Files.createTempFile("trace", ".csv");
+    try {
+      Files.write(path,
+          "t,v\n0.0,1\n0.3,2\n0.35,x\nbad,4\n0.2,5\n1.7,6\n1.7,7\n".getBytes(
+              StandardCharsets.US_ASCII));
+      PairDataSet set = new CsvReader().readPairs(path);
+      assertEquals(0.0, set.getBase(), 0.0);
+      assertEquals(0.3, set.getStep(), 0.0);
+      assertEquals(4, set.size());
+      assertEquals(0.35, set.getIndependentValue(2), 0.0);
+      assertFalse(set.getValidByIndex(2)); // unparseable yValue
+      assertEquals(1.7, set.getIndependentValue(3), 0.0); // lines before 0.35 skipped
+      assertEquals(7.0, set.getDouble(3), 0.0); // repeated xValue replaced
+      assertEquals(2.0, set.get(0.3), 0.0);
+      assertEquals(1, set.getNearestIndex(0.31));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testInvalidLines() throws IOException {
+    DoubleValueDataSet set = read(new CsvReader(), "0,1\n1,x\n\n2,3\nbad,4\n5,6\n");
+    assertEquals(6, set.size());
+    assertTrue(set.getValidByIndex(0));
+    assertFalse(set.getValidByIndex(1)); // unparseable yValue
+    assertTrue(set.getValidByIndex(2));
+    assertFalse(set.getValidByIndex(3)); // unparseable xValue, assumed to follow
+    assertEquals(4.0, set.getDouble(3), 0.0);
+    assertFalse(set.getValidByIndex(4)); // gap
+    assertTrue(Double.isNaN(set.getDouble(4)));
+    assertEquals(6.0, set.getDouble(5), 0.0);
+    assertEquals(3, set.countValid());
+  }
+
+  @Test
+  void testColumns() throws IOException {
+    CsvReader reader = new CsvReader(';', -1, 2, 0.01);
+    DoubleValueDataSet set = read(reader, "a;b;c\n1;2;3\n4;5;6\n7;8");
+    assertEquals(0.0, set.getBase(), 0.0);
+    assertEquals(1.0, set.getStep(), 0.0);
+    assertEquals(0.01, set.getPrecision(), 0.0);
+    assertEquals(3, set.size());
+    assertEquals(6.0, set.getDouble(1), 0.0);
+    assertFalse(set.getValidByIndex(2)); // missing column
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CsvReader(',', 1, 1, 0.01);
+    });
+  }
+
+  @Test
+  void testLargeFile() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 200000; i++) {
+      builder.append(i * 0.25).append(',').append(Math.sin(i * 0.25)).append(",comment\n");
+    }
+    DoubleValueDataSet set = read(new CsvReader(), builder.toString());
+    assertEquals(200000, set.size());
+    assertEquals(200000, set.countValid());
+    for (int i = 0; i < 200000; i += 997) {
+      assertEquals(Math.sin(i * 0.25), set.getDouble(i), 0.0);
+    }
+  }
+
+  @Test
+  void testReadInto() throws IOException {
+    DoubleValueDataSet set = new DoubleValueDataSet(0, 1, 0.001);
+    set.add(1.0);
+    Path path = Files.createTempFile("trace", ".csv");
+    try {
+      Files.write(path, "1,2\n2,3\n0,5\n".getBytes(StandardCharsets.US_ASCII));
+      new CsvReader().readInto(path, set);
+    } finally {
+      Files.delete(path);
+    }
+    assertEquals(3, set.size());
+    assertEquals(5.0, set.getDouble(0), 0.0);
+    assertEquals(3.0, set.getDouble(2), 0.0);
+  }
+
+  @Test
+  void testReadParallel() throws IOException {
+    // large enough to be split into several ranges
+    Path path = Files.createTempFile("trace", ".csv");
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      StringBuilder builder = new StringBuilder("time,value\n");
+      Random rand = new Random(11);
+      for (int i = 0; i < 1500000; i++) {
+        if (i % 1000 == 999) {
+          continue; // gap
+        }
+        builder.append(i % 7777 == 0 ? "bad" : Double.toString(i * 0.125)).append(',');
+        builder.append(i % 3001 == 0 ? "x" : Double.toString(rand.nextGaussian()));
+        builder.append('\n');
+      }
+      Files.write(path, builder.toString().getBytes(StandardCharsets.US_ASCII));
+      builder = null;
+      CsvReader reader = new CsvReader();
+      DoubleValueDataSet sequential = reader.read(path);
+      DoubleValueDataSet parallel = reader.readParallel(path, pool);
+      assertEquals(sequential.getBase(), parallel.getBase(), 0.0);
+      assertEquals(sequential.getStep(), parallel.getStep(), 0.0);
+      assertEquals(sequential.size(), parallel.size());
+      assertEquals(sequential.countValid(), parallel.countValid());
+      for (int i = 0; i < sequential.size(); i++) {
+        assertEquals(sequential.getDouble(i), parallel.getDouble(i), 0.0);
+        assertEquals(sequential.getValidByIndex(i), parallel.getValidByIndex(i));
+      }
+      // without xValues the lines are simply concatenated
+      reader = new CsvReader(',', -1, 1, 0.001);
+      sequential = reader.read(path);
+      parallel = reader.readParallel(path, pool);
+      assertEquals(sequential.size(), parallel.size());
+      assertEquals(sequential.countValid(), parallel.countValid());
+      assertEquals(sequential.getDouble(sequential.size() - 1),
+          parallel.getDouble(parallel.size() - 1), 0.0);
+    } finally {
+      pool.shutdown();
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testParseDouble() {
+    String[] inputs = {"0", "-0.0", "123.45", " 1e-5\r", "\"-3.25E+2\"", "0.1", ".5", "1.",
+        "12345678901234567890", "3.141592653589793238", "1e300", "4.9e-324", "NaN", "-Infinity",
+        "0x1p3"};
+    for (String input : inputs) {
+      byte[] bytes = ("," + input + ",").getBytes(StandardCharsets.US_ASCII);
+      double expected = Double.parseDouble(input.replace("\"", "").trim());
+      assertEquals(Double.doubleToLongBits(expected),
+          Double.doubleToLongBits(Parser.parseDouble(bytes, 1, bytes.length - 1)));
+    }
+    for (String input : new String[] {"", "  ", "abc", "1e", "1.2.3", "-"}) {
+      byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+      assertTrue(Double.isNaN(Parser.parseDouble(bytes, 0, bytes.length)));
+    }
+    Random rand = new Random(4);
+    for (int i = 0; i < 10000; i++) {
+      String input =
+          String.format(Locale.ROOT, "%." + rand.nextInt(12) + "f", (rand.nextDouble() - 0.5) * 1e4);
+      byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+      assertEquals(Double.parseDouble(input), Parser.parseDouble(bytes, 0, bytes.length), 0.0);
+    }
+    // full precision doubles, and decimals close to the midpoint between two doubles
+    for (int i = 0; i < 100000; i++) {
+      double value = rand.nextDouble() * Math.pow(10, rand.nextInt(40) - 20);
+      String input = Double.toString(value);
+      if (i % 2 == 1) {
+        input = new BigDecimal(value).add(new BigDecimal(Math.ulp(value) / 2))
+            .round(new MathContext(16 + i % 3)).toString();
+      }
+      byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+      assertEquals(Double.doubleToLongBits(Double.parseDouble(input)),
+          Double.doubleToLongBits(Parser.parseDouble(bytes, 0, bytes.length)));
+    }
+  }
+
+}
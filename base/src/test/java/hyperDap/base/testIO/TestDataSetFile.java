@@ -0,0 +1,117 @@
+package hyperDap.base.testIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.helpers.Tangenter;
+import hyperDap.base.io.DataSetFile;
+import hyperDap.base.io.MappedDataSet;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestDataSetFile {
+
+  private DoubleValueDataSet makeSet(int length) {
+    DoubleValueDataSet set = new DoubleValueDataSet(2.0, 0.5, 0.001);
+    for (int i = 0; i < length; i++) {
+      set.add(i < length / 2 ? 0.5 * i * i : 3.0 - i);
+    }
+    return set;
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    DoubleValueDataSet set = makeSet(200);
+    set.invalidateRange(63, 65);
+    set.editValidityByIndex(199, false);
+    Path path = Files.createTempFile("dataSet", ".hdds");
+    try {
+      DataSetFile.write(set, path, false);
+      MappedDataSet mapped = DataSetFile.open(path);
+      assertEquals(200, mapped.size());
+      assertEquals(2.0, mapped.getBase(), 0.0);
+      assertEquals(0.5, mapped.getStep(), 0.0);
+      assertEquals(0.001, mapped.getPrecision(), 0.0);
+      assertArrayEquals(set.toDoubleArray(), mapped.toDoubleArray(), 0.0);
+      for (int i = 0; i < 200; i++) {
+        assertEquals(set.getDouble(i), mapped.getDouble(i), 0.0);
+        assertEquals(set.getValidByIndex(i), mapped.getValidByIndex(i));
+      }
+      assertEquals(197, mapped.countValid());
+      assertEquals(63, mapped.nextInvalidIndex(0));
+      assertEquals(65, mapped.nextValidIndex(63));
+      assertEquals(199, mapped.nextInvalidIndex(65));
+      assertEquals(-1, mapped.nextValidIndex(199));
+      assertTrue(mapped.contains(4.5, 1.0 * 5 * 5 / 2));
+      assertFalse(mapped.hasStoredDerivDepths());
+      assertArrayEquals(Tangenter.calcDerivDepth(set).toIntArray(),
+          Tangenter.calcDerivDepth(mapped).toIntArray());
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testDerivDepths() throws IOException {
+    DoubleValueDataSet set = makeSet(300);
+    Path path = Files.createTempFile("dataSet", ".hdds");
+    try {
+      DataSetFile.write(set, path, true);
+      MappedDataSet mapped = DataSetFile.open(path);
+      assertTrue(mapped.hasStoredDerivDepths());
+      for (int i = 0; i < 300; i++) {
+        assertEquals(set.getDerivDepthsByIndex(i), mapped.getDerivDepthsByIndex(i));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testBoxed() throws IOException {
+    ValueDataSet<Double> set = new ValueDataSet<Double>(0, 1, 0.001, d -> Double.valueOf(d));
+    set.add(1.0);
+    set.add(2.0);
+    Path path = Files.createTempFile("dataSet", ".hdds");
+    try {
+      DataSetFile.write(set, path, false);
+      MappedDataSet mapped = DataSetFile.open(path);
+      assertEquals(2, mapped.size());
+      assertEquals(Double.valueOf(2.0), mapped.getByIndex(1));
+      assertTrue(mapped.getValidByIndex(1));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void testIllegal() throws IOException {
+    Path path = Files.createTempFile("dataSet", ".hdds");
+    try {
+      DataSetFile.write(makeSet(10), path, false);
+      MappedDataSet mapped = DataSetFile.open(path);
+      assertThrows(UnsupportedOperationException.class, () -> {
+        mapped.add(1.0);
+      });
+      assertThrows(UnsupportedOperationException.class, () -> {
+        mapped.editValidityByIndex(0, false);
+      });
+      assertThrows(IndexOutOfBoundsException.class, () -> {
+        mapped.getDouble(10);
+      });
+      Files.write(path, new byte[DataSetFile.HEADER_SIZE]);
+      assertThrows(IllegalArgumentException.class, () -> {
+        DataSetFile.open(path);
+      });
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package hyperDap.base.types.dataSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DerivDepthList;
+
+public class TestDerivDepthList {
+
+  @Test
+  void testCodes() {
+    int[] codes = {0, 1, 9, DerivDepthList.MAX_DEPTH, DerivDepthList.CHANGE,
+        DerivDepthList.EXPONENTIAL, DerivDepthList.TRIGONOMETRIC, DerivDepthList.UNDEFINED,
+        DerivDepthList.INFINITE};
+    DerivDepthList list = new DerivDepthList(2);
+    for (int code : codes) {
+      list.add(code);
+    }
+    assertEquals(codes.length, list.size());
+    for (int i = 0; i < codes.length; i++) {
+      assertEquals(codes[i], list.get(i));
+    }
+    list.set(0, DerivDepthList.INFINITE);
+    assertEquals(Integer.MAX_VALUE, list.get(0));
+  }
+
+  @Test
+  void testIllegal() {
+    DerivDepthList list = new DerivDepthList();
+    assertThrows(IllegalArgumentException.class, () -> {
+      list.add(DerivDepthList.MAX_DEPTH + 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      list.add(-129);
+    });
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      list.get(0);
+    });
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      list.set(0, 1);
+    });
+  }
+
+  @Test
+  void testFillAndAddAll() {
+    DerivDepthList list = new DerivDepthList();
+    for (int i = 0; i < 10; i++) {
+      list.add(2);
+    }
+    list.fill(5, 10, DerivDepthList.CHANGE);
+    DerivDepthList other = new DerivDepthList();
+    other.addAll(list);
+    assertEquals(10, other.size());
+    assertEquals(2, other.get(4));
+    assertEquals(DerivDepthList.CHANGE, other.get(5));
+    other.clear();
+    assertEquals(0, other.size());
+  }
+
+}
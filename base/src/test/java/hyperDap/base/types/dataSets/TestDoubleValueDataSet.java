@@ -0,0 +1,151 @@
+package hyperDap.base.types.dataSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestDoubleValueDataSet {
+
+  private double precisionGlobal = 0.5;
+
+  @Test
+  void testAddPrimitive() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    for (int i = 0; i < 100; i++) {
+      set.add(i * 0.5);
+    }
+    assertEquals(100, set.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i * 0.5, set.getDouble(i), 0.0);
+      assertEquals(Double.valueOf(i * 0.5), set.getByIndex(i));
+      assertTrue(set.getValidByIndex(i));
+    }
+    assertEquals(Double.valueOf(99.0), Double.valueOf(set.getMaxIndependentValue()));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.getDouble(100);
+    });
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.getDouble(-1);
+    });
+  }
+
+  @Test
+  void testSetDouble() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    set.add(1.0);
+    set.add(2.0);
+    set.setDouble(1, 5.0);
+    assertEquals(5.0, set.getDouble(1), 0.0);
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.setDouble(2, 1.0);
+    });
+  }
+
+  @Test
+  void testAddByIndex() {
+    Double entry = 3.0;
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    set.add(3, entry);
+    assertEquals(4, set.size());
+    assertEquals(entry, set.get(3.0));
+    assertTrue(set.contains(3.0, 3.0));
+    set.add(1.0, 1.0);
+    assertEquals(Double.valueOf(1.0), set.getByIndex(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.add(-1, entry);
+    });
+  }
+
+  @Test
+  void testValidity() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    for (int i = 0; i < 10; i++) {
+      set.add(i);
+    }
+    set.editValidityByIndex(4, false);
+    assertFalse(set.getValidByIndex(4));
+    assertTrue(set.getValidByIndex(5));
+    assertFalse(set.cleanLength());
+  }
+
+  @Test
+  void testAddRange() {
+    DoubleValueDataSet other = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    for (int i = 0; i < 200; i++) {
+      other.add(i);
+    }
+    other.invalidateRange(70, 140);
+    other.editValidityByIndex(150, false);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    set.add(-1.0);
+    set.addAll(other, 60, 160);
+    assertEquals(101, set.size());
+    for (int i = 60; i < 160; i++) {
+      assertEquals(other.getDouble(i), set.getDouble(i - 59), 0.0);
+      assertEquals(other.getValidByIndex(i), set.getValidByIndex(i - 59));
+    }
+    assertEquals(30, set.countValid());
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.addAll(other, 150, 201);
+    });
+  }
+
+  @Test
+  void testClearAndIterate() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    for (int i = 0; i < 20; i++) {
+      set.add(2.0);
+    }
+    for (Double e : set) {
+      assertEquals(Double.valueOf(2.0), e);
+    }
+    assertTrue(set.contains(Double.valueOf(2.0)));
+    assertFalse(set.contains(Double.valueOf(1.0)));
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.iterator().hasNext());
+  }
+
+  @Test
+  void testSameDerivDepths() {
+    ValueDataSet<Double> boxed = new ValueDataSet<Double>(0, 1, 0.001, d -> Double.valueOf(d));
+    DoubleValueDataSet primitive = new DoubleValueDataSet(0, 1, 0.001);
+    double value;
+    for (int i = 0; i < 60; i++) {
+      value = i < 30 ? 5.0 : 5.0 + Math.pow(i - 29, 2);
+      boxed.add(value);
+      primitive.add(value);
+    }
+    for (int i = 0; i < boxed.size(); i++) {
+      assertEquals(boxed.getDerivDepthsByIndex(i), primitive.getDerivDepthsByIndex(i));
+    }
+  }
+
+  @Test
+  void testEnsureCapacity() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    int capacity = 1_000_000;
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    long id = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(id);
+    set.ensureCapacity(capacity);
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+    // the doubles and the derivDepth codes, but no array for the unused boxed values
+    assertTrue(allocated >= capacity * 9L);
+    assertTrue(allocated < capacity * 10L);
+    for (int i = 0; i < 100; i++) {
+      set.add(i * 0.5);
+    }
+    assertEquals(100, set.size());
+    assertEquals(49.5, set.getDouble(99), 0.0);
+  }
+
+}
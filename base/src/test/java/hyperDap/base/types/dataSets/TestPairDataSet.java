@@ -0,0 +1,130 @@
+package hyperDap.base.types.dataSets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.PairDataSet;
+import hyperDap.base.types.value.ValuePair;
+
+public class TestPairDataSet {
+
+  private double precisionGlobal = 0.01;
+
+  private PairDataSet irregular() {
+    PairDataSet set = new PairDataSet(0.0, 1.0, this.precisionGlobal);
+    double[] xValues = {0.0, 0.5, 2.0, 2.1, 7.0};
+    double[] yValues = {1.0, 2.0, 3.0, 4.0, 5.0};
+    set.addAll(xValues, yValues, 0, xValues.length);
+    return set;
+  }
+
+  @Test
+  void testAddAndGet() {
+    PairDataSet set = new PairDataSet(0.0, 1.0, this.precisionGlobal);
+    set.add(-3.0, 1.0);
+    set.add(0.25, 2.0);
+    set.add(new ValuePair<Double>(9.5, 3.0));
+    assertEquals(3, set.size());
+    assertEquals(0.25, set.getIndependentValue(1), 0.0);
+    assertEquals(9.5, set.getMaxIndependentValue(), 0.0);
+    assertEquals(2.0, set.get(0.25), 0.0);
+    assertEquals(3.0, set.getDouble(2), 0.0);
+    // an existing xValue is replaced
+    set.editValidityByIndex(1, false);
+    set.add(0.25, 5.0);
+    assertEquals(3, set.size());
+    assertEquals(5.0, set.getDouble(1), 0.0);
+    assertTrue(set.getValidByIndex(1));
+    // strictly increasing xValues
+    assertThrows(IllegalArgumentException.class, () -> {
+      set.add(0.0, 1.0);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      set.add(Double.NaN, 1.0);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      set.addAll(new double[] {10.0, 10.0}, new double[] {1.0, 1.0}, 0, 2);
+    });
+    assertEquals(3, set.size());
+    // values without xValue
+    assertThrows(UnsupportedOperationException.class, () -> {
+      set.add(1.0);
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      set.add(Double.valueOf(1.0));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      set.addAll(List.of(1.0, 2.0));
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      set.addAll(new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal), 0, 0);
+    });
+    assertEquals(3, set.size());
+  }
+
+  @Test
+  void testSearch() {
+    PairDataSet set = this.irregular();
+    assertEquals(0, set.getNearestIndex(-5.0));
+    assertEquals(0, set.getNearestIndex(0.25)); // ties choose the smaller
+    assertEquals(1, set.getNearestIndex(0.26));
+    assertEquals(3, set.getNearestIndex(4.0));
+    assertEquals(4, set.getNearestIndex(4.6));
+    assertEquals(4, set.getNearestIndex(100.0));
+    assertEquals(2, set.getExactIndex(2.0));
+    assertEquals(-1, set.getExactIndex(2.05));
+    assertEquals(-1, new PairDataSet(0.0, 1.0, 0.1).getNearestIndex(1.0));
+    // only recorded independent values have an entry
+    assertEquals(4.0, set.get(2.1), 0.0);
+    assertEquals(4.0, set.get(0.7 * 3), 0.0); // rounded to 2.0999999999999996
+    assertEquals(3, set.getIndex(2.1));
+    assertEquals(-1, set.getIndex(2.2));
+    assertTrue(set.hasEntryAt(7.0));
+    assertFalse(set.hasEntryAt(2.2));
+    assertFalse(set.hasEntryAt(100.0));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.get(2.2);
+    });
+    assertEquals(9.0, set.getIndependentValue(6), 0.0);
+    assertEquals(-1.0, set.getIndependentValue(-1), 0.0);
+    assertArrayEquals(new double[] {0.0, 0.5, 2.0, 2.1, 7.0}, set.toIndependentArray(), 0.0);
+  }
+
+  @Test
+  void testContains() {
+    PairDataSet set = this.irregular();
+    assertTrue(set.contains(2.0, 3.0, 0.0, 0.0));
+    assertTrue(set.contains(2.05, 4.0, 0.06, 0.0));
+    assertFalse(set.contains(2.05, 4.0, 0.01, 0.0));
+    assertTrue(set.contains(6.6, 5.0)); // within half a step
+    assertFalse(set.contains(6.4, 5.0));
+    assertFalse(set.contains(2.0, 3.5));
+    assertTrue(set.contains(new ValuePair<Double>(0.5, 2.005)));
+  }
+
+  @Test
+  void testCopy() {
+    PairDataSet set = this.irregular();
+    set.editValidityByIndex(3, false);
+    PairDataSet copy = new PairDataSet(0.0, 1.0, this.precisionGlobal);
+    copy.add(-1.0, 0.0);
+    copy.addAll(set, 1, 5);
+    assertEquals(5, copy.size());
+    assertEquals(2.1, copy.getIndependentValue(3), 0.0);
+    assertEquals(4.0, copy.getDouble(3), 0.0);
+    assertFalse(copy.getValidByIndex(3));
+    assertThrows(IllegalArgumentException.class, () -> {
+      copy.addAll(set, 4, 5);
+    });
+    copy.clear();
+    assertEquals(0, copy.size());
+    copy.addAll(set, 0, 2);
+    assertEquals(0.5, copy.getMaxIndependentValue(), 0.0);
+  }
+
+}
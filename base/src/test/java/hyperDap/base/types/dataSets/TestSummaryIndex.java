@@ -0,0 +1,135 @@
+package hyperDap.base.types.dataSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.SummaryIndex;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestSummaryIndex {
+
+  private double precisionGlobal = 0.5;
+
+  /**
+   * Compares the range queries of {@code set} against a scan of many random ranges.
+   */
+  private void checkRanges(ValueDataSet<? extends Number> set, Random rand) {
+    int size = set.size();
+    for (int r = 0; r < 200; r++) {
+      int from = rand.nextInt(size + 1);
+      int to = from + rand.nextInt(size - from + 1);
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      int valid = 0;
+      for (int i = from; i < to; i++) {
+        if (set.getValidByIndex(i) == true) {
+          min = Math.min(min, set.getByIndex(i).doubleValue());
+          max = Math.max(max, set.getByIndex(i).doubleValue());
+          valid++;
+        }
+      }
+      assertEquals(min, set.getRangeMin(from, to), 0.0);
+      assertEquals(max, set.getRangeMax(from, to), 0.0);
+      assertEquals(valid, set.countValid(from, to));
+    }
+  }
+
+  @Test
+  void testRangeQueries() {
+    Random rand = new Random(18);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, this.precisionGlobal);
+    for (int i = 0; i < 20 * SummaryIndex.BLOCK_SIZE + 77; i++) {
+      set.add(rand.nextGaussian());
+    }
+    set.invalidateRange(100, 3 * SummaryIndex.BLOCK_SIZE);
+    for (int i = 0; i < 500; i++) {
+      set.editValidityByIndex(rand.nextInt(set.size()), false);
+    }
+    this.checkRanges(set, rand);
+    assertEquals(set.countValid(), set.countValid(0, set.size()));
+    assertEquals(Double.POSITIVE_INFINITY, set.getRangeMin(200, 300), 0.0);
+    assertEquals(0, set.countValid(5, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.getRangeMin(-1, 5);
+    });
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.getRangeMax(0, set.size() + 1);
+    });
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.countValid(5, 4);
+    });
+  }
+
+  @Test
+  void testUpdates() {
+    Random rand = new Random(19);
+    ValueDataSet<Double> set = new ValueDataSet<Double>(0.0, 1.0, this.precisionGlobal, d -> d);
+    for (int i = 0; i < 3 * SummaryIndex.BLOCK_SIZE; i++) {
+      set.add(rand.nextDouble());
+    }
+    this.checkRanges(set, rand);
+    // appending
+    for (int i = 0; i < 5 * SummaryIndex.BLOCK_SIZE + 3; i++) {
+      set.add(rand.nextDouble());
+      if (i % 700 == 0) {
+        this.checkRanges(set, rand);
+      }
+    }
+    this.checkRanges(set, rand);
+    // editing values and validities
+    set.add(2 * SummaryIndex.BLOCK_SIZE + 5, 10.0);
+    set.editValidityByIndex(SummaryIndex.BLOCK_SIZE, false);
+    assertEquals(10.0, set.getRangeMax(0, set.size()), 0.0);
+    set.editValidityByIndex(2 * SummaryIndex.BLOCK_SIZE + 5, false);
+    this.checkRanges(set, rand);
+    set.invalidateRange(0, set.size());
+    assertEquals(0, set.countValid(0, set.size()));
+    // starting over
+    set.clear();
+    for (int i = 0; i < 2 * SummaryIndex.BLOCK_SIZE; i++) {
+      set.add(-1.0 * i);
+    }
+    assertEquals(-2.0 * SummaryIndex.BLOCK_SIZE + 1, set.getRangeMin(0, set.size()), 0.0);
+    this.checkRanges(set, rand);
+  }
+
+  @Test
+  void testDerivDepths() {
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 0.1, 0.00001);
+    for (int i = 0; i < 4 * SummaryIndex.BLOCK_SIZE; i++) {
+      set.add(i < 2 * SummaryIndex.BLOCK_SIZE ? 3.0 : 0.5 * i);
+    }
+    set.calcDerivDepths();
+    SummaryIndex index = set.getSummaryIndex();
+    SummaryIndex.Summary summary = index.summarise(10, set.size() - 10);
+    for (int depth : new int[] {0, 1, 2, 3, 4, DerivDepthList.INFINITE, DerivDepthList.CHANGE,
+        DerivDepthList.EXPONENTIAL, DerivDepthList.TRIGONOMETRIC, DerivDepthList.UNDEFINED}) {
+      int count = 0;
+      for (int i = 10; i < set.size() - 10; i++) {
+        int d = set.getDerivDepthsByIndex(i);
+        if (d == depth || (depth == 4 && d > 3 && d != DerivDepthList.INFINITE)) {
+          count++;
+        }
+      }
+      assertEquals(count, summary.countDerivDepth(depth));
+    }
+    assertEquals(0, index.dominantDerivDepth(0, 2 * SummaryIndex.BLOCK_SIZE - 20));
+    assertEquals(1, index.dominantDerivDepth(2 * SummaryIndex.BLOCK_SIZE + 20, set.size() - 20));
+    // edited derivDepths are summarised again
+    int changes = index.summarise(0, set.size()).countDerivDepth(DerivDepthList.CHANGE);
+    set.setDerivDepth(SummaryIndex.BLOCK_SIZE + 3, DerivDepthList.CHANGE);
+    assertEquals(changes + 1,
+        index.summarise(0, set.size()).countDerivDepth(DerivDepthList.CHANGE));
+    // as are those of new values
+    for (int i = 0; i < 2 * SummaryIndex.BLOCK_SIZE; i++) {
+      set.add(0.5 * set.size());
+    }
+    assertEquals(1, set.getDominantDerivDepth(2 * SummaryIndex.BLOCK_SIZE, set.size() - 20));
+    assertEquals(set.size(), index.summarise(0, set.size()).getValidCount());
+    assertEquals(DerivDepthList.UNDEFINED, index.dominantDerivDepth(7, 7));
+  }
+
+}
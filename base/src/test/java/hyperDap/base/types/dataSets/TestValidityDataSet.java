@@ -0,0 +1,70 @@
+package hyperDap.base.types.dataSets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+public class TestValidityDataSet {
+
+  private ValueDataSet<Double> makeSet(int length) {
+    ValueDataSet<Double> set = new ValueDataSet<Double>(0, 1, 0.001, d -> Double.valueOf(d));
+    for (int i = 0; i < length; i++) {
+      set.add(1.0 * i);
+    }
+    return set;
+  }
+
+  @Test
+  void testNewEntriesValid() {
+    ValueDataSet<Double> set = makeSet(10);
+    set.add(15, 1.0);
+    for (int i = 0; i < set.size(); i++) {
+      assertTrue(set.getValidByIndex(i));
+    }
+    assertEquals(16, set.countValid());
+    assertFalse(set.cleanLength());
+  }
+
+  @Test
+  void testEditValidity() {
+    ValueDataSet<Double> set = makeSet(10);
+    assertTrue(set.editValidityByIndex(3, false));
+    assertFalse(set.editValidityByIndex(3, false));
+    assertFalse(set.getValidByIndex(3));
+    assertTrue(set.editValidity(3.0, true));
+    assertTrue(set.getValid(3.0));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.editValidityByIndex(10, false);
+    });
+  }
+
+  @Test
+  void testInvalidateRange() {
+    ValueDataSet<Double> set = makeSet(200);
+    set.invalidateRange(50, 150);
+    assertEquals(100, set.countValid());
+    assertTrue(set.getValidByIndex(49));
+    assertFalse(set.getValidByIndex(50));
+    assertFalse(set.getValidByIndex(149));
+    assertTrue(set.getValidByIndex(150));
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      set.invalidateRange(150, 201);
+    });
+  }
+
+  @Test
+  void testScanning() {
+    ValueDataSet<Double> set = makeSet(200);
+    set.invalidateRange(50, 150);
+    assertEquals(50, set.nextInvalidIndex(0));
+    assertEquals(150, set.nextValidIndex(50));
+    assertEquals(-1, set.nextInvalidIndex(150));
+    assertEquals(-1, set.nextValidIndex(200));
+    set.invalidateRange(150, 200);
+    assertEquals(-1, set.nextValidIndex(50));
+  }
+
+}
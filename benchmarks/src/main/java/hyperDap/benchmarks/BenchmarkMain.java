@@ -0,0 +1,32 @@
+package hyperDap.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar, which is built by {@code mvn package} as
+ * {@code benchmarks/target/benchmarks.jar} and run with {@code java -jar benchmarks.jar}.
+ * <p>
+ * Accepts the same arguments as {@link org.openjdk.jmh.Main}, e.g. a regular expression selecting
+ * the benchmarks and {@code -p size=1000000} to restrict a parameter, but always adds the
+ * {@link GCProfiler}, so that every result reports the allocation rate ({@code gc.alloc.rate}) and
+ * the bytes allocated per operation ({@code gc.alloc.rate.norm}) next to the score.
+ *
+ * @author soenk
+ *
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    Options options =
+        new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build();
+    new Runner(options).run();
+  }
+
+}
@@ -0,0 +1,87 @@
+package hyperDap.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import hyperDap.base.io.CsvReader;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+
+/**
+ * Measures ingesting a trace from a CSV file with {@link CsvReader#read(Path)} and
+ * {@link CsvReader#readParallel(Path)}.
+ * <p>
+ * The file is written once per trial and read from the page cache afterwards, so the score is the
+ * cost of parsing rather than that of the disk. Divide the file size by the score for the
+ * throughput. Files smaller than two chunks are parsed on a single thread by
+ * {@link #readParallel()} as well.
+ *
+ * @author soenk
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvReaderBenchmark {
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"mixed"})
+  public String mix;
+
+  @Param({"0.0", "0.01"})
+  public double noise;
+
+  private Path path;
+  private CsvReader reader;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    DoubleValueDataSet set = Traces.generate(this.mix, this.size, this.noise, Traces.SEED);
+    this.path = Files.createTempFile("trace", ".csv");
+    try (BufferedWriter writer = Files.newBufferedWriter(this.path)) {
+      writer.write("x,y\n");
+      for (int i = 0; i < set.size(); i++) {
+        writer.write(Double.toString(set.getIndependentValue(i)));
+        writer.write(',');
+        writer.write(Double.toString(set.getDouble(i)));
+        writer.write('\n');
+      }
+    }
+    this.reader = new CsvReader();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.delete(this.path);
+  }
+
+  @Benchmark
+  public DoubleValueDataSet read() throws IOException {
+    return this.reader.read(this.path);
+  }
+
+  @Benchmark
+  public DoubleValueDataSet readParallel() throws IOException {
+    return this.reader.readParallel(this.path);
+  }
+
+}
@@ -0,0 +1,128 @@
+package hyperDap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import hyperDap.base.types.dataSet.DataSet;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
+
+/**
+ * Measures filling and reading {@link DataSet DataSets}, comparing the boxed {@link ValueDataSet}
+ * against the primitive {@link DoubleValueDataSet}.
+ * <p>
+ * Every benchmark works on the whole trace, so the score divided by {@code size} gives the cost of
+ * a single {@link DataSet#add(Object) add()}, {@link DataSet#getByIndex(int) getByIndex()} or
+ * {@link ValueDataSet#contains(double, double) contains()}.
+ *
+ * @author soenk
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSetBenchmark {
+
+  /**
+   * The number of {@link ValueDataSet#contains(double, double) contains()} queries per invocation.
+   */
+  private static final int PROBES = 1024;
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"boxed", "primitive"})
+  public String storage;
+
+  @Param({"mixed"})
+  public String mix;
+
+  @Param({"0.0", "0.01"})
+  public double noise;
+
+  private double[] values;
+  private ValueDataSet<Double> set;
+  private double[] probeX;
+  private double[] probeY;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.values = Traces.generate(this.mix, this.size, this.noise, Traces.SEED).toDoubleArray();
+    this.set = this.fill();
+    // half of the probes hit an existing value, the other half miss it by a wide margin
+    this.probeX = new double[PROBES];
+    this.probeY = new double[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      int index = (int) ((long) i * this.size / PROBES);
+      this.probeX[i] = Traces.BASE + index * Traces.STEP;
+      this.probeY[i] = this.values[index] + (i % 2 == 0 ? 0.0 : 1.0);
+    }
+  }
+
+  /**
+   * Creates an empty {@link ValueDataSet} of the requested {@code storage}.
+   *
+   * @category helper
+   * @return The empty DataSet.
+   */
+  private ValueDataSet<Double> newSet() {
+    if (this.storage.equals("primitive")) {
+      return new DoubleValueDataSet(Traces.BASE, Traces.STEP, Traces.PRECISION);
+    }
+    return new ValueDataSet<Double>(Traces.BASE, Traces.STEP, Traces.PRECISION,
+        d -> Double.valueOf(d));
+  }
+
+  /**
+   * Adds all values to a new DataSet without reserving capacity beforehand.
+   *
+   * @category helper
+   * @return The filled DataSet.
+   */
+  private ValueDataSet<Double> fill() {
+    ValueDataSet<Double> newSet = this.newSet();
+    for (double value : this.values) {
+      newSet.add(value);
+    }
+    return newSet;
+  }
+
+  @Benchmark
+  public ValueDataSet<Double> add() {
+    return this.fill();
+  }
+
+  @Benchmark
+  public double getByIndex() {
+    double sum = 0.0;
+    for (int i = 0; i < this.size; i++) {
+      sum += this.set.getByIndex(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int contains() {
+    int found = 0;
+    for (int i = 0; i < PROBES; i++) {
+      if (this.set.contains(this.probeX[i], this.probeY[i]) == true) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+}
@@ -0,0 +1,73 @@
+package hyperDap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import hyperDap.base.helpers.AnalyserConfig;
+import hyperDap.base.helpers.DerivDepthAnalyser;
+import hyperDap.base.helpers.Tangenter;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+
+/**
+ * Measures {@link Tangenter#calcDerivDepth(hyperDap.base.types.dataSet.ValueDataSet, int, boolean)
+ * Tangenter.calcDerivDepth()} over complete traces.
+ * <p>
+ * {@link #calcDerivDepth()} goes through {@link Tangenter} and therefore switches to the parallel
+ * analysis for large traces, while {@link #calcDerivDepthSequential()} always analyses on the
+ * calling thread.
+ *
+ * @author soenk
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DerivDepthBenchmark {
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"5", "10", "20"})
+  public int maxDepth;
+
+  @Param({"polynomial", "mixed", "sine"})
+  public String mix;
+
+  @Param({"0.0", "0.01"})
+  public double noise;
+
+  private DoubleValueDataSet set;
+  private DerivDepthAnalyser sequential;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.set = Traces.generate(this.mix, this.size, this.noise, Traces.SEED);
+    this.sequential = new DerivDepthAnalyser(new AnalyserConfig().withMaxDepth(this.maxDepth)
+        .withParallelThreshold(Integer.MAX_VALUE));
+  }
+
+  @Benchmark
+  public DerivDepthList calcDerivDepth() {
+    return Tangenter.calcDerivDepth(this.set, this.maxDepth, true);
+  }
+
+  @Benchmark
+  public DerivDepthList calcDerivDepthSequential() {
+    return this.sequential.calcDerivDepth(this.set);
+  }
+
+}
@@ -0,0 +1,82 @@
+package hyperDap.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.generator.main.GenSegment;
+
+/**
+ * Measures data generation through
+ * {@link GenSegment#addToDoubleDataSet(hyperDap.base.types.dataSet.ValueDataSet, int, double)
+ * GenSegment.addToDoubleDataSet()} for each function encoding offered by the generator, and
+ * through the primitive {@link GenSegment#generate(double[], int, int, double)} into a reused
+ * array, sequentially and in reproducible parallel chunks on the common pool.
+ * <p>
+ * The {@link GenSegment} is reseeded before every invocation, so each one generates the same
+ * values.
+ *
+ * @author soenk
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenSegmentBenchmark {
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"constant", "linear", "square", "cubic", "exp", "sine"})
+  public String encoding;
+
+  @Param({"0.0", "0.01"})
+  public double noise;
+
+  private GenSegment generator;
+  private double[] values;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.generator = new GenSegment(this.encoding, 0.3, -5.0, 5.0, Traces.STEP);
+    this.values = new double[this.size];
+  }
+
+  @Benchmark
+  public DoubleValueDataSet addToDoubleDataSet() {
+    DoubleValueDataSet set = new DoubleValueDataSet(Traces.BASE, Traces.STEP, Traces.PRECISION);
+    this.generator.seedRandom(Traces.SEED);
+    this.generator.addToDoubleDataSet(set, this.size, this.noise);
+    return set;
+  }
+
+  @Benchmark
+  public double[] generate() {
+    this.generator.seedRandom(Traces.SEED);
+    this.generator.generate(this.values, 0, this.size, this.noise);
+    return this.values;
+  }
+
+  @Benchmark
+  public double[] generateSeeded() {
+    this.generator.generate(this.values, 0, this.size, this.noise,
+        new SplittableRandom(Traces.SEED), ForkJoinPool.commonPool());
+    return this.values;
+  }
+
+}
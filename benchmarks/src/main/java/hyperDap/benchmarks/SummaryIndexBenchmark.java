@@ -0,0 +1,76 @@
+package hyperDap.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.SummaryIndex;
+
+/**
+ * Measures range queries with the {@link SummaryIndex} of a trace, as used when zooming and
+ * panning in a chart.
+ * <p>
+ * The index is built once per trial, so the score divided by {@link #PROBES} is the cost of a
+ * single query of a random range. Traces of {@code 100000000} values need a heap of about 1 GB.
+ *
+ * @author soenk
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SummaryIndexBenchmark {
+
+  /**
+   * The number of range queries per invocation.
+   */
+  private static final int PROBES = 1024;
+
+  @Param({"1000000", "10000000", "100000000"})
+  public int size;
+
+  @Param({"mixed"})
+  public String mix;
+
+  private SummaryIndex index;
+  private int[] from;
+  private int[] to;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    DoubleValueDataSet set = Traces.generate(this.mix, this.size, 0.01, Traces.SEED);
+    this.index = set.getSummaryIndex();
+    this.index.min(0, this.size); // builds the index
+    SplittableRandom rand = new SplittableRandom(Traces.SEED);
+    this.from = new int[PROBES];
+    this.to = new int[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      this.from[i] = rand.nextInt(this.size);
+      this.to[i] = this.from[i] + rand.nextInt(this.size - this.from[i] + 1);
+    }
+  }
+
+  @Benchmark
+  public double rangeMinMax() {
+    double sum = 0.0;
+    for (int i = 0; i < PROBES; i++) {
+      sum += this.index.max(this.from[i], this.to[i]) - this.index.min(this.from[i], this.to[i]);
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,94 @@
+package hyperDap.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.generator.main.GenMain;
+import hyperDap.generator.main.GenSegment;
+
+/**
+ * Generates the traces the benchmarks run on.
+ * <p>
+ * Traces are built the same way as {@link GenMain#newDataSet(List, int, double, double, int, double,
+ * double) GenMain.newDataSet()}, i.e. as a sequence of {@link GenSegment GenSegments} that each
+ * continue from the last value of the previous one, but every source of randomness is seeded, so
+ * that the same parameters always produce the same trace and results of different runs can be
+ * compared.
+ *
+ * @author soenk
+ *
+ */
+final class Traces {
+
+  /**
+   * The seed used for all traces unless stated otherwise.
+   */
+  static final long SEED = 51552212L;
+  /**
+   * The {@code base} of all traces.
+   */
+  static final double BASE = 0.0;
+  /**
+   * The {@code step} of all traces.
+   */
+  static final double STEP = 0.1;
+  /**
+   * The {@code yPrecision} of all traces.
+   */
+  static final double PRECISION = 0.001;
+
+  private Traces() {}
+
+  /**
+   * The function encodings, as understood by {@link GenSegment}, that make up a named mix.
+   *
+   * @param mix One of {@code polynomial}, {@code mixed} or {@code sine}.
+   * @return The encodings in the order they are generated.
+   * @throws IllegalArgumentException If {@code mix} is unknown.
+   */
+  static List<String> encodings(String mix) throws IllegalArgumentException {
+    switch (mix) {
+      case "polynomial":
+        return List.of("constant", "linear", "square", "cubic");
+      case "mixed":
+        return List.of("linear", "square", "exp", "sine");
+      case "sine":
+        return List.of("sine");
+      default:
+        throw new IllegalArgumentException(
+            String.format("%s does not know the function mix '%s'", Traces.class, mix));
+    }
+  }
+
+  /**
+   * Generate a trace of exactly {@code size} values from the functions of {@code mix}, split into
+   * segments of equal length.
+   *
+   * @param mix The name of the function mix, see {@link #encodings(String)}.
+   * @param size The number of values in the trace.
+   * @param noise The noise passed to {@link GenSegment#addToDoubleDataSet(
+   *        hyperDap.base.types.dataSet.ValueDataSet, int, double) addToDoubleDataSet()}.
+   * @param seed The seed for the choice of scales and shifts as well as the noise.
+   * @return The generated trace.
+   */
+  static DoubleValueDataSet generate(String mix, int size, double noise, long seed) {
+    List<String> encodings = encodings(mix);
+    Random rand = new Random(seed);
+    DoubleValueDataSet set = new DoubleValueDataSet(BASE, STEP, PRECISION);
+    set.ensureCapacity(size);
+    set.add(5.0); // the same initial value as GenMain
+    int remaining = size - 1;
+    for (int i = 0; i < encodings.size(); i++) {
+      int number = remaining / (encodings.size() - i);
+      double lastVal = set.getDouble(set.size() - 1);
+      double scale = (Double.valueOf(rand.nextInt(10)) - 4.0) / 10;
+      double shiftX = Double.valueOf(rand.nextInt(30)) - 15.0;
+      GenSegment generator = new GenSegment(encodings.get(i), scale, shiftX, lastVal, STEP);
+      generator.seedRandom(rand.nextLong());
+      generator.addToDoubleDataSet(set, number, noise);
+      remaining -= number;
+    }
+    return set;
+  }
+
+}
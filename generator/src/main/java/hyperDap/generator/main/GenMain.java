@@ -3,7 +3,13 @@ package hyperDap.generator.main;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntUnaryOperator;
 import hyperDap.base.types.dataSet.DataSet;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
 import hyperDap.base.types.dataSet.ValueDataSet;
 
 public class GenMain {
@@ -23,6 +29,106 @@ public class GenMain {
    */
   public static ValueDataSet<Double> newDataSet(List<String> functionEncodings, int numberOfBiases,
       double base, double step, int length, double noise, double precision) {
+    // log and debugging
+    System.out.println(String.format("%s.newDataSet(encodings, %s, %s, %s)", GenMain.class,
+        numberOfBiases, base, step, length));
+    for (String encoding : functionEncodings) {
+      System.out.println(encoding);
+    }
+    System.out.println("generating now");
+    Random rand = new Random();
+    return generate(functionEncodings, numberOfBiases, base, step, length, precision, rand::nextInt,
+        (generator, set, number) -> generator.addToDoubleDataSet(set, number, noise));
+  }
+
+  /**
+   * Create a new {@link DoubleValueDataSet} like
+   * {@link #newDataSet(List, int, double, double, int, double, double)}, but reproducibly from
+   * {@code seed} and generating on {@code pool}.
+   * <p>
+   * All random choices are drawn from a {@link SplittableRandom} created from {@code seed}, from
+   * which each segment {@link SplittableRandom#split() splits} its own source of noise. Large
+   * segments are generated in parallel chunks as described in
+   * {@link GenSegment#addToDoubleDataSet(DoubleValueDataSet, int, double, SplittableRandom, ForkJoinPool)}.
+   * The same arguments therefore always produce identical data, regardless of the size of
+   * {@code pool} or the machine.
+   * 
+   * @param functionEncodings The {@code encoding} specifying what functions should be represented.
+   *        See {@link GenSegment} for details.
+   * @param numberOfBiases The number of times that the value of the functions should abruptly
+   *        change, affecting all subsequent values.
+   * @param base The {@code base} of the {@link DataSet}.
+   * @param step The {@code step} of the {@link DataSet}.
+   * @param length A rough number of the data points that is to be generated.
+   * @param noise The {@code standard deviation} of the noise added to each data point.
+   * @param precision The {@code yPrecision} of the {@link DataSet}.
+   * @param seed The master seed all randomness is derived from.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   * @return The generated {@link DoubleValueDataSet}
+   */
+  public static DoubleValueDataSet newDataSet(List<String> functionEncodings, int numberOfBiases,
+      double base, double step, int length, double noise, double precision, long seed,
+      ForkJoinPool pool) {
+    return newDataSet(functionEncodings, numberOfBiases, base, step, length, noise, precision, seed,
+        pool, () -> false);
+  }
+
+  /**
+   * As {@link #newDataSet(List, int, double, double, int, double, double, long, ForkJoinPool)}, but
+   * checks {@code cancelled} while generating each segment and aborts once it returns
+   * {@code true}, see
+   * {@link GenSegment#addToDoubleDataSet(DoubleValueDataSet, int, double, SplittableRandom, ForkJoinPool, BooleanSupplier)}.
+   * 
+   * @param functionEncodings The {@code encoding} specifying what functions should be represented.
+   *        See {@link GenSegment} for details.
+   * @param numberOfBiases The number of times that the value of the functions should abruptly
+   *        change, affecting all subsequent values.
+   * @param base The {@code base} of the {@link DataSet}.
+   * @param step The {@code step} of the {@link DataSet}.
+   * @param length A rough number of the data points that is to be generated.
+   * @param noise The {@code standard deviation} of the noise added to each data point.
+   * @param precision The {@code yPrecision} of the {@link DataSet}.
+   * @param seed The master seed all randomness is derived from.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   * @param cancelled Returns {@code true} once the generation should be aborted.
+   * @return The generated {@link DoubleValueDataSet}
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  public static DoubleValueDataSet newDataSet(List<String> functionEncodings, int numberOfBiases,
+      double base, double step, int length, double noise, double precision, long seed,
+      ForkJoinPool pool, BooleanSupplier cancelled) throws CancellationException {
+    SplittableRandom rand = new SplittableRandom(seed);
+    return generate(functionEncodings, numberOfBiases, base, step, length, precision, rand::nextInt,
+        (generator, set, number) -> generator.addToDoubleDataSet(set, number, noise, rand.split(),
+            pool, cancelled));
+  }
+
+  /**
+   * Adds a segment generated by {@code generator} to {@code set}.
+   * 
+   * @category helper
+   */
+  @FunctionalInterface
+  private interface SegmentWriter {
+    void write(GenSegment generator, DoubleValueDataSet set, int number);
+  }
+
+  /**
+   * Validates the arguments and generates the segments of both
+   * {@link #newDataSet(List, int, double, double, int, double, double)} and
+   * {@link #newDataSet(List, int, double, double, int, double, double, long, ForkJoinPool)}.
+   * <p>
+   * The random choices of each segment are drawn from {@code nextInt} before {@code writer} adds
+   * the segment, so a seeded source yields the same sequence as before.
+   * 
+   * @param nextInt Returns a random {@code int} between 0 (inclusive) and the argument (exclusive).
+   * @param writer Adds the data points of each {@link GenSegment} to the {@link DataSet}.
+   * @return The generated {@link DoubleValueDataSet}
+   * @category helper
+   */
+  private static DoubleValueDataSet generate(List<String> functionEncodings, int numberOfBiases,
+      double base, double step, int length, double precision, IntUnaryOperator nextInt,
+      SegmentWriter writer) {
     // protect from bad arguments
     if (functionEncodings.isEmpty()) {
       throw new IllegalArgumentException(
@@ -36,18 +142,11 @@ public class GenMain {
       throw new IllegalArgumentException(
           String.format("%s has been passed illegal length argument of %s", GenMain.class, length));
     }
-    // log and debugging
-    System.out.println(String.format("%s.newDataSet(encodings, %s, %s, %s)", GenMain.class,
-        numberOfBiases, base, step, length));
-    for (String encoding : functionEncodings) {
-      System.out.println(encoding);
-    }
-    System.out.println("generating now");
     // prepare data generation
-    Random rand = new Random();
     int number = length / functionEncodings.size(); // the number of data points to be added
-    ValueDataSet<Double> set =
-        new ValueDataSet<Double>(base, step, precision, d -> Double.valueOf(d));
+    int biases = Math.min(numberOfBiases, functionEncodings.size());
+    DoubleValueDataSet set = new DoubleValueDataSet(base, step, precision);
+    set.ensureCapacity(1 + number * (functionEncodings.size() + biases));
     set.add(5.0); // add an initial value
     // for each functionEncoding generate and add a list of data points
     GenSegment generator;
@@ -55,20 +154,20 @@ public class GenMain {
     double shiftX;
     double lastVal;
     for (String encoding : functionEncodings) {
-      lastVal = set.getByIndex(set.size() - 1);
-      scale = (Double.valueOf(rand.nextInt(10)) - 4.0) / 10;
-      shiftX = Double.valueOf(rand.nextInt(30)) - 15.0;
+      lastVal = set.getDouble(set.size() - 1);
+      scale = (nextInt.applyAsInt(10) - 4.0) / 10;
+      shiftX = nextInt.applyAsInt(30) - 15.0;
       generator = new GenSegment(encoding, scale, shiftX, lastVal, step);
-      generator.addToDoubleDataSet(set, number, noise);
+      writer.write(generator, set, number);
       // add a bias if needed
       if (numberOfBiases != 0) {
         numberOfBiases--;
         // the same function but shifted by the already added data points in X and by the intended
         // bias in Y
-        generator =
-            new GenSegment(encoding, scale, shiftX + number, lastVal + rand.nextInt(7) + 2, step);
+        generator = new GenSegment(encoding, scale, shiftX + number,
+            lastVal + nextInt.applyAsInt(7) + 2, step);
         // for demonstration purposes only use visible and positive bias
-        generator.addToDoubleDataSet(set, number, noise); // length is liberally extended here
+        writer.write(generator, set, number); // length is liberally extended here
       }
     }
     // complete
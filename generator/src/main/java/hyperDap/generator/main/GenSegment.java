@@ -1,10 +1,18 @@
 package hyperDap.generator.main;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
 import java.util.function.DoubleFunction;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import hyperDap.base.helpers.Comparator;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
 import hyperDap.base.types.dataSet.ValueDataSet;
 
 /**
@@ -33,17 +41,44 @@ import hyperDap.base.types.dataSet.ValueDataSet;
  * Here {@code a} translates to the {@code scale} specified at construction, {@code b} to
  * {@code shiftX}, while {@code c} is defined at construction such that the function
  * returns @{@code intercept} for {@code x=-step}.
+ * <p>
+ * All data is generated through {@link #generate(double[], int, int, double)}, which writes
+ * primitive values straight into an array and allocates nothing per data point. The other methods
+ * wrap it, {@link #addToDoubleDataSet(ValueDataSet, int, double)} copies blocks of it into a
+ * {@link DoubleValueDataSet} without boxing.
+ * <p>
+ * For reproducible data, {@link #generate(double[], int, int, double, SplittableRandom, ForkJoinPool)}
+ * and {@link #addToDoubleDataSet(DoubleValueDataSet, int, double, SplittableRandom, ForkJoinPool)}
+ * take their noise from a {@link SplittableRandom} instead of the internal {@link Random}. The data
+ * points are split into chunks of {@link #CHUNK_SIZE}, each of which draws from its own
+ * {@link SplittableRandom#split() split} of it and may be generated on another thread. As chunks
+ * do not depend on the number of threads, the data generated from a given seed is always
+ * identical.
  * 
  * @author soenk
  *
  */
 public class GenSegment {
 
+  /**
+   * The number of data points generated at a time when adding to a {@link DoubleValueDataSet}.
+   */
+  private static final int BLOCK_SIZE = 4096;
+  /**
+   * Generated values beyond plus or minus this are marked as invalid when added to a DataSet.
+   */
+  private static final double VALID_RANGE = 10000.0;
+  /**
+   * The number of data points that draw from the same {@link SplittableRandom} when generating
+   * reproducible data. Changing this changes the data generated from any given seed.
+   */
+  public static final int CHUNK_SIZE = 1 << 16;
+
   private double step;
   private double a;
   private double b;
   private double c;
-  private Function<Double, Double> func;
+  private DoubleUnaryOperator func;
   private Random rand = new Random();
 
   /**
@@ -65,8 +100,6 @@ public class GenSegment {
     c = 0;
     this.defineFunction(functionEnccoding);
     c = intercept - f(-step);
-    System.out.println(String.format("%s Generating Segment of %s with a= %s, b= %s c= %s",
-        GenSegment.class, functionEnccoding, this.a, this.b, this.c));
   }
 
   /**
@@ -111,7 +144,7 @@ public class GenSegment {
    * @return The {@code yValue} corresponding to {@code x}.
    */
   private double f(double x) {
-    return a * this.func.apply(x + b) + c;
+    return a * this.func.applyAsDouble(x + b) + c;
   }
 
   /**
@@ -127,6 +160,120 @@ public class GenSegment {
     return f(x) + noise * rand.nextGaussian();
   }
 
+  /**
+   * Generate {@code N} data points with noise drawn from {@code random} and write them into
+   * {@code values} from index {@code from}, on the calling thread.
+   * <p>
+   * Normally distributed noise is created with the polar method, each pair of uniform values in
+   * {@code [-1, 1)} yields noise for two consecutive data points.
+   * 
+   * @category helper
+   * @param values The array the data points are written to.
+   * @param from The index in {@code values} of the first data point.
+   * @param first The index of the first data point within this segment, i.e. {@code x/step}.
+   * @param N The number of data points to be generated.
+   * @param noise The {@code standard deviation} of the noise.
+   * @param random The source of the noise.
+   */
+  void generate(double[] values, int from, int first, int N, double noise,
+      SplittableRandom random) {
+    if (noise == 0.0) {
+      this.generate(values, from, first, N, noise);
+      return;
+    }
+    for (int i = 0; i < N; i += 2) {
+      double u;
+      double v;
+      double s;
+      do {
+        u = 2 * random.nextDouble() - 1;
+        v = 2 * random.nextDouble() - 1;
+        s = u * u + v * v;
+      } while (s >= 1 || s == 0);
+      double m = noise * Math.sqrt(-2 * Math.log(s) / s);
+      values[from + i] = f((first + i) * step) + u * m;
+      if (i + 1 < N) {
+        values[from + i + 1] = f((first + i + 1) * step) + v * m;
+      }
+    }
+  }
+
+  /**
+   * Generate {@code N} data points with noise drawn from {@code random}, starting with the data
+   * point at index {@code first} of this segment, and write them into {@code values} from index
+   * {@code from}.
+   * <p>
+   * The data points are split into chunks of {@link #CHUNK_SIZE}, counted from {@code first}, and
+   * {@code random} is split once for each chunk in order. The chunks are then generated on
+   * {@code pool}.
+   * 
+   * @category helper
+   * @param values The array the data points are written to.
+   * @param from The index in {@code values} of the first data point.
+   * @param first The index of the first data point within this segment, i.e. {@code x/step}.
+   * @param N The number of data points to be generated.
+   * @param noise The {@code standard deviation} of the noise.
+   * @param random The source of the noise, split once per chunk.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   */
+  private void generateChunks(double[] values, int from, int first, int N, double noise,
+      SplittableRandom random, ForkJoinPool pool) {
+    List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+    for (int start = 0; start < N; start += CHUNK_SIZE) {
+      final int chunkStart = start;
+      final int length = Math.min(CHUNK_SIZE, N - start);
+      final SplittableRandom chunkRandom = random.split();
+      tasks.add(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          generate(values, from + chunkStart, first + chunkStart, length, noise, chunkRandom);
+        }
+      });
+    }
+    if (tasks.size() == 1) {
+      tasks.get(0).invoke();
+    } else if (tasks.isEmpty() == false) {
+      pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          ForkJoinTask.invokeAll(tasks);
+        }
+      });
+    }
+  }
+
+  /**
+   * Generate {@code N} reproducible data points with noise drawn from {@code random} and write them
+   * into {@code values}, starting at index {@code from}.
+   * <p>
+   * The data points are split into chunks of {@link #CHUNK_SIZE}, each drawing its noise from its
+   * own {@link SplittableRandom#split() split} of {@code random}, and generated in parallel on
+   * {@code pool}. The values written therefore only depend on the state of {@code random}, not on
+   * the number of threads. {@code random} is split once per chunk, such that it may be used for
+   * further segments afterwards.
+   * 
+   * @param values The array the data points are written to.
+   * @param from The index in {@code values} of the first data point.
+   * @param N The number of data points to be generated.
+   * @param noise The {@code standard deviation} of the noise.
+   * @param random The source of the noise.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   * @throws IndexOutOfBoundsException If {@code values} cannot hold {@code N} values after
+   *         {@code from}.
+   */
+  public void generate(double[] values, int from, int N, double noise, SplittableRandom random,
+      ForkJoinPool pool) throws IndexOutOfBoundsException {
+    if (from < 0 || N < 0 || from > values.length - N) {
+      throw new IndexOutOfBoundsException(String.format("%s cannot generate %s values at %s of %s",
+          GenSegment.class, N, from, values.length));
+    }
+    this.generateChunks(values, from, 0, N, noise, random, pool);
+  }
+
   /**
    * Provides a means to reseed the internal instance of {@link Random}.
    * <p>
@@ -152,19 +299,73 @@ public class GenSegment {
   /**
    * Generate a list of data points of length {@code N}, according to pre-set specifications and
    * with the set amount of noise.
+   * <p>
+   * Wraps {@link #generate(double[], int, int, double)} and boxes its values.
    * 
    * @param N The number of data points to be generated.
    * @param noise The noise factor passed to {@link #noisyF(double, double)}
    * @return An {@link ArrayList} of the generated data points.
    */
   public ArrayList<Double> generateValues(int N, double noise) {
-    ArrayList<Double> list = new ArrayList<Double>();
-    for (Integer i = 0; i < N; i++) {
-      list.add(noisyF(i.doubleValue() * step, noise));
+    if (N <= 0) {
+      return new ArrayList<Double>();
+    }
+    double[] values = new double[N];
+    this.generate(values, 0, N, noise);
+    ArrayList<Double> list = new ArrayList<Double>(N);
+    for (int i = 0; i < N; i++) {
+      list.add(values[i]);
     }
     return list;
   }
 
+  /**
+   * Generate {@code N} data points with noise and write them into {@code values}, starting at index
+   * {@code from}.
+   * <p>
+   * This is the primitive path all other methods generate through, it allocates nothing per data
+   * point. Noisy values are created as in {@link #noisyF(double, double)}, except that no random
+   * number is drawn if {@code noise} is zero.
+   * 
+   * @param values The array the data points are written to.
+   * @param from The index in {@code values} of the first data point.
+   * @param N The number of data points to be generated.
+   * @param noise The noise factor passed to {@link #noisyF(double, double)}.
+   * @throws IndexOutOfBoundsException If {@code values} cannot hold {@code N} values after
+   *         {@code from}.
+   */
+  public void generate(double[] values, int from, int N, double noise)
+      throws IndexOutOfBoundsException {
+    if (from < 0 || N < 0 || from > values.length - N) {
+      throw new IndexOutOfBoundsException(String.format("%s cannot generate %s values at %s of %s",
+          GenSegment.class, N, from, values.length));
+    }
+    this.generate(values, from, 0, N, noise);
+  }
+
+  /**
+   * Generate {@code N} data points starting with the data point at index {@code first} of this
+   * segment, and write them into {@code values} from index {@code from}.
+   * 
+   * @category helper
+   * @param values The array the data points are written to.
+   * @param from The index in {@code values} of the first data point.
+   * @param first The index of the first data point within this segment, i.e. {@code x/step}.
+   * @param N The number of data points to be generated.
+   * @param noise The noise factor passed to {@link #noisyF(double, double)}.
+   */
+  private void generate(double[] values, int from, int first, int N, double noise) {
+    if (noise == 0.0) {
+      for (int i = 0; i < N; i++) {
+        values[from + i] = f((first + i) * step);
+      }
+    } else {
+      for (int i = 0; i < N; i++) {
+        values[from + i] = noisyF((first + i) * step, noise);
+      }
+    }
+  }
+
   /**
    * Generate the specified data points and add them to the end of {@code set}.
    * <p>
@@ -187,7 +388,9 @@ public class GenSegment {
    * <p>
    * Calls {@link ValueDataSet#ensureCapacity(int)} before generating data.
    * <p>
-   * Noisy values are created using {@link #noisyF(double, double)}.
+   * Noisy values are created using {@link #noisyF(double, double)}. The data points are generated
+   * in blocks through {@link #generate(double[], int, int, double)}, which are copied without
+   * boxing if {@code set} is a {@link DoubleValueDataSet}.
    * 
    * @param set The {@link CalueDataSet} that the data points should be added to.
    * @param N The number of data points that should be added.
@@ -204,12 +407,87 @@ public class GenSegment {
               GenSegment.class, this.step, set.getStep()));
     }
     set.ensureCapacity(N + set.size());
-    double val;
-    for (Integer i = 0; i < N; i++) {
-      val = Double.valueOf(noisyF(i.doubleValue() * step, noise));
-      set.add(val);
-      if (Comparator.equalApprox(0.0, val, 10000.0) == false) {
-        set.editValidityByIndex((i + size), false);
+    double[] block = new double[Math.max(0, Math.min(N, BLOCK_SIZE))];
+    for (int done = 0; done < N; done += block.length) {
+      int length = Math.min(block.length, N - done);
+      this.generate(block, 0, done, length, noise);
+      if (set instanceof DoubleValueDataSet) {
+        ((DoubleValueDataSet) set).addAll(block, 0, length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          set.add(block[i]);
+        }
+      }
+      for (int i = 0; i < length; i++) {
+        if (Comparator.equalApprox(0.0, block[i], VALID_RANGE) == false) {
+          set.editValidityByIndex(size + done + i, false);
+        }
+      }
+    }
+  }
+
+  /**
+   * Generate {@code N} reproducible data points with noise drawn from {@code random} and add them to
+   * the end of {@code set}.
+   * <p>
+   * The data points are generated as in
+   * {@link #generate(double[], int, int, double, SplittableRandom, ForkJoinPool)}, a few chunks per
+   * thread of {@code pool} at a time, which are then copied into {@code set} in order. Values
+   * beyond the valid range are marked as invalid, as in
+   * {@link #addToDoubleDataSet(ValueDataSet, int, double)}.
+   * 
+   * @param set The {@link DoubleValueDataSet} that the data points should be added to.
+   * @param N The number of data points that should be added.
+   * @param noise The {@code standard deviation} of the noise.
+   * @param random The source of the noise.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   * @throws IllegalArgumentException If {@link ValueDataSet#getStep()} is not equal to the pre-set
+   *         step.
+   */
+  public void addToDoubleDataSet(DoubleValueDataSet set, int N, double noise,
+      SplittableRandom random, ForkJoinPool pool) throws IllegalArgumentException {
+    this.addToDoubleDataSet(set, N, noise, random, pool, () -> false);
+  }
+
+  /**
+   * As {@link #addToDoubleDataSet(DoubleValueDataSet, int, double, SplittableRandom, ForkJoinPool)},
+   * but checks {@code cancelled} before each few chunks and aborts once it returns {@code true}.
+   * The data points added until then remain in {@code set}.
+   * 
+   * @param set The {@link DoubleValueDataSet} that the data points should be added to.
+   * @param N The number of data points that should be added.
+   * @param noise The {@code standard deviation} of the noise.
+   * @param random The source of the noise.
+   * @param pool The {@link ForkJoinPool} to generate on.
+   * @param cancelled Returns {@code true} once the generation should be aborted.
+   * @throws IllegalArgumentException If {@link ValueDataSet#getStep()} is not equal to the pre-set
+   *         step.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  public void addToDoubleDataSet(DoubleValueDataSet set, int N, double noise,
+      SplittableRandom random, ForkJoinPool pool, BooleanSupplier cancelled)
+      throws IllegalArgumentException, CancellationException {
+    int size = set.size();
+    if (this.step != set.getStep()) {
+      throw new IllegalArgumentException(
+          String.format("%s. addToDoubleDataSet() does not match preset step! %s!=%s",
+              GenSegment.class, this.step, set.getStep()));
+    }
+    set.ensureCapacity(N + set.size());
+    int wave = (int) Math.min(N, 4L * pool.getParallelism() * CHUNK_SIZE);
+    double[] block = new double[wave];
+    for (int done = 0; done < N; done += block.length) {
+      if (cancelled.getAsBoolean() == true) {
+        throw new CancellationException(
+            String.format("%s generation was cancelled", GenSegment.class));
+      }
+      int length = Math.min(block.length, N - done);
+      this.generateChunks(block, 0, done, length, noise, random, pool);
+      set.addAll(block, 0, length);
+      for (int i = 0; i < length; i++) {
+        if (Comparator.equalApprox(0.0, block[i], VALID_RANGE) == false) {
+          set.editValidityByIndex(size + done + i, false);
+        }
       }
     }
   }
@@ -262,12 +540,15 @@ public class GenSegment {
               GenSegment.class, this.step, set.getStep()));
     }
     set.ensureCapacity(N + set.size());
-    double val;
-    for (Integer i = 0; i < N; i++) {
-      val = noisyF(i.doubleValue() * step, noise);
-      set.add(val);
-      if (Comparator.equalApprox(0.0, val, 10000) == false) {
-        set.editValidityByIndex(i + size, false);
+    double[] block = new double[Math.max(0, Math.min(N, BLOCK_SIZE))];
+    for (int done = 0; done < N; done += block.length) {
+      int length = Math.min(block.length, N - done);
+      this.generate(block, 0, done, length, noise);
+      for (int i = 0; i < length; i++) {
+        set.add(block[i]);
+        if (Comparator.equalApprox(0.0, block[i], VALID_RANGE) == false) {
+          set.editValidityByIndex(size + done + i, false);
+        }
       }
     }
   }
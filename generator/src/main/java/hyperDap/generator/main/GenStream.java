@@ -0,0 +1,313 @@
+package hyperDap.generator.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Generates an endless, or very long, sequence of data points lazily, for feeding streaming
+ * analysis without materialising a {@link hyperDap.base.types.dataSet.ValueDataSet ValueDataSet}.
+ * <p>
+ * The data points follow the same scheme as
+ * {@link GenMain#newDataSet(List, int, double, double, int, double, double, long, java.util.concurrent.ForkJoinPool)
+ * GenMain.newDataSet()}: an initial value of {@code 5.0}, followed by segments of
+ * {@code segmentLength} data points, each generated by a {@link GenSegment} of the next function
+ * encoding with random scale and shift. While biases remain, each segment is followed by a bias
+ * segment of the same function. Once all encodings have been used they are repeated. All
+ * randomness is drawn from a {@link SplittableRandom} created from the {@code seed}, in the same
+ * order as by {@code GenMain}, so that the first values of a stream are identical to the
+ * DataSet created from the same arguments.
+ * <p>
+ * Values are generated one chunk of {@link GenSegment#CHUNK_SIZE} at a time into a reused buffer,
+ * so the memory footprint is constant regardless of how many are consumed. Generated values are
+ * not checked against any valid range.
+ * <p>
+ * Values may be pulled with {@link #nextDouble()}, after which {@link #getSegment()} and
+ * {@link #isSegmentStart()} describe the segment of the value returned, or consumed through
+ * {@link #stream()}.
+ *
+ * @author soenk
+ *
+ */
+public class GenStream implements PrimitiveIterator.OfDouble {
+
+  /**
+   * Describes one segment of the generated data points.
+   *
+   * @author soenk
+   *
+   */
+  public static final class Segment {
+
+    private final int number;
+    private final String encoding;
+    private final long start;
+    private final int length;
+    private final boolean bias;
+
+    private Segment(int number, String encoding, long start, int length, boolean bias) {
+      this.number = number;
+      this.encoding = encoding;
+      this.start = start;
+      this.length = length;
+      this.bias = bias;
+    }
+
+    /**
+     * @return The number of this segment, where {@code 0} is the initial value.
+     */
+    public int getNumber() {
+      return this.number;
+    }
+
+    /**
+     * @return The function encoding of this segment, see {@link GenSegment}.
+     */
+    public String getEncoding() {
+      return this.encoding;
+    }
+
+    /**
+     * @return The index of the first data point of this segment.
+     */
+    public long getStart() {
+      return this.start;
+    }
+
+    /**
+     * @return The number of data points in this segment, unless the stream ends before.
+     */
+    public int getLength() {
+      return this.length;
+    }
+
+    /**
+     * @return {@code true} if this segment is a bias segment, i.e. continues the function of the
+     *         previous segment shifted by a positive bias.
+     */
+    public boolean isBias() {
+      return this.bias;
+    }
+
+  }
+
+  private final List<String> encodings;
+  private final int segmentLength;
+  private final double step;
+  private final double noise;
+  private final long length;
+  private final SplittableRandom rand;
+  private final double[] block = new double[GenSegment.CHUNK_SIZE];
+  private int blockSize = 0;
+  private int blockPosition = 0;
+  private long index = 0;
+  private int biases;
+  private boolean biasPending = false;
+  private int nextEncoding = 0;
+  private double scale;
+  private double shiftX;
+  private double lastVal;
+  private double previous;
+  private GenSegment generator;
+  private SplittableRandom segmentRandom;
+  private int generated;
+  private Segment current;
+  private Segment last;
+
+  /**
+   * Constructor for an endless stream.
+   *
+   * @param functionEncodings The {@code encodings} of the functions, used in order and repeated.
+   * @param numberOfBiases The number of segments that are followed by a bias segment.
+   * @param segmentLength The number of data points per segment.
+   * @param step The {@code step} between data points.
+   * @param noise The {@code standard deviation} of the noise added to each data point.
+   * @param seed The master seed all randomness is derived from.
+   * @throws IllegalArgumentException If {@code functionEncodings} is empty or holds an invalid
+   *         encoding, or {@code segmentLength} or {@code step} are illegal.
+   */
+  public GenStream(List<String> functionEncodings, int numberOfBiases, int segmentLength,
+      double step, double noise, long seed) throws IllegalArgumentException {
+    this(functionEncodings, numberOfBiases, segmentLength, step, noise, seed, Long.MAX_VALUE);
+  }
+
+  /**
+   * Constructor for a stream of {@code length} data points.
+   *
+   * @param functionEncodings The {@code encodings} of the functions, used in order and repeated.
+   * @param numberOfBiases The number of segments that are followed by a bias segment.
+   * @param segmentLength The number of data points per segment.
+   * @param step The {@code step} between data points.
+   * @param noise The {@code standard deviation} of the noise added to each data point.
+   * @param seed The master seed all randomness is derived from.
+   * @param length The total number of data points, {@link Long#MAX_VALUE} for an endless stream.
+   * @throws IllegalArgumentException If {@code functionEncodings} is empty or holds an invalid
+   *         encoding, or {@code segmentLength}, {@code step} or {@code length} are illegal.
+   */
+  public GenStream(List<String> functionEncodings, int numberOfBiases, int segmentLength,
+      double step, double noise, long seed, long length) throws IllegalArgumentException {
+    if (functionEncodings.isEmpty()) {
+      throw new IllegalArgumentException(
+          String.format("%s was passed an empty list of functionEncodings", GenStream.class));
+    }
+    if (step == 0.0) {
+      throw new IllegalArgumentException(
+          String.format("%s has been passed illegal step size of 0.0!", GenStream.class));
+    }
+    if (segmentLength <= 0 || length < 0) {
+      throw new IllegalArgumentException(
+          String.format("%s has been passed illegal segmentLength %s or length %s",
+              GenStream.class, segmentLength, length));
+    }
+    for (String encoding : functionEncodings) {
+      new GenSegment(encoding, 0.0, 0.0, 0.0, step); // validate the encoding
+    }
+    this.encodings = new ArrayList<String>(functionEncodings);
+    this.biases = numberOfBiases;
+    this.segmentLength = segmentLength;
+    this.step = step;
+    this.noise = noise;
+    this.length = length;
+    this.rand = new SplittableRandom(seed);
+    // the initial value
+    this.block[0] = 5.0;
+    this.blockSize = 1;
+    this.current = new Segment(0, "constant", 0, 1, false);
+    this.generated = 1;
+  }
+
+  // helpers
+  // ****************************************************************************************
+
+  /**
+   * Prepares the next segment, drawing its parameters in the same order as {@link GenMain}.
+   *
+   * @category helper
+   */
+  private void startSegment() {
+    String encoding;
+    boolean bias = this.biasPending;
+    if (bias == true) {
+      this.biasPending = false;
+      this.biases--;
+      encoding = this.current.getEncoding();
+      this.generator = new GenSegment(encoding, this.scale, this.shiftX + this.segmentLength,
+          this.lastVal + this.rand.nextInt(7) + 2, this.step);
+    } else {
+      encoding = this.encodings.get(this.nextEncoding);
+      this.nextEncoding = (this.nextEncoding + 1) % this.encodings.size();
+      this.lastVal = this.previous;
+      this.scale = (this.rand.nextInt(10) - 4.0) / 10;
+      this.shiftX = this.rand.nextInt(30) - 15.0;
+      this.generator = new GenSegment(encoding, this.scale, this.shiftX, this.lastVal, this.step);
+      this.biasPending = this.biases != 0;
+    }
+    this.segmentRandom = this.rand.split();
+    this.current = new Segment(this.current.getNumber() + 1, encoding, this.index,
+        this.segmentLength, bias);
+    this.generated = 0;
+  }
+
+  /**
+   * Generates the next chunk of data points into the buffer, starting a new segment if the current
+   * one is complete.
+   *
+   * @category helper
+   */
+  private void fill() {
+    if (this.generated == this.current.getLength()) {
+      this.startSegment();
+    }
+    int n = Math.min(this.block.length, this.segmentLength - this.generated);
+    this.generator.generate(this.block, 0, this.generated, n, this.noise,
+        this.segmentRandom.split());
+    this.generated += n;
+    this.blockSize = n;
+    this.blockPosition = 0;
+  }
+
+  // iterate
+  // ****************************************************************************************
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNext() {
+    return this.index < this.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double nextDouble() throws NoSuchElementException {
+    if (this.index >= this.length) {
+      throw new NoSuchElementException();
+    }
+    if (this.blockPosition == this.blockSize) {
+      this.fill();
+    }
+    this.last = this.current;
+    this.index++;
+    this.previous = this.block[this.blockPosition++];
+    return this.previous;
+  }
+
+  /**
+   * The number of data points returned so far, i.e. the index of the next one.
+   *
+   * @return The index of the data point returned by the next call to {@link #nextDouble()}.
+   */
+  public long getIndex() {
+    return this.index;
+  }
+
+  /**
+   * The segment of the data point returned last by {@link #nextDouble()}.
+   *
+   * @return The {@link Segment}, or {@code null} if no data point has been returned yet.
+   */
+  public Segment getSegment() {
+    return this.last;
+  }
+
+  /**
+   * Whether the data point returned last by {@link #nextDouble()} is the first one of its segment.
+   *
+   * @return {@code true} if a new segment started with the last data point.
+   */
+  public boolean isSegmentStart() {
+    return this.last != null && this.last.getStart() == this.index - 1;
+  }
+
+  /**
+   * Exposes the remaining data points as an ordered {@link Spliterator.OfDouble}, which is
+   * {@link Spliterator#SIZED SIZED} unless the stream is endless.
+   *
+   * @return A {@link Spliterator.OfDouble} drawing from this Object.
+   */
+  public Spliterator.OfDouble spliterator() {
+    int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+    if (this.length == Long.MAX_VALUE) {
+      return Spliterators.spliteratorUnknownSize(this, characteristics);
+    }
+    return Spliterators.spliterator(this, this.length - this.index, characteristics);
+  }
+
+  /**
+   * Exposes the remaining data points as a lazily evaluated, sequential {@link DoubleStream}.
+   *
+   * @return A {@link DoubleStream} drawing from this Object.
+   */
+  public DoubleStream stream() {
+    return StreamSupport.doubleStream(this.spliterator(), false);
+  }
+
+}
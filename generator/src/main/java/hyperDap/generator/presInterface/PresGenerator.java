@@ -2,7 +2,10 @@ package hyperDap.generator.presInterface;
 
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
 import hyperDap.base.types.dataSet.ValueDataSet;
 import hyperDap.generator.main.GenMain;
 
@@ -17,8 +20,37 @@ public class PresGenerator {
 
   private static double precision = 0.001;
 
+  /**
+   * Generate a new DataSet from the settings in {@code map}.
+   * <p>
+   * If {@code map} holds a {@code seed}, all random choices are derived from it, such that the same
+   * settings always produce the same data, see
+   * {@link GenMain#newDataSet(java.util.List, int, double, double, int, double, double, long, ForkJoinPool)}.
+   * Otherwise a random seed is used.
+   * 
+   * @param map The settings, from their name to their value. All entries that are not settings are
+   *        taken as function encodings.
+   * @return The generated DataSet.
+   */
   public static ValueDataSet<Double> generate(Map<String, Double> map) {
-    Random rand = new Random();
+    return generate(map, () -> false);
+  }
+
+  /**
+   * As {@link #generate(Map)}, but aborts once {@code cancelled} returns {@code true}, e.g. when
+   * the generation was started in a background task that has since been cancelled.
+   * 
+   * @param map The settings, from their name to their value. All entries that are not settings are
+   *        taken as function encodings.
+   * @param cancelled Returns {@code true} once the generation should be aborted.
+   * @return The generated DataSet.
+   * @throws CancellationException If {@code cancelled} returned {@code true}.
+   */
+  public static ValueDataSet<Double> generate(Map<String, Double> map, BooleanSupplier cancelled)
+      throws CancellationException {
+    Double seed = map.remove("seed");
+    SplittableRandom rand =
+        seed == null ? new SplittableRandom() : new SplittableRandom(seed.longValue());
     double base = map.remove("base");
     double step = map.remove("step");
     Double precision = map.remove("precision");
@@ -57,7 +89,7 @@ public class PresGenerator {
     }
     // complete
     return GenMain.newDataSet(encodings, biasNumber, base, step, length, noise,
-        precision.doubleValue());
+        precision.doubleValue(), rand.nextLong(), ForkJoinPool.commonPool(), cancelled);
   }
 
   public void setPrecision(double precision) {
@@ -1,6 +1,14 @@
 package hyperDap.generator.testMain;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.generator.main.GenMain;
 
 public class TestGenMain {
 
@@ -9,4 +17,24 @@ public class TestGenMain {
 
   }
 
+  @Test
+  void reproducibleDataSet() {
+    List<String> encodings = Arrays.asList("linear", "sine", "cubic");
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      DoubleValueDataSet first =
+          GenMain.newDataSet(encodings, 1, 0.0, 0.1, 300000, 0.01, 0.001, 99L, pool);
+      DoubleValueDataSet second = GenMain.newDataSet(encodings, 1, 0.0, 0.1, 300000, 0.01, 0.001,
+          99L, ForkJoinPool.commonPool());
+      assertEquals(400001, first.size());
+      assertArrayEquals(first.toDoubleArray(), second.toDoubleArray(), 0.0);
+      assertEquals(first.countValid(), second.countValid());
+      DoubleValueDataSet other =
+          GenMain.newDataSet(encodings, 1, 0.0, 0.1, 300000, 0.01, 0.001, 100L, pool);
+      assertFalse(Arrays.equals(first.toDoubleArray(), other.toDoubleArray()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
 }
@@ -1,9 +1,19 @@
 package hyperDap.generator.testMain;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.base.types.dataSet.ValueDataSet;
 import hyperDap.generator.main.GenSegment;
 
 public class TestGenSegment {
@@ -34,6 +44,119 @@ public class TestGenSegment {
     }
   }
 
+  @Test
+  void primitiveGeneration() {
+    GenSegment segment = new GenSegment("sine", 2.0, 0.5, 1.0, 0.1);
+    segment.seedRandom(3);
+    ArrayList<Double> list = segment.generateValues(10000, 0.1);
+    double[] values = new double[10002];
+    segment.seedRandom(3);
+    segment.generate(values, 2, 10000, 0.1);
+    DoubleValueDataSet primitive = new DoubleValueDataSet(0.0, 0.1, 0.001);
+    segment.seedRandom(3);
+    segment.addToDoubleDataSet(primitive, 10000, 0.1);
+    ValueDataSet<Double> boxed = new ValueDataSet<Double>(0.0, 0.1, 0.001, d -> Double.valueOf(d));
+    segment.seedRandom(3);
+    segment.addToDoubleDataSet(boxed, 10000, 0.1);
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(list.get(i), values[i + 2], 0.0);
+      assertEquals(list.get(i), primitive.getDouble(i), 0.0);
+      assertEquals(list.get(i), boxed.getByIndex(i));
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      segment.generate(values, 3, 10000, 0.0);
+    });
+  }
+
+  @Test
+  void reproducibleGeneration() {
+    int length = 3 * GenSegment.CHUNK_SIZE + 17;
+    GenSegment segment = new GenSegment("square", 0.2, -3.0, 1.0, 0.001);
+    double[] sequential = new double[length];
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    try {
+      segment.generate(sequential, 0, length, 0.5, new SplittableRandom(42), single);
+      double[] parallel = new double[length];
+      segment.generate(parallel, 0, length, 0.5, new SplittableRandom(42), four);
+      DoubleValueDataSet set = new DoubleValueDataSet(0.0, 0.001, 0.001);
+      segment.addToDoubleDataSet(set, length, 0.5, new SplittableRandom(42), four);
+      assertEquals(length, set.size());
+      for (int i = 0; i < length; i++) {
+        assertEquals(sequential[i], parallel[i], 0.0);
+        assertEquals(sequential[i], set.getDouble(i), 0.0);
+      }
+      segment.generate(parallel, 0, length, 0.5, new SplittableRandom(43), four);
+      assertFalse(sequential[5] == parallel[5]);
+    } finally {
+      single.shutdown();
+      four.shutdown();
+    }
+    // the noise is normally distributed with the given standard deviation
+    GenSegment constant = new GenSegment("constant", 1.0, 0.0, 0.0, 1.0);
+    constant.generate(sequential, 0, length, 2.0, new SplittableRandom(7),
+        ForkJoinPool.commonPool());
+    double sum = 0;
+    double squares = 0;
+    for (double value : sequential) {
+      sum += value;
+      squares += value * value;
+    }
+    assertEquals(0.0, sum / length, 0.05);
+    assertEquals(4.0, squares / length, 0.05);
+  }
+
+  @Test
+  void invalidRange() {
+    GenSegment segment = new GenSegment("exp", 1.0, 0.0, 0.0, 1.0);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, 0.001);
+    segment.addToDoubleDataSet(set, 30);
+    assertTrue(set.getValidByIndex(10));
+    assertFalse(set.getValidByIndex(29)); // e^29 / 1000 is far beyond the valid range
+  }
+
+  @Test
+  void negativeCount() {
+    GenSegment segment = new GenSegment("linear", 1.0, 0.0, 0.0, 1.0);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 1.0, 0.001);
+    segment.addToDoubleDataSet(set, -5);
+    segment.addToDataSet(set, -5);
+    assertEquals(0, set.size());
+    assertEquals(0, segment.generateValues(-5).size());
+  }
+
+  @Test
+  void generateAllocation() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    int number = 1_000_000;
+    GenSegment segment = new GenSegment("linear", 1.0, 0.0, 0.0, 0.01);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 0.01, 0.001);
+    long id = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(id);
+    segment.addToDoubleDataSet(set, number, 0.0);
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+    // the doubles and the derivDepth codes, but no array for the unused boxed values
+    assertEquals(number, set.size());
+    assertTrue(allocated < number * 10L + number / 2);
+  }
+
+  @Test
+  void cancelled() {
+    ForkJoinPool pool = new ForkJoinPool(1);
+    int wave = 4 * GenSegment.CHUNK_SIZE; // the data points generated per check
+    GenSegment segment = new GenSegment("linear", 1.0, 0.0, 0.0, 0.01);
+    DoubleValueDataSet set = new DoubleValueDataSet(0.0, 0.01, 0.001);
+    AtomicInteger checks = new AtomicInteger();
+    assertThrows(CancellationException.class, () -> {
+      segment.addToDoubleDataSet(set, 3 * wave, 0.0, new SplittableRandom(5), pool,
+          () -> checks.incrementAndGet() > 1);
+    });
+    assertEquals(2, checks.get());
+    assertEquals(wave, set.size());
+  }
+
   // @Test
   // floating point error
   void simpleLinear() {
@@ -0,0 +1,57 @@
+package hyperDap.generator.testMain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import hyperDap.base.types.dataSet.DoubleValueDataSet;
+import hyperDap.generator.main.GenMain;
+import hyperDap.generator.main.GenStream;
+
+public class TestGenStream {
+
+  @Test
+  void sameAsDataSet() {
+    List<String> encodings = Arrays.asList("square", "sine", "linear");
+    DoubleValueDataSet set = GenMain.newDataSet(encodings, 2, 0.0, 0.1, 450000, 0.01, 0.001, 5L,
+        ForkJoinPool.commonPool());
+    double[] streamed =
+        new GenStream(encodings, 2, 150000, 0.1, 0.01, 5L).stream().limit(set.size()).toArray();
+    assertArrayEquals(set.toDoubleArray(), streamed, 0.0);
+  }
+
+  @Test
+  void segments() {
+    List<String> encodings = Arrays.asList("linear", "cubic");
+    GenStream stream = new GenStream(encodings, 1, 1000, 0.1, 0.0, 1L, 5000);
+    assertEquals(5.0, stream.nextDouble(), 0.0);
+    assertTrue(stream.isSegmentStart());
+    assertEquals(0, stream.getSegment().getNumber());
+    int starts = 0;
+    while (stream.hasNext()) {
+      stream.nextDouble();
+      if (stream.isSegmentStart()) {
+        starts++;
+        assertEquals(stream.getIndex() - 1, stream.getSegment().getStart());
+      }
+    }
+    assertEquals(5000, stream.getIndex());
+    assertEquals(5, starts); // linear, its bias, cubic, linear, cubic
+    assertEquals("cubic", stream.getSegment().getEncoding());
+    assertFalse(stream.getSegment().isBias());
+    assertThrows(NoSuchElementException.class, () -> {
+      stream.nextDouble();
+    });
+    assertEquals(3, new GenStream(encodings, 0, 10, 0.1, 0.0, 1L, 3).stream().count());
+    assertThrows(IllegalArgumentException.class, () -> {
+      new GenStream(Arrays.asList("nonsense"), 0, 10, 0.1, 0.0, 1L);
+    });
+  }
+
+}
@@ -1,12 +1,15 @@
 package hyperDap.guiPres.application;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import hyperDap.base.helpers.Tangenter;
 import hyperDap.base.types.dataSet.ValueDataSet;
 import hyperDap.generator.presInterface.PresGenerator;
 import hyperDap.guiPres.fxEncapsulation.GUIMainForFX;
 import hyperDap.guiPres.views.honoursMainView.HonoursMainController;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXMLLoader;
@@ -91,8 +94,19 @@ public final class GUIMain extends Application implements GUIMainForFX {
   // real class begins here
   // ************************************************************************************************************************
 
+  /**
+   * Executes the generation {@link Task Tasks}, on daemon threads such that they never prevent the
+   * application from terminating.
+   */
+  private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, GUIMain.class.getSimpleName());
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private HonoursMainController mainController;
   private Stage primaryStage;
+  private Task<ValueDataSet<? extends Number>> generation;
 
   @Override
   public void init() {
@@ -147,16 +161,43 @@ public final class GUIMain extends Application implements GUIMainForFX {
   // fxEncapsulation
   // *************************************************************************************************************************
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The DataSet is generated and its {@code derivDepths} calculated in a {@link Task} on a
+   * background thread, whose progress is shown by the main view, so the GUI stays responsive.
+   * Once it succeeds the DataSet is displayed. A generation still in progress is cancelled first,
+   * both the generation and the analysis check for this and abort with a
+   * {@link java.util.concurrent.CancellationException} rather than completing.
+   */
   @Override
   public void execute(Map<String, Double> map) {
     System.out.println("Generating Data");
     for (String didi : map.keySet()) {
       System.out.println(String.format("%s: %s", didi, map.get(didi)));
     }
-    System.out.println("Generation in progress...");
-    ValueDataSet<? extends Number> set = PresGenerator.generate(map);
-    System.out.println("Generation complete.");
-    this.mainController.displayDataSet(set);
+    if (this.generation != null) {
+      this.generation.cancel(true);
+    }
+    Task<ValueDataSet<? extends Number>> task = new Task<ValueDataSet<? extends Number>>() {
+      @Override
+      protected ValueDataSet<? extends Number> call() {
+        this.updateProgress(0, 2);
+        ValueDataSet<? extends Number> set = PresGenerator.generate(map, this::isCancelled);
+        this.updateProgress(1, 2);
+        set.calcDerivDepths(this::isCancelled);
+        this.updateProgress(2, 2);
+        return set;
+      }
+    };
+    task.setOnSucceeded(event -> {
+      System.out.println("Generation complete.");
+      this.mainController.displayDataSet(task.getValue());
+    });
+    task.setOnFailed(event -> task.getException().printStackTrace());
+    this.generation = task;
+    this.mainController.showProgress(task);
+    executor.execute(task);
   }
 
   /**
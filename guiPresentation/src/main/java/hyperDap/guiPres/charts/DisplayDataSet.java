@@ -1,11 +1,19 @@
 package hyperDap.guiPres.charts;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import hyperDap.base.helpers.Decimator;
 import hyperDap.base.types.dataSet.ValueDataSet;
-import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.scene.Node;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.VBox;
 
 /**
@@ -14,6 +22,14 @@ import javafx.scene.layout.VBox;
  * <p>
  * It retains a reference to the {@link ValueDataSet} that it displays, allowing the set to be
  * altered externally, as long as {@link #show()} is not executed at the same time.
+ * <p>
+ * Large DataSets are decimated with {@link Decimator} to about two data points per pixel of the
+ * chart width before being displayed, so the time taken to display them is bounded by the size of
+ * the screen rather than that of the DataSet. Points of interest ({@code -1}) are always shown.
+ * <p>
+ * The decimation runs as a {@link Task} on a background thread, so the JavaFX application thread
+ * is never blocked, and its progress is shown in a {@link ProgressBar} above the charts. Displaying
+ * another DataSet cancels a display in progress immediately.
  * 
  * @author soenk
  *
@@ -23,8 +39,22 @@ public class DisplayDataSet extends VBox {
   private static String assertionErrorMessage = String
       .format("%s are not editable and no children may be added to it.", DisplayDataSet.class);
 
-  private int counter = 0;
-  private boolean displayRunning = false;
+  /**
+   * The number of buckets used for decimation before the chart has been laid out.
+   */
+  private static final int DEFAULT_BUCKETS = 1000;
+  /**
+   * Executes the {@link Task Tasks} preparing the display, on daemon threads such that they never
+   * prevent the application from terminating.
+   */
+  private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, DisplayDataSet.class.getSimpleName());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private Task<Runnable> display;
+  private ProgressBar progress;
 
   private ValueDataSet<? extends Number> set;
 
@@ -79,6 +109,11 @@ public class DisplayDataSet extends VBox {
    * @category constructor
    */
   private void setUp() {
+    this.progress = new ProgressBar(0.0);
+    this.progress.setMaxWidth(Double.MAX_VALUE);
+    this.progress.setVisible(false);
+    this.addToChildren(this.progress);
+
     this.xSetAxis = new NumberAxis();
     this.ySetAxis = new NumberAxis();
     this.setChart = new LineChart<>(xSetAxis, ySetAxis);
@@ -163,6 +198,7 @@ public class DisplayDataSet extends VBox {
    * {@link ValueDataSet}.
    * <p>
    * If the {@link ValueDataSet} is undefined a warning is printed and no data is displayed.
+   * Otherwise this is the same as {@link #showData()}.
    */
   @Deprecated
   public void show() {
@@ -178,18 +214,7 @@ public class DisplayDataSet extends VBox {
       }
       return;
     }
-
-    this.set.calcDerivDepths();
-    this.setSeries.getData().clear();
-    double xVal;
-    int depth;
-    for (int i = 0; i < this.set.size(); i++) {
-      xVal = this.set.getIndependentValue(i);
-      this.setSeries.getData().add(new XYChart.Data<Number, Number>(xVal,
-          this.set.getByIndex(i)/* ,this.set.getDerivDepthsByIndex(i) */));
-      depth = this.set.getDerivDepthsByIndex(i);
-      this.switchSeries(depth).getData().add(new XYChart.Data<Number, Number>(xVal, depth));
-    }
+    this.showData();
   }
 
   private XYChart.Series<Number, Number> switchSeries(int derivDepth) {
@@ -222,129 +247,97 @@ public class DisplayDataSet extends VBox {
     return ser;
   }
 
-  private void clearSeries() {
-    Platform.runLater(new Runnable() {
-      @Override
-      public void run() {
-        setSeries.getData().clear();
-        constSeries.getData().clear();
-        linearSeries.getData().clear();
-        SquareSeries.getData().clear();
-        cubicSeries.getData().clear();
-        expSeries.getData().clear();
-        sinSeries.getData().clear();
-        changeSeries.getData().clear();
-        undefinedSeries.getData().clear();
-      }
-    });
+  /**
+   * The number of buckets the DataSet is decimated into, i.e. the width of the chart in pixels.
+   * 
+   * @category helper
+   * @return The number of buckets to be passed to {@link Decimator}.
+   */
+  private int buckets() {
+    int width = (int) Math.ceil(this.setChart.getWidth());
+    return width > 0 ? width : DEFAULT_BUCKETS;
   }
 
   /**
-   * Initiates the recursive addition of data points from the internal {@link ValueDataSet} to the
-   * two displayed graphs. The {@link #runLaterCall()} and {@link #displayPoints()} methods are
-   * called recursively to count through the entire {@link ValueDataSet}.
-   * <p>
-   * This is done successively to prevent a slow-down of the gui while
-   * {@link Platform#runLater(Runnable)} is executed, which is necessary to prevent race conditions
-   * in relation to JavaFX elements.
+   * Shows the progress of {@code task} in the progress bar above the charts, while it is running.
+   * 
+   * @param task The {@link Task} whose progress is to be shown.
    */
-  public void showData() {
-    // in case showData is already in progress
-    if (this.displayRunning) {
-      // notify the progress to terminate
-      this.displayRunning = false;
-      // print warning
-      System.err.println(String.format("%s aborting the running display!", DisplayDataSet.class));
-      boolean first = true;
-      for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
-        if (first == true) {
-          first = false;
-          continue;
-        }
-        System.err.println(element.toString());
-      }
-      // wait for progress to terminate
-      while (this.displayRunning == false) {
-        // TODO timeout -> throw runtime-exception
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
-      }
-    } else {
-      System.out.println("Initiation runLater recursion to display DataSet");
-    }
-    // Platform.runLater for every 10 data points
-    this.clearSeries();
-    this.counter = 0;
-    this.displayRunning = true;
-    this.runLaterCall();
+  public void showProgress(Task<?> task) {
+    this.progress.progressProperty().bind(task.progressProperty());
+    this.progress.visibleProperty().bind(task.runningProperty());
   }
 
   /**
-   * Calls {@link Platform#runLater(Runnable)} to update data points in charts by calling
-   * {@link #displayPoints()} without causing race conditions.
+   * Cancels the display in progress, if any. The charts keep showing the previous data.
    */
-  private void runLaterCall() {
-    Platform.runLater(new Runnable() {
-      @Override
-      public void run() {
-        System.out.println(String.format("Executing runLater for DataSet display, counter: %s/%s",
-            counter, set.size()));
-        displayPoints();
-      }
-    });
+  public void cancel() {
+    if (this.display != null) {
+      this.display.cancel(true);
+      this.display = null;
+    }
   }
 
   /**
-   * This method should only be called by {@link Platform#runLater(Runnable)} to prevent race
-   * conditions within JavaFX elements.
+   * Decimates the internal {@link ValueDataSet} in the background and then replaces the content of
+   * all series with the result.
+   * <p>
+   * The decimation is done with {@link Decimator#minMax(ValueDataSet, int)} for the DataSet and
+   * {@link Decimator#derivDepths(ValueDataSet, int)} for the {@code derivDepths}, with one bucket
+   * per pixel of the chart width, in a {@link Task} whose progress is shown above the charts. Once
+   * it succeeds each series is updated once on the JavaFX application thread. A display still in
+   * progress is cancelled first, its result is discarded.
    * <p>
-   * It adds the next 10 data points and their derivDepths to the respective graphs, before calling
-   * {@link #runLaterCall()} to recursively continue he process, if necessary. A class internal
-   * counter is used to count through the entire set in the recursive method invocations.
+   * This method must be called on the JavaFX application thread.
    */
-  public void displayPoints() {
-    // terminate if showData() was called again
-    if (this.displayRunning == false) {
-      this.displayRunning = true;
+  public void showData() {
+    if (this.set == null) {
+      System.err.println(String.format("%s.set is undefined!", DisplayDataSet.class));
       return;
     }
-    // only add the next 10 values, or until the end of the set
-    int max = this.counter + 10;
-    if (max > this.set.size()) {
-      max = this.set.size();
-    }
-    // add values
-    double xVal;
-    int depth;
-    while (this.counter < max) {
-      // add data point to setSeries
-      xVal = this.set.getIndependentValue(counter);
-      if (this.set.getValidByIndex(counter) == true) {
-        this.setSeries.getData()
-            .add(new XYChart.Data<Number, Number>(xVal, this.set.getByIndex(counter)));
-      }
-      // add derivDepth to the correct series
-      depth = this.set.getDerivDepthsByIndex(counter);
-      try {
-        this.switchSeries(depth).getData().add(new XYChart.Data<Number, Number>(xVal, depth + 1));
-      } catch (NullPointerException e) {
-        System.err.println(String.format("Undefined derivDepth for %s at index %s!",
-            DisplayDataSet.class, counter));
-        this.undefinedSeries.getData().add(new XYChart.Data<Number, Number>(xVal, -5.0));
+    this.cancel();
+    ValueDataSet<? extends Number> set = this.set;
+    int buckets = this.buckets();
+    List<XYChart.Series<Number, Number>> derivSeries = new ArrayList<>(this.derivChart.getData());
+    Task<Runnable> task = new Task<Runnable>() {
+      @Override
+      protected Runnable call() {
+        this.updateProgress(0, 2);
+        // decimate the DataSet
+        List<XYChart.Data<Number, Number>> values = new ArrayList<>();
+        for (int i : Decimator.minMax(set, buckets)) {
+          values.add(
+              new XYChart.Data<Number, Number>(set.getIndependentValue(i), set.getByIndex(i)));
+        }
+        if (this.isCancelled() == true) {
+          return null;
+        }
+        this.updateProgress(1, 2);
+        // decimate the derivDepths, sorted into their series
+        Map<XYChart.Series<Number, Number>, List<XYChart.Data<Number, Number>>> depths =
+            new IdentityHashMap<>();
+        for (XYChart.Series<Number, Number> series : derivSeries) {
+          depths.put(series, new ArrayList<>());
+        }
+        int depth;
+        for (int i : Decimator.derivDepths(set, buckets)) {
+          depth = set.getDerivDepthsByIndex(i);
+          depths.get(switchSeries(depth))
+              .add(new XYChart.Data<Number, Number>(set.getIndependentValue(i), depth + 1));
+        }
+        this.updateProgress(2, 2);
+        // display on the application thread
+        return () -> {
+          setSeries.getData().setAll(values);
+          depths.forEach((series, data) -> series.getData().setAll(data));
+        };
       }
-      // TODO do not show last 10 derivDepths on chart. could remove them
-      // counter
-      this.counter++;
-    }
-    // add another runLater if needed
-    if (this.counter < this.set.size() && this.displayRunning == true) {
-      this.runLaterCall();
-    } else {
-      this.displayRunning = false;
-    }
+    };
+    task.setOnSucceeded(event -> task.getValue().run());
+    task.setOnFailed(event -> task.getException().printStackTrace());
+    this.display = task;
+    this.showProgress(task);
+    executor.execute(task);
   }
 
 }
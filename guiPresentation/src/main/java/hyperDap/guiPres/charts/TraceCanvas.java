@@ -0,0 +1,403 @@
+package hyperDap.guiPres.charts;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import hyperDap.base.types.dataSet.DerivDepthList;
+import hyperDap.base.types.dataSet.SummaryIndex;
+import hyperDap.base.types.dataSet.ValueDataSet;
+import javafx.concurrent.Task;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * A chart of a {@link ValueDataSet} and its {@code derivDepths} that is drawn directly onto a
+ * {@link Canvas}, rather than as one {@link javafx.scene.chart.XYChart.Data XYChart.Data} node per
+ * data point.
+ * <p>
+ * The visible range of the DataSet is reduced to an {@link Envelope} of one column per pixel,
+ * holding the smallest and largest valid value as well as the dominant {@code derivDepth} of the
+ * indices within that column. Each column is then drawn as a vertical line between its minimum and
+ * maximum, so drawing takes time proportional to the width of the chart regardless of the size of
+ * the DataSet. The columns are summarised with the {@link SummaryIndex} of the DataSet, so each
+ * takes {@code O(log n)} time however many data points it covers, and zooming or panning over
+ * large traces does not scan them again. Below the trace, the {@code derivDepths} are drawn as a
+ * strip coloured by class, where a column containing a point of interest ({@code -1}) is always
+ * shown as such. Once the visible range holds fewer data points than there are pixels, they are
+ * drawn as a line instead.
+ * <p>
+ * Envelopes are computed by a {@link Task} on a background thread whenever the visible range or
+ * the size of the chart changes, and the previous image is kept until it completes. Dragging with
+ * the mouse pans the visible range, scrolling zooms around the mouse position and a double click
+ * shows the whole DataSet again.
+ * <p>
+ * As with {@link DisplayDataSet}, the DataSet must not be altered while it is being displayed.
+ *
+ * @author soenk
+ *
+ */
+public class TraceCanvas extends Region {
+
+  /**
+   * The height in pixels of the {@code derivDepth} strip below the trace.
+   */
+  private static final double STRIP_HEIGHT = 14.0;
+  /**
+   * The space in pixels between the trace and the edges of the chart, which holds the labels.
+   */
+  private static final double MARGIN = 16.0;
+  /**
+   * The colours of the {@code derivDepth} classes by their slot, see {@link #slot(int)}.
+   */
+  private static final Color[] colours = {Color.GREY, Color.STEELBLUE, Color.SEAGREEN,
+      Color.GOLDENROD, Color.CRIMSON, Color.DARKORANGE, Color.MEDIUMPURPLE, Color.LIGHTGREY};
+  /**
+   * The slot of columns that hold no {@code derivDepths}.
+   */
+  private static final int EMPTY = -1;
+  /**
+   * Executes the {@link Task Tasks} computing envelopes, on a daemon thread such that it never
+   * prevents the application from terminating.
+   */
+  private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, TraceCanvas.class.getSimpleName());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Canvas canvas = new Canvas();
+  private ValueDataSet<? extends Number> set;
+  private double viewStart = 0;
+  private double viewLength = 0;
+  private Envelope envelope;
+  private Task<Envelope> computation;
+  private double dragX;
+
+  /**
+   * The default constructor.
+   */
+  public TraceCanvas() {
+    super();
+    this.getChildren().add(this.canvas);
+    this.setMinSize(100, 100);
+    this.setPrefSize(800, 400);
+    this.setOnMousePressed(event -> this.dragX = event.getX());
+    this.setOnMouseDragged(event -> {
+      double perPixel = this.viewLength / Math.max(1.0, this.canvas.getWidth());
+      this.setView(this.viewStart - (event.getX() - this.dragX) * perPixel, this.viewLength);
+      this.dragX = event.getX();
+    });
+    this.setOnScroll(event -> {
+      double factor = event.getDeltaY() > 0 ? 0.8 : 1.25;
+      double anchor =
+          this.viewStart + this.viewLength * event.getX() / Math.max(1.0, this.canvas.getWidth());
+      double length = this.viewLength * factor;
+      this.setView(anchor - (anchor - this.viewStart) * factor, length);
+    });
+    this.setOnMouseClicked(event -> {
+      if (event.getClickCount() == 2 && this.set != null) {
+        this.setView(0, this.set.size());
+      }
+    });
+  }
+
+  // envelope
+  // ****************************************************************************************
+
+  /**
+   * The reduction of a range of a DataSet to one column per pixel.
+   *
+   * @author soenk
+   *
+   */
+  private static final class Envelope {
+
+    private final double start;
+    private final double length;
+    private final int columns;
+    private final double[] mins;
+    private final double[] maxs;
+    private final int[] slots;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private Envelope(double start, double length, int columns) {
+      this.start = start;
+      this.length = length;
+      this.columns = columns;
+      this.mins = new double[columns];
+      this.maxs = new double[columns];
+      this.slots = new int[columns];
+    }
+
+  }
+
+  /**
+   * The slot of a {@code derivDepth} in {@link #colours}.
+   *
+   * @category helper
+   * @param derivDepth The {@code derivDepth} to be coloured.
+   * @return The slot of its class.
+   */
+  private static int slot(int derivDepth) {
+    if (derivDepth >= 0 && derivDepth <= 3) {
+      return derivDepth;
+    }
+    if (derivDepth >= -3 && derivDepth <= -1) {
+      return 3 - derivDepth;
+    }
+    return colours.length - 1;
+  }
+
+  /**
+   * Computes the envelope of the indices from {@code start} to {@code start + length} of
+   * {@code set} in {@code columns} columns.
+   *
+   * @category helper
+   * @param set The DataSet to be reduced.
+   * @param start The first visible index, which may be fractional.
+   * @param length The number of visible indices.
+   * @param columns The number of columns, i.e. the width of the chart in pixels.
+   * @param task The task computing the envelope, checked for cancellation after each column.
+   * @return The envelope, or {@code null} if {@code task} was cancelled.
+   */
+  private static Envelope computeEnvelope(ValueDataSet<? extends Number> set, double start,
+      double length, int columns, Task<?> task) {
+    Envelope envelope = new Envelope(start, length, columns);
+    SummaryIndex index = set.getSummaryIndex();
+    int size = set.size();
+    for (int c = 0; c < columns; c++) {
+      if (task.isCancelled() == true) {
+        return null;
+      }
+      int from = (int) Math.max(0, Math.floor(start + length * c / columns));
+      int to = (int) Math.min(size, Math.floor(start + length * (c + 1) / columns));
+      if (from >= to) {
+        envelope.mins[c] = Double.POSITIVE_INFINITY;
+        envelope.maxs[c] = Double.NEGATIVE_INFINITY;
+        envelope.slots[c] = EMPTY;
+        continue;
+      }
+      SummaryIndex.Summary summary = index.summarise(from, to);
+      envelope.mins[c] = summary.getMin();
+      envelope.maxs[c] = summary.getMax();
+      envelope.min = Math.min(envelope.min, summary.getMin());
+      envelope.max = Math.max(envelope.max, summary.getMax());
+      // points of interest are always shown, otherwise the most frequent class
+      if (summary.countDerivDepth(DerivDepthList.CHANGE) > 0) {
+        envelope.slots[c] = slot(DerivDepthList.CHANGE);
+      } else {
+        envelope.slots[c] = slot(summary.getDominantDerivDepth());
+      }
+    }
+    return envelope;
+  }
+
+  // view
+  // ****************************************************************************************
+
+  /**
+   * Display {@code dataSet}, showing all of its values.
+   *
+   * @param dataSet The DataSet to be displayed.
+   */
+  public void setDataSet(ValueDataSet<? extends Number> dataSet) {
+    this.set = dataSet;
+    this.envelope = null;
+    this.setView(0, dataSet.size());
+  }
+
+  /**
+   * Show the indices from {@code start} to {@code start + length} of the DataSet. The range is
+   * limited to the indices of the DataSet.
+   *
+   * @param start The first index to be shown, which may be fractional.
+   * @param length The number of indices to be shown, at least {@code 2}.
+   */
+  public void setView(double start, double length) {
+    if (this.set == null) {
+      return;
+    }
+    int size = this.set.size();
+    this.viewLength = Math.max(2.0, Math.min(length, size));
+    this.viewStart = Math.max(0.0, Math.min(start, size - this.viewLength));
+    this.recompute();
+  }
+
+  /**
+   * Cancels the computation of an envelope in progress, if any.
+   */
+  public void cancel() {
+    if (this.computation != null) {
+      this.computation.cancel(true);
+      this.computation = null;
+    }
+  }
+
+  /**
+   * Starts computing the envelope of the current view in the background, cancelling any
+   * computation in progress, and redraws once it completes.
+   *
+   * @category helper
+   */
+  private void recompute() {
+    this.cancel();
+    int columns = (int) Math.ceil(this.canvas.getWidth());
+    if (this.set == null || columns <= 0 || this.set.isEmpty()) {
+      this.redraw();
+      return;
+    }
+    ValueDataSet<? extends Number> set = this.set;
+    double start = this.viewStart;
+    double length = this.viewLength;
+    Task<Envelope> task = new Task<Envelope>() {
+      @Override
+      protected Envelope call() {
+        return computeEnvelope(set, start, length, columns, this);
+      }
+    };
+    task.setOnSucceeded(event -> {
+      this.envelope = task.getValue();
+      this.redraw();
+    });
+    task.setOnFailed(event -> task.getException().printStackTrace());
+    this.computation = task;
+    executor.execute(task);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Resizes the canvas to fill this region and recomputes the envelope for the new width.
+   */
+  @Override
+  protected void layoutChildren() {
+    double width = this.snapSizeX(this.getWidth());
+    double height = this.snapSizeY(this.getHeight());
+    if (width != this.canvas.getWidth() || height != this.canvas.getHeight()) {
+      this.canvas.setWidth(width);
+      this.canvas.setHeight(height);
+      this.recompute();
+    }
+  }
+
+  // drawing
+  // ****************************************************************************************
+
+  /**
+   * Draws the current envelope onto the canvas.
+   *
+   * @category helper
+   */
+  private void redraw() {
+    GraphicsContext gc = this.canvas.getGraphicsContext2D();
+    double width = this.canvas.getWidth();
+    double height = this.canvas.getHeight();
+    gc.clearRect(0, 0, width, height);
+    Envelope envelope = this.envelope;
+    if (envelope == null || envelope.columns > width || envelope.min > envelope.max) {
+      return;
+    }
+    double top = MARGIN;
+    double bottom = height - MARGIN - STRIP_HEIGHT - 2;
+    double span = envelope.max - envelope.min;
+    double scale = span > 0 ? (bottom - top) / span : 0;
+    double centre = (top + bottom) / 2;
+    // the trace
+    gc.setStroke(Color.NAVY);
+    gc.setLineWidth(1.0);
+    if (envelope.length <= envelope.columns) {
+      this.drawPoints(gc, envelope, width, top, scale, centre);
+    } else {
+      double previousMin = Double.NaN;
+      double previousMax = Double.NaN;
+      for (int c = 0; c < envelope.columns; c++) {
+        if (envelope.mins[c] > envelope.maxs[c]) {
+          previousMin = Double.NaN;
+          continue; // no valid values
+        }
+        double low = envelope.mins[c];
+        double high = envelope.maxs[c];
+        if (Double.isNaN(previousMin) == false) {
+          // connect to the previous column
+          low = Math.min(low, previousMax);
+          high = Math.max(high, previousMin);
+        }
+        previousMin = envelope.mins[c];
+        previousMax = envelope.maxs[c];
+        double x = c + 0.5;
+        gc.strokeLine(x, this.y(high, envelope, top, scale, centre), x,
+            this.y(low, envelope, top, scale, centre));
+      }
+    }
+    // the derivDepth strip
+    double stripTop = height - MARGIN - STRIP_HEIGHT;
+    for (int c = 0; c < envelope.columns; c++) {
+      if (envelope.slots[c] != EMPTY) {
+        gc.setFill(colours[envelope.slots[c]]);
+        gc.fillRect(c, stripTop, 1, STRIP_HEIGHT);
+      }
+    }
+    // labels
+    gc.setFill(Color.BLACK);
+    gc.fillText(String.format("%.4g", envelope.max), 2, top - 3);
+    gc.fillText(String.format("%.4g", envelope.min), 2, bottom + 12);
+    double base = this.set.getBase();
+    double step = this.set.getStep();
+    gc.fillText(String.format("x: %.4g to %.4g", base + envelope.start * step,
+        base + (envelope.start + envelope.length) * step), 2, height - 3);
+  }
+
+  /**
+   * Draws the valid data points of a view narrower than the chart as connected lines.
+   *
+   * @category helper
+   * @param gc The {@link GraphicsContext} of the canvas.
+   * @param envelope The envelope of the view, which determines the vertical scale.
+   * @param width The width of the canvas.
+   * @param top The vertical position of the largest value.
+   * @param scale The number of pixels per unit of value.
+   * @param centre The vertical position of all values if they are equal.
+   */
+  private void drawPoints(GraphicsContext gc, Envelope envelope, double width, double top,
+      double scale, double centre) {
+    int from = (int) Math.floor(envelope.start);
+    int to = (int) Math.min(this.set.size(), Math.ceil(envelope.start + envelope.length) + 1);
+    double perIndex = width / envelope.length;
+    double previousX = Double.NaN;
+    double previousY = Double.NaN;
+    for (int i = from; i < to; i++) {
+      if (this.set.getValidByIndex(i) == false) {
+        previousX = Double.NaN;
+        continue;
+      }
+      double x = (i - envelope.start) * perIndex;
+      double y = this.y(this.set.getByIndex(i).doubleValue(), envelope, top, scale, centre);
+      if (Double.isNaN(previousX) == false) {
+        gc.strokeLine(previousX, previousY, x, y);
+      }
+      previousX = x;
+      previousY = y;
+    }
+  }
+
+  /**
+   * The vertical position of {@code value} on the canvas.
+   *
+   * @category helper
+   * @param value The value to be drawn.
+   * @param envelope The envelope of the view, which determines the vertical scale.
+   * @param top The vertical position of the largest value.
+   * @param scale The number of pixels per unit of value.
+   * @param centre The vertical position of all values if they are equal.
+   * @return The vertical position in pixels.
+   */
+  private double y(double value, Envelope envelope, double top, double scale, double centre) {
+    if (scale == 0) {
+      return centre;
+    }
+    return top + (envelope.max - value) * scale;
+  }
+
+}
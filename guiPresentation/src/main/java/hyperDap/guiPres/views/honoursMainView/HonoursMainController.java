@@ -3,14 +3,17 @@ package hyperDap.guiPres.views.honoursMainView;
 import java.util.HashMap;
 import java.util.Map;
 import hyperDap.base.types.dataSet.ValueDataSet;
-import hyperDap.guiPres.charts.DisplayDataSet;
+import hyperDap.guiPres.charts.TraceCanvas;
 import hyperDap.guiPres.fxEncapsulation.GUIMainForFX;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
 /**
@@ -70,7 +73,8 @@ public class HonoursMainController {
   @FXML
   Button exitButton;
 
-  private DisplayDataSet setChart;
+  private ProgressBar progress;
+  private TraceCanvas setChart;
 
   /**
    * Constructor.
@@ -99,8 +103,12 @@ public class HonoursMainController {
     this.didiMap.put(didi8, "noise");
 
     // the graphs used for display
-    this.setChart = new DisplayDataSet();
-    this.graphBox.getChildren().add(this.setChart);
+    this.progress = new ProgressBar(0.0);
+    this.progress.setMaxWidth(Double.MAX_VALUE);
+    this.progress.setVisible(false);
+    this.setChart = new TraceCanvas();
+    VBox.setVgrow(this.setChart, Priority.ALWAYS);
+    this.graphBox.getChildren().addAll(this.progress, this.setChart);
 
     // a boolean property to help unfocus at startup. Credit:
     // https://stackoverflow.com/questions/29051225/remove-default-focus-from-textfield-javafx
@@ -225,10 +233,21 @@ public class HonoursMainController {
     this.main = guiMain;
   }
 
+  /**
+   * Shows the progress of {@code task}, which prepares a new DataSet to be displayed. Any display
+   * still in progress is cancelled, as its data is about to be replaced.
+   * 
+   * @param task The {@link Task} whose progress is to be shown.
+   */
+  public void showProgress(Task<?> task) {
+    this.setChart.cancel();
+    this.progress.progressProperty().bind(task.progressProperty());
+    this.progress.visibleProperty().bind(task.runningProperty());
+  }
+
   public void displayDataSet(ValueDataSet<? extends Number> dataSet) {
     System.out.println("Displaying new DataSet");
     this.setChart.setDataSet(dataSet);
-    // this.setChart.showData();
   }
 
 }